@@ -0,0 +1,109 @@
+package de.unibi.citec.clf.bonsai.ros;
+
+import de.unibi.citec.clf.bonsai.core.exception.CoreObjectCreationException;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Starts nodes of the {@link RosFactory}. Every node is created, spawned and awaited by one task, the pool bounds
+ * the nodes starting at once.
+ */
+class NodeStartupPool {
+
+    private static final Logger logger = Logger.getLogger(NodeStartupPool.class);
+
+    private final long nodeInitTimeout;
+    private final ExecutorService pool;
+    private final List<CompletableFuture<RosFactory.NodeStartup>> startups = new ArrayList<>();
+
+    /**
+     * @param parallelism     maximal number of nodes that are started at the same time
+     * @param nodeInitTimeout milliseconds to wait for each node to be initialized
+     */
+    NodeStartupPool(int parallelism, long nodeInitTimeout) {
+        this.nodeInitTimeout = nodeInitTimeout;
+        this.pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "RosFactory-init");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param create  creates and spawns the node without waiting for it
+     * @param started called in the pool once the node is initialized
+     */
+    void submit(String key, Callable<RosNode> create, Consumer<RosNode> started) {
+        startups.add(CompletableFuture.supplyAsync(() -> startNode(key, create, started), pool));
+    }
+
+    int size() {
+        return startups.size();
+    }
+
+    /**
+     * Waits for all submitted nodes and shuts the pool down.
+     *
+     * @return one entry per node in submission order
+     */
+    List<RosFactory.NodeStartup> await() {
+        CompletableFuture.allOf(startups.toArray(new CompletableFuture[0])).join();
+        pool.shutdown();
+        List<RosFactory.NodeStartup> report = new ArrayList<>();
+        for (CompletableFuture<RosFactory.NodeStartup> startup : startups) {
+            report.add(startup.join());
+        }
+        return report;
+    }
+
+    /**
+     * Creates a node and waits until it is connected or {@link #nodeInitTimeout} passed.
+     */
+    private RosFactory.NodeStartup startNode(String key, Callable<RosNode> create, Consumer<RosNode> started) {
+        logger.trace("Creating node " + key);
+        RosFactory.NodeStartup startup = new RosFactory.NodeStartup(key);
+        long begin = System.nanoTime();
+        RosNode node;
+        try {
+            node = create.call();
+        } catch (Exception ex) {
+            logger.fatal("object " + key + " cached creation error");
+            startup.createMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            startup.error = (ex instanceof CoreObjectCreationException) ? ex : new CoreObjectCreationException(ex);
+            return startup;
+        }
+        long spawned = System.nanoTime();
+        startup.createMillis = TimeUnit.NANOSECONDS.toMillis(spawned - begin);
+
+        CompletableFuture<Boolean> initialised = node.isInitialised();
+        try {
+            initialised.get(nodeInitTimeout, TimeUnit.MILLISECONDS);
+            started.accept(node);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            startup.error = ex;
+        } catch (ExecutionException ex) {
+            logger.warn(ex);
+            startup.error = ex;
+        } catch (TimeoutException ex) {
+            logger.warn("node is not started " + key);
+            startup.error = new CoreObjectCreationException("node is not started: " + key + " check stderr for output");
+        } finally {
+            // stops polling nodes that assign the initialized field directly
+            initialised.cancel(false);
+        }
+        startup.connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - spawned);
+        return startup;
+    }
+
+}
@@ -37,6 +37,8 @@ public class RosFactory implements CoreObjectFactory {
     //
     private static final String KEY_NODE_INIT_TIMEOUT = "NODE_INIT_TIMEOUT";
     private static final String KEY_INIT_SLEEP_TIME = "INIT_SLEEP_TIME";
+    private static final String KEY_INIT_PARALLELISM = "INIT_PARALLELISM";
+    private static final int DEFAULT_INIT_PARALLELISM = 8;
     protected ServiceDiscovery serviceDiscoverySensor = new ReflectionServiceDiscovery(SERVICE_PKG_SENSOR);
     protected ServiceDiscovery serviceDiscoveryActuator = new ReflectionServiceDiscovery(SERVICE_PKG_ACTUATOR);
     protected Set<Class<? extends RosNode>> knownActuators = new HashSet<>();
@@ -50,8 +52,21 @@ public class RosFactory implements CoreObjectFactory {
     private NodeMainExecutor nodeMainExecutor;
     private URI rosMasterUri;
     private CoordinateTransformer coordinateTransformer;
+    /**
+     * Option of the {@link TFTransformer}: seconds of transform history kept per frame.
+     */
+    private static final String KEY_TF_HISTORY = "historySeconds";
     private long nodeInitTimeout = 5000;
-    private long sleepTime = 1000;
+    /**
+     * Additional time to wait after all nodes are started.
+     */
+    private long sleepTime = 0;
+    /**
+     * Maximal number of nodes that are started at the same time.
+     */
+    private int initParallelism = DEFAULT_INIT_PARALLELISM;
+    private String rosHost;
+    private List<NodeStartup> startupReport = Collections.emptyList();
 
     /**
      * Constructor.
@@ -91,7 +106,7 @@ public class RosFactory implements CoreObjectFactory {
             }
         }
         logger.info("running nodes on: " + local);
-
+        rosHost = local;
 
     }
 
@@ -101,34 +116,24 @@ public class RosFactory implements CoreObjectFactory {
      */
     public void spawnRosNode(RosNode node, boolean wait) throws TimeoutException, ExecutionException, InterruptedException {
 
-
-        String local = System.getenv("ROS_IP");
-        if (local == null || local.isEmpty()) {
-            logger.warn("ROS_IP not set");
-            //local;= InetAddressFactory.newNonLoopback().getHostAddress();
-            //local = "127.0.0.1";
-
-            local = System.getenv("basepc");
-            if (local == null || local.isEmpty()) {
-                logger.debug("basepc not set, using 127.0.0.1");
-                try {
-                    local = InetAddressFactory.newNonLoopback().getHostName();
-                } catch (org.ros.exception.RosRuntimeException e) {
-                    local = InetAddressFactory.newLoopback().getHostName();
-                }
-
-            }
-        }
-
-        logger.debug("running node: '" + node.getDefaultNodeName() +"' on: " + local + " , master: " + rosMasterUri);
-        NodeConfiguration c = NodeConfiguration.newPublic(local, rosMasterUri);
+        logger.debug("running node: '" + node.getDefaultNodeName() +"' on: " + rosHost + " , master: " + rosMasterUri);
+        NodeConfiguration c = NodeConfiguration.newPublic(rosHost, rosMasterUri);
         c.setNodeName(node.getDefaultNodeName());
         nodeMainExecutor.execute(node, c);
         //wait for node to be initialized
-        if (wait && !node.isInitialised().get(nodeInitTimeout, TimeUnit.MILLISECONDS)) {
-            throw new ExecutionException(new TimeoutException("could not start node in " + nodeInitTimeout));
+        if (wait) {
+            node.isInitialised().get(nodeInitTimeout, TimeUnit.MILLISECONDS);
+            logger.debug(node.getDefaultNodeName() + " started");
         }
-        logger.debug(node.getDefaultNodeName() + " started");
+    }
+
+    /**
+     * Timing of the node starts of the last {@link #createAndCacheAllConfiguredObjects()}.
+     *
+     * @return one entry per node, slowest first
+     */
+    public List<NodeStartup> getStartupReport() {
+        return startupReport;
     }
 
     /**
@@ -357,7 +362,16 @@ public class RosFactory implements CoreObjectFactory {
 
         if (transformer.getTransformerClass().equals(TFTransformer.class)) {
             if (coordinateTransformer == null || !(coordinateTransformer instanceof TFTransformer)) {
-                coordinateTransformer = new TFTransformer(GraphName.of(RosNode.NODE_PREFIX + "tf"), GraphName.of(RosNode.NODE_PREFIX + "tf2"));
+                double history = TFQuene.DEFAULT_HISTORY_SECONDS;
+                Map<String, String> options = transformer.getTransformerOptions();
+                if (options != null && options.containsKey(KEY_TF_HISTORY)) {
+                    try {
+                        history = Double.parseDouble(options.get(KEY_TF_HISTORY));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("option " + KEY_TF_HISTORY + " is not a number: " + options.get(KEY_TF_HISTORY));
+                    }
+                }
+                coordinateTransformer = new TFTransformer(GraphName.of(RosNode.NODE_PREFIX + "tf"), GraphName.of(RosNode.NODE_PREFIX + "tf2"), history);
             }
         } else if (transformer.getTransformerClass().equals(TfRosjavaWrapper.class)) {
             if (coordinateTransformer == null || !(coordinateTransformer instanceof TfRosjavaWrapper)) {
@@ -422,9 +436,6 @@ public class RosFactory implements CoreObjectFactory {
         if (actuator instanceof RosNode) {
             try {
                 spawnRosNode((RosNode) actuator, wait);
-                if (wait) {
-                    TimeUnit.MILLISECONDS.sleep(sleepTime);
-                }
             } catch (InterruptedException | ExecutionException | TimeoutException ex) {
                 logger.error(ex);
                 throw new CoreObjectCreationException("cant execute node for: " + actuator.getClass());
@@ -503,9 +514,6 @@ public class RosFactory implements CoreObjectFactory {
         if (sensor instanceof RosNode) {
             try {
                 spawnRosNode((RosNode) sensor, wait);
-                if (wait) {
-                    TimeUnit.MILLISECONDS.sleep(sleepTime);
-                }
             } catch (InterruptedException | ExecutionException | TimeoutException ex) {
                 logger.error(ex);
                 throw new CoreObjectCreationException("cant execute node for: " + sensor.getClass());
@@ -566,11 +574,16 @@ public class RosFactory implements CoreObjectFactory {
         try {
             nodeInitTimeout = MapReader.readConfigLong(KEY_NODE_INIT_TIMEOUT, nodeInitTimeout, options);
             sleepTime = MapReader.readConfigLong(KEY_INIT_SLEEP_TIME, sleepTime, options);
+            initParallelism = MapReader.readConfigInteger(KEY_INIT_PARALLELISM, initParallelism, options);
         } catch (MapReader.KeyNotFound keyNotFound) {
             throw new IllegalArgumentException(keyNotFound);
         }
+        if (initParallelism <= 0) {
+            throw new IllegalArgumentException(KEY_INIT_PARALLELISM + " must be positive: " + initParallelism);
+        }
         logger.info("set node init timeout to " + nodeInitTimeout);
         logger.info("set init sleep time to " + sleepTime);
+        logger.info("set init parallelism to " + initParallelism);
 
 
         knownActuators = serviceDiscoveryActuator.discoverServicesByInterface(RosNode.class);
@@ -673,114 +686,149 @@ public class RosFactory implements CoreObjectFactory {
     public FactoryConfigurationResults createAndCacheAllConfiguredObjects() throws CoreObjectCreationException {
         logger.debug("createAndCacheAllConfiguredObjects()");
         FactoryConfigurationResults res = new FactoryConfigurationResults();
-        Queue<RosNode> nodesQuene = new ConcurrentLinkedQueue<>();
+        long begin = System.nanoTime();
 
+        NodeStartupPool startups = new NodeStartupPool(initParallelism, nodeInitTimeout);
 
         if (coordinateTransformer != null) {
             logger.debug("starting coordinateTransformer ");
+            List<RosNode> tfNodes = new ArrayList<>();
             if (coordinateTransformer instanceof TFTransformer) {
                 TFTransformer c = (TFTransformer) coordinateTransformer;
-                logger.debug("data: " + c.getNode().initialized);
-                try {
-                    if(!c.getNode().connectionsAlive()) spawnRosNode(c.getNode(), false);
-                    if(!c.getNode2().connectionsAlive()) spawnRosNode(c.getNode2(), false);
-                } catch (TimeoutException | ExecutionException | InterruptedException e) {
-                    logger.error(e);
-                }
-                nodesQuene.add(c.getNode());
-                nodesQuene.add(c.getNode2());
-
-            } else  if (coordinateTransformer instanceof TFTransformerTimestamps) {
+                tfNodes.add(c.getNode());
+                tfNodes.add(c.getNode2());
+            } else if (coordinateTransformer instanceof TFTransformerTimestamps) {
                 TFTransformerTimestamps c = (TFTransformerTimestamps) coordinateTransformer;
-                try {
-                    if(!c.getNode().connectionsAlive()) spawnRosNode(c.getNode(), false);
-                    if(!c.getNode2().connectionsAlive()) spawnRosNode(c.getNode2(), false);
-                } catch (TimeoutException | ExecutionException | InterruptedException e) {
-                    logger.error(e);
-                }
-                nodesQuene.add(c.getNode());
-                nodesQuene.add(c.getNode2());
-
-            }else {
+                tfNodes.add(c.getNode());
+                tfNodes.add(c.getNode2());
+            } else {
                 TfRosjavaWrapper c = (TfRosjavaWrapper) coordinateTransformer;
-                try {
-                    if(!c.getNode().connectionsAlive()) spawnRosNode(c.getNode(), false);
-                } catch (TimeoutException | ExecutionException | InterruptedException e) {
-                    logger.error(e);
-                }
-                nodesQuene.add(c.getNode());
+                tfNodes.add(c.getNode());
+            }
+            for (RosNode node : tfNodes) {
+                String name = node.getDefaultNodeName().toString();
+                startups.submit(name, () -> {
+                    if (!node.connectionsAlive()) spawnRosNode(node, false);
+                    return node;
+                }, this::nodeStarted);
             }
         }
 
-        configuredObjectsByKey.entrySet().parallelStream().forEach((entry) -> {
-            String key = entry.getKey();
-            ConfiguredObject obj = entry.getValue();
-
-            RosNode node;
-            logger.trace("Creating node " + key);
-
-            try {
-                if (obj instanceof ConfiguredActuator) {
-                    if (isActuatorInitialized.getOrDefault(key,false)) {
-                        logger.trace("already Initialized");
-                    } else {
-                        ConfiguredActuator act = (ConfiguredActuator) obj;
-                        node = (RosNode) createActuator(key, act.clazz, false);
-                        nodesQuene.add(node);
-                    }
-                } else if (obj instanceof ConfiguredSensor) {
-                    if(isSensorInitialized.getOrDefault(key,false)) {
-                        logger.trace("already Initialized");
-                    } else {
-                        ConfiguredSensor sen = (ConfiguredSensor) obj;
-                        node = (RosNode) createSensor(key, sen.clazz, false);
-                        nodesQuene.add(node);
-                    }
-                } else {
-                    throw new CoreObjectCreationException("?");
+        configuredObjectsByKey.forEach((key, obj) -> {
+            if (obj instanceof ConfiguredActuator) {
+                if (isActuatorInitialized.getOrDefault(key, false)) {
+                    logger.trace("already Initialized " + key);
+                    return;
                 }
-
-            } catch (ClassCastException | IllegalArgumentException | CoreObjectCreationException ex) {
+                startups.submit(key, () -> (RosNode) createActuator(key, obj.clazz, false), this::nodeStarted);
+            } else if (obj instanceof ConfiguredSensor) {
+                if (isSensorInitialized.getOrDefault(key, false)) {
+                    logger.trace("already Initialized " + key);
+                    return;
+                }
+                startups.submit(key, () -> (RosNode) createSensor(key, obj.clazz, false), this::nodeStarted);
+            } else {
                 logger.fatal("object " + key + " with class " + obj.clazz + " cached creation error");
             }
         });
 
-        logger.debug("Waiting for all nodes to connect in " + nodeInitTimeout + "ms");
+        logger.debug("Waiting for " + startups.size() + " nodes to connect in " + nodeInitTimeout + "ms each");
+        List<NodeStartup> report = startups.await();
+        for (NodeStartup s : report) {
+            if (s.getError() != null) {
+                res.exceptions.add(s.getError());
+            }
+        }
+        report.sort(Comparator.comparingLong(NodeStartup::getTotalMillis).reversed());
+        startupReport = Collections.unmodifiableList(report);
+        logStartupReport(report, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
 
-        nodesQuene.parallelStream().forEach((node) -> {
-            String key = node.getKey();
+        if (sleepTime > 0) {
+            logger.debug("Sleep additional " + sleepTime);
             try {
-                if (!node.isInitialised().get(nodeInitTimeout, TimeUnit.MILLISECONDS)) {
-                    logger.warn("node is not started " + key + " " + node.initialized);
-                    res.exceptions.add(new CoreObjectCreationException("node is not started " + key));
-                } else {
-                    if (node instanceof Sensor) {
-                        isSensorInitialized.put(key, true);
-                        initializedSensorsByKey.put(key, (Sensor) node);
-                    } else if (node instanceof Actuator) {
-                        isActuatorInitialized.put(key, true);
-                        initializedActuatorsByKey.put(key, (Actuator) node);
-                    }
-                }
-            } catch (InterruptedException | ExecutionException ex) {
-                logger.warn(ex);
-                res.exceptions.add(ex);
-            } catch (TimeoutException ex) {
-                res.exceptions.add(new CoreObjectCreationException("node is not started: " + node.getKey() + " " + node.initialized + " check stderr for output"));
+                TimeUnit.MILLISECONDS.sleep(sleepTime);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
-        });
-
-        logger.debug("Sleep additional " + sleepTime);
-        try {
-            TimeUnit.MILLISECONDS.sleep(sleepTime);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
         }
 
         logger.debug("all nodes should be started now");
         return res;
     }
 
+    private void nodeStarted(RosNode node) {
+        if (node instanceof Sensor) {
+            isSensorInitialized.put(node.getKey(), true);
+            initializedSensorsByKey.put(node.getKey(), (Sensor) node);
+        } else if (node instanceof Actuator) {
+            isActuatorInitialized.put(node.getKey(), true);
+            initializedActuatorsByKey.put(node.getKey(), (Actuator) node);
+        }
+    }
+
+    private void logStartupReport(List<NodeStartup> report, long totalMillis) {
+        long failed = report.stream().filter(s -> s.getError() != null).count();
+        logger.info("started " + (report.size() - failed) + " of " + report.size() + " nodes in " + totalMillis
+                + "ms with parallelism " + initParallelism);
+        for (NodeStartup s : report) {
+            if (s.getError() != null) {
+                logger.warn("  " + s);
+            } else {
+                logger.info("  " + s);
+            }
+        }
+    }
+
+    /**
+     * Timing of the start of one node.
+     */
+    public static final class NodeStartup {
+
+        private final String key;
+        long createMillis;
+        long connectMillis;
+        Exception error;
+
+        NodeStartup(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return time to create, configure and spawn the node
+         */
+        public long getCreateMillis() {
+            return createMillis;
+        }
+
+        /**
+         * @return time from spawning until the node was connected or the timeout
+         */
+        public long getConnectMillis() {
+            return connectMillis;
+        }
+
+        public long getTotalMillis() {
+            return createMillis + connectMillis;
+        }
+
+        /**
+         * @return the reason the node did not start or <code>null</code>
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            String timing = key + ": created " + createMillis + "ms, connected " + connectMillis + "ms";
+            return (error == null) ? timing : timing + ", failed: " + error.getMessage();
+        }
+    }
+
     private class ConfiguredObject {
 
         public Class clazz;
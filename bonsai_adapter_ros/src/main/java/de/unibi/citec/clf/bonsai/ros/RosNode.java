@@ -1,22 +1,29 @@
 package de.unibi.citec.clf.bonsai.ros;
 
 
-import org.apache.log4j.Logger;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 /**
  * @author lruegeme
  */
 public abstract class RosNode extends AbstractNodeMain {
 
-    private Logger logger = Logger.getLogger(getClass());
-    public boolean initialized = false;
+    /**
+     * Milliseconds between checks of {@link #initialized} while a caller waits for a node that assigns it directly.
+     */
+    private static final long LEGACY_POLL_MILLIS = 10;
+
+    /**
+     * Set by {@link #markInitialized()}. Subclasses that still assign it directly are noticed by
+     * {@link #isInitialised()}, but only within {@link #LEGACY_POLL_MILLIS}.
+     */
+    public volatile boolean initialized = false;
+    private final Object startLock = new Object();
+    private volatile CompletableFuture<Boolean> started = new CompletableFuture<>();
     public static final String NODE_PREFIX = "/bonsai/ros/";
     private String key = "";
 
@@ -40,50 +47,66 @@ public abstract class RosNode extends AbstractNodeMain {
 
     public abstract void destroyNode();
 
-    public Future<Boolean> isInitialised() {
-        return new Future<Boolean>() {
-            @Override
-            public boolean cancel(boolean bln) {
-                return false;
-            }
+    /**
+     * Marks this node as started, usually at the end of {@link #onStart(ConnectedNode)}. Completes the future of
+     * {@link #isInitialised()}.
+     */
+    protected void markInitialized() {
+        synchronized (startLock) {
+            initialized = true;
+            started.complete(true);
+        }
+    }
 
-            @Override
-            public boolean isCancelled() {
-                return false;
+    /**
+     * Marks this node as not started. A later {@link #markInitialized()} completes a new future.
+     */
+    protected void resetInitialized() {
+        synchronized (startLock) {
+            initialized = false;
+            if (started.isDone()) {
+                started = new CompletableFuture<>();
             }
+        }
+    }
 
-            @Override
-            public boolean isDone() {
-                return initialized;
+    /**
+     * The future also completes if the node assigns <code>initialized = true</code> instead of calling
+     * {@link #markInitialized()}, the field is polled until then. Cancel the future to stop polling when giving up.
+     *
+     * @return a future that completes when the node is started
+     */
+    public CompletableFuture<Boolean> isInitialised() {
+        CompletableFuture<Boolean> result;
+        synchronized (startLock) {
+            if (initialized) {
+                started.complete(true);
+            } else if (started.isDone()) {
+                // the field was reset directly
+                started = new CompletableFuture<>();
             }
+            result = started.copy();
+        }
+        if (!result.isDone()) {
+            pollInitialized(result);
+        }
+        return result;
+    }
 
-            @Override
-            public Boolean get() throws InterruptedException, ExecutionException {
-                if (!initialized) {
-                    //dont do this
-                    throw new ExecutionException("dont get me", new Exception("nope"));
-                }
-                return true;
+    private void pollInitialized(CompletableFuture<Boolean> result) {
+        CompletableFuture.delayedExecutor(LEGACY_POLL_MILLIS, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
             }
-
-            @Override
-            public Boolean get(long l, TimeUnit tu) throws InterruptedException, ExecutionException, TimeoutException {
-                long sleep_millies = tu.toMillis(l);
-                long sleep_step = sleep_millies / 10;
-                logger.trace("get isInitialized for  " + l + tu.toString());
-                while (!initialized && sleep_millies > 0) {
-                    sleep_millies -= sleep_step;
-                    Thread.sleep(sleep_step);
-                }
-
-                if (!initialized) {
-                    logger.trace("isInitialized false after " + l + tu.toString());
-                    throw new TimeoutException("not initialized after " + l + tu.toString());
+            if (initialized) {
+                synchronized (startLock) {
+                    started.complete(true);
                 }
-                return initialized;
+                result.complete(true);
+            } else {
+                pollInitialized(result);
             }
-        };
+        });
     }
 
-
 }
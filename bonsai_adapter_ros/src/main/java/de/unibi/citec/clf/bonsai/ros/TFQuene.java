@@ -17,24 +17,33 @@
 package de.unibi.citec.clf.bonsai.ros;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Maps;
 
+import de.unibi.citec.clf.bonsai.core.exception.ExtrapolationException;
+import de.unibi.citec.clf.bonsai.core.exception.TransformException;
+import de.unibi.citec.clf.bonsai.util.tf.TransformSample;
+import de.unibi.citec.clf.bonsai.util.tf.TransformTree;
 import geometry_msgs.TransformStamped;
 import org.apache.log4j.Logger;
-import org.ros.concurrent.CircularBlockingDeque;
 import org.ros.message.Time;
 import org.ros.namespace.GraphName;
-import org.ros.rosjava_geometry.LazyFrameTransform;
 import org.ros.rosjava_geometry.FrameTransform;
+import org.ros.rosjava_geometry.Quaternion;
 import org.ros.rosjava_geometry.Transform;
+import org.ros.rosjava_geometry.Vector3;
 
-import java.util.Map;
+import javax.vecmath.Quat4d;
+import javax.vecmath.Vector3d;
 
 /**
- * A tree of {@link TFQuene}s.
+ * A tree of frames, backed by the {@link TransformTree} that is shared with the ROS2 adapter.
  * <p>
- * {@link TFQuene} does not currently support time travel. Lookups
- * always use the newest {@link TransformStamped}.
+ * Every frame keeps a time-sorted history of its transforms to the parent frame. Lookups with a {@link Time}
+ * interpolate between the two bracketing samples and fail outside of the history, lookups without a time use the
+ * newest {@link TransformStamped}.
+ * <p>
+ * Transforms received with {@link #updateStatic(TransformStamped)} never change. The path of every frame to its
+ * root is cached with static sub-chains precomposed; the cache is invalidated only when the topology changes (new
+ * frames, reparented frames or new static transforms).
  *
  * @author damonkohler@google.com (Damon Kohler)
  * @author moesenle@google.com (Lorenz Moesenlechner)
@@ -43,58 +52,43 @@ public class TFQuene {
 
     protected Logger logger = Logger.getLogger(this.getClass());
 
-    private static final int TRANSFORM_QUEUE_CAPACITY = 16;
-    private int capacity = TRANSFORM_QUEUE_CAPACITY ;
-
-    private final Object mutex;
+    public static final double DEFAULT_HISTORY_SECONDS = TransformTree.DEFAULT_HISTORY_SECONDS;
 
-    /**
-     * A {@link Map} of the most recent {@link LazyFrameTransform} by source
-     * frame. Lookups by target frame or by the pair of source and target are both
-     * unnecessary because every frame can only have exactly one target.
-     */
-    private final Map<GraphName, CircularBlockingDeque<LazyFrameTransform>> transforms;
+    private final TransformTree tree;
 
     public TFQuene() {
-        mutex = new Object();
-        transforms = Maps.newConcurrentMap();
-        capacity = TRANSFORM_QUEUE_CAPACITY;
+        this(DEFAULT_HISTORY_SECONDS);
     }
 
-    public TFQuene(int queneCapacity) {
-        mutex = new Object();
-        transforms = Maps.newConcurrentMap();
-        capacity = queneCapacity;
+    /**
+     * @param historySeconds how long transforms are kept, relative to the newest transform of each frame
+     */
+    public TFQuene(double historySeconds) {
+        Preconditions.checkArgument(historySeconds >= 0, "history must not be negative");
+        tree = new TransformTree(historySeconds);
     }
 
     /**
      * Updates the tree with the provided {@link geometry_msgs.TransformStamped}
      * message.
-     * <p>
-     * Note that the tree is updated lazily. Modifications to the provided
-     * {@link geometry_msgs.TransformStamped} message may cause unpredictable
-     * results.
      *
      * @param transformStamped
      *          the {@link geometry_msgs.TransformStamped} message to update with
      */
     public void update(geometry_msgs.TransformStamped transformStamped) {
         Preconditions.checkNotNull(transformStamped);
-        GraphName source = GraphName.of(transformStamped.getChildFrameId());
-        LazyFrameTransform lazyFrameTransform = new LazyFrameTransform(transformStamped);
-        add(source, lazyFrameTransform);
+        tree.update(toSample(transformStamped));
     }
 
-    private void add(GraphName source, LazyFrameTransform lazyFrameTransform) {
-        // This adds support for tf2 while maintaining backward compatibility with tf.
-        GraphName relativeSource = source.toRelative();
-        if (!transforms.containsKey(relativeSource)) {
-            transforms.put(relativeSource, new CircularBlockingDeque<LazyFrameTransform>(
-                    capacity));
-        }
-        synchronized (mutex) {
-            transforms.get(relativeSource).addFirst(lazyFrameTransform);
-        }
+    /**
+     * Updates the tree with a transform that never changes, as received on {@code /tf_static}.
+     *
+     * @param transformStamped
+     *          the {@link geometry_msgs.TransformStamped} message to update with
+     */
+    public void updateStatic(geometry_msgs.TransformStamped transformStamped) {
+        Preconditions.checkNotNull(transformStamped);
+        tree.updateStatic(toSample(transformStamped));
     }
 
     /**
@@ -108,19 +102,8 @@ public class TFQuene {
     public FrameTransform lookUp(GraphName source) {
         Preconditions.checkNotNull(source);
         // This adds support for tf2 while maintaining backward compatibility with tf.
-        return getLatest(source.toRelative());
-    }
-
-    private FrameTransform getLatest(GraphName source) {
-        CircularBlockingDeque<LazyFrameTransform> deque = transforms.get(source);
-        if (deque == null) {
-            return null;
-        }
-        LazyFrameTransform lazyFrameTransform = deque.peekFirst();
-        if (lazyFrameTransform == null) {
-            return null;
-        }
-        return lazyFrameTransform.get();
+        TransformSample sample = tree.getLatest(source.toRelative().toString());
+        return (sample == null) ? null : toFrameTransform(sample);
     }
 
     /**
@@ -132,49 +115,27 @@ public class TFQuene {
     }
 
     /**
-     * Returns the {@link FrameTransform} for {@code source} closest to
-     * {@code time}.
+     * Returns the {@link FrameTransform} for {@code source} at {@code time},
+     * interpolated between the two closest transforms.
      *
      * @param source
      *          the frame to look up
      * @param time
-     *          the transform for {@code frame} closest to this {@link Time} will
-     *          be returned
-     * @return the most recent {@link FrameTransform} for {@code source} or
+     *          the time to look up
+     * @return the {@link FrameTransform} for {@code source} or
      *         {@code null} if no transform for {@code source} is available
+     *         at {@code time}
      */
     public FrameTransform lookUp(GraphName source, Time time) {
         Preconditions.checkNotNull(source);
         Preconditions.checkNotNull(time);
-        return get(source, time);
-    }
-
-    // TODO(damonkohler): Use an efficient search.
-    private FrameTransform get(GraphName source, Time time) {
-        CircularBlockingDeque<LazyFrameTransform> deque = transforms.get(source);
-        if (deque == null) {
-            return null;
-        }
-        LazyFrameTransform result = null;
-        synchronized (mutex) {
-            long offset = 0;
-            for (LazyFrameTransform lazyFrameTransform : deque) {
-                if (result == null) {
-                    result = lazyFrameTransform;
-                    offset = Math.abs(time.subtract(result.get().getTime()).totalNsecs());
-                    continue;
-                }
-                long newOffset = Math.abs(time.subtract(lazyFrameTransform.get().getTime()).totalNsecs());
-                if (newOffset < offset) {
-                    result = lazyFrameTransform;
-                    offset = newOffset;
-                }
-            }
-        }
-        if (result == null) {
+        try {
+            TransformSample sample = tree.get(source.toRelative().toString(), time.totalNsecs());
+            return (sample == null) ? null : toFrameTransform(sample);
+        } catch (ExtrapolationException e) {
+            logger.error(e.getMessage());
             return null;
         }
-        return result.get();
     }
 
     /**
@@ -186,10 +147,21 @@ public class TFQuene {
     }
 
     /**
-     * @return the {@link FrameTransform} from source the frame to the target
+     * @return the newest {@link FrameTransform} from source the frame to the target
      *         frame, or {@code null} if no {@link FrameTransform} could be found
      */
     public FrameTransform transform(GraphName source, GraphName target) {
+        return transform(source, target, null);
+    }
+
+    /**
+     * @param time
+     *          the time of the transform, {@code null} for the newest
+     * @return the {@link FrameTransform} from source the frame to the target
+     *         frame at {@code time}, or {@code null} if no {@link FrameTransform} could be found,
+     *         also if {@code time} is outside of the history of a frame on the way
+     */
+    public FrameTransform transform(GraphName source, GraphName target, Time time) {
         Preconditions.checkNotNull(source);
         Preconditions.checkNotNull(target);
         // This adds support for tf2 while maintaining backward compatibility with tf.
@@ -198,41 +170,13 @@ public class TFQuene {
         if (relativeSource.equals(relativeTarget)) {
             return new FrameTransform(Transform.identity(), relativeSource, relativeTarget, null);
         }
-        FrameTransform sourceToRoot = transformToRoot(relativeSource);
-        FrameTransform targetToRoot = transformToRoot(relativeTarget);
-        if (sourceToRoot == null && targetToRoot == null) {
-            logger.error("error1");
+        try {
+            return toFrameTransform(tree.lookup(relativeSource.toString(), relativeTarget.toString(),
+                    (time == null) ? 0 : time.totalNsecs()));
+        } catch (TransformException e) {
+            logger.error(e.getMessage());
             return null;
         }
-        if (sourceToRoot == null) {
-            if (targetToRoot.getTargetFrame().equals(relativeSource)) {
-                // relativeSource is root.
-                return targetToRoot.invert();
-            } else {
-                logger.error("error2");
-                return null;
-            }
-        }
-        if (targetToRoot == null) {
-            if (sourceToRoot.getTargetFrame().equals(relativeTarget)) {
-                // relativeTarget is root.
-                return sourceToRoot;
-            } else {
-                logger.error("error3");
-                return null;
-            }
-        }
-        if (sourceToRoot.getTargetFrame().equals(targetToRoot.getTargetFrame())) {
-            // Neither relativeSource nor relativeTarget is root and both share the
-            // same root.
-            Transform transform =
-                    targetToRoot.getTransform().invert().multiply(sourceToRoot.getTransform());
-            return new FrameTransform(transform, relativeSource, relativeTarget, sourceToRoot.getTime());
-        }
-        // No known transform.
-        logger.error("error4");
-        return null;
-
     }
 
     /**
@@ -244,20 +188,34 @@ public class TFQuene {
         return transform(GraphName.of(source), GraphName.of(target));
     }
 
-    FrameTransform transformToRoot(GraphName source) {
-        FrameTransform result = getLatest(source);
-        if (result == null) {
-            return null;
-        }
-        while (true) {
-            FrameTransform resultToParent = lookUp(result.getTargetFrame(), result.getTime());
-            if (resultToParent == null) {
-                return result;
-            }
-            // Now resultToParent.getSourceFrame() == result.getTargetFrame()
-            Transform transform = resultToParent.getTransform().multiply(result.getTransform());
-            GraphName target = resultToParent.getTargetFrame();
-            result = new FrameTransform(transform, source, target, result.getTime());
-        }
+    /**
+     * @see #transform(GraphName, GraphName, Time)
+     */
+    public FrameTransform transform(String source, String target, Time time) {
+        Preconditions.checkNotNull(source);
+        Preconditions.checkNotNull(target);
+        return transform(GraphName.of(source), GraphName.of(target), time);
+    }
+
+    static TransformSample toSample(TransformStamped transformStamped) {
+        geometry_msgs.Vector3 translation = transformStamped.getTransform().getTranslation();
+        geometry_msgs.Quaternion rotation = transformStamped.getTransform().getRotation();
+        return TransformSample.of(transformStamped.getHeader().getStamp().totalNsecs(),
+                transformStamped.getChildFrameId(), transformStamped.getHeader().getFrameId(),
+                translation.getX(), translation.getY(), translation.getZ(),
+                rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW());
+    }
+
+    /**
+     * @return the transform with the time of the sample, {@code null} for static transforms at time 0
+     */
+    static FrameTransform toFrameTransform(TransformSample sample) {
+        Vector3d translation = sample.getTranslation();
+        Quat4d rotation = sample.getRotation();
+        Transform transform = new Transform(new Vector3(translation.x, translation.y, translation.z),
+                new Quaternion(rotation.x, rotation.y, rotation.z, rotation.w));
+        Time time = (sample.getStamp() == 0) ? null : Time.fromNano(sample.getStamp());
+        return new FrameTransform(transform, GraphName.of(sample.getFrame()).toRelative(),
+                GraphName.of(sample.getParent()).toRelative(), time);
     }
 }
@@ -2,9 +2,12 @@ package de.unibi.citec.clf.bonsai.ros
 
 import de.unibi.citec.clf.bonsai.core.exception.TransformException
 import de.unibi.citec.clf.bonsai.util.CoordinateTransformer
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger
 import de.unibi.citec.clf.btl.Transform
+import de.unibi.citec.clf.btl.data.common.Timestamp
+import de.unibi.citec.clf.btl.ros.MsgTypeFactory
+import de.unibi.citec.clf.btl.units.TimeUnit
 import geometry_msgs.TransformStamped
-import org.apache.log4j.Logger
 import org.ros.exception.RosMessageRuntimeException
 import org.ros.message.MessageListener
 import org.ros.namespace.GraphName
@@ -19,9 +22,13 @@ import javax.vecmath.Vector3d
 /**
  * Created by lruegeme on 1/18/18.
  */
-class TFTransformer(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), MessageListener<List<TransformStamped>> {
-    private val logger = Logger.getLogger(javaClass)
-    private val currentTree: TFQuene = TFQuene(64)
+class TFTransformer @JvmOverloads constructor(
+    gn: GraphName,
+    gn2: GraphName,
+    historySeconds: Double = TFQuene.DEFAULT_HISTORY_SECONDS
+) : CoordinateTransformer(), MessageListener<List<TransformStamped>> {
+    private val logger = LazyLogger.getLogger(javaClass)
+    private val currentTree: TFQuene = TFQuene(historySeconds)
 
     private inner class TfOneNode(gn: GraphName, ml: MessageListener<List<TransformStamped>>) : RosNode(), MessageListener<tf.tfMessage> {
         private val nodeName: GraphName
@@ -36,7 +43,7 @@ class TFTransformer(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), Me
                 logger.warn("disable tf one (tf/tfMessage) support", e)
             }
 
-            initialized = true
+            markInitialized()
         }
 
         override fun destroyNode() {
@@ -58,9 +65,10 @@ class TFTransformer(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), Me
             listener = ml
         }
     }
-    private inner class TfNode(gn: GraphName, ml: MessageListener<List<TransformStamped>>) : RosNode(), MessageListener<TFMessage> {
+    private inner class TfNode(gn: GraphName, ml: MessageListener<List<TransformStamped>>, sl: MessageListener<List<TransformStamped>>) : RosNode(), MessageListener<TFMessage> {
         private val nodeName: GraphName
         private val listener : MessageListener<List<TransformStamped>>
+        private val staticListener : MessageListener<List<TransformStamped>>
 
         private var subscriberTf: Subscriber<TFMessage>? = null
         private var subscriberTfStatic: Subscriber<TFMessage>? = null
@@ -69,8 +77,8 @@ class TFTransformer(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), Me
             subscriberTf = connectedNode.newSubscriber("/tf", TFMessage._TYPE)
             subscriberTfStatic = connectedNode.newSubscriber("/tf_static", TFMessage._TYPE)
             subscriberTf?.addMessageListener(this, 10)
-            subscriberTfStatic?.addMessageListener(this, 1)
-            initialized = true
+            subscriberTfStatic?.addMessageListener({ msg -> staticListener.onNewMessage(msg.transforms) }, 1)
+            markInitialized()
         }
 
         override fun destroyNode() {
@@ -91,6 +99,7 @@ class TFTransformer(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), Me
             initialized = false
             nodeName = gn
             listener = ml
+            staticListener = sl
         }
     }
 
@@ -99,8 +108,8 @@ class TFTransformer(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), Me
 
     @Throws(TransformException::class)
     override fun lookup(from: String, to: String, time: Long): Transform {
-        logger.debug("lookup $from -> $to")
-        val ftf = getTransform(from, to)
+        logger.debug("lookup {} -> {} @ {}", from, to, time)
+        val ftf = getTransform(from, to, time)
         val translation = ftf.transform.translation
         val rotationAndScale = ftf.transform.rotationAndScale
         val quat = Quat4d(rotationAndScale.x, rotationAndScale.y,
@@ -114,20 +123,40 @@ class TFTransformer(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), Me
 
     init {
         node = TfOneNode(gn,this)
-        node2 = TfNode(gn2,this)
+        node2 = TfNode(gn2, this, MessageListener { onNewStaticMessage(it) })
     }
 
     @Throws(TransformException::class)
     fun getTransform(source: String?, target: String?): FrameTransform {
         val transform = currentTree.transform(source, target)
-        logger.trace("fetch tf: $transform")
+        logger.trace("fetch tf: {}", transform)
         return transform ?: throw TransformException(source, target)
     }
 
+    /**
+     * Transform at the given time in milliseconds, interpolated between the buffered transforms.
+     * A time of 0 or less uses the newest transforms.
+     */
+    @Throws(TransformException::class)
+    fun getTransform(source: String?, target: String?, time: Long): FrameTransform {
+        if (time <= 0) return getTransform(source, target)
+        val rostime = MsgTypeFactory.fromTimestamp(Timestamp(time, TimeUnit.MILLISECONDS))
+        val transform = currentTree.transform(source, target, rostime)
+        logger.trace("fetch tf: {}", transform)
+        return transform ?: throw TransformException(source, target, time)
+    }
+
     override fun onNewMessage(transforms: List<TransformStamped>) {
         for (ts in transforms) {
-            logger.trace("got tf " + ts.header.frameId + " -> " + ts.childFrameId)
+            logger.trace("got tf {} -> {}", ts.header.frameId, ts.childFrameId)
             currentTree.update(ts)
         }
     }
+
+    private fun onNewStaticMessage(transforms: List<TransformStamped>) {
+        for (ts in transforms) {
+            logger.trace("got static tf {} -> {}", ts.header.frameId, ts.childFrameId)
+            currentTree.updateStatic(ts)
+        }
+    }
 }
\ No newline at end of file
@@ -5,12 +5,12 @@ import de.unibi.citec.clf.bonsai.core.exception.TransformException
 import de.unibi.citec.clf.bonsai.core.time.Time
 import de.unibi.citec.clf.bonsai.ros.helper.FrameTransformTree
 import de.unibi.citec.clf.bonsai.util.CoordinateTransformer
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger
 import de.unibi.citec.clf.btl.Transform
 import de.unibi.citec.clf.btl.data.common.Timestamp
 import de.unibi.citec.clf.btl.ros.MsgTypeFactory
 import de.unibi.citec.clf.btl.units.TimeUnit
 import geometry_msgs.TransformStamped
-import org.apache.log4j.Logger
 import org.ros.exception.RosMessageRuntimeException
 import org.ros.message.MessageListener
 import org.ros.namespace.GraphName
@@ -26,7 +26,7 @@ import javax.vecmath.Vector3d
  * Created by lruegeme on 1/18/18.
  */
 class TFTransformerTimestamps(gn: GraphName, gn2: GraphName) : CoordinateTransformer(), MessageListener<List<TransformStamped>> {
-    private val logger = Logger.getLogger(javaClass)
+    private val logger = LazyLogger.getLogger(javaClass)
     private val currentTree: FrameTransformTree = FrameTransformTree()
 
     private inner class TfOneNode(gn: GraphName, ml: MessageListener<List<TransformStamped>>) : RosNode(), MessageListener<tf.tfMessage> {
@@ -42,7 +42,7 @@ class TFTransformerTimestamps(gn: GraphName, gn2: GraphName) : CoordinateTransfo
                 logger.warn("disable tf one (tf/tfMessage) support", e)
             }
 
-            initialized = true
+            markInitialized()
         }
 
         override fun destroyNode() {
@@ -76,7 +76,7 @@ class TFTransformerTimestamps(gn: GraphName, gn2: GraphName) : CoordinateTransfo
             subscriberTfStatic = connectedNode.newSubscriber("/tf_static", TFMessage._TYPE)
             subscriberTf?.addMessageListener(this, 10)
             subscriberTfStatic?.addMessageListener(this, 1)
-            initialized = true
+            markInitialized()
         }
 
         override fun destroyNode() {
@@ -105,7 +105,7 @@ class TFTransformerTimestamps(gn: GraphName, gn2: GraphName) : CoordinateTransfo
 
     @Throws(TransformException::class)
     override fun lookup(from: String, to: String, time: Long): Transform {
-        logger.debug("lookup $from -> $to @ $time")
+        logger.debug("lookup {} -> {} @ {}", from, to, time)
         val ftf = getTransform(from, to, time)
         val translation = ftf.transform.translation
         val rotationAndScale = ftf.transform.rotationAndScale
@@ -127,13 +127,13 @@ class TFTransformerTimestamps(gn: GraphName, gn2: GraphName) : CoordinateTransfo
     fun getTransform(source: String?, target: String?, time: Long): FrameTransform {
         val rostime = MsgTypeFactory.fromTimestamp(Timestamp(time, TimeUnit.MILLISECONDS))
         val transform = currentTree.transform(source, target, rostime)
-        logger.trace("fetch tf: $transform")
+        logger.trace("fetch tf: {}", transform)
         return transform ?: throw TransformException(source, target, time)
     }
 
     override fun onNewMessage(transforms: List<TransformStamped>) {
         for (ts in transforms) {
-            logger.trace("got tf " + ts.header.frameId + " -> " + ts.childFrameId)
+            logger.trace("got tf {} -> {}", ts.header.frameId, ts.childFrameId)
             currentTree.update(ts)
         }
     }
@@ -26,7 +26,7 @@ class TfRosjavaWrapper(gn: GraphName) : CoordinateTransformer() {
 
         override fun onStart(connectedNode: ConnectedNode) {
             tfl = TransformListener(connectedNode);
-            initialized = true
+            markInitialized()
         }
 
         override fun destroyNode() {
@@ -40,7 +40,7 @@ class BoolStartStop(private val nodeName: GraphName) : RosNode(), StartStopActua
 
     override fun onStart(connectedNode: ConnectedNode) {
         client = connectedNode.newServiceClient(topic, SetBool._TYPE)
-        initialized = true
+        markInitialized()
     }
 
     override fun destroyNode() {
@@ -54,7 +54,7 @@ class RosJointPositionControl(private val nodeName: GraphName) : RosNode(), Join
         )
 
 
-        initialized = true
+        markInitialized()
         //if (ac?.waitForActionServerToStart(Duration(20.0)) == true) {
         //    logger.info("connected to $controllerTopic/follow_joint_trajectory")
         //    initialized = true
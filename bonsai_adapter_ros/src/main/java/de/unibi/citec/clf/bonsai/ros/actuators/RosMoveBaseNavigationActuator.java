@@ -214,12 +214,9 @@ public class RosMoveBaseNavigationActuator extends RosNode implements Navigation
 
         @Override
         public CommandResult get(long l, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
-            long timeout = Time.currentTimeMillis() + timeUnit.toMillis(l);
-            while (!isDone()) {
-                if (Time.currentTimeMillis() > timeout) {
-                    throw new TimeoutException();
-                }
-                Thread.sleep(50);
+            timeUnit.timedJoin(driver, l);
+            if (!isDone()) {
+                throw new TimeoutException();
             }
             return get();
         }
@@ -285,7 +282,7 @@ public class RosMoveBaseNavigationActuator extends RosNode implements Navigation
 
 
         if (ac.waitForActionServerToStart(new Duration(20))) {
-            initialized = true;
+            markInitialized();
             logger.debug("RosMoveBase NavAct started");
         } else {
             logger.debug("RosMoveBase NavAct timeout after 20sec " + this.topic);
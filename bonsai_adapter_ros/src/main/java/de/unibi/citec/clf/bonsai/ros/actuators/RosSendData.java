@@ -43,7 +43,7 @@ public class RosSendData extends RosNode implements SendDataActuator {
     @Override
     public void onStart(final ConnectedNode connectedNode) {
         publisher = connectedNode.newPublisher(topic, rostype);
-        initialized = true;
+        markInitialized();
     }
 
     @Override
@@ -53,7 +53,7 @@ public class RosStringActuator extends RosNode implements StringActuator {
     @Override
     public void onStart(final ConnectedNode connectedNode) {
         publisher = connectedNode.newPublisher(topic, std_msgs.String._TYPE);
-        initialized = true;
+        markInitialized();
         logger.fatal("on start, RosStringActuator done");
     }
 
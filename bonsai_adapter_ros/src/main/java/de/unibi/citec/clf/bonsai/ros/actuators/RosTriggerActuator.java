@@ -48,7 +48,7 @@ public class RosTriggerActuator extends RosNode implements Actuator {
         } catch (ServiceNotFoundException e) {
             throw new RosRuntimeException(e);
         }
-        initialized = true;
+        markInitialized();
     }
 
     @Override
@@ -1,117 +1,60 @@
 package de.unibi.citec.clf.bonsai.ros.helper
 
-import de.unibi.citec.clf.bonsai.core.time.Time
 import org.ros.exception.RemoteException
 import org.ros.internal.message.Message
 import org.ros.node.service.ServiceResponseListener
-import java.util.concurrent.ExecutionException
-import java.util.concurrent.Future
-import java.util.concurrent.TimeUnit
-import java.util.concurrent.TimeoutException
+import java.util.concurrent.CancellationException
+import java.util.concurrent.CompletableFuture
 
 /**
+ * Future of a service call, completed by the response listener so waiting threads wake up with the response.
+ *
+ * A rosjava service call can not be aborted, [cancel] completes this future and the response is dropped when it
+ * arrives. Futures derived by [toTypeFuture] and [toBooleanFuture] do not block and cancel this future when they are
+ * cancelled.
+ *
  * @param <M>
  * @author lruegeme
  */
-class ResponseFuture<M : Message> : Future<M?>, ServiceResponseListener<M> {
-    var response: M? = null
-    var finished = false
-    var exception: RemoteException? = null
-    fun succeeded(): Boolean {
-        return finished && exception == null
-    }
-
-    override fun cancel(bln: Boolean): Boolean {
-        return false
-    }
-
-    override fun isCancelled(): Boolean {
-        return false
-    }
+class ResponseFuture<M : Message> : CompletableFuture<M?>(), ServiceResponseListener<M> {
 
-    override fun isDone(): Boolean {
-        return finished
-    }
+    @Volatile
+    var exception: RemoteException? = null
+        private set
 
-    @Throws(InterruptedException::class, ExecutionException::class)
-    override fun get(): M? {
-        while (!finished) {
-            Thread.sleep(50)
-        }
-        if (exception != null) {
-            throw ExecutionException(exception)
-        }
-        return response
-    }
+    val response: M?
+        get() = if (succeeded()) getNow(null) else null
 
-    @Throws(InterruptedException::class, ExecutionException::class, TimeoutException::class)
-    override fun get(l: Long, tu: TimeUnit): M? {
-        val timeout = Time.currentTimeMillis() + (tu.toMillis(l))
-        while (!finished) {
-            if (Time.currentTimeMillis() > timeout) {
-                throw TimeoutException()
-            }
-            Thread.sleep(50)
-        }
-        if (exception != null) {
-            throw ExecutionException(exception)
-        }
-        return response
+    fun succeeded(): Boolean {
+        return isDone && !isCompletedExceptionally
     }
 
     override fun onSuccess(mt: M) {
-        response = mt
-        finished = true
+        complete(mt)
     }
 
     override fun onFailure(re: RemoteException) {
         exception = re
-        finished = true
+        completeExceptionally(re)
     }
 
-    fun <T> toTypeFuture(converter: (M) -> T): Future<T?> {
-        val res: ResponseFuture<M> = this
-        return object : Future<T?> {
-            override fun cancel(bln: Boolean): Boolean = res.cancel(bln)
-            override fun isCancelled(): Boolean = res.isCancelled
-            override fun isDone(): Boolean = res.isDone
-
-            @Throws(InterruptedException::class, ExecutionException::class)
-            override fun get(): T? = get(1, TimeUnit.DAYS)
-
-            @Throws(InterruptedException::class, ExecutionException::class)
-            override fun get(p0: Long, p1: TimeUnit): T? {
-                val msg = res.get(p0, p1)
-                return if (msg != null) converter(msg) else null
-            }
-        }
+    fun <T> toTypeFuture(converter: (M) -> T): CompletableFuture<T?> {
+        return cancelsThis(thenApply { msg -> if (msg != null) converter(msg) else null })
     }
 
-    fun toBooleanFuture(): Future<Boolean> {
-        val res: ResponseFuture<*> = this
-        return object : Future<Boolean> {
-            override fun cancel(bln: Boolean): Boolean = res.cancel(bln)
-            override fun isCancelled(): Boolean = res.isCancelled
-            override fun isDone(): Boolean = res.isDone
-
-            @Throws(InterruptedException::class, ExecutionException::class)
-            override fun get(): Boolean {
-                return try {
-                    res.get() != null
-                } catch (ex: ExecutionException) {
-                    false
-                }
-            }
+    /**
+     * @return future of whether the call returned a response, failed calls complete with `false`
+     */
+    fun toBooleanFuture(): CompletableFuture<Boolean> {
+        return cancelsThis(handle { msg, ex ->
+            if (ex is CancellationException) throw ex
+            ex == null && msg != null
+        })
+    }
 
-            @Throws(InterruptedException::class, ExecutionException::class, TimeoutException::class)
-            override fun get(l: Long, tu: TimeUnit): Boolean {
-                return try {
-                    res.get(l, tu) != null
-                } catch (ex: ExecutionException) {
-                    false
-                }
-            }
-        }
+    private fun <T> cancelsThis(derived: CompletableFuture<T>): CompletableFuture<T> {
+        derived.whenComplete { _, ex -> if (ex is CancellationException) cancel(false) }
+        return derived
     }
 
-}
\ No newline at end of file
+}
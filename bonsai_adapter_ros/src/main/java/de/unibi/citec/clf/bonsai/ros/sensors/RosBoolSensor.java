@@ -6,7 +6,7 @@ import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.core.object.Sensor;
 import de.unibi.citec.clf.bonsai.ros.RosSensor;
-import de.unibi.citec.clf.bonsai.util.BoundSynchronizedQueue;
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
 import org.apache.log4j.Logger;
 import org.ros.message.MessageListener;
 import org.ros.namespace.GraphName;
@@ -25,7 +25,7 @@ public class RosBoolSensor extends RosSensor<Boolean, std_msgs.Bool> implements
 
     private Logger logger = Logger.getLogger(RosBoolSensor.class);
     private Subscriber<std_msgs.Bool> subscriber;
-    private BoundSynchronizedQueue<Boolean> queue;
+    private SensorBuffer<Boolean> queue;
     private Set<SensorListener<Boolean>> listeners = new HashSet<>();
     private GraphName nodeName;
     private String topic;
@@ -44,6 +44,7 @@ public class RosBoolSensor extends RosSensor<Boolean, std_msgs.Bool> implements
     public void configure(IObjectConfigurator conf) throws ConfigurationException {
         this.topic = conf.requestValue("topic");
         this.bufferSize = conf.requestOptionalInt("bufferSize", 1);
+        this.queue = SensorBuffer.fromConfig(conf, bufferSize, topic);
     }
 
 
@@ -110,10 +111,9 @@ public class RosBoolSensor extends RosSensor<Boolean, std_msgs.Bool> implements
     @Override
     public void onStart(ConnectedNode connectedNode) {
         logger.debug("connecting RosBoolSensor ...");
-        queue = new BoundSynchronizedQueue<>(bufferSize);
         subscriber = connectedNode.newSubscriber(topic, std_msgs.Bool._TYPE);
         subscriber.addMessageListener(this);
-        this.initialized = true;
+        markInitialized();
     }
 
 
@@ -5,7 +5,7 @@ import de.unibi.citec.clf.bonsai.core.SensorListener;
 import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.ros.RosSensor;
-import de.unibi.citec.clf.bonsai.util.BoundSynchronizedQueue;
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
 import de.unibi.citec.clf.btl.Type;
 import de.unibi.citec.clf.btl.ros.MsgTypeFactory;
 import de.unibi.citec.clf.btl.ros.RosSerializer;
@@ -32,7 +32,7 @@ import java.util.Set;
  */
 public class RosBtlMsgSensor<DataType extends Type, MsgType extends Message> extends RosSensor<DataType, MsgType> implements MessageListener<MsgType> {
 
-    private final BoundSynchronizedQueue<DataType> queue;
+    private SensorBuffer<Received> queue;
     private Subscriber<MsgType> subscriber;
     private Set<SensorListener<DataType>> listeners = new HashSet<>();
     private static final Logger logger = Logger.getLogger(RosBtlMsgSensor.class);
@@ -42,13 +42,41 @@ public class RosBtlMsgSensor<DataType extends Type, MsgType extends Message> ext
 
     MsgType tMsg;
     private boolean keepLast;
+    private boolean lazy;
+
+    /**
+     * A received message, deserialized at most once. In lazy mode the conversion happens when the data is
+     * read for the first time.
+     */
+    private final class Received {
+        private final MsgType msg;
+        private DataType data;
+
+        Received(MsgType msg) {
+            this.msg = msg;
+        }
+
+        Received(DataType data) {
+            this.msg = null;
+            this.data = data;
+        }
+
+        synchronized DataType get() throws RosSerializer.DeserializationException {
+            if (data == null) {
+                data = MsgTypeFactory.getInstance().createType(msg, dataTypeClass);
+            }
+            return data;
+        }
+    }
 
 
     @Override
     public void configure(IObjectConfigurator conf) throws ConfigurationException {
         this.topic = conf.requestValue("topic");
         this.bufferSize = conf.requestOptionalInt("bufferSize", 1);
+        this.queue = SensorBuffer.fromConfig(conf, bufferSize, topic);
         this.keepLast = conf.requestOptionalBool("keepLast", false);
+        this.lazy = conf.requestOptionalBool("lazy", false);
     }
 
     /**
@@ -62,7 +90,6 @@ public class RosBtlMsgSensor<DataType extends Type, MsgType extends Message> ext
             throws IllegalArgumentException {
         super(typeClass, rosType);
         initialized = false;
-        this.queue = new BoundSynchronizedQueue<>(bufferSize);
         this.nodeName = n;
 
         if (RosSerializerRepository.getMsgSerializer(typeClass, rosType) == null) {
@@ -91,14 +118,23 @@ public class RosBtlMsgSensor<DataType extends Type, MsgType extends Message> ext
      */
     @Override
     public DataType readLast(long timeout) throws IOException, InterruptedException {
-        DataType last;
+        Received received;
 
         if (timeout == -1) {
-            last = queue.front();
+            received = queue.front();
         } else if (keepLast) {
-            last = queue.nextCached(timeout);
+            received = queue.nextCached(timeout);
         } else {
-            last = queue.next(timeout);
+            received = queue.next(timeout);
+        }
+
+        DataType last = null;
+        if (received != null) {
+            try {
+                last = received.get();
+            } catch (RosSerializer.DeserializationException e) {
+                throw new IOException("Error converting ros msg to btl", e);
+            }
         }
 
         if (last == null) {
@@ -155,7 +191,7 @@ public class RosBtlMsgSensor<DataType extends Type, MsgType extends Message> ext
             logger.info("subscribed to: " + topic + " (" + type + ")");
             subscriber = connectedNode.newSubscriber(topic, type);
             subscriber.addMessageListener(this);
-            initialized = true;
+            markInitialized();
         } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException ex) {
             //TODO catch exception?
             throw new RuntimeException(ex);
@@ -179,9 +215,15 @@ public class RosBtlMsgSensor<DataType extends Type, MsgType extends Message> ext
         }
 
 
+        if (lazy && listeners.isEmpty()) {
+            // convert on first read
+            queue.push(new Received(t));
+            return;
+        }
+
         try {
             final DataType data = MsgTypeFactory.getInstance().createType(t, dataTypeClass);
-            queue.push(data);
+            queue.push(new Received(data));
 
             listeners.forEach((SensorListener<DataType> l) -> {
                 l.newDataAvailable(data);
@@ -138,7 +138,7 @@ public class RosDoubleSensor extends RosSensor<Double, std_msgs.Float64> impleme
         queue = new BoundSynchronizedQueue<>(bufferSize);
         subscriber = connectedNode.newSubscriber(topic, std_msgs.Float64._TYPE);
         subscriber.addMessageListener(this);
-        this.initialized = true;
+        markInitialized();
     }
 
     //Message Handler
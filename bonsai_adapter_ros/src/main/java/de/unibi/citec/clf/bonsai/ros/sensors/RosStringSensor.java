@@ -6,7 +6,7 @@ import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.core.object.Sensor;
 import de.unibi.citec.clf.bonsai.ros.RosSensor;
-import de.unibi.citec.clf.bonsai.util.BoundSynchronizedQueue;
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
 import org.apache.log4j.Logger;
 import org.ros.message.MessageListener;
 import org.ros.namespace.GraphName;
@@ -29,7 +29,7 @@ public class RosStringSensor extends RosSensor<String, std_msgs.String> implemen
 
     private Logger logger = Logger.getLogger(RosStringSensor.class);
     private Subscriber<std_msgs.String> subscriber;
-    private BoundSynchronizedQueue<String> queue;
+    private SensorBuffer<String> queue;
     private Set<SensorListener<String>> listeners = new HashSet<>();
     private GraphName nodeName;
     private String topic;
@@ -48,6 +48,7 @@ public class RosStringSensor extends RosSensor<String, std_msgs.String> implemen
     public void configure(IObjectConfigurator conf) throws ConfigurationException {
         this.topic = conf.requestValue("topic");
         this.bufferSize = conf.requestOptionalInt("bufferSize", 1);
+        this.queue = SensorBuffer.fromConfig(conf, bufferSize, topic);
     }
 
 
@@ -116,10 +117,9 @@ public class RosStringSensor extends RosSensor<String, std_msgs.String> implemen
     @Override
     public void onStart(ConnectedNode connectedNode) {
         logger.debug("connecting RosStringSensor ...");
-        queue = new BoundSynchronizedQueue<>(bufferSize);
         subscriber = connectedNode.newSubscriber(topic, std_msgs.String._TYPE);
         subscriber.addMessageListener(this);
-        this.initialized = true;
+        markInitialized();
     }
 
 
@@ -93,17 +93,10 @@ public class MsgTypeFactory {
 
     public <T extends Type, M extends Message> T createType(M msg, Class<T> dataType)
             throws DeserializationException {
-        logger.trace("create type: " + msg);
-        RosSerializer<T, M> rosSerializer = null;
-        //XXX
-        //walk through interfaces as actual class is MessageImpl<msgtype> and i could not extract the type from that
-        for (Class<?> c : msg.getClass().getInterfaces()) {
-            //first interface should always be msgType
-            rosSerializer = (RosSerializer<T, M>) RosSerializerRepository.getMsgSerializer(dataType, c.toString());
-            if (rosSerializer != null) {
-                break;
-            }
+        if (logger.isTraceEnabled()) {
+            logger.trace("create type: " + msg);
         }
+        RosSerializer<T, M> rosSerializer = RosSerializerRepository.getSerializerForMessage(dataType, msg.getClass());
 
         if (rosSerializer != null) {
             return rosSerializer.deserialize(msg);
@@ -1,7 +1,7 @@
 package de.unibi.citec.clf.btl.ros;
 
 import de.unibi.citec.clf.btl.Type;
-import org.apache.log4j.Logger;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
 import org.reflections.Reflections;
 import org.ros.internal.message.Message;
 
@@ -9,7 +9,10 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class RosSerializerRepository {
@@ -18,10 +21,18 @@ public class RosSerializerRepository {
     }
 
 
-    private static Logger logger = Logger.getLogger(RosSerializerRepository.class);
+    private static final LazyLogger logger = LazyLogger.getLogger(RosSerializerRepository.class);
 
     public static Map<Class<? extends Type>, Map<String, RosSerializer<? extends Type, ? extends Message>>> serializers = new HashMap<>();
 
+    /**
+     * Resolved serializers by runtime message class and BTL type, filled on first use. Combinations without
+     * serializer are cached as empty.
+     */
+    private static final Map<Class<?>, Map<Class<? extends Type>, Optional<RosSerializer<? extends Type, ? extends Message>>>> dispatch = new ConcurrentHashMap<>();
+    private static final LongAdder dispatchHits = new LongAdder();
+    private static final LongAdder dispatchMisses = new LongAdder();
+
 
     static {
         Reflections reflections = new Reflections("de.unibi.citec.clf.btl.ros.serializers");
@@ -33,15 +44,15 @@ public class RosSerializerRepository {
                 Class<? extends Type> dataType = s.getDataType();
                 addSerializer(dataType, s.getMessageType(), s);
             } catch (InstantiationException | SecurityException | ExceptionInInitializerError | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
-                logger.error("Can not instantiate class " + c.getSimpleName());
-                logger.debug("Can not instantiate class " + c.getSimpleName(), e);
+                logger.error("Can not instantiate class {}", c.getSimpleName());
+                logger.debug("Can not instantiate class {}", c.getSimpleName(), e);
             }
         }
     }
 
     public static <T extends Type, M extends Message, S extends RosSerializer<T, M>> void addSerializer(
             Class<T> baseType, Class<M> msgType, S serializer) {
-        logger.debug("addSerializer: " + baseType + ", " + msgType + " ," + serializer.getClass());
+        logger.debug("addSerializer: {}, {} ,{}", baseType, msgType, serializer.getClass());
         if (!serializers.containsKey(baseType)) {
             Map<String, RosSerializer<? extends Type, ? extends Message>> submap = new HashMap<>();
             serializers.put(baseType, submap);
@@ -50,22 +61,63 @@ public class RosSerializerRepository {
             throw new RuntimeException("duplicate serializer for " + baseType + "->" + msgType);
         }
         serializers.get(baseType).put(msgType.toString(), serializer);
+        dispatch.clear();
+    }
+
+    /**
+     * Returns the serializer for a received message. The result is cached per runtime message class, so only
+     * the first message of each class searches the repository.
+     *
+     * @param baseType the BTL type to deserialize to
+     * @param msgClass the runtime class of the message, usually a generated MessageImpl
+     * @return the serializer or <code>null</code> if there is none
+     */
+    public static <T extends Type, M extends Message> RosSerializer<T, M> getSerializerForMessage(Class<T> baseType, Class<?> msgClass) {
+        Map<Class<? extends Type>, Optional<RosSerializer<? extends Type, ? extends Message>>> byType =
+                dispatch.computeIfAbsent(msgClass, k -> new ConcurrentHashMap<>());
+        Optional<RosSerializer<? extends Type, ? extends Message>> ret = byType.get(baseType);
+        if (ret != null) {
+            dispatchHits.increment();
+        } else {
+            dispatchMisses.increment();
+            ret = Optional.ofNullable(resolve(baseType, msgClass));
+            byType.put(baseType, ret);
+        }
+        return (RosSerializer<T, M>) ret.orElse(null);
+    }
 
+    private static <T extends Type> RosSerializer<? extends Type, ? extends Message> resolve(Class<T> baseType, Class<?> msgClass) {
+        //walk through interfaces as actual class is MessageImpl<msgtype> and the type can not be extracted from that
+        for (Class<?> c : msgClass.getInterfaces()) {
+            RosSerializer<? extends Type, ? extends Message> ret = getMsgSerializer(baseType, c.toString());
+            if (ret != null) {
+                return ret;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return number of lookups in {@link #getSerializerForMessage(Class, Class)} answered from the cache
+     */
+    public static long getDispatchHits() {
+        return dispatchHits.sum();
+    }
+
+    /**
+     * @return number of lookups in {@link #getSerializerForMessage(Class, Class)} that searched the repository
+     */
+    public static long getDispatchMisses() {
+        return dispatchMisses.sum();
     }
 
     public static <T extends Type, M extends Message> RosSerializer<T, M> getMsgSerializer(Class<T> baseType, String type) {
-        logger.debug("fetch: " + baseType + ", " + type);
-        RosSerializer<T, M> ret = null;
+        logger.debug("fetch: {}, {}", baseType, type);
 
         Map<String, RosSerializer<? extends Type, ? extends Message>> submap = serializers.get(baseType);
 
         if(submap == null) return null;
-        for (Map.Entry<String, RosSerializer<? extends Type, ? extends Message>> entry : submap.entrySet()) {
-            if (type.equals(entry.getKey())) {
-                ret = (RosSerializer<T, M>) entry.getValue();
-                break;
-            }
-        }
+        RosSerializer<T, M> ret = (RosSerializer<T, M>) submap.get(type);
         //Again
         if(ret == null) for(Map.Entry<String, RosSerializer<? extends Type, ? extends Message>> entry : submap.entrySet()){
             String matcher = entry.getKey();
@@ -77,16 +129,14 @@ public class RosSerializerRepository {
             }
         }
 
-        String print = (ret != null) ? ret.getClass().toString() : "NULL";
-        logger.debug("fetched: " + print);
+        logger.debug("fetched: {}", (ret != null) ? ret.getClass() : "NULL");
         return ret;
     }
 
     public static <T extends Type, M extends Message> RosSerializer<T, M> getMsgSerializer(Class<T> baseType, Class<M> msgType) {
-        logger.debug("fetch: " + baseType + ", " + msgType);
+        logger.debug("fetch: {}, {}", baseType, msgType);
         RosSerializer<T, M> ret = (RosSerializer<T, M>) serializers.get(baseType).get(msgType.toString());
-        String print = (ret != null) ? ret.getClass().toString() : "NULL";
-        logger.debug("fetched: " + print);
+        logger.debug("fetched: {}", (ret != null) ? ret.getClass() : "NULL");
 
         if (ret == null) {
             try {
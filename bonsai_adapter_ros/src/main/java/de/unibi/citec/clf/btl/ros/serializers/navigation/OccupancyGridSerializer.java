@@ -0,0 +1,83 @@
+package de.unibi.citec.clf.btl.ros.serializers.navigation;
+
+import de.unibi.citec.clf.btl.data.map.OccupancyGrid;
+import de.unibi.citec.clf.btl.ros.MsgTypeFactory;
+import de.unibi.citec.clf.btl.ros.RosSerializer;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import geometry_msgs.Point;
+import geometry_msgs.Quaternion;
+import nav_msgs.MapMetaData;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.ros.message.MessageFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Maps <code>nav_msgs/OccupancyGrid</code> to {@link OccupancyGrid}. The cells are copied once and not converted to
+ * float. The rotation of the map origin around the z axis is kept as {@link OccupancyGrid#getOriginYaw()}.
+ */
+public class OccupancyGridSerializer extends RosSerializer<OccupancyGrid, nav_msgs.OccupancyGrid> {
+
+    @Override
+    public Class<nav_msgs.OccupancyGrid> getMessageType() {
+        return nav_msgs.OccupancyGrid.class;
+    }
+
+    @Override
+    public Class<OccupancyGrid> getDataType() {
+        return OccupancyGrid.class;
+    }
+
+    @Override
+    public OccupancyGrid deserialize(nav_msgs.OccupancyGrid msg) throws DeserializationException {
+        MapMetaData info = msg.getInfo();
+        double resolution = info.getResolution();
+        if (resolution <= 0) {
+            throw new DeserializationException("invalid map resolution: " + resolution);
+        }
+        Point origin = info.getOrigin().getPosition();
+        Quaternion orientation = info.getOrigin().getOrientation();
+        double yaw = Math.atan2(2 * (orientation.getW() * orientation.getZ() + orientation.getX() * orientation.getY()),
+                1 - 2 * (orientation.getY() * orientation.getY() + orientation.getZ() * orientation.getZ()));
+        // the world origin seen from the rotated grid
+        double cos = Math.cos(yaw);
+        double sin = Math.sin(yaw);
+        int originX = (int) Math.round(-(cos * origin.getX() + sin * origin.getY()) / resolution);
+        int originY = (int) Math.round(-(-sin * origin.getX() + cos * origin.getY()) / resolution);
+
+        ByteBuffer data = msg.getData().toByteBuffer();
+        try {
+            OccupancyGrid grid = new OccupancyGrid(info.getWidth(), info.getHeight(), data, originX, originY, yaw,
+                    resolution, LengthUnit.METER);
+            MsgTypeFactory.setHeader(grid, msg.getHeader());
+            return grid;
+        } catch (IllegalArgumentException e) {
+            throw new DeserializationException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public nav_msgs.OccupancyGrid serialize(OccupancyGrid data, MessageFactory fact) throws SerializationException {
+        nav_msgs.OccupancyGrid msg = fact.newFromType(nav_msgs.OccupancyGrid._TYPE);
+        msg.setHeader(MsgTypeFactory.getInstance().makeHeader(data));
+
+        double resolution = data.getResolution(LengthUnit.METER);
+        MapMetaData info = msg.getInfo();
+        info.setResolution((float) resolution);
+        info.setWidth(data.getWidth());
+        info.setHeight(data.getHeight());
+        double yaw = data.getOriginYaw();
+        double cos = Math.cos(yaw);
+        double sin = Math.sin(yaw);
+        double x = -data.getOriginX() * resolution;
+        double y = -data.getOriginY() * resolution;
+        info.getOrigin().getPosition().setX(cos * x - sin * y);
+        info.getOrigin().getPosition().setY(sin * x + cos * y);
+        info.getOrigin().getOrientation().setZ(Math.sin(yaw / 2));
+        info.getOrigin().getOrientation().setW(Math.cos(yaw / 2));
+
+        msg.setData(ChannelBuffers.wrappedBuffer(data.getData().order(ByteOrder.LITTLE_ENDIAN)));
+        return msg;
+    }
+}
@@ -0,0 +1,176 @@
+package de.unibi.citec.clf.bonsai.ros;
+
+import de.unibi.citec.clf.bonsai.core.exception.CoreObjectCreationException;
+import org.junit.Test;
+import org.ros.namespace.GraphName;
+import org.ros.node.ConnectedNode;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NodeStartupPoolTest {
+
+    private static class TestNode extends RosNode {
+
+        TestNode(String key) {
+            setKey(key);
+        }
+
+        @Override
+        public GraphName getDefaultNodeName() {
+            return GraphName.of(NODE_PREFIX + getKey());
+        }
+
+        @Override
+        public void onStart(ConnectedNode connectedNode) {
+            markInitialized();
+        }
+
+        @Override
+        public void destroyNode() {
+            resetInitialized();
+        }
+
+        void start() {
+            markInitialized();
+        }
+
+        void startLegacy() {
+            initialized = true;
+        }
+    }
+
+    @Test
+    public void initFutureTest() throws Exception {
+        TestNode node = new TestNode("node");
+        CompletableFuture<Boolean> before = node.isInitialised();
+        assertFalse(before.isDone());
+        assertFalse(node.connectionsAlive());
+        try {
+            node.isInitialised().get(10, TimeUnit.MILLISECONDS);
+            fail("the node is not started");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        node.start();
+        assertTrue(before.get(10, TimeUnit.MILLISECONDS));
+        assertTrue(node.isInitialised().isDone());
+        assertTrue(node.connectionsAlive());
+
+        // callers can not complete the future of the node
+        node.destroyNode();
+        node.isInitialised().complete(true);
+        assertFalse(node.isInitialised().isDone());
+        assertFalse(node.connectionsAlive());
+
+        node.start();
+        assertTrue(node.isInitialised().isDone());
+    }
+
+    @Test
+    public void legacyFieldTest() throws Exception {
+        TestNode node = new TestNode("legacy");
+        CompletableFuture<Boolean> before = node.isInitialised();
+        new Thread(() -> {
+            sleep(30);
+            node.startLegacy();
+        }).start();
+        assertTrue("assigning the field completes the future", before.get(5, TimeUnit.SECONDS));
+        assertTrue(node.isInitialised().isDone());
+
+        // resetting the field directly is noticed as well
+        node.initialized = false;
+        CompletableFuture<Boolean> again = node.isInitialised();
+        assertFalse(again.isDone());
+        again.cancel(false);
+        node.startLegacy();
+        assertTrue(node.isInitialised().isDone());
+    }
+
+    @Test
+    public void boundedParallelismTest() {
+        int parallelism = 2;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<String> started = ConcurrentHashMap.newKeySet();
+
+        NodeStartupPool pool = new NodeStartupPool(parallelism, 5000);
+        for (int i = 0; i < 6; i++) {
+            String key = "node" + i;
+            pool.submit(key, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                TestNode node = new TestNode(key);
+                // the node connects later, like a spawned node does
+                new Thread(() -> {
+                    sleep(30);
+                    running.decrementAndGet();
+                    node.start();
+                }).start();
+                return node;
+            }, node -> started.add(node.getKey()));
+        }
+        assertEquals(6, pool.size());
+
+        List<RosFactory.NodeStartup> report = pool.await();
+        assertEquals(6, report.size());
+        for (RosFactory.NodeStartup startup : report) {
+            assertNull(startup.toString(), startup.getError());
+            assertTrue(startup.getConnectMillis() >= 20);
+        }
+        assertEquals(6, started.size());
+        assertTrue("at most " + parallelism + " nodes start at once: " + maxRunning, maxRunning.get() <= parallelism);
+    }
+
+    @Test
+    public void timeoutTest() {
+        Set<String> started = ConcurrentHashMap.newKeySet();
+        NodeStartupPool pool = new NodeStartupPool(2, 50);
+        pool.submit("silent", () -> new TestNode("silent"), node -> started.add(node.getKey()));
+        pool.submit("ready", () -> {
+            TestNode node = new TestNode("ready");
+            node.start();
+            return node;
+        }, node -> started.add(node.getKey()));
+
+        List<RosFactory.NodeStartup> report = pool.await();
+        assertTrue(report.get(0).getError() instanceof CoreObjectCreationException);
+        assertTrue(report.get(0).getConnectMillis() >= 40);
+        assertNull(report.get(1).getError());
+        assertEquals(1, started.size());
+        assertTrue(started.contains("ready"));
+    }
+
+    @Test
+    public void creationFailureTest() {
+        NodeStartupPool pool = new NodeStartupPool(1, 50);
+        pool.submit("broken", () -> {
+            throw new IllegalStateException("no such node");
+        }, node -> fail("the node was not created"));
+
+        RosFactory.NodeStartup startup = pool.await().get(0);
+        assertEquals("broken", startup.getKey());
+        assertTrue(startup.getError() instanceof CoreObjectCreationException);
+        assertEquals(0, startup.getConnectMillis());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
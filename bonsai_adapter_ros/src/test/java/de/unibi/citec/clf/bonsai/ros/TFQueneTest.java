@@ -0,0 +1,87 @@
+package de.unibi.citec.clf.bonsai.ros;
+
+import geometry_msgs.TransformStamped;
+import org.junit.Test;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.NodeConfiguration;
+import org.ros.rosjava_geometry.FrameTransform;
+import org.ros.rosjava_geometry.Quaternion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TFQueneTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final long SECOND = 1_000_000_000L;
+
+    private final MessageFactory factory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+
+    private TransformStamped transform(String parent, String child, long stamp, double x, double yaw) {
+        TransformStamped msg = factory.newFromType(TransformStamped._TYPE);
+        msg.getHeader().setFrameId(parent);
+        msg.getHeader().setStamp(Time.fromNano(stamp));
+        msg.setChildFrameId(child);
+        msg.getTransform().getTranslation().setX(x);
+        msg.getTransform().getRotation().setZ(Math.sin(yaw / 2));
+        msg.getTransform().getRotation().setW(Math.cos(yaw / 2));
+        return msg;
+    }
+
+    private static double yaw(FrameTransform transform) {
+        Quaternion q = transform.getTransform().getRotationAndScale();
+        return 2 * Math.atan2(q.getZ(), q.getW());
+    }
+
+    @Test
+    public void interpolationTest() {
+        TFQuene quene = new TFQuene(10.0);
+        quene.update(transform("odom", "base", SECOND, 0, 0));
+        quene.update(transform("odom", "base", 2 * SECOND, 2, Math.PI / 2));
+
+        FrameTransform between = quene.transform("base", "odom", Time.fromNano(SECOND + SECOND / 2));
+        assertNotNull(between);
+        assertEquals(1.0, between.getTransform().getTranslation().getX(), EPSILON);
+        assertEquals(Math.PI / 4, yaw(between), EPSILON);
+        assertEquals(SECOND + SECOND / 2, between.getTime().totalNsecs());
+
+        FrameTransform frame = quene.get("base", Time.fromNano(SECOND + SECOND / 4));
+        assertEquals(0.5, frame.getTransform().getTranslation().getX(), EPSILON);
+        assertEquals("odom", frame.getTargetFrame().toString());
+
+        FrameTransform latest = quene.transform("/base", "/odom");
+        assertEquals(2.0, latest.getTransform().getTranslation().getX(), EPSILON);
+        assertEquals(2 * SECOND, latest.getTime().totalNsecs());
+    }
+
+    @Test
+    public void evictionTest() {
+        TFQuene quene = new TFQuene(1.0);
+        for (int i = 0; i <= 30; i++) {
+            quene.update(transform("odom", "base", i * SECOND / 10, i, 0));
+        }
+        assertEquals(25.0, quene.get("base", Time.fromNano(25 * SECOND / 10)).getTransform().getTranslation().getX(),
+                EPSILON);
+        // only the last second is kept
+        assertNull(quene.get("base", Time.fromNano(SECOND)));
+        assertNull(quene.transform("base", "odom", Time.fromNano(SECOND)));
+    }
+
+    @Test
+    public void outOfRangeTest() {
+        TFQuene quene = new TFQuene(10.0);
+        quene.update(transform("odom", "base", SECOND, 0, 0));
+        quene.update(transform("odom", "base", 2 * SECOND, 1, 0));
+        quene.updateStatic(transform("base", "laser", 0, 0.5, 0));
+
+        assertNull(quene.transform("laser", "odom", Time.fromNano(SECOND / 2)));
+        assertNull(quene.transform("laser", "odom", Time.fromNano(3 * SECOND)));
+        assertNull(quene.get("base", Time.fromNano(3 * SECOND)));
+        assertNotNull(quene.transform("laser", "odom", Time.fromNano(2 * SECOND)));
+        // the newest transform is always available
+        assertEquals(1.5, quene.transform("laser", "odom").getTransform().getTranslation().getX(), EPSILON);
+    }
+
+}
@@ -0,0 +1,99 @@
+package de.unibi.citec.clf.bonsai.ros.helper;
+
+import org.junit.Test;
+import org.ros.exception.RemoteException;
+import org.ros.internal.node.response.StatusCode;
+import std_srvs.TriggerResponse;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResponseFutureTest {
+
+    /**
+     * A response that only answers {@link TriggerResponse#getSuccess()}.
+     */
+    static TriggerResponse response(boolean success) {
+        return (TriggerResponse) Proxy.newProxyInstance(TriggerResponse.class.getClassLoader(),
+                new Class<?>[]{TriggerResponse.class},
+                (proxy, method, args) -> "getSuccess".equals(method.getName()) ? success : null);
+    }
+
+    @Test
+    public void successTest() throws Exception {
+        ResponseFuture<TriggerResponse> future = new ResponseFuture<>();
+        CompletableFuture<Boolean> converted = future.toTypeFuture(TriggerResponse::getSuccess);
+        CompletableFuture<Boolean> answered = future.toBooleanFuture();
+        assertFalse(future.succeeded());
+        assertNull(future.getResponse());
+
+        TriggerResponse response = response(true);
+        future.onSuccess(response);
+        assertTrue(future.succeeded());
+        assertSame(response, future.getResponse());
+        assertSame(response, future.get(10, TimeUnit.MILLISECONDS));
+        assertNull(future.getException());
+        assertTrue(converted.get(10, TimeUnit.MILLISECONDS));
+        assertTrue(answered.get(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        ResponseFuture<TriggerResponse> future = new ResponseFuture<>();
+        CompletableFuture<Boolean> converted = future.toTypeFuture(TriggerResponse::getSuccess);
+        CompletableFuture<Boolean> answered = future.toBooleanFuture();
+
+        RemoteException error = new RemoteException(StatusCode.ERROR, "service failed");
+        future.onFailure(error);
+        assertFalse(future.succeeded());
+        assertNull(future.getResponse());
+        assertSame(error, future.getException());
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail("the call failed");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+        assertTrue(converted.isCompletedExceptionally());
+        assertFalse("a failed call is no answer", answered.get(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancelDerivedTest() throws Exception {
+        ResponseFuture<TriggerResponse> future = new ResponseFuture<>();
+        CompletableFuture<Boolean> answered = future.toBooleanFuture();
+
+        assertTrue(answered.cancel(false));
+        assertTrue("cancelling a derived future cancels the call", future.isCancelled());
+
+        // the response arriving later is dropped
+        future.onSuccess(response(true));
+        assertFalse(future.succeeded());
+        assertNull(future.getResponse());
+
+        ResponseFuture<TriggerResponse> other = new ResponseFuture<>();
+        other.toTypeFuture(TriggerResponse::getSuccess).cancel(false);
+        assertTrue(other.isCancelled());
+    }
+
+    @Test
+    public void cancelCallTest() {
+        ResponseFuture<TriggerResponse> future = new ResponseFuture<>();
+        CompletableFuture<Boolean> converted = future.toTypeFuture(TriggerResponse::getSuccess);
+        CompletableFuture<Boolean> answered = future.toBooleanFuture();
+
+        assertTrue(future.cancel(false));
+        // a cancelled call is not reported as a call without answer
+        assertTrue(converted.isCompletedExceptionally());
+        assertTrue(answered.isCompletedExceptionally());
+    }
+
+}
@@ -0,0 +1,61 @@
+package de.unibi.citec.clf.bonsai.ros.helper;
+
+import org.junit.Test;
+import org.ros.exception.RemoteException;
+import org.ros.internal.node.response.StatusCode;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static de.unibi.citec.clf.bonsai.ros.helper.ResponseFutureTest.response;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TriggerFutureTest {
+
+    @Test
+    public void successTest() throws Exception {
+        TriggerFuture accepted = new TriggerFuture();
+        assertFalse(accepted.succeeded());
+        accepted.onSuccess(response(true));
+        assertTrue(accepted.succeeded());
+        assertTrue(accepted.get(10, TimeUnit.MILLISECONDS));
+        assertNull(accepted.getException());
+
+        TriggerFuture refused = new TriggerFuture();
+        refused.onSuccess(response(false));
+        assertTrue("the service answered", refused.succeeded());
+        assertFalse(refused.get(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        TriggerFuture future = new TriggerFuture();
+        RemoteException error = new RemoteException(StatusCode.FAILURE, "no such service");
+        future.onFailure(error);
+
+        assertFalse(future.succeeded());
+        assertSame(error, future.getException());
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail("the call failed");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+    }
+
+    @Test
+    public void cancelTest() {
+        TriggerFuture future = new TriggerFuture();
+        assertTrue(future.cancel(false));
+
+        // the response arriving later is dropped
+        future.onSuccess(response(true));
+        assertTrue(future.isCancelled());
+        assertFalse(future.succeeded());
+    }
+
+}
@@ -0,0 +1,146 @@
+package de.unibi.citec.clf.bonsai.ros.sensors;
+
+import de.unibi.citec.clf.bonsai.core.configuration.ObjectConfigurator;
+import de.unibi.citec.clf.btl.Type;
+import de.unibi.citec.clf.btl.ros.RosSerializer;
+import de.unibi.citec.clf.btl.ros.RosSerializerRepository;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ros.message.MessageFactory;
+import org.ros.namespace.GraphName;
+import org.ros.node.NodeConfiguration;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RosBtlMsgSensorTest {
+
+    public static class Text extends Type {
+        private String value;
+
+        public Text() {
+        }
+
+        Text(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Counts the conversions of received messages.
+     */
+    public static class TextSerializer extends RosSerializer<Text, std_msgs.String> {
+        static final AtomicInteger conversions = new AtomicInteger();
+
+        @Override
+        public std_msgs.String serialize(Text data, MessageFactory fact) {
+            std_msgs.String msg = fact.newFromType(std_msgs.String._TYPE);
+            msg.setData(data.getValue());
+            return msg;
+        }
+
+        @Override
+        public Text deserialize(std_msgs.String msg) {
+            conversions.incrementAndGet();
+            return new Text(msg.getData());
+        }
+
+        @Override
+        public Class<std_msgs.String> getMessageType() {
+            return std_msgs.String.class;
+        }
+
+        @Override
+        public Class<Text> getDataType() {
+            return Text.class;
+        }
+    }
+
+    private static final MessageFactory messages = NodeConfiguration.newPrivate().getTopicMessageFactory();
+
+    @BeforeClass
+    public static void registerSerializer() {
+        RosSerializerRepository.addSerializer(Text.class, std_msgs.String.class, new TextSerializer());
+    }
+
+    private static RosBtlMsgSensor<Text, std_msgs.String> sensor(boolean lazy) throws Exception {
+        RosBtlMsgSensor<Text, std_msgs.String> sensor = new RosBtlMsgSensor<>(Text.class, std_msgs.String.class,
+                GraphName.of("/test/text"));
+        Map<String, String> options = Map.of("topic", "/text", "bufferSize", "4", "lazy", Boolean.toString(lazy));
+        ObjectConfigurator conf = ObjectConfigurator.createConfigPhase();
+        sensor.configure(conf);
+        conf.activateObjectPhase(options);
+        sensor.configure(conf);
+        return sensor;
+    }
+
+    private static std_msgs.String message(String data) {
+        std_msgs.String msg = messages.newFromType(std_msgs.String._TYPE);
+        msg.setData(data);
+        return msg;
+    }
+
+    @Test
+    public void lazyConversionTest() throws Exception {
+        RosBtlMsgSensor<Text, std_msgs.String> eager = sensor(false);
+        RosBtlMsgSensor<Text, std_msgs.String> lazy = sensor(true);
+        int before = TextSerializer.conversions.get();
+
+        eager.onNewMessage(message("hello"));
+        assertEquals("converted on arrival", before + 1, TextSerializer.conversions.get());
+        lazy.onNewMessage(message("hello"));
+        assertEquals("not converted before it is read", before + 1, TextSerializer.conversions.get());
+        assertTrue(lazy.hasNext());
+
+        Text expected = eager.readLast(100);
+        Text data = lazy.readLast(100);
+        assertEquals(before + 2, TextSerializer.conversions.get());
+        assertEquals(expected.getValue(), data.getValue());
+        assertFalse(lazy.hasNext());
+    }
+
+    @Test
+    public void convertOnceTest() throws Exception {
+        RosBtlMsgSensor<Text, std_msgs.String> lazy = sensor(true);
+        int before = TextSerializer.conversions.get();
+
+        lazy.onNewMessage(message("first"));
+        lazy.onNewMessage(message("second"));
+        assertEquals(before, TextSerializer.conversions.get());
+
+        // peeking converts the newest message, reading it afterwards does not convert it again
+        Text peeked = lazy.readLast(-1);
+        assertEquals("second", peeked.getValue());
+        assertSame(peeked, lazy.readLast(100));
+        assertEquals(before + 1, TextSerializer.conversions.get());
+
+        // messages that are never read are never converted
+        lazy.clear();
+        assertEquals(before + 1, TextSerializer.conversions.get());
+    }
+
+    @Test
+    public void listenerConversionTest() throws Exception {
+        RosBtlMsgSensor<Text, std_msgs.String> lazy = sensor(true);
+        AtomicInteger heard = new AtomicInteger();
+        lazy.addSensorListener(data -> heard.incrementAndGet());
+        int before = TextSerializer.conversions.get();
+
+        // listeners need the data at once, so it is converted on arrival
+        lazy.onNewMessage(message("heard"));
+        assertEquals(1, heard.get());
+        assertEquals(before + 1, TextSerializer.conversions.get());
+        assertEquals("heard", lazy.readLast(100).getValue());
+        assertEquals(before + 1, TextSerializer.conversions.get());
+    }
+
+}
@@ -1,10 +1,14 @@
 package de.unibi.citec.clf.btl.ros;
 
 import de.unibi.citec.clf.btl.Type;
+import de.unibi.citec.clf.btl.data.geometry.Point3D;
+import de.unibi.citec.clf.btl.ros.serializers.geometry.Point3DSerializer;
 import junit.framework.TestCase;
 import junit.framework.TestResult;
 import org.reflections.Reflections;
 import org.ros.internal.message.Message;
+import org.ros.message.MessageFactory;
+import org.ros.node.NodeConfiguration;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
@@ -12,6 +16,11 @@ import java.util.Map;
 import java.util.Set;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 public class RosSerializerRepositoryTest {
 
     @Test
@@ -35,6 +44,36 @@ public class RosSerializerRepositoryTest {
         }
     }
 
+    @Test
+    public void testDispatchHit() {
+        MessageFactory factory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+        Class<?> msgClass = factory.newFromType(geometry_msgs.Point._TYPE).getClass();
+
+        long misses = RosSerializerRepository.getDispatchMisses();
+        long hits = RosSerializerRepository.getDispatchHits();
+        RosSerializer<Point3D, ?> first = RosSerializerRepository.getSerializerForMessage(Point3D.class, msgClass);
+        assertTrue(first instanceof Point3DSerializer);
+        assertEquals(misses + 1, RosSerializerRepository.getDispatchMisses());
+
+        assertSame(first, RosSerializerRepository.getSerializerForMessage(Point3D.class, msgClass));
+        assertEquals(misses + 1, RosSerializerRepository.getDispatchMisses());
+        assertEquals(hits + 1, RosSerializerRepository.getDispatchHits());
+    }
 
+    @Test
+    public void testDispatchMiss() {
+        MessageFactory factory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+        Class<?> msgClass = factory.newFromType(geometry_msgs.TransformStamped._TYPE).getClass();
+
+        long misses = RosSerializerRepository.getDispatchMisses();
+        long hits = RosSerializerRepository.getDispatchHits();
+        assertNull(RosSerializerRepository.getSerializerForMessage(Point3D.class, msgClass));
+        assertEquals(misses + 1, RosSerializerRepository.getDispatchMisses());
+
+        // the miss is cached as well and does not search the repository again
+        assertNull(RosSerializerRepository.getSerializerForMessage(Point3D.class, msgClass));
+        assertEquals(misses + 1, RosSerializerRepository.getDispatchMisses());
+        assertEquals(hits + 1, RosSerializerRepository.getDispatchHits());
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package de.unibi.citec.clf.bonsai.ros2;
+
+import id.jros2client.JRos2Client;
+import id.jros2client.JRos2ClientConfiguration;
+import id.jros2client.JRos2ClientFactory;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Shares a few {@link JRos2Client}s, each with its own RTPS participant and threads, between all nodes of a
+ * {@link Ros2Factory}.
+ * <p>
+ * Clients are grouped by the class that provides their configuration, nodes with the default
+ * {@link Ros2Node#getClientConfig()} share the same group. Every group holds up to <code>size</code> clients, a
+ * client is created on demand and handed to the node that acquires it while it has the fewest users. A client is
+ * closed when its last user {@link #release(JRos2Client) releases} it.
+ */
+public class Ros2ClientPool {
+
+    private static final Logger logger = Logger.getLogger(Ros2ClientPool.class);
+
+    private static final class Slot {
+        final Object group;
+        final JRos2Client client;
+        int users = 0;
+
+        Slot(Object group, JRos2Client client) {
+            this.group = group;
+            this.client = client;
+        }
+    }
+
+    private final JRos2ClientFactory factory;
+    private final int size;
+    private final Map<Object, List<Slot>> groups = new HashMap<>();
+    private final Map<JRos2Client, Slot> slots = new IdentityHashMap<>();
+
+    /**
+     * @param factory creates the clients
+     * @param size    the number of clients per configuration
+     */
+    public Ros2ClientPool(JRos2ClientFactory factory, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("pool size must be positive: " + size);
+        }
+        this.factory = factory;
+        this.size = size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Acquires a client, which must be {@link #release(JRos2Client) released} by the caller.
+     *
+     * @param group  the key of clients that can be shared
+     * @param config creates the configuration if a new client is needed
+     * @return a shared client
+     */
+    public synchronized JRos2Client acquire(Object group, Supplier<JRos2ClientConfiguration> config) {
+        List<Slot> clients = groups.computeIfAbsent(group, k -> new ArrayList<>());
+        Slot least = null;
+        for (Slot slot : clients) {
+            if (least == null || slot.users < least.users) {
+                least = slot;
+            }
+        }
+        if (least == null || (least.users > 0 && clients.size() < size)) {
+            least = new Slot(group, factory.createClient(config.get()));
+            clients.add(least);
+            slots.put(least.client, least);
+            logger.debug("created client " + clients.size() + "/" + size + " for " + group);
+        }
+        least.users++;
+        return least.client;
+    }
+
+    /**
+     * Releases a client acquired from this pool, the client is closed if it has no more users. Clients that are not
+     * from this pool are closed immediately.
+     *
+     * @param client the client to release
+     */
+    public void release(JRos2Client client) {
+        synchronized (this) {
+            Slot slot = slots.get(client);
+            if (slot != null) {
+                if (--slot.users > 0) {
+                    return;
+                }
+                slots.remove(client);
+                groups.get(slot.group).remove(slot);
+            }
+        }
+        client.close();
+    }
+
+    /**
+     * @return the number of open clients
+     */
+    public synchronized int getClientCount() {
+        return slots.size();
+    }
+
+    /**
+     * Closes all clients regardless of their users.
+     */
+    public void closeAll() {
+        List<JRos2Client> clients;
+        synchronized (this) {
+            clients = new ArrayList<>(slots.keySet());
+            slots.clear();
+            groups.clear();
+        }
+        for (JRos2Client client : clients) {
+            client.close();
+        }
+    }
+
+}
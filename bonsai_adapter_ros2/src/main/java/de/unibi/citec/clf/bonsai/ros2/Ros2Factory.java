@@ -11,6 +11,7 @@ import de.unibi.citec.clf.bonsai.util.CoordinateTransformer;
 import de.unibi.citec.clf.bonsai.util.MapReader;
 import de.unibi.citec.clf.bonsai.util.reflection.ReflectionServiceDiscovery;
 import de.unibi.citec.clf.bonsai.util.reflection.ServiceDiscovery;
+import de.unibi.citec.clf.bonsai.util.tf.TransformTree;
 import de.unibi.citec.clf.btl.ros2.MsgTypeFactory;
 import id.jros2client.JRos2Client;
 import id.jros2client.JRos2ClientConfiguration;
@@ -22,10 +23,12 @@ import pinorobotics.rtpstalk.RtpsTalkConfiguration;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  * @author lruegeme
@@ -37,6 +40,7 @@ public class Ros2Factory implements CoreObjectFactory {
     //
     private static final String KEY_NODE_INIT_TIMEOUT = "NODE_INIT_TIMEOUT";
     private static final String KEY_INIT_SLEEP_TIME = "INIT_SLEEP_TIME";
+    private static final String KEY_CLIENT_POOL_SIZE = "CLIENT_POOL_SIZE";
     protected ServiceDiscovery serviceDiscoverySensor = new ReflectionServiceDiscovery(SERVICE_PKG_SENSOR);
     protected ServiceDiscovery serviceDiscoveryActuator = new ReflectionServiceDiscovery(SERVICE_PKG_ACTUATOR);
     protected Set<Class<? extends Ros2Node>> knownActuators = new HashSet<>();
@@ -48,16 +52,23 @@ public class Ros2Factory implements CoreObjectFactory {
     protected Map<String, ConfiguredObject> configuredObjectsByKey = new ConcurrentHashMap<>();
     private Logger logger = Logger.getLogger(getClass());
     private CoordinateTransformer coordinateTransformer;
+    /**
+     * Option of the {@link Tf2Transformer}: seconds of transform history kept per frame.
+     */
+    private static final String KEY_TF_HISTORY = "historySeconds";
     private long nodeInitTimeout = 5000;
-    private long sleepTime = 1000;
+    private long sleepTime = 0;
 
     private JRos2ClientFactory factory;
+    private Ros2ClientPool clientPool;
+    private int clientPoolSize = 1;
 
     /**
      * Constructor.
      */
     public Ros2Factory() {
         factory = new JRos2ClientFactory();
+        clientPool = new Ros2ClientPool(factory, 1);
     }
 
     /**
@@ -65,13 +76,42 @@ public class Ros2Factory implements CoreObjectFactory {
      * @param wait wait for isInitialised
      */
     public void spawnRosNode(Ros2Node node, boolean wait) throws TimeoutException, ExecutionException, InterruptedException {
-        // todo threads
         node.onStart();
         //wait for node to be initialized
-        if (wait && !node.isInitialised().get(nodeInitTimeout, TimeUnit.MILLISECONDS)) {
-            throw new ExecutionException(new TimeoutException("could not start node in " + nodeInitTimeout));
+        if (wait) {
+            node.isInitialised().get(nodeInitTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Acquires a shared client with the configuration of the given class, either its public static
+     * <code>getClientConfig()</code> or the default of {@link Ros2Node#getClientConfig()}.
+     */
+    private JRos2Client acquireClient(Class<?> clazz) {
+        Object group = Ros2Node.class;
+        Supplier<JRos2ClientConfiguration> config = Ros2Node::getClientConfig;
+        try {
+            Method custom = clazz.getMethod("getClientConfig");
+            group = custom.getDeclaringClass();
+            config = () -> {
+                try {
+                    return (JRos2ClientConfiguration) custom.invoke(null);
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    logger.warn("custom client config of " + clazz + " failed, using default: " + e.getMessage());
+                    return Ros2Node.getClientConfig();
+                }
+            };
+        } catch (NoSuchMethodException e) {
+            logger.trace("no custom client config found");
         }
+        return clientPool.acquire(group, config);
+    }
 
+    /**
+     * @return the pool of the clients shared by the nodes of this factory
+     */
+    public Ros2ClientPool getClientPool() {
+        return clientPool;
     }
 
     /**
@@ -146,13 +186,8 @@ public class Ros2Factory implements CoreObjectFactory {
                 try {
                     // if this object is suitable, create an instance and configure it
                     Constructor<?> cons = actuatorClass.getConstructor(JRos2Client.class);
-                    JRos2ClientConfiguration clientconfig = Ros2Node.getClientConfig();
-                    try {
-                        clientconfig = (JRos2ClientConfiguration) actuatorClass.getMethod("getClientConfig").invoke(null);
-                    } catch (Exception e ) {
-                        logger.debug("no custom client config found");
-                    }
-                    ManagedCoreObject object = (ManagedCoreObject) cons.newInstance(factory.createClient(clientconfig));
+                    // the instance is only configured, nodes use their client in onStart only
+                    ManagedCoreObject object = (ManagedCoreObject) cons.newInstance((JRos2Client) null);
                     object.configure(configured.conf);
                     configured.conf.activateObjectPhase(actuator.getActuatorOptions());
 
@@ -254,14 +289,9 @@ public class Ros2Factory implements CoreObjectFactory {
                     if (declaredConstructors.length != 1) {
                         throw new NoSuchMethodException("sensor wrong constructors?");
                     }
-                    JRos2ClientConfiguration clientconfig = Ros2Node.getClientConfig();
-                    try {
-                        clientconfig = (JRos2ClientConfiguration) sensorClass.getMethod("getClientConfig").invoke(null);
-                    } catch (Exception e ) {
-                        logger.debug("no custom client config found");
-                    }
+                    // the instance is only configured, nodes use their client in onStart only
                     ManagedCoreObject object = (ManagedCoreObject) declaredConstructors[0].newInstance(
-                            configured.data, configured.wire, factory.createClient(clientconfig));
+                            configured.data, configured.wire, null);
                     object.configure(configured.conf);
                     configured.conf.activateObjectPhase(sensor.getSensorOptions());
 
@@ -305,7 +335,18 @@ public class Ros2Factory implements CoreObjectFactory {
         FactoryConfigurationResults results = new FactoryConfigurationResults();
 
         if (transformer.getTransformerClass().equals(Tf2Transformer.class)) {
-            coordinateTransformer = new Tf2Transformer(factory.createClient());
+            double history = TransformTree.DEFAULT_HISTORY_SECONDS;
+            Map<String, String> options = transformer.getTransformerOptions();
+            if (options != null && options.containsKey(KEY_TF_HISTORY)) {
+                try {
+                    history = Double.parseDouble(options.get(KEY_TF_HISTORY));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("option " + KEY_TF_HISTORY + " is not a number: " + options.get(KEY_TF_HISTORY));
+                }
+            }
+            Tf2Transformer tf = new Tf2Transformer(acquireClient(Tf2Transformer.class), history);
+            tf.getNode().setClientPool(clientPool);
+            coordinateTransformer = tf;
         }else {
             throw new IllegalArgumentException("can only create " + Tf2Transformer.class +
                     " but requested is: " + transformer.getTransformerClass());
@@ -349,36 +390,34 @@ public class Ros2Factory implements CoreObjectFactory {
         ConfiguredObject obj = configuredObjectsByKey.get(key);
         Actuator actuator;
 
+        JRos2Client client = acquireClient(obj.clazz);
         try {
-            JRos2ClientConfiguration clientconfig = Ros2Node.getClientConfig();
-            try {
-                clientconfig = (JRos2ClientConfiguration) actuatorClass.getMethod("getClientConfig").invoke(null);
-            } catch (Exception e ) {
-                logger.debug("no custom client config found");
-            }
             Constructor<?> cons = obj.clazz.getConstructor(JRos2Client.class);
-            actuator = (Actuator) cons.newInstance(factory.createClient(clientconfig));
+            actuator = (Actuator) cons.newInstance(client);
             ((Ros2Node) actuator).setKey(key);
+            ((Ros2Node) actuator).setClientPool(clientPool);
             actuator.configure(obj.conf);
         } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | InvocationTargetException ex) {
             logger.error("failed to create instance");
+            clientPool.release(client);
             throw new CoreObjectCreationException(ex);
         } catch (ConfigurationException e) {
+            clientPool.release(client);
             throw new CoreObjectCreationException(e);
         }
 
         if (actuator instanceof Ros2Node) {
             try {
                 spawnRosNode((Ros2Node) actuator, wait);
-                if (wait) {
-                   TimeUnit.MILLISECONDS.sleep(sleepTime);
-                }
-            } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            } catch (InterruptedException | ExecutionException | TimeoutException | RuntimeException ex) {
                 logger.error(ex);
+                // the node is not handed out, so nobody else cleans it up
+                ((Ros2Node) actuator).releaseClient();
                 throw new CoreObjectCreationException("cant execute node for: " + actuator.getClass());
             }
         } else {
             logger.fatal("critical fail");
+            clientPool.release(client);
             throw new CoreObjectCreationException("cant execute node for: " + actuator.getClass());
         }
 
@@ -427,6 +466,7 @@ public class Ros2Factory implements CoreObjectFactory {
 
         ConfiguredSensor obj;
         Sensor sensor;
+        JRos2Client client = null;
 
         try {
             obj = (ConfiguredSensor) configuredObjectsByKey.get(key);
@@ -434,38 +474,36 @@ public class Ros2Factory implements CoreObjectFactory {
             if (declaredConstructors.length != 1) {
                 throw new NoSuchMethodException("sensor wrong constructors?");
             }
-            JRos2ClientConfiguration clientconfig = Ros2Node.getClientConfig();
-            try {
-                clientconfig = (JRos2ClientConfiguration) obj.clazz.getMethod("getClientConfig").invoke(null);
-            } catch (Exception e ) {
-                logger.debug("no custom client config found");
-            }
-
-            sensor = (Sensor) declaredConstructors[0].newInstance(obj.data, obj.wire, factory.createClient(clientconfig));
+            client = acquireClient(obj.clazz);
+            sensor = (Sensor) declaredConstructors[0].newInstance(obj.data, obj.wire, client);
             ((Ros2Node) sensor).setKey(key);
+            ((Ros2Node) sensor).setClientPool(clientPool);
             sensor.configure(obj.conf);
         } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | InvocationTargetException ex) {
             logger.error("failed to create instance");
+            if (client != null) clientPool.release(client);
             throw new CoreObjectCreationException(ex);
         } catch (ConfigurationException ex) {
+            if (client != null) clientPool.release(client);
             throw new CoreObjectCreationException(ex);
         } catch (ClassCastException ex) {
             assert false : "canCreateActuator seems to be wrong...";
+            if (client != null) clientPool.release(client);
             throw new CoreObjectCreationException(ex);
         }
 
         if (sensor instanceof Ros2Node) {
             try {
                 spawnRosNode((Ros2Node) sensor, wait);
-                if (wait) {
-                    TimeUnit.MILLISECONDS.sleep(sleepTime);
-                }
-            } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            } catch (InterruptedException | ExecutionException | TimeoutException | RuntimeException ex) {
                 logger.error(ex);
+                // the node is not handed out, so nobody else cleans it up
+                ((Ros2Node) sensor).releaseClient();
                 throw new CoreObjectCreationException("cant execute node for: " + sensor.getClass());
             }
         } else {
             logger.fatal("critical fail");
+            clientPool.release(client);
             throw new CoreObjectCreationException("cant execute node for: " + sensor.getClass());
         }
 
@@ -520,16 +558,24 @@ public class Ros2Factory implements CoreObjectFactory {
         try {
             nodeInitTimeout = MapReader.readConfigLong(KEY_NODE_INIT_TIMEOUT, nodeInitTimeout, options);
             sleepTime = MapReader.readConfigLong(KEY_INIT_SLEEP_TIME, sleepTime, options);
+            clientPoolSize = (int) MapReader.readConfigLong(KEY_CLIENT_POOL_SIZE, clientPoolSize, options);
         } catch (MapReader.KeyNotFound keyNotFound) {
             throw new IllegalArgumentException(keyNotFound);
         }
+        if (clientPoolSize < 1) {
+            throw new IllegalArgumentException(KEY_CLIENT_POOL_SIZE + " must be positive: " + clientPoolSize);
+        }
         logger.info("set node init timeout to " + nodeInitTimeout);
         logger.info("set init sleep time to " + sleepTime);
+        logger.info("set client pool size to " + clientPoolSize);
 
 
         knownActuators = serviceDiscoveryActuator.discoverServicesByInterface(Ros2Node.class);
         knownSensors = serviceDiscoverySensor.discoverServicesByInterface(Ros2Sensor.class);
         this.cleanUp();
+        if (clientPool.getSize() != clientPoolSize) {
+            clientPool = new Ros2ClientPool(factory, clientPoolSize);
+        }
 
     }
 
@@ -667,34 +713,39 @@ public class Ros2Factory implements CoreObjectFactory {
 
         logger.debug("Waiting for all nodes to connect in " + nodeInitTimeout + "ms");
 
-        nodesQuene.parallelStream().forEach((node) -> {
+        // all nodes start concurrently, so they share one deadline
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nodeInitTimeout);
+        for (Ros2Node node : nodesQuene) {
             String key = node.getKey();
             try {
-                if (!node.isInitialised().get(nodeInitTimeout, TimeUnit.MILLISECONDS)) {
-                    logger.warn("node is not started " + key + " " + node.initialized);
-                    res.exceptions.add(new CoreObjectCreationException("node is not started " + key));
-                } else {
-                    if (node instanceof Sensor) {
-                        isSensorInitialized.put(key, true);
-                        initializedSensorsByKey.put(key, (Sensor) node);
-                    } else if (node instanceof Actuator) {
-                        isActuatorInitialized.put(key, true);
-                        initializedActuatorsByKey.put(key, (Actuator) node);
-                    }
+                node.isInitialised().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (node instanceof Sensor) {
+                    isSensorInitialized.put(key, true);
+                    initializedSensorsByKey.put(key, (Sensor) node);
+                } else if (node instanceof Actuator) {
+                    isActuatorInitialized.put(key, true);
+                    initializedActuatorsByKey.put(key, (Actuator) node);
                 }
-            } catch (InterruptedException | ExecutionException ex) {
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                res.exceptions.add(ex);
+                break;
+            } catch (ExecutionException ex) {
                 logger.warn(ex);
                 res.exceptions.add(ex);
             } catch (TimeoutException ex) {
                 res.exceptions.add(new CoreObjectCreationException("node is not started: " + node.getKey() + " " + node.initialized + " check stderr for output"));
             }
-        });
+        }
+        logger.debug(clientPool.getClientCount() + " shared clients");
 
-        logger.debug("Sleep additional " + sleepTime);
-        try {
-            TimeUnit.MILLISECONDS.sleep(sleepTime);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
+        if (sleepTime > 0) {
+            logger.debug("Sleep additional " + sleepTime);
+            try {
+                TimeUnit.MILLISECONDS.sleep(sleepTime);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
         }
 
         logger.debug("all nodes should be started now");
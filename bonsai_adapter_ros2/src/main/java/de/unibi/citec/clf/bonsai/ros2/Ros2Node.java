@@ -3,15 +3,10 @@ package de.unibi.citec.clf.bonsai.ros2;
 
 import id.jros2client.JRos2Client;
 import id.jros2client.JRos2ClientConfiguration;
-import org.apache.log4j.Logger;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
 
-import id.jros2client.JRos2Client;
 import pinorobotics.rtpstalk.RtpsTalkConfiguration;
 
 /**
@@ -33,10 +28,15 @@ public abstract class Ros2Node {
         this.key = key;
     }
 
-    private Logger logger = Logger.getLogger(getClass());
-    public boolean initialized = false;
+    /**
+     * Set by {@link #markInitialized()}, subclasses should not assign it directly as waiting callers are only
+     * notified by that method.
+     */
+    public volatile boolean initialized = false;
+    private volatile CompletableFuture<Boolean> started = new CompletableFuture<>();
     public static final String NODE_PREFIX = "/bonsai/ros/";
     protected JRos2Client client;
+    private Ros2ClientPool clientPool;
 
 
     public abstract void onStart();
@@ -46,51 +46,53 @@ public abstract class Ros2Node {
         return true;
     }
 
+    /**
+     * Sets the pool the client of this node was acquired from.
+     */
+    void setClientPool(Ros2ClientPool clientPool) {
+        this.clientPool = clientPool;
+    }
+
+    /**
+     * Gives the client back to its pool, which closes it once no other node uses it. A client that is not shared
+     * is closed. Call this instead of {@link JRos2Client#close()} in {@link #cleanUp()}.
+     */
+    protected void releaseClient() {
+        if (client == null) {
+            return;
+        }
+        if (clientPool != null) {
+            clientPool.release(client);
+        } else {
+            client.close();
+        }
+        client = null;
+    }
 
-    public Future<Boolean> isInitialised() {
-        return new Future<Boolean>() {
-            @Override
-            public boolean cancel(boolean bln) {
-                return false;
-            }
-
-            @Override
-            public boolean isCancelled() {
-                return false;
-            }
-
-            @Override
-            public boolean isDone() {
-                return initialized;
-            }
-
-            @Override
-            public Boolean get() throws InterruptedException, ExecutionException {
-                if (!initialized) {
-                    //dont do this
-                    throw new ExecutionException("dont get me", new Exception("nope"));
-                }
-                return true;
-            }
-
-            @Override
-            public Boolean get(long l, TimeUnit tu) throws InterruptedException, ExecutionException, TimeoutException {
-                long sleep_millies = tu.toMillis(l);
-                long sleep_step = sleep_millies / 10;
-                logger.trace("get isInitialized for  " + l + tu.toString());
-                while (!initialized && sleep_millies > 0) {
-                    sleep_millies -= sleep_step;
-                    Thread.sleep(sleep_step);
-                }
-
-                if (!initialized) {
-                    logger.trace("isInitialized false after " + l + tu.toString());
-                    throw new TimeoutException("not initialized after " + l + tu.toString());
-                }
-                return initialized;
-            }
-        };
+    /**
+     * Marks this node as started, usually at the end of {@link #onStart()}. Completes the future of
+     * {@link #isInitialised()}.
+     */
+    protected void markInitialized() {
+        initialized = true;
+        started.complete(true);
     }
 
+    /**
+     * Marks this node as not started. A later {@link #markInitialized()} completes a new future.
+     */
+    protected void resetInitialized() {
+        initialized = false;
+        if (started.isDone()) {
+            started = new CompletableFuture<>();
+        }
+    }
+
+    /**
+     * @return a future that completes when the node calls {@link #markInitialized()}
+     */
+    public CompletableFuture<Boolean> isInitialised() {
+        return started.copy();
+    }
 
 }
@@ -1,37 +1,62 @@
 package de.unibi.citec.clf.bonsai.ros2
 
 import de.unibi.citec.clf.bonsai.core.exception.TransformException
+import de.unibi.citec.clf.bonsai.ros2.helper.TFMessage
 import de.unibi.citec.clf.bonsai.util.CoordinateTransformer
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger
+import de.unibi.citec.clf.bonsai.util.tf.TransformSample
+import de.unibi.citec.clf.bonsai.util.tf.TransformTree
 import de.unibi.citec.clf.btl.Transform
 import id.jros2client.JRos2Client
 import id.jros2messages.geometry_msgs.TransformStampedMessage
-import org.apache.log4j.Logger
+import id.jrosclient.TopicSubscriber
 import pinorobotics.jros2tf2.JRos2Tf2
 import pinorobotics.jros2tf2.JRos2Tf2Factory
 import pinorobotics.jrostf2.tf2_msgs.TF2ErrorMessage
+import java.util.concurrent.TimeUnit
 import javax.media.j3d.Transform3D
 import javax.vecmath.Quat4d
 import javax.vecmath.Vector3d
 
 
 /**
+ * Looks up transforms in a local [TransformTree] that is filled from /tf and /tf_static.
+ * Newest transforms of frames unknown to the tree are requested from the tf2 buffer server.
+ *
  * Created by lruegeme on 1/18/18.
  */
-class Tf2Transformer(client: JRos2Client) : CoordinateTransformer() {
+class Tf2Transformer @JvmOverloads constructor(
+    client: JRos2Client,
+    historySeconds: Double = TransformTree.DEFAULT_HISTORY_SECONDS
+) : CoordinateTransformer() {
     private val node: TfNode
+    private val buffer = TransformTree(historySeconds)
+
     init {
         node = TfNode(client)
     }
 
-    private val logger = Logger.getLogger(javaClass)
+    private val logger = LazyLogger.getLogger(javaClass)
 
     fun getNode(): Ros2Node {
         return node
     }
 
+    /**
+     * Transform at the given time in milliseconds, interpolated between the buffered transforms.
+     * A time of 0 or less uses the newest transforms.
+     */
     @Throws(TransformException::class)
     override fun lookup(from: String, to: String, time: Long): Transform {
-        logger.debug("lookup $from -> $to")
+        logger.debug("lookup {} -> {} @ {}", from, to, time)
+        val stamp = if (time > 0) TimeUnit.MILLISECONDS.toNanos(time) else 0
+        try {
+            return Transform(buffer.lookup(from, to, stamp).toTransform3D(), from, to, time)
+        } catch (e: TransformException) {
+            if (time > 0) throw e
+            logger.debug("no local transform {} -> {}, asking the buffer server", from, to)
+        }
+
         val ftf = node.getTransform(from, to)
 
         val translation = ftf.transform.translation
@@ -46,9 +71,32 @@ class Tf2Transformer(client: JRos2Client) : CoordinateTransformer() {
     }
 
 
+    private fun onNewMessage(transforms: Array<TransformStampedMessage>) {
+        for (ts in transforms) {
+            logger.trace("got tf {} -> {}", ts.header.frame_id, ts.child_frame_id)
+            buffer.update(sample(ts))
+        }
+    }
+
+    private fun onNewStaticMessage(transforms: Array<TransformStampedMessage>) {
+        for (ts in transforms) {
+            logger.trace("got static tf {} -> {}", ts.header.frame_id, ts.child_frame_id)
+            buffer.updateStatic(sample(ts))
+        }
+    }
+
+    private fun sample(msg: TransformStampedMessage): TransformSample {
+        val stamp = TimeUnit.SECONDS.toNanos(msg.header.stamp.sec.toLong()) + msg.header.stamp.nanosec
+        val translation = msg.transform.translation
+        val rotation = msg.transform.rotation
+        return TransformSample.of(stamp, msg.child_frame_id, msg.header.frame_id,
+                translation.x, translation.y, translation.z, rotation.x, rotation.y, rotation.z, rotation.w)
+    }
+
     private inner class TfNode(client: JRos2Client) : Ros2Node() {
 
         private var tf2: JRos2Tf2? = null;
+        private val subscribers = mutableListOf<TopicSubscriber<TFMessage>>()
 
         init {
             initialized = false
@@ -56,20 +104,41 @@ class Tf2Transformer(client: JRos2Client) : CoordinateTransformer() {
         }
 
         @Throws(TransformException::class)
-        fun getTransform(source: String?, target: String?): TransformStampedMessage {
+        fun getTransform(source: String, target: String): TransformStampedMessage {
             val tf = tf2?.lookupTransform(target,source)
             if (tf?.error?.codeType == TF2ErrorMessage.ErrorType.NO_ERROR) return tf!!.transform
-            else throw RuntimeException("error fetching tf: ${tf?.error?.error_string}")
+            else throw TransformException(source, target, 0, "error fetching tf: ${tf?.error?.error_string}")
         }
 
         override fun onStart() {
             tf2 = JRos2Tf2Factory().createTf2Client(client)
+            subscribe(object : TopicSubscriber<TFMessage>(TFMessage::class.java, "/tf") {
+                override fun onNext(msg: TFMessage) {
+                    onNewMessage(msg.transforms)
+                    subscription.get().request(1)
+                }
+            })
+            subscribe(object : TopicSubscriber<TFMessage>(TFMessage::class.java, "/tf_static") {
+                override fun onNext(msg: TFMessage) {
+                    onNewStaticMessage(msg.transforms)
+                    subscription.get().request(1)
+                }
+            })
+            markInitialized()
+        }
+
+        private fun subscribe(subscriber: TopicSubscriber<TFMessage>) {
+            subscribers.add(subscriber)
+            client.subscribe(subscriber)
         }
 
         override fun cleanUp() {
             tf2?.close()
-            client.close()
+            // the client may be shared with other nodes
+            subscribers.forEach { it.subscription.ifPresent { s -> s.cancel() } }
+            subscribers.clear()
+            releaseClient()
         }
     }
 
-}
\ No newline at end of file
+}
@@ -49,12 +49,16 @@ public class RosStringActuator extends Ros2Node implements StringActuator {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        initialized = true;
+        markInitialized();
     }
 
     @Override
     public void cleanUp() throws IOException {
         //client.unpublish(publisher);
-        client.close();
+        // the client may be shared with other nodes
+        if (publisher != null) {
+            publisher.close();
+        }
+        releaseClient();
     }
 }
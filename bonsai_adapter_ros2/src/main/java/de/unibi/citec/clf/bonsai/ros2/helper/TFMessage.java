@@ -0,0 +1,33 @@
+package de.unibi.citec.clf.bonsai.ros2.helper;
+
+import id.jros2messages.geometry_msgs.TransformStampedMessage;
+import id.jrosmessages.Message;
+import id.jrosmessages.MessageMetadata;
+
+import java.util.Arrays;
+
+/**
+ * <code>tf2_msgs/TFMessage</code> as published on <code>/tf</code> and <code>/tf_static</code>.
+ */
+@MessageMetadata(name = TFMessage.NAME, fields = {"transforms"})
+public class TFMessage implements Message {
+
+    static final String NAME = "tf2_msgs/TFMessage";
+
+    public TransformStampedMessage[] transforms = new TransformStampedMessage[0];
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(transforms);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TFMessage && Arrays.equals(transforms, ((TFMessage) obj).transforms);
+    }
+
+    @Override
+    public String toString() {
+        return NAME + " " + Arrays.toString(transforms);
+    }
+}
@@ -4,8 +4,9 @@ package de.unibi.citec.clf.bonsai.ros2.sensors;
 import de.unibi.citec.clf.bonsai.core.SensorListener;
 import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
 import de.unibi.citec.clf.bonsai.ros2.Ros2Sensor;
-import de.unibi.citec.clf.bonsai.util.BoundSynchronizedQueue;
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
 import de.unibi.citec.clf.btl.Type;
 import de.unibi.citec.clf.btl.ros2.MsgTypeFactory;
 import de.unibi.citec.clf.btl.ros2.Ros2Serializer;
@@ -15,12 +16,23 @@ import id.jrosclient.TopicSubscriber;
 import id.jrosmessages.Message;
 import org.apache.log4j.Logger;
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A simple {@link de.unibi.citec.clf.bonsai.core.object.Sensor} for Ros Msg types.
+ * <p>
+ * Messages are requested in windows of <code>requestWindow</code> messages, the next window is requested once half
+ * of it arrived. With <code>delivery</code> set to <code>latest</code>, the subscriber only keeps the newest message
+ * and deserializes it in a background task, messages replaced before that are dropped without being deserialized.
+ * The tasks run on a pool of this class instead of the common pool, a sensor uses at most one of its threads at a
+ * time.
  *
  * @param <DataType> BTL type returned by this sensor
  * @param <MsgType>
@@ -28,21 +40,61 @@ import java.util.Set;
  */
 public class BtlMsgSensor<DataType extends Type, MsgType extends Message> extends Ros2Sensor<DataType, MsgType> {
 
-    private final BoundSynchronizedQueue<DataType> queue;
-    private Set<SensorListener<DataType>> listeners = new HashSet<>();
+    public static final String DELIVERY_ALL = "all";
+    public static final String DELIVERY_LATEST = "latest";
+
+    private static final ExecutorService DELIVERY_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "BtlMsgSensor-delivery");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private SensorBuffer<DataType> queue;
+    private Set<SensorListener<DataType>> listeners = new CopyOnWriteArraySet<>();
     private static final Logger logger = Logger.getLogger(BtlMsgSensor.class);
     private String topic;
     private int bufferSize;
+    private int requestWindow;
+    private boolean conflate;
+    private MetricsRegistry.DeliveryMetrics delivery;
+    private TopicSubscriber<MsgType> subscriber;
 
-    MsgType tMsg;
+    volatile MsgType tMsg;
     private boolean keepLast;
 
+    /**
+     * A received message that was not deserialized yet.
+     */
+    private static final class Pending<M> {
+        final M msg;
+        final long received;
+
+        Pending(M msg, long received) {
+            this.msg = msg;
+            this.received = received;
+        }
+    }
+
+    private final AtomicReference<Pending<MsgType>> latest = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
 
     @Override
     public void configure(IObjectConfigurator conf) throws ConfigurationException {
         this.topic = conf.requestValue("topic");
         this.bufferSize = conf.requestOptionalInt("bufferSize", 1);
+        this.queue = SensorBuffer.fromConfig(conf, bufferSize, topic);
         this.keepLast = conf.requestOptionalBool("keepLast", false);
+        this.requestWindow = conf.requestOptionalInt("requestWindow", 16);
+        if (requestWindow < 1) {
+            throw new ConfigurationException("requestWindow must be positive: " + requestWindow);
+        }
+        String mode = conf.requestOptionalValue("delivery", DELIVERY_ALL);
+        if (!DELIVERY_ALL.equals(mode) && !DELIVERY_LATEST.equals(mode)) {
+            throw new ConfigurationException("unknown delivery '" + mode + "', use " + DELIVERY_ALL + " or " + DELIVERY_LATEST);
+        }
+        this.conflate = DELIVERY_LATEST.equals(mode);
+        this.delivery = MetricsRegistry.getInstance().delivery(topic);
     }
 
     /**
@@ -56,7 +108,6 @@ public class BtlMsgSensor<DataType extends Type, MsgType extends Message> extend
             throws IllegalArgumentException {
         super(typeClass, rosType, client);
         initialized = false;
-        this.queue = new BoundSynchronizedQueue<>(bufferSize);
 
         if (Ros2SerializerRepository.getMsgSerializer(typeClass, rosType) == null) {
             throw new IllegalArgumentException("No btl ros2 msg serializer for type " + typeClass.getSimpleName());
@@ -140,31 +191,105 @@ public class BtlMsgSensor<DataType extends Type, MsgType extends Message> extend
     @Override
     public void onStart() {
         try {
-            client.subscribe(new TopicSubscriber<>(msgType, topic) {
-                @Override
-                public void onNext(MsgType s) {
-                    final DataType data;
-                    try {
-                        data = MsgTypeFactory.getInstance().createType(s, dataTypeClass);
-                    } catch (Ros2Serializer.DeserializationException e) {
-                        throw new RuntimeException(e);
-                    }
-                    queue.push(data);
-                    listeners.forEach((SensorListener<DataType> l) -> {
-                        l.newDataAvailable(data);
-                    });
-                    // request next message
-                    getSubscription().get().request(1);
-                }
-            });
+            subscriber = createSubscriber();
+            client.subscribe(subscriber);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        markInitialized();
+    }
+
+    /**
+     * Creates the subscriber that requests the messages in windows and delivers them.
+     */
+    TopicSubscriber<MsgType> createSubscriber() {
+        final int replenish = Math.max(1, requestWindow / 2);
+        return new TopicSubscriber<>(msgType, topic) {
+            private int arrived = 0;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                if (requestWindow > 1) {
+                    subscription.request(requestWindow - 1);
+                }
+            }
+
+            @Override
+            public void onNext(MsgType s) {
+                long received = System.nanoTime();
+                delivery.received();
+                if (conflate) {
+                    offerLatest(new Pending<>(s, received));
+                } else {
+                    deliver(s, received);
+                }
+                // request the next messages once half of the window arrived
+                if (++arrived >= replenish) {
+                    getSubscription().get().request(arrived);
+                    arrived = 0;
+                }
+            }
+        };
+    }
+
+    /**
+     * Replaces the pending message and starts a delivery task if none is running.
+     */
+    private void offerLatest(Pending<MsgType> pending) {
+        if (latest.getAndSet(pending) != null) {
+            delivery.conflated();
+        }
+        if (draining.compareAndSet(false, true)) {
+            DELIVERY_EXECUTOR.execute(this::drainLatest);
+        }
+    }
+
+    private void drainLatest() {
+        while (true) {
+            Pending<MsgType> pending = latest.getAndSet(null);
+            if (pending != null) {
+                deliver(pending.msg, pending.received);
+                continue;
+            }
+            draining.set(false);
+            // a message may have been offered before the flag was cleared
+            if (latest.get() == null || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void deliver(MsgType msg, long received) {
+        if (keepLast) {
+            tMsg = msg;
+        }
+        final DataType data;
+        try {
+            data = deserialize(msg);
+        } catch (Ros2Serializer.DeserializationException e) {
+            delivery.failed();
+            logger.warn("could not deserialize message on " + topic + ": " + e.getMessage());
+            return;
+        }
+        queue.push(data);
+        delivery.getLag().recordSince(received);
+        listeners.forEach((SensorListener<DataType> l) -> {
+            l.newDataAvailable(data);
+        });
+    }
+
+    DataType deserialize(MsgType msg) throws Ros2Serializer.DeserializationException {
+        return MsgTypeFactory.getInstance().createType(msg, dataTypeClass);
     }
 
     @Override
     public void cleanUp() {
-        client.close();
+        // the client may be shared with other nodes
+        if (subscriber != null) {
+            subscriber.getSubscription().ifPresent(Flow.Subscription::cancel);
+        }
+        releaseClient();
     }
 }
 
@@ -5,7 +5,7 @@ import de.unibi.citec.clf.bonsai.core.SensorListener;
 import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.ros2.Ros2Sensor;
-import de.unibi.citec.clf.bonsai.util.BoundSynchronizedQueue;
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
 import id.jros2client.JRos2Client;
 import id.jros2client.JRos2ClientFactory;
 import id.jrosclient.TopicSubscriber;
@@ -15,6 +15,7 @@ import id.jrosmessages.std_msgs.StringMessage;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Flow;
 
 /**
  * @author lruegeme
@@ -22,8 +23,9 @@ import java.util.Set;
 public class StringSensor extends Ros2Sensor<String, StringMessage>  {
 
     private Logger logger = Logger.getLogger(StringSensor.class);
-    private BoundSynchronizedQueue<String> queue;
+    private SensorBuffer<String> queue;
     private Set<SensorListener<String>> listeners = new HashSet<>();
+    private TopicSubscriber<StringMessage> subscriber;
     private String topic;
     private int bufferSize;
 
@@ -39,6 +41,7 @@ public class StringSensor extends Ros2Sensor<String, StringMessage>  {
     public void configure(IObjectConfigurator conf) throws ConfigurationException {
         this.topic = conf.requestValue("topic");
         this.bufferSize = conf.requestOptionalInt("bufferSize", 1);
+        this.queue = SensorBuffer.fromConfig(conf, bufferSize, topic);
     }
 
 
@@ -93,10 +96,9 @@ public class StringSensor extends Ros2Sensor<String, StringMessage>  {
 
     @Override
     public void onStart() {
-        queue = new BoundSynchronizedQueue<>(bufferSize);
 
         try {
-            client.subscribe(new TopicSubscriber<>(StringMessage.class, topic) {
+            subscriber = new TopicSubscriber<>(StringMessage.class, topic) {
                 @Override
                 public void onNext(StringMessage s) {
                     logger.trace("received data: " + s.data);
@@ -109,15 +111,20 @@ public class StringSensor extends Ros2Sensor<String, StringMessage>  {
                     // request next message
                     getSubscription().get().request(1);
                 }
-            });
+            };
+            client.subscribe(subscriber);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        this.initialized = true;
+        markInitialized();
     }
 
     @Override
     public void cleanUp() {
-        client.close();
+        // the client may be shared with other nodes
+        if (subscriber != null) {
+            subscriber.getSubscription().ifPresent(Flow.Subscription::cancel);
+        }
+        releaseClient();
     }
 }
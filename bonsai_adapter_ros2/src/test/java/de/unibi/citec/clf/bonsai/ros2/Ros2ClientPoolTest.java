@@ -0,0 +1,137 @@
+package de.unibi.citec.clf.bonsai.ros2;
+
+import id.jros2client.JRos2Client;
+import id.jros2client.JRos2ClientConfiguration;
+import id.jros2client.JRos2ClientFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class Ros2ClientPoolTest {
+
+    /**
+     * Records the created clients. The clients are never used, so no participant joins a ROS domain.
+     */
+    private static class CountingFactory extends JRos2ClientFactory {
+        final List<JRos2Client> created = new ArrayList<>();
+
+        @Override
+        public JRos2Client createClient(JRos2ClientConfiguration config) {
+            JRos2Client client = super.createClient(config);
+            created.add(client);
+            return client;
+        }
+    }
+
+    private static final Object GROUP = Ros2Node.class;
+    private static final Object OTHER = Ros2ClientPoolTest.class;
+
+    @Test
+    public void sharedClientTest() {
+        CountingFactory factory = new CountingFactory();
+        Ros2ClientPool pool = new Ros2ClientPool(factory, 1);
+
+        JRos2Client a = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        JRos2Client b = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        assertSame(a, b);
+        assertEquals(1, factory.created.size());
+        assertEquals(1, pool.getClientCount());
+
+        pool.release(a);
+        assertEquals("one user is left", 1, pool.getClientCount());
+        pool.release(b);
+        assertEquals(0, pool.getClientCount());
+
+        // a released client is never handed out again
+        JRos2Client c = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        assertNotSame(a, c);
+        assertEquals(2, factory.created.size());
+        pool.release(c);
+    }
+
+    @Test
+    public void sizeLimitTest() {
+        CountingFactory factory = new CountingFactory();
+        Ros2ClientPool pool = new Ros2ClientPool(factory, 2);
+
+        JRos2Client a = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        JRos2Client b = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        assertNotSame("a second client is created while the first is used", a, b);
+
+        // the pool is full, the users are spread over both clients
+        assertSame(a, pool.acquire(GROUP, Ros2Node::getClientConfig));
+        assertSame(b, pool.acquire(GROUP, Ros2Node::getClientConfig));
+        assertEquals(2, factory.created.size());
+        assertEquals(2, pool.getClientCount());
+
+        // the least used client is handed out
+        pool.release(a);
+        assertSame(a, pool.acquire(GROUP, Ros2Node::getClientConfig));
+
+        // a client without users is closed and replaced on demand
+        pool.release(a);
+        pool.release(a);
+        assertEquals(1, pool.getClientCount());
+        assertNotSame(a, pool.acquire(GROUP, Ros2Node::getClientConfig));
+        assertEquals(3, factory.created.size());
+
+        pool.closeAll();
+    }
+
+    @Test
+    public void groupTest() {
+        CountingFactory factory = new CountingFactory();
+        Ros2ClientPool pool = new Ros2ClientPool(factory, 1);
+        int[] configs = {0};
+
+        JRos2Client a = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        JRos2Client b = pool.acquire(OTHER, () -> {
+            configs[0]++;
+            return Ros2Node.getClientConfig();
+        });
+        assertNotSame("groups do not share clients", a, b);
+        assertSame(b, pool.acquire(OTHER, () -> {
+            configs[0]++;
+            return Ros2Node.getClientConfig();
+        }));
+        assertEquals("the configuration is only created for a new client", 1, configs[0]);
+        assertEquals(2, pool.getClientCount());
+
+        pool.release(a);
+        assertEquals(1, pool.getClientCount());
+        pool.closeAll();
+    }
+
+    @Test
+    public void closeAllTest() {
+        CountingFactory factory = new CountingFactory();
+        Ros2ClientPool pool = new Ros2ClientPool(factory, 2);
+
+        JRos2Client a = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        pool.acquire(GROUP, Ros2Node::getClientConfig);
+        pool.acquire(OTHER, Ros2Node::getClientConfig);
+        assertEquals(3, pool.getClientCount());
+
+        pool.closeAll();
+        assertEquals(0, pool.getClientCount());
+
+        // late releases of closed clients do not count against new ones
+        pool.release(a);
+        JRos2Client b = pool.acquire(GROUP, Ros2Node::getClientConfig);
+        assertNotSame(a, b);
+        assertEquals(1, pool.getClientCount());
+        assertEquals(4, factory.created.size());
+        pool.closeAll();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSizeTest() {
+        new Ros2ClientPool(new CountingFactory(), 0);
+    }
+
+}
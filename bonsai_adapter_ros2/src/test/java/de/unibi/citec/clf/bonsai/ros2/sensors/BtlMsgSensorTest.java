@@ -0,0 +1,169 @@
+package de.unibi.citec.clf.bonsai.ros2.sensors;
+
+import de.unibi.citec.clf.bonsai.core.configuration.ObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
+import de.unibi.citec.clf.btl.data.geometry.Point3D;
+import de.unibi.citec.clf.btl.ros2.Ros2Serializer;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import id.jrosclient.TopicSubscriber;
+import id.jrosmessages.geometry_msgs.PointMessage;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BtlMsgSensorTest {
+
+    /**
+     * Deserializes the x coordinate only, a negative x fails. The first message can block the delivery.
+     */
+    private static class TestSensor extends BtlMsgSensor<Point3D, PointMessage> {
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch blocked = null;
+
+        TestSensor() {
+            super(Point3D.class, PointMessage.class, null);
+        }
+
+        @Override
+        Point3D deserialize(PointMessage msg) throws Ros2Serializer.DeserializationException {
+            threads.add(Thread.currentThread());
+            entered.countDown();
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (msg.x < 0) {
+                throw new Ros2Serializer.DeserializationException("negative");
+            }
+            return new Point3D(msg.x, 0, 0, LengthUnit.METER);
+        }
+    }
+
+    private static class CountingSubscription implements Flow.Subscription {
+        long requested = 0;
+
+        @Override
+        public synchronized void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+
+    private static TestSensor sensor(Map<String, String> options) throws Exception {
+        TestSensor sensor = new TestSensor();
+        ObjectConfigurator conf = ObjectConfigurator.createConfigPhase();
+        sensor.configure(conf);
+        conf.activateObjectPhase(options);
+        sensor.configure(conf);
+        return sensor;
+    }
+
+    private static PointMessage point(double x) {
+        PointMessage msg = new PointMessage();
+        msg.x = x;
+        return msg;
+    }
+
+    private static double x(Point3D point) {
+        return point.getX(LengthUnit.METER);
+    }
+
+    @Test
+    public void requestWindowTest() throws Exception {
+        TestSensor sensor = sensor(Map.of("topic", "/window", "requestWindow", "4", "bufferSize", "16"));
+        TopicSubscriber<PointMessage> subscriber = sensor.createSubscriber();
+        CountingSubscription subscription = new CountingSubscription();
+
+        subscriber.onSubscribe(subscription);
+        assertEquals("the first window is requested at once", 4, subscription.requested);
+
+        subscriber.onNext(point(1));
+        assertEquals(4, subscription.requested);
+        subscriber.onNext(point(2));
+        assertEquals("half of the window arrived", 6, subscription.requested);
+
+        for (int i = 3; i <= 10; i++) {
+            subscriber.onNext(point(i));
+            // never more than a window is outstanding
+            assertTrue(subscription.requested - i <= 4);
+        }
+        assertEquals(14, subscription.requested);
+        assertEquals("the newest message is read", 10.0, x(sensor.readLast(100)), 0.0);
+    }
+
+    @Test
+    public void deliverAllTest() throws Exception {
+        TestSensor sensor = sensor(Map.of("topic", "/all", "bufferSize", "8"));
+        List<Point3D> heard = new CopyOnWriteArrayList<>();
+        sensor.addSensorListener(heard::add);
+        MetricsRegistry.DeliveryMetrics delivery = MetricsRegistry.getInstance().delivery("/all");
+        long received = delivery.getReceived();
+        long failed = delivery.getFailed();
+
+        TopicSubscriber<PointMessage> subscriber = sensor.createSubscriber();
+        subscriber.onSubscribe(new CountingSubscription());
+        subscriber.onNext(point(1));
+        subscriber.onNext(point(-1));
+        subscriber.onNext(point(2));
+
+        assertEquals(2, heard.size());
+        assertEquals(3, delivery.getReceived() - received);
+        assertEquals(1, delivery.getFailed() - failed);
+        // delivered in the thread of the subscriber
+        assertTrue(sensor.threads.stream().allMatch(t -> t == Thread.currentThread()));
+    }
+
+    @Test(timeout = 10000)
+    public void deliverLatestTest() throws Exception {
+        TestSensor sensor = sensor(Map.of("topic", "/latest", "delivery", "latest", "bufferSize", "8"));
+        List<Point3D> heard = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        sensor.addSensorListener(data -> {
+            heard.add(data);
+            done.countDown();
+        });
+        MetricsRegistry.DeliveryMetrics delivery = MetricsRegistry.getInstance().delivery("/latest");
+        long conflated = delivery.getConflated();
+
+        TopicSubscriber<PointMessage> subscriber = sensor.createSubscriber();
+        subscriber.onSubscribe(new CountingSubscription());
+
+        // the first message blocks the delivery, so the next ones replace each other
+        sensor.blocked = new CountDownLatch(1);
+        subscriber.onNext(point(1));
+        sensor.entered.await();
+        for (int i = 2; i <= 5; i++) {
+            subscriber.onNext(point(i));
+        }
+        sensor.blocked.countDown();
+        done.await();
+
+        assertEquals(2, heard.size());
+        assertEquals(1.0, x(heard.get(0)), 0.0);
+        assertEquals(5.0, x(heard.get(1)), 0.0);
+        assertEquals("2, 3 and 4 were never deserialized", 3, delivery.getConflated() - conflated);
+        assertEquals(2, sensor.threads.size());
+        for (Thread t : sensor.threads) {
+            assertFalse(t == Thread.currentThread());
+            assertTrue(t.getName(), t.getName().startsWith("BtlMsgSensor-delivery"));
+        }
+    }
+
+}
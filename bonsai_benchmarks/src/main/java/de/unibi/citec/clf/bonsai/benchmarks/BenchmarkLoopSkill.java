@@ -0,0 +1,46 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
+import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
+import de.unibi.citec.clf.bonsai.engine.model.ExitToken;
+import de.unibi.citec.clf.bonsai.engine.model.config.ISkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.model.config.SkillConfigurationException;
+
+/**
+ * Loops a given number of times without delay, then succeeds.
+ */
+public class BenchmarkLoopSkill extends AbstractSkill {
+
+    private final int loops;
+    private ExitToken tokenSuccess;
+    private int iterations;
+
+    public BenchmarkLoopSkill(int loops) {
+        this.loops = loops;
+    }
+
+    @Override
+    public void configure(ISkillConfigurator configurator) throws SkillConfigurationException {
+        tokenSuccess = configurator.requestExitToken(ExitStatus.SUCCESS());
+    }
+
+    @Override
+    public boolean init() {
+        iterations = 0;
+        return true;
+    }
+
+    @Override
+    public ExitToken execute() {
+        if (++iterations < loops) {
+            return ExitToken.loop(0);
+        }
+        return tokenSuccess;
+    }
+
+    @Override
+    public ExitToken end(ExitToken curToken) {
+        return curToken;
+    }
+
+}
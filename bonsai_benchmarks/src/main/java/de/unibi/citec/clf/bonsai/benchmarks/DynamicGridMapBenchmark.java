@@ -0,0 +1,68 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.btl.data.common.Timestamp;
+import de.unibi.citec.clf.btl.data.map.DynamicGridMap;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions between the linear and the 2d representation of {@link DynamicGridMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicGridMapBenchmark {
+
+    @Param({"128", "512"})
+    public int size;
+
+    private float[] linear;
+    private DynamicGridMap map;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        linear = new float[size * size];
+        for (int i = 0; i < linear.length; i++) {
+            linear[i] = random.nextFloat();
+        }
+        map = new DynamicGridMap(size, size, linear, new Timestamp(), 0, 0, 0.05, LengthUnit.METER);
+    }
+
+    @Benchmark
+    public DynamicGridMap fromLinear() {
+        return new DynamicGridMap(size, size, linear, new Timestamp(), 0, 0, 0.05, LengthUnit.METER);
+    }
+
+    @Benchmark
+    public float[] toLinear() {
+        return map.getLinearMap();
+    }
+
+    @Benchmark
+    public float[] toLinearRowWise() {
+        return map.getLinearMapRowWise();
+    }
+
+    @Benchmark
+    public float[][] toGrid() {
+        return map.copyGridMap();
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.bonsai.core.object.MemorySlot;
+import de.unibi.citec.clf.bonsai.memory.DefaultMemory;
+import de.unibi.citec.clf.bonsai.memory.slots.ObjectSlot;
+import de.unibi.citec.clf.btl.Type;
+import de.unibi.citec.clf.btl.data.geometry.Point3D;
+import de.unibi.citec.clf.btl.data.geometry.Pose2D;
+import de.unibi.citec.clf.btl.data.person.PersonData;
+import de.unibi.citec.clf.btl.data.person.PersonDataList;
+import de.unibi.citec.clf.btl.units.AngleUnit;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recall and memorize of typical BTL types for the slots of {@link DefaultMemory}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemorySlotBenchmark {
+
+    @Param({"pose", "point", "persons"})
+    public String data;
+
+    private MemorySlot<Type> slot;
+    private Type value;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        value = createData(data);
+        Class<Type> type = (Class<Type>) value.getClass();
+        slot = new ObjectSlot<>(type);
+        slot.memorize(value);
+    }
+
+    static Type createData(String name) {
+        switch (name) {
+            case "pose":
+                return new Pose2D(1.0, 2.0, 0.5, LengthUnit.METER, AngleUnit.RADIAN);
+            case "point":
+                return new Point3D(1.0, 2.0, 3.0, LengthUnit.METER);
+            case "persons":
+                PersonDataList persons = new PersonDataList();
+                for (int i = 0; i < 10; i++) {
+                    PersonData person = new PersonData();
+                    person.setName("person" + i);
+                    person.setHeadPosition(new Point3D(i, i, 1.7, LengthUnit.METER));
+                    persons.add(person);
+                }
+                return persons;
+            default:
+                throw new IllegalArgumentException("unknown data: " + name);
+        }
+    }
+
+    @Benchmark
+    public Type recall() throws Exception {
+        return slot.recall();
+    }
+
+    @Benchmark
+    public void memorize() throws Exception {
+        slot.memorize(value);
+    }
+
+}
@@ -0,0 +1,92 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.bonsai.core.exception.StateIDException;
+import de.unibi.citec.clf.bonsai.engine.SkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.SkillListener;
+import de.unibi.citec.clf.bonsai.engine.SkillRunner;
+import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import de.unibi.citec.clf.bonsai.skills.End;
+import de.unibi.citec.clf.bonsai.skills.Nop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of running skills through the {@link SkillRunner} phases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkillRunnerBenchmark {
+
+    private static final SkillListener NO_LISTENER = new SkillListener() {
+        @Override
+        public void skillFinished(StateID id, ExitStatus token) {
+        }
+
+        @Override
+        public void skillAborted(StateID id, Throwable e) {
+        }
+    };
+
+    /**
+     * Number of loops, only used by {@link #runLoop(Loops)}.
+     */
+    @State(Scope.Thread)
+    public static class Loops {
+        @Param({"1", "10", "100"})
+        public int loops;
+    }
+
+    private SkillConfigurator.Config conf;
+    private StateID nopState;
+    private StateID endState;
+    private StateID loopState;
+
+    @Setup
+    public void setup() throws StateIDException {
+        conf = SkillConfigurator.getDefaultConf();
+        nopState = new StateID(Nop.class.getName());
+        endState = new StateID(End.class.getName());
+        loopState = new StateID(BenchmarkLoopSkill.class.getName());
+    }
+
+    @Benchmark
+    public ExitStatus runNop() throws Exception {
+        SkillRunner runner = new SkillRunner(new Nop(), nopState, null, null, NO_LISTENER);
+        runner.configureOnStart(conf);
+        return runner.execute();
+    }
+
+    @Benchmark
+    public ExitStatus runEnd() throws Exception {
+        SkillRunner runner = new SkillRunner(new End(), endState, null, null, NO_LISTENER);
+        runner.configureOnStart(conf);
+        return runner.execute();
+    }
+
+    /**
+     * Time of a skill looping {@link Loops#loops} times, divide by the loops for the overhead of one iteration.
+     */
+    @Benchmark
+    public ExitStatus runLoop(Loops params) throws Exception {
+        SkillRunner runner = new SkillRunner(new BenchmarkLoopSkill(params.loops), loopState, null, null, NO_LISTENER);
+        runner.configureOnStart(conf);
+        return runner.execute();
+    }
+
+}
@@ -0,0 +1,54 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.btl.units.AngleUnit;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import de.unibi.citec.clf.btl.units.UnitConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit conversions done by nearly every BTL accessor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnitConverterBenchmark {
+
+    public double length = 1234.5;
+    public double angle = 1.2;
+    public long time = 1500;
+
+    @Benchmark
+    public double lengthMillimeterToMeter() {
+        return UnitConverter.convert(length, LengthUnit.MILLIMETER, LengthUnit.METER);
+    }
+
+    @Benchmark
+    public double lengthSameUnit() {
+        return UnitConverter.convert(length, LengthUnit.METER, LengthUnit.METER);
+    }
+
+    @Benchmark
+    public double angleRadianToDegree() {
+        return UnitConverter.convert(angle, AngleUnit.RADIAN, AngleUnit.DEGREE);
+    }
+
+    @Benchmark
+    public long timeMillisecondsToSeconds() {
+        return UnitConverter.convert(time, de.unibi.citec.clf.btl.units.TimeUnit.MILLISECONDS,
+                de.unibi.citec.clf.btl.units.TimeUnit.SECONDS);
+    }
+
+}
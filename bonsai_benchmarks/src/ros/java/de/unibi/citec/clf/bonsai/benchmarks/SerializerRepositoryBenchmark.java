@@ -0,0 +1,57 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.btl.data.geometry.Point3D;
+import de.unibi.citec.clf.btl.ros.RosSerializer;
+import de.unibi.citec.clf.btl.ros.RosSerializerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros.internal.message.Message;
+import org.ros.node.NodeConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializer lookup for a received message, through the per class dispatch cache and through the
+ * repository search by message type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerRepositoryBenchmark {
+
+    private Class<?> msgClass;
+
+    @Setup
+    public void setup() {
+        Message msg = NodeConfiguration.newPrivate().getTopicMessageFactory().newFromType(geometry_msgs.Point._TYPE);
+        msgClass = msg.getClass();
+    }
+
+    @Benchmark
+    public RosSerializer<Point3D, Message> dispatch() {
+        return RosSerializerRepository.getSerializerForMessage(Point3D.class, msgClass);
+    }
+
+    @Benchmark
+    public RosSerializer<Point3D, Message> search() {
+        for (Class<?> c : msgClass.getInterfaces()) {
+            RosSerializer<Point3D, Message> ret = RosSerializerRepository.getMsgSerializer(Point3D.class, c.toString());
+            if (ret != null) {
+                return ret;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.bonsai.ros.TFQuene;
+import geometry_msgs.TransformStamped;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.NodeConfiguration;
+import org.ros.rosjava_geometry.FrameTransform;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of a transform through a chain of frames, {@code frame_<depth>} to {@code frame_0}.
+ * Every dynamic frame holds one second of samples at 100Hz, lookups at a time interpolate between two samples.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TFQueneBenchmark {
+
+    private static final int SAMPLES = 100;
+    private static final long PERIOD_NSECS = 10_000_000L;
+
+    @Param({"1", "4", "8"})
+    public int depth;
+
+    /**
+     * Publish every second frame on /tf_static.
+     */
+    @Param({"false", "true"})
+    public boolean mixedStatic;
+
+    private TFQuene quene;
+    private String source;
+    private Time between;
+
+    @Setup
+    public void setup() {
+        MessageFactory factory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+        quene = new TFQuene(2.0);
+        for (int frame = 1; frame <= depth; frame++) {
+            if (mixedStatic && frame % 2 == 0) {
+                quene.updateStatic(transform(factory, frame, 0));
+                continue;
+            }
+            for (int i = 0; i < SAMPLES; i++) {
+                quene.update(transform(factory, frame, i * PERIOD_NSECS));
+            }
+        }
+        source = "frame_" + depth;
+        between = Time.fromNano(SAMPLES / 2 * PERIOD_NSECS + PERIOD_NSECS / 2);
+    }
+
+    private static TransformStamped transform(MessageFactory factory, int frame, long stamp) {
+        TransformStamped msg = factory.newFromType(TransformStamped._TYPE);
+        msg.getHeader().setFrameId("frame_" + (frame - 1));
+        msg.getHeader().setStamp(Time.fromNano(stamp));
+        msg.setChildFrameId("frame_" + frame);
+        msg.getTransform().getTranslation().setX(1.0 + stamp * 1e-9);
+        msg.getTransform().getRotation().setW(1.0);
+        return msg;
+    }
+
+    @Benchmark
+    public FrameTransform latest() {
+        return quene.transform(source, "frame_0");
+    }
+
+    @Benchmark
+    public FrameTransform atTime() {
+        return quene.transform(source, "frame_0", between);
+    }
+
+}
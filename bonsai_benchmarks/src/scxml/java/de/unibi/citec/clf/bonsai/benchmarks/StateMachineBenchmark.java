@@ -0,0 +1,102 @@
+package de.unibi.citec.clf.bonsai.benchmarks;
+
+import de.unibi.citec.clf.bonsai.engine.SkillStateMachine;
+import de.unibi.citec.clf.bonsai.engine.control.StateMachineController;
+import org.apache.commons.scxml2.SCXMLListener;
+import org.apache.commons.scxml2.model.EnterableState;
+import org.apache.commons.scxml2.model.Transition;
+import org.apache.commons.scxml2.model.TransitionTarget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a transition: a skill fires its event with
+ * {@link SkillStateMachine#fireEventFromSkill(String)}, the next state is entered and its skill is run.
+ * The state machine alternates endlessly between two skills, every operation waits for one state entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateMachineBenchmark {
+
+    private final Semaphore entered = new Semaphore(0);
+    private SkillStateMachine stateMachine;
+    private Path dir;
+
+    private final SCXMLListener listener = new SCXMLListener() {
+        @Override
+        public void onEntry(EnterableState state) {
+            entered.release();
+        }
+
+        @Override
+        public void onExit(EnterableState state) {
+        }
+
+        @Override
+        public void onTransition(TransitionTarget from, TransitionTarget to, Transition transition, String event) {
+        }
+    };
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("bonsai_benchmarks");
+        File scxml = copyResource("pingPong.xml");
+        File config = copyResource("BenchmarkConfig.xml");
+
+        stateMachine = new SkillStateMachine(Map.of());
+        StateMachineController controller = new StateMachineController(stateMachine, config.getAbsolutePath(),
+                scxml.getAbsolutePath(), false);
+        controller.initialize();
+        stateMachine.addListener(listener);
+        if (!controller.load(true).success()) {
+            throw new IllegalStateException("could not load " + scxml);
+        }
+        controller.executeStateMachine();
+    }
+
+    private File copyResource(String name) throws IOException {
+        Path target = dir.resolve(name);
+        try (InputStream in = getClass().getResourceAsStream("/" + name)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target.toFile();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        stateMachine.stopMachine();
+        for (File f : dir.toFile().listFiles()) {
+            Files.delete(f.toPath());
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public void transition() throws InterruptedException {
+        entered.acquire();
+    }
+
+}
@@ -0,0 +1,19 @@
+package de.unibi.citec.clf.bonsai.core;
+
+
+/**
+ * Observer interface for changes of {@link de.unibi.citec.clf.bonsai.core.object.MemorySlot}s.
+ *
+ * @param <T> data type of the slot to register on
+ */
+public interface MemorySlotListener<T> {
+
+    /**
+     * Called in a writing thread after the content of the slot changed, in the order of the versions.
+     *
+     * @param newData the new content of the slot, <code>null</code> if it was forgotten
+     * @param version the version of the slot after the change
+     */
+    void slotChanged(T newData, long version);
+
+}
@@ -0,0 +1,46 @@
+package de.unibi.citec.clf.bonsai.core.exception;
+
+/**
+ * A transform was looked up at a time outside of the buffered history of a frame.
+ */
+public class ExtrapolationException extends TransformException {
+
+    private static final long serialVersionUID = -4519263097415627810L;
+
+    private final String frame;
+    private final long time;
+    private final long oldest;
+    private final long newest;
+
+    /**
+     * @param frame  the frame that has no transform at the time
+     * @param time   the time of the lookup in nanoseconds
+     * @param oldest the stamp of the oldest buffered transform in nanoseconds
+     * @param newest the stamp of the newest buffered transform in nanoseconds
+     */
+    public ExtrapolationException(String frame, long time, long oldest, long newest) {
+        super("Lookup of frame \"" + frame + "\" at time " + time + " would require extrapolation into the "
+                + ((time < oldest) ? "past" : "future") + ", buffered are [" + oldest + ", " + newest + "]");
+        this.frame = frame;
+        this.time = time;
+        this.oldest = oldest;
+        this.newest = newest;
+    }
+
+    public String getFrame() {
+        return frame;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getOldest() {
+        return oldest;
+    }
+
+    public long getNewest() {
+        return newest;
+    }
+
+}
@@ -0,0 +1,449 @@
+package de.unibi.citec.clf.bonsai.core.metrics;
+
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on aggregated metrics of skills, sensors and actuators.
+ * <p>
+ * Metrics are created on first use and kept in concurrent maps, recording only increments counters of a
+ * {@link Histogram} or {@link LongAdder}. {@link #scrape()} renders everything in the Prometheus text format:
+ * <ul>
+ * <li><code>bonsai_skill_execute_seconds{skill}</code>: duration of <code>execute()</code></li>
+ * <li><code>bonsai_skill_iterations_total{skill}</code>: calls of <code>execute()</code></li>
+ * <li><code>bonsai_skill_runs_total{skill}</code>: finished runs</li>
+ * <li><code>bonsai_skill_forced_end_total{skill}</code>: runs that were forced to end</li>
+ * <li><code>bonsai_skill_transition_seconds{skill}</code>: time from the end of a skill to the next state entry</li>
+ * <li><code>bonsai_sensor_messages_total{sensor}</code>, <code>bonsai_sensor_dropped_total{sensor}</code> and
+ * <code>bonsai_sensor_message_rate{sensor}</code>: messages pushed into and dropped by the buffer of a sensor, the
+ * rate is computed per {@link Scraper}</li>
+ * <li><code>bonsai_sensor_received_total{sensor}</code>, <code>bonsai_sensor_conflated_total{sensor}</code>,
+ * <code>bonsai_sensor_failed_total{sensor}</code> and <code>bonsai_sensor_delivery_seconds{sensor}</code>: messages
+ * received from the middleware, messages replaced by a newer one before they were deserialized, messages that could
+ * not be deserialized and the time from receiving a message until it was buffered</li>
+ * <li><code>bonsai_actuator_call_seconds{actuator,method}</code>: duration of actuator calls</li>
+ * <li><code>bonsai_actuator_result_seconds{actuator,method}</code>: time until a returned future completed</li>
+ * </ul>
+ * Actuator metrics need a proxy around every actuator, they can be turned off with the system property
+ * <code>bonsai.metrics.actuators=false</code> or {@link #setActuatorMetricsEnabled(boolean)}.
+ */
+public final class MetricsRegistry {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(MetricsRegistry.class);
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    private static final long RATE_INTERVAL = 1_000_000_000L;
+
+    private final ConcurrentMap<String, SkillMetrics> skills = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ActuatorMetrics> actuators = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SensorMetrics> sensors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DeliveryMetrics> deliveries = new ConcurrentHashMap<>();
+    /**
+     * Events of a finished skill are processed by the thread that finished it, so the state entered next in that
+     * thread is the target of its transition, also while parallel states finish skills in other threads.
+     */
+    private final ThreadLocal<PendingTransition> pendingTransition = new ThreadLocal<>();
+    private final Scraper scraper = new Scraper();
+    private volatile boolean actuatorMetricsEnabled =
+            Boolean.parseBoolean(System.getProperty("bonsai.metrics.actuators", "true"));
+
+    /**
+     * @return the registry used by the engine
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Metrics of one skill class.
+     */
+    public static final class SkillMetrics {
+        private final Histogram execute = new Histogram();
+        private final Histogram transition = new Histogram();
+        private final LongAdder iterations = new LongAdder();
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder forcedEnds = new LongAdder();
+
+        public Histogram getExecute() {
+            return execute;
+        }
+
+        public Histogram getTransition() {
+            return transition;
+        }
+
+        /**
+         * Records one call of <code>execute()</code>.
+         *
+         * @param nanos the duration of the call
+         */
+        public void executed(long nanos) {
+            execute.record(nanos);
+            iterations.increment();
+        }
+
+        public void forcedEnd() {
+            forcedEnds.increment();
+        }
+
+        public long getIterations() {
+            return iterations.sum();
+        }
+
+        public long getRuns() {
+            return runs.sum();
+        }
+
+        public long getForcedEnds() {
+            return forcedEnds.sum();
+        }
+    }
+
+    /**
+     * Metrics of one method of an actuator.
+     */
+    public static final class ActuatorMetrics {
+        private final String actuator;
+        private final String method;
+        private final Histogram call = new Histogram();
+        private final Histogram result = new Histogram();
+
+        private ActuatorMetrics(String actuator, String method) {
+            this.actuator = actuator;
+            this.method = method;
+        }
+
+        /**
+         * @return the durations of the calls
+         */
+        public Histogram getCall() {
+            return call;
+        }
+
+        /**
+         * @return the times from the call until the returned future was seen completed
+         */
+        public Histogram getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * Delivery of the messages of one subscription, before they reach the buffer of the sensor.
+     */
+    public static final class DeliveryMetrics {
+        private final LongAdder received = new LongAdder();
+        private final LongAdder conflated = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Histogram lag = new Histogram();
+
+        public void received() {
+            received.increment();
+        }
+
+        /**
+         * Records a message that was replaced by a newer one before it was deserialized.
+         */
+        public void conflated() {
+            conflated.increment();
+        }
+
+        /**
+         * Records a message that could not be deserialized.
+         */
+        public void failed() {
+            failed.increment();
+        }
+
+        /**
+         * @return the times from receiving a message until it was buffered
+         */
+        public Histogram getLag() {
+            return lag;
+        }
+
+        public long getReceived() {
+            return received.sum();
+        }
+
+        public long getConflated() {
+            return conflated.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+    }
+
+    /**
+     * The buffer is only weakly referenced, the metrics of a sensor disappear once its buffer was collected.
+     */
+    private static final class SensorMetrics {
+        private final WeakReference<SensorBuffer<?>> buffer;
+        private final RateSample registered;
+
+        SensorMetrics(SensorBuffer<?> buffer) {
+            this.buffer = new WeakReference<>(buffer);
+            this.registered = new RateSample(System.nanoTime(), buffer.getPushCount(), 0);
+        }
+    }
+
+    private static final class RateSample {
+        private final long time;
+        private final long count;
+        private final double rate;
+
+        RateSample(long time, long count, double rate) {
+            this.time = time;
+            this.count = count;
+            this.rate = rate;
+        }
+    }
+
+    /**
+     * Renders the metrics for one consumer. The message rate of a sensor is averaged since the previous scrape of the
+     * same scraper, at least over {@link #RATE_INTERVAL}, so consumers scraping at different periods do not shorten
+     * each other's interval.
+     */
+    public final class Scraper {
+        private final Map<SensorMetrics, RateSample> samples = new WeakHashMap<>();
+
+        private Scraper() {
+        }
+
+        /**
+         * @return all metrics in the Prometheus text exposition format, version 0.0.4
+         */
+        public synchronized String scrape() {
+            return MetricsRegistry.this.scrape(this);
+        }
+
+        private double sampleRate(SensorMetrics sensor, long now, long count) {
+            RateSample last = samples.getOrDefault(sensor, sensor.registered);
+            long elapsed = now - last.time;
+            if (elapsed < RATE_INTERVAL) {
+                return last.rate;
+            }
+            RateSample sample = new RateSample(now, count, (count - last.count) * 1e9 / elapsed);
+            samples.put(sensor, sample);
+            return sample.rate;
+        }
+    }
+
+    private static final class PendingTransition {
+        private final SkillMetrics skill;
+        private final long finished;
+
+        PendingTransition(SkillMetrics skill, long finished) {
+            this.skill = skill;
+            this.finished = finished;
+        }
+    }
+
+    /**
+     * @param skill the skill class
+     * @return the metrics of the skill class, created on first use
+     */
+    public SkillMetrics skill(Class<?> skill) {
+        return skills.computeIfAbsent(skill.getName(), k -> new SkillMetrics());
+    }
+
+    /**
+     * @return whether actuators handed to skills record their metrics
+     */
+    public boolean isActuatorMetricsEnabled() {
+        return actuatorMetricsEnabled;
+    }
+
+    /**
+     * Applies to actuators handed to skills afterwards.
+     *
+     * @param enabled whether actuators record their metrics
+     */
+    public void setActuatorMetricsEnabled(boolean enabled) {
+        this.actuatorMetricsEnabled = enabled;
+    }
+
+    /**
+     * @param actuator the actuator key
+     * @param method   the method name
+     * @return the metrics of the actuator method, created on first use
+     */
+    public ActuatorMetrics actuator(String actuator, String method) {
+        return actuators.computeIfAbsent(actuator + '#' + method, k -> new ActuatorMetrics(actuator, method));
+    }
+
+    /**
+     * Publishes the counters of a sensor buffer. If another live buffer is registered under the same name, e.g. a
+     * second sensor of the same topic, the buffer is published as <code>name#2</code>, <code>name#3</code> and so
+     * on.
+     *
+     * @param name   the sensor name, usually its topic
+     * @param buffer the buffer of the sensor
+     * @return the name the buffer is published as
+     */
+    public String registerSensor(String name, SensorBuffer<?> buffer) {
+        SensorMetrics metrics = new SensorMetrics(buffer);
+        for (int i = 1; ; i++) {
+            String key = (i == 1) ? name : name + '#' + i;
+            SensorMetrics current = sensors.compute(key,
+                    (k, old) -> (old == null || old.buffer.get() == null) ? metrics : old);
+            if (current == metrics) {
+                if (i > 1) {
+                    logger.warn("sensor {} is registered twice, publishing it as {}", name, key);
+                }
+                return key;
+            }
+            if (current.buffer.get() == buffer) {
+                return key;
+            }
+        }
+    }
+
+    /**
+     * @return a scraper with its own message rates
+     */
+    public Scraper newScraper() {
+        return new Scraper();
+    }
+
+    /**
+     * @param sensor the sensor name, usually its topic
+     * @return the delivery metrics of the sensor, created on first use
+     */
+    public DeliveryMetrics delivery(String sensor) {
+        return deliveries.computeIfAbsent(sensor, k -> new DeliveryMetrics());
+    }
+
+    /**
+     * Records that a skill finished. The transition latency is recorded by the next {@link #stateEntered()}.
+     *
+     * @param skill the skill class
+     */
+    public void skillFinished(Class<?> skill) {
+        SkillMetrics metrics = skill(skill);
+        metrics.runs.increment();
+        pendingTransition.set(new PendingTransition(metrics, System.nanoTime()));
+    }
+
+    /**
+     * Records the time since the last skill finished by the calling thread, if any.
+     */
+    public void stateEntered() {
+        PendingTransition pending = pendingTransition.get();
+        if (pending != null) {
+            pendingTransition.remove();
+            pending.skill.transition.recordSince(pending.finished);
+        }
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format, version 0.0.4. Consumers that scrape
+     * periodically should use their own {@link #newScraper() scraper}.
+     *
+     * @return the metrics
+     */
+    public String scrape() {
+        return scraper.scrape();
+    }
+
+    private String scrape(Scraper scraper) {
+        StringBuilder out = new StringBuilder(4096);
+        Map<String, SkillMetrics> skills = new TreeMap<>(this.skills);
+        Map<String, ActuatorMetrics> actuators = new TreeMap<>(this.actuators);
+        Map<String, SensorBuffer<?>> buffers = new TreeMap<>();
+        Map<String, SensorMetrics> sensors = new TreeMap<>();
+        this.sensors.forEach((name, m) -> {
+            SensorBuffer<?> buffer = m.buffer.get();
+            if (buffer == null) {
+                this.sensors.remove(name, m);
+            } else {
+                buffers.put(name, buffer);
+                sensors.put(name, m);
+            }
+        });
+        Map<String, DeliveryMetrics> deliveries = new TreeMap<>(this.deliveries);
+
+        header(out, "bonsai_skill_execute_seconds", "histogram", "Duration of execute() per skill class.");
+        skills.forEach((name, m) -> histogram(out, "bonsai_skill_execute_seconds", label("skill", name), m.execute));
+        header(out, "bonsai_skill_iterations_total", "counter", "Calls of execute() per skill class.");
+        skills.forEach((name, m) -> sample(out, "bonsai_skill_iterations_total", label("skill", name), m.getIterations()));
+        header(out, "bonsai_skill_runs_total", "counter", "Finished runs per skill class.");
+        skills.forEach((name, m) -> sample(out, "bonsai_skill_runs_total", label("skill", name), m.getRuns()));
+        header(out, "bonsai_skill_forced_end_total", "counter", "Runs per skill class that were forced to end.");
+        skills.forEach((name, m) -> sample(out, "bonsai_skill_forced_end_total", label("skill", name), m.getForcedEnds()));
+        header(out, "bonsai_skill_transition_seconds", "histogram",
+                "Time from the end of a skill to the next state entry.");
+        skills.forEach((name, m) -> histogram(out, "bonsai_skill_transition_seconds", label("skill", name), m.transition));
+
+        long now = System.nanoTime();
+        header(out, "bonsai_sensor_messages_total", "counter", "Messages pushed into the buffer of a sensor.");
+        buffers.forEach((name, b) -> sample(out, "bonsai_sensor_messages_total", label("sensor", name), b.getPushCount()));
+        header(out, "bonsai_sensor_dropped_total", "counter", "Messages dropped by the buffer of a sensor without being read.");
+        buffers.forEach((name, b) -> sample(out, "bonsai_sensor_dropped_total", label("sensor", name), b.getDropCount()));
+        header(out, "bonsai_sensor_message_rate", "gauge", "Messages per second since the previous scrape.");
+        sensors.forEach((name, m) -> sample(out, "bonsai_sensor_message_rate", label("sensor", name),
+                scraper.sampleRate(m, now, buffers.get(name).getPushCount())));
+        header(out, "bonsai_sensor_received_total", "counter", "Messages received from the middleware by a sensor.");
+        deliveries.forEach((name, m) -> sample(out, "bonsai_sensor_received_total", label("sensor", name), m.getReceived()));
+        header(out, "bonsai_sensor_conflated_total", "counter", "Messages replaced by a newer one before deserialization.");
+        deliveries.forEach((name, m) -> sample(out, "bonsai_sensor_conflated_total", label("sensor", name), m.getConflated()));
+        header(out, "bonsai_sensor_failed_total", "counter", "Messages that could not be deserialized.");
+        deliveries.forEach((name, m) -> sample(out, "bonsai_sensor_failed_total", label("sensor", name), m.getFailed()));
+        header(out, "bonsai_sensor_delivery_seconds", "histogram", "Time from receiving a message until it was buffered.");
+        deliveries.forEach((name, m) -> histogram(out, "bonsai_sensor_delivery_seconds", label("sensor", name), m.lag));
+
+        header(out, "bonsai_actuator_call_seconds", "histogram", "Duration of actuator calls.");
+        actuators.forEach((k, m) -> histogram(out, "bonsai_actuator_call_seconds",
+                label("actuator", m.actuator) + "," + label("method", m.method), m.call));
+        header(out, "bonsai_actuator_result_seconds", "histogram", "Time from an actuator call until its result completed.");
+        actuators.forEach((k, m) -> histogram(out, "bonsai_actuator_result_seconds",
+                label("actuator", m.actuator) + "," + label("method", m.method), m.result));
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, Histogram histogram) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        long[] bounds = Histogram.getBounds();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i];
+            sample(out, name + "_bucket", labels + ",le=\"" + seconds(bounds[i]) + "\"", cumulative);
+        }
+        cumulative += counts[bounds.length];
+        sample(out, name + "_bucket", labels + ",le=\"+Inf\"", cumulative);
+        sample(out, name + "_sum", labels, seconds(histogram.getSum()));
+        // the count of the buckets, so the exposition stays consistent while recording continues
+        sample(out, name + "_count", labels, cumulative);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9g", nanos / 1e9).replaceAll("\\.?0+(e|$)", "$1");
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+}
@@ -1,12 +1,46 @@
 package de.unibi.citec.clf.bonsai.core.object;
 
+import de.unibi.citec.clf.bonsai.core.MemorySlotListener;
 import de.unibi.citec.clf.bonsai.core.exception.CommunicationException;
 
 /**
+ * Read access to a memory slot. Every change of the slot (memorize or forget) increments its version, so readers
+ * can tell whether the slot changed since their last read or register listeners instead of polling.
+ *
  * @author lruegeme
  */
 public interface MemorySlotReader<T> {
 
     <S extends T> T recall() throws CommunicationException;
 
+    /**
+     * The current version of the slot. A slot that was never written has version <code>0</code>.
+     *
+     * @return the current version
+     */
+    long getVersion();
+
+    /**
+     * Reads the content and the version it belongs to atomically.
+     *
+     * @return the content of the slot and its version
+     * @throws CommunicationException When the communication with the storage unit fails.
+     */
+    VersionedValue<T> recallVersioned() throws CommunicationException;
+
+    /**
+     * Adds a listener that is notified after every change of the slot. Listeners receive the changes in the order
+     * of their versions.
+     *
+     * @param listener the listener to add
+     */
+    void addSlotListener(MemorySlotListener<T> listener);
+
+    /**
+     * Removes a listener previously added with {@link #addSlotListener(MemorySlotListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    void removeSlotListener(MemorySlotListener<T> listener);
+
 }
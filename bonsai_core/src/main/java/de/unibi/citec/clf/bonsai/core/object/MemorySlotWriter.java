@@ -9,4 +9,15 @@ public interface MemorySlotWriter<T> {
 
     <S extends T> void memorize(S object) throws CommunicationException;
 
+    /**
+     * Stores the object only if the slot still has the expected version.
+     *
+     * @param expectedVersion the version the caller based its change on, see {@link MemorySlotReader#getVersion()}
+     * @param object          the information to store
+     * @param <S>
+     * @return <code>true</code> if the object was stored, <code>false</code> if the slot was changed in between
+     * @throws CommunicationException When the communication with the storage unit fails.
+     */
+    <S extends T> boolean compareAndMemorize(long expectedVersion, S object) throws CommunicationException;
+
 }
@@ -0,0 +1,24 @@
+package de.unibi.citec.clf.bonsai.core.object;
+
+/**
+ * Content of a {@link MemorySlot} together with the version it had.
+ *
+ * @param <T> Data type of the content.
+ */
+public final class VersionedValue<T> {
+    private final T value;
+    private final long version;
+
+    public VersionedValue(T value, long version) {
+        this.value = value;
+        this.version = version;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
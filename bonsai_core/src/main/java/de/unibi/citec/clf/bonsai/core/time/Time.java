@@ -1,15 +1,23 @@
 package de.unibi.citec.clf.bonsai.core.time;
 
 import java.util.Date;
+import java.util.concurrent.Future;
 
+/**
+ * The clock of the engine and all skills. Uses the {@link SystemTime} unless another {@link TimeProvider}, e.g. a
+ * {@link VirtualTime}, is installed.
+ */
 public final class Time {
 
-    private static TimeProvider timeProvider;
+    private static volatile TimeProvider timeProvider;
 
     static {
         timeProvider = new SystemTime();
     }
 
+    private Time() {
+    }
+
     public static Date now() {
         return timeProvider.getCurrentTime();
     }
@@ -18,4 +26,85 @@ public final class Time {
         return timeProvider.currentTimeMillies();
     }
 
-}
\ No newline at end of file
+    /**
+     * @see TimeProvider#nanoTime()
+     */
+    public static long nanoTime() {
+        return timeProvider.nanoTime();
+    }
+
+    /**
+     * @see TimeProvider#sleep(long)
+     */
+    public static void sleep(long millis) throws InterruptedException {
+        timeProvider.sleep(millis);
+    }
+
+    /**
+     * @see TimeProvider#schedule(Runnable, long)
+     */
+    public static Future<?> schedule(Runnable action, long delayMillis) {
+        return timeProvider.schedule(action, delayMillis);
+    }
+
+    /**
+     * Waits on the monitor of the object, which the caller must hold, until it is notified or the time passed on the
+     * clock. Like {@link Object#wait(long)} it may also return early, e.g. when other waiters of the monitor are
+     * notified.
+     *
+     * @param monitor the object to wait on
+     * @param millis  the maximum time to wait in milliseconds, must be positive
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public static void await(Object monitor, long millis) throws InterruptedException {
+        TimeProvider provider = timeProvider;
+        if (!provider.isVirtual()) {
+            monitor.wait(millis);
+            return;
+        }
+        Future<?> timer = provider.schedule(() -> {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }, millis);
+        try {
+            monitor.wait();
+        } finally {
+            timer.cancel(false);
+        }
+    }
+
+    /**
+     * @see TimeProvider#isVirtual()
+     */
+    public static boolean isVirtual() {
+        return timeProvider.isVirtual();
+    }
+
+    public static TimeProvider getProvider() {
+        return timeProvider;
+    }
+
+    /**
+     * Installs the clock for the whole process, should be done before any skill is running.
+     *
+     * @param provider the new clock
+     * @return the previous clock
+     */
+    public static TimeProvider setProvider(TimeProvider provider) {
+        if (provider == null) {
+            throw new IllegalArgumentException("provider must not be null");
+        }
+        TimeProvider previous = timeProvider;
+        timeProvider = provider;
+        return previous;
+    }
+
+    /**
+     * Installs the {@link SystemTime} again.
+     */
+    public static void reset() {
+        timeProvider = new SystemTime();
+    }
+
+}
@@ -1,9 +1,52 @@
 package de.unibi.citec.clf.bonsai.core.time;
 
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 public interface TimeProvider {
     Date getCurrentTime();
 
     long currentTimeMillies();
+
+    /**
+     * Monotonic time for measuring durations, only differences are meaningful.
+     *
+     * @return the current value of the clock in nanoseconds
+     */
+    default long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Lets the given time pass for the calling thread.
+     *
+     * @param millis the time to wait in milliseconds
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    default void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    /**
+     * Runs the action once the given time passed.
+     *
+     * @param action      the action to run, it should not block
+     * @param delayMillis the delay in milliseconds
+     * @return cancels the action if it did not run yet
+     */
+    default Future<?> schedule(Runnable action, long delayMillis) {
+        FutureTask<Void> task = new FutureTask<>(action, null);
+        CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(task);
+        return task;
+    }
+
+    /**
+     * @return whether the time is independent of the wall clock, waits do not block then
+     */
+    default boolean isVirtual() {
+        return false;
+    }
 }
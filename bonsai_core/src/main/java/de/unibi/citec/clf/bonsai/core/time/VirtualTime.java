@@ -0,0 +1,273 @@
+package de.unibi.citec.clf.bonsai.core.time;
+
+import java.util.Date;
+import java.util.PriorityQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Simulated clock that only moves when it is told to.
+ * <p>
+ * A thread that {@link #sleep(long) sleeps} registers its wake-up and waits for the clock like in a discrete event
+ * simulation. The clock jumps to the earliest pending wake-up once no other thread fell asleep for a short real
+ * settle time, so threads that sleep in parallel share the simulated time instead of each moving it by their own
+ * delay. Loop delays of skills and sensor timeouts therefore take almost no wall clock time, which runs timeout
+ * driven state machines as fast as the CPU allows. The clock can also be moved with {@link #advance(long)}.
+ * <p>
+ * A thread that is still busy after the settle time does not hold the clock back, its next wake-up is counted from
+ * the time it reads then. Sleeps on the same thread, e.g. of skills sharing a scheduler thread, follow each other.
+ * <p>
+ * Actions {@link #schedule(Runnable, long) scheduled} on the clock run on its timer thread, which sleeps until the
+ * earliest of them like any other sleeper. Waits that can end early, e.g. on a monitor that is notified, use them to
+ * be woken when their timeout passed on the clock.
+ * <p>
+ * Install it with {@link Time#setProvider(TimeProvider)}.
+ */
+public class VirtualTime implements TimeProvider {
+
+    /**
+     * Default real time in milliseconds the earliest sleeper waits for other sleepers.
+     */
+    public static final long DEFAULT_SETTLE_MILLIS = 1;
+
+    /**
+     * Real time in seconds the timer thread stays alive without scheduled actions.
+     */
+    private static final long TIMER_IDLE_SECONDS = 1;
+
+    private final long epochMillis;
+    private final long settleNanos;
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition moved = lock.newCondition();
+    private final PriorityQueue<Long> wakeups = new PriorityQueue<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private long timerCount = 0;
+    private Thread timerThread;
+
+    /**
+     * An action that runs once the clock reached its due time, in the order of scheduling for the same time.
+     */
+    private final class Timer extends FutureTask<Void> implements Comparable<Timer> {
+        final long due;
+        final long sequence;
+
+        Timer(Runnable action, long due, long sequence) {
+            super(action, null);
+            this.due = due;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                // a cancelled timer must not move the clock
+                lock.lock();
+                try {
+                    timers.remove(this);
+                    moved.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            int order = Long.compare(due, other.due);
+            return (order != 0) ? order : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Starts at the current wall clock time.
+     */
+    public VirtualTime() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * @param epochMillis the start time in milliseconds since the epoch
+     */
+    public VirtualTime(long epochMillis) {
+        this(epochMillis, DEFAULT_SETTLE_MILLIS);
+    }
+
+    /**
+     * @param epochMillis  the start time in milliseconds since the epoch
+     * @param settleMillis real time in milliseconds the earliest sleeper waits for other sleepers before the clock
+     *                     moves
+     */
+    public VirtualTime(long epochMillis, long settleMillis) {
+        if (settleMillis < 0) {
+            throw new IllegalArgumentException("settle time must not be negative: " + settleMillis);
+        }
+        this.epochMillis = epochMillis;
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(settleMillis);
+    }
+
+    @Override
+    public Date getCurrentTime() {
+        return new Date(currentTimeMillies());
+    }
+
+    @Override
+    public long currentTimeMillies() {
+        return epochMillis + TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos.get();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (millis > 0) {
+            await(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        // give threads that are not driven by the clock, e.g. sensor callbacks, a chance to run
+        Thread.yield();
+    }
+
+    /**
+     * Waits until the clock reached the wake-up of the calling thread.
+     */
+    private void await(long delayNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            awaitLocked(nanos.get() + delayNanos, () -> false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits with the lock held until the clock reached the wake-up or the waiter is woken. The thread with the
+     * earliest wake-up moves the clock once the other sleepers settled.
+     *
+     * @param woken checked whenever the clock or the sleepers change
+     */
+    private void awaitLocked(long wakeup, BooleanSupplier woken) throws InterruptedException {
+        wakeups.add(wakeup);
+        // a sleeper that is settling on a later wake-up has to see this one
+        moved.signalAll();
+        try {
+            while (nanos.get() < wakeup && !woken.getAsBoolean()) {
+                if (wakeups.peek() != wakeup) {
+                    moved.await();
+                } else if (moved.awaitNanos(settleNanos) <= 0 && wakeups.peek() == wakeup
+                        && !woken.getAsBoolean()) {
+                    nanos.accumulateAndGet(wakeup, Math::max);
+                    moved.signalAll();
+                }
+            }
+        } finally {
+            wakeups.remove(wakeup);
+            // an interrupted sleeper may have been the earliest
+            moved.signalAll();
+        }
+    }
+
+    /**
+     * Runs the action on the timer thread of the clock once the delay passed on the clock. The timer thread moves
+     * the clock like a thread that sleeps until the earliest action, so the action should be short, e.g. wake up a
+     * waiting thread or hand work to an executor.
+     *
+     * @param action      the action to run
+     * @param delayMillis the delay in milliseconds
+     * @return cancels the action, a cancelled action does not move the clock
+     */
+    @Override
+    public Future<?> schedule(Runnable action, long delayMillis) {
+        lock.lock();
+        try {
+            Timer timer = new Timer(action, nanos.get() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)),
+                    timerCount++);
+            timers.add(timer);
+            if (timerThread == null) {
+                timerThread = new Thread(this::runTimers, "virtual-time");
+                timerThread.setDaemon(true);
+                timerThread.start();
+            }
+            moved.signalAll();
+            return timer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runTimers() {
+        while (true) {
+            Timer timer;
+            lock.lock();
+            try {
+                timer = timers.peek();
+                while (timer == null || timer.due > nanos.get()) {
+                    if (timer == null) {
+                        if (!moved.await(TIMER_IDLE_SECONDS, TimeUnit.SECONDS) && timers.isEmpty()) {
+                            timerThread = null;
+                            return;
+                        }
+                    } else {
+                        // an earlier or cancelled timer ends the wait
+                        Timer earliest = timer;
+                        awaitLocked(timer.due, () -> timers.peek() != earliest);
+                    }
+                    timer = timers.peek();
+                }
+                timers.poll();
+            } catch (InterruptedException e) {
+                timerThread = null;
+                return;
+            } finally {
+                lock.unlock();
+            }
+            timer.run();
+        }
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param millis the time to add in milliseconds
+     * @return the new time in milliseconds since the epoch
+     */
+    public long advance(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("time can not move backwards: " + millis);
+        }
+        lock.lock();
+        try {
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+            moved.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return currentTimeMillies();
+    }
+
+    /**
+     * @return the simulated time since the clock was created in milliseconds
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+}
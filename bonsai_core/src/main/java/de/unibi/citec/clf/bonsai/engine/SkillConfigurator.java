@@ -7,6 +7,8 @@ import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
 import de.unibi.citec.clf.bonsai.engine.model.ExitToken;
 import de.unibi.citec.clf.bonsai.engine.model.config.ISkillConfigurator;
 import de.unibi.citec.clf.bonsai.engine.model.config.SkillConfigurationException;
+import de.unibi.citec.clf.bonsai.engine.trace.TracedActuator;
+import de.unibi.citec.clf.bonsai.engine.trace.TracedSensor;
 import org.apache.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
@@ -363,6 +365,9 @@ public class SkillConfigurator implements ISkillConfigurator {
 
     private <T> Sensor<T> getCheckedSensor(String sensorName, Class<T> dataType) throws SkillConfigurationException {
         Sensor<T> sensor = BonsaiManager.getInstance().createSensor(sensorName, dataType);
+        if (sensor != null) {
+            sensor = new TracedSensor<>(sensorName, sensor);
+        }
         localSensorCache.put(sensorName, sensor);
         return sensor;
     }
@@ -370,7 +375,7 @@ public class SkillConfigurator implements ISkillConfigurator {
     private <T extends Actuator> T getCheckedActuator(String actuatorName, Class<T> actuatorType)
             throws SkillConfigurationException {
         T a = BonsaiManager.getInstance().createActuator(actuatorName, actuatorType);
-        return a;
+        return TracedActuator.wrap(actuatorName, actuatorType, a);
     }
 
     private <T> MemorySlot<T> getCheckedSlot(String slotName, Class<T> slotType) throws SkillConfigurationException {
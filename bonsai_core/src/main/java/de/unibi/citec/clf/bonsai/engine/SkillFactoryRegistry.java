@@ -0,0 +1,150 @@
+package de.unibi.citec.clf.bonsai.engine;
+
+import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import org.apache.log4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates skill instances for states without reflection on every state entry.
+ * <p>
+ * The skill class of a state is resolved once and its public constructor is cached as a {@link MethodHandle}. Like
+ * before, the constructor is called without arguments.
+ * Optionally one instance per state can be created up front ({@link #warmUp(StateID)}) so that the first entry
+ * of a state does not pay for class loading and initialization.
+ */
+public class SkillFactoryRegistry {
+
+    private static final Logger logger = Logger.getLogger(SkillFactoryRegistry.class);
+
+    private static final MethodType SKILL_FACTORY = MethodType.methodType(AbstractSkill.class);
+
+    /**
+     * Constructor handles shared by all registries, keyed by class name.
+     */
+    private static final Map<String, MethodHandle> constructors = new ConcurrentHashMap<>();
+
+    private final Map<StateID, MethodHandle> factories = new ConcurrentHashMap<>();
+    private final Map<StateID, AbstractSkill> spares = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the skill class of the given state and caches its constructor.
+     *
+     * @param id the state
+     * @throws ClassNotFoundException if there is no class for the skill of this state
+     * @throws InstantiationException if the class is no skill or has no public constructor
+     */
+    public void resolve(StateID id) throws ClassNotFoundException, InstantiationException {
+        if (!factories.containsKey(id)) {
+            factories.put(id, constructorOf(id.getFullSkill()));
+        }
+    }
+
+    /**
+     * Creates an instance of the skill of the given state. If a warmed up instance exists it is handed out once.
+     *
+     * @param id the state
+     * @return a new skill instance
+     * @throws ClassNotFoundException if there is no class for the skill of this state
+     * @throws InstantiationException if the skill could not be created
+     */
+    public AbstractSkill create(StateID id) throws ClassNotFoundException, InstantiationException {
+        AbstractSkill spare = spares.remove(id);
+        if (spare != null) {
+            return spare;
+        }
+        MethodHandle factory = factories.get(id);
+        if (factory == null) {
+            factory = constructorOf(id.getFullSkill());
+            factories.put(id, factory);
+        }
+        return newInstance(factory, id.getFullSkill());
+    }
+
+    /**
+     * Creates an instance of the skill of the given state that is returned by the next {@link #create(StateID)}.
+     *
+     * @param id the state
+     * @return the instance, which the caller may configure in advance
+     * @throws ClassNotFoundException if there is no class for the skill of this state
+     * @throws InstantiationException if the skill could not be created
+     */
+    public AbstractSkill warmUp(StateID id) throws ClassNotFoundException, InstantiationException {
+        AbstractSkill spare = spares.get(id);
+        if (spare == null) {
+            resolve(id);
+            spare = newInstance(factories.get(id), id.getFullSkill());
+            spares.put(id, spare);
+        }
+        return spare;
+    }
+
+    public boolean isResolved(StateID id) {
+        return factories.containsKey(id);
+    }
+
+    /**
+     * Removes all resolved states and warmed up instances. Constructor handles of classes are kept.
+     */
+    public void clear() {
+        factories.clear();
+        spares.clear();
+    }
+
+    /**
+     * Creates an instance of a skill class using the shared constructor cache.
+     *
+     * @param className fully qualified name of the skill class
+     * @return a new skill instance
+     * @throws ClassNotFoundException if there is no such class
+     * @throws InstantiationException if the skill could not be created
+     */
+    public static AbstractSkill createSkill(String className) throws ClassNotFoundException, InstantiationException {
+        return newInstance(constructorOf(className), className);
+    }
+
+    private static MethodHandle constructorOf(String className) throws ClassNotFoundException, InstantiationException {
+        MethodHandle handle = constructors.get(className);
+        if (handle != null) {
+            return handle;
+        }
+
+        Class<?> c = Class.forName(className);
+        if (!AbstractSkill.class.isAssignableFrom(c)) {
+            throw new InstantiationException(className + " is no skill");
+        }
+        Constructor<?>[] constrs = c.getConstructors();
+        if (constrs.length == 0) {
+            throw new InstantiationException(className + " has no public constructor");
+        }
+        try {
+            handle = MethodHandles.lookup().unreflectConstructor(constrs[0]).asType(SKILL_FACTORY);
+        } catch (IllegalAccessException | WrongMethodTypeException e) {
+            InstantiationException ex = new InstantiationException("can not call constructor of " + className
+                    + " without arguments");
+            ex.initCause(e);
+            throw ex;
+        }
+        logger.trace("resolved skill constructor: " + className);
+        constructors.put(className, handle);
+        return handle;
+    }
+
+    private static AbstractSkill newInstance(MethodHandle factory, String className) throws InstantiationException {
+        try {
+            return (AbstractSkill) factory.invokeExact();
+        } catch (Throwable e) {
+            InstantiationException ex = new InstantiationException("could not create " + className + ": " + e.getMessage());
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
+}
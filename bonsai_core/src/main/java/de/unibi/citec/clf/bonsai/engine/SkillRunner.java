@@ -2,16 +2,18 @@ package de.unibi.citec.clf.bonsai.engine;
 
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.core.exception.StateIDException;
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
 import de.unibi.citec.clf.bonsai.core.time.Time;
 import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
 import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
 import de.unibi.citec.clf.bonsai.engine.model.ExitToken;
 import de.unibi.citec.clf.bonsai.engine.model.StateID;
 import de.unibi.citec.clf.bonsai.engine.model.config.SkillConfigurationException;
-import org.apache.log4j.Logger;
+import de.unibi.citec.clf.bonsai.engine.trace.SkillLoopEvent;
+import de.unibi.citec.clf.bonsai.engine.trace.SkillPhaseEvent;
+import de.unibi.citec.clf.bonsai.engine.trace.SkillTrace;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 
 /**
@@ -21,7 +23,7 @@ import java.util.*;
  */
 public class SkillRunner implements Runnable {
 
-    private final Logger logger = Logger.getLogger(getClass());
+    private final LazyLogger logger = LazyLogger.getLogger(getClass());
 
     private static final int MAX_EXECUTION_TIME = 1000;
 
@@ -46,8 +48,17 @@ public class SkillRunner implements Runnable {
     private final Object monitor = new Object();
     private ExitToken fatalToken;
     private ExitToken loopToken;
-
-    private boolean isPaused = false;
+    private ExitToken currentToken;
+    private ExitStatus startStatus;
+    private String myID;
+    private SkillConfigurator.Config startConfig;
+    private volatile Runnable loopWakeup;
+    private SkillTrace trace;
+    private MetricsRegistry.SkillMetrics metrics;
+    private SkillPhaseEvent executePhase;
+    private int iteration = 0;
+
+    private volatile boolean isPaused = false;
     private boolean forceEnd = false;
     private boolean isFinished = false;
 
@@ -108,14 +119,10 @@ public class SkillRunner implements Runnable {
         super();
 
         try {
-
-            Class<?> c = Class.forName(stateId.getFullSkill());
-            Constructor<?>[] constrs = c.getConstructors();
-            Constructor<?> aConstructor = constrs[0];
-            this.skill = (AbstractSkill) aConstructor.newInstance();
-        } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            this.skill = SkillFactoryRegistry.createSkill(stateId.getFullSkill());
+        } catch (InstantiationException ex) {
             //should not happen eh?
-            throw new ClassNotFoundException(stateId.getFullSkill());
+            throw new ClassNotFoundException(stateId.getFullSkill(), ex);
         }
 
         this.id = stateId;
@@ -185,12 +192,74 @@ public class SkillRunner implements Runnable {
         return configurator.getExceptions();
     }
 
+    /**
+     * Executes all phases of the skill in the calling thread. Loop delays are waited out by blocking this thread.
+     *
+     * @return the final exit status of the skill
+     * @throws SkillConfigurationException if the skill was not configured
+     */
     public ExitStatus execute() throws SkillConfigurationException {
+        boolean initialized = begin();
+
+        checkPause();
+
+        if (initialized) {
+            while (step()) {
+                awaitLoopDelay();
+                if (isForcedToEnd()) {
+                    endForcedLoop();
+                    break;
+                }
+                checkPause();
+            }
+        }
+
+        checkPause();
+
+        return finish();
+    }
+
+    /**
+     * Deferred configuration that is applied by {@link #begin()} in the executing thread.
+     *
+     * @param cfg the configuration used when the skill is started
+     */
+    public void configureOnStart(SkillConfigurator.Config cfg) {
+        this.startConfig = cfg;
+    }
+
+    /**
+     * Runs the configure and init phase of the skill.
+     *
+     * @return <code>true</code> if init succeeded and the execute phase should be entered
+     * @throws SkillConfigurationException if the skill was not configured
+     */
+    public boolean begin() throws SkillConfigurationException {
+        SkillTrace previous = getTrace().enter();
+        try {
+            return beginTraced();
+        } finally {
+            SkillTrace.restore(previous);
+        }
+    }
+
+    private boolean beginTraced() throws SkillConfigurationException {
+        SkillPhaseEvent phase = trace.beginPhase(SkillPhaseEvent.CONFIGURE);
+        if (startConfig != null) {
+            SkillConfigurator.Config cfg = startConfig;
+            startConfig = null;
+            try {
+                configure(cfg);
+            } catch (ConfigurationException e) {
+                logger.warn(e);
+            }
+        }
+
         if (configurator != null && !configurator.isSkillConfigured()) {
             throw new SkillConfigurationException("skill not configured");
         }
 
-        String myID = id.getCanonicalID();
+        myID = id.getCanonicalID();
 
         if (configurator == null) {
             throw new SkillConfigurationException("skill not configured");
@@ -203,38 +272,137 @@ public class SkillRunner implements Runnable {
         //
         // STATE CONFIG PHASE
         //
-        logger.debug("  " + myID + " -> invoke configure().");
+        logger.debug("  {} -> invoke configure().", myID);
         skill.configure(configurator);
+        trace.endPhase(phase, null);
 
         checkPause();
 
         //
         // INIT PHASE
         //
-        logger.debug("  " + myID + " -> invoke init()");
+        logger.debug("  {} -> invoke init()", myID);
+        phase = trace.beginPhase(SkillPhaseEvent.INIT);
         boolean initStatus = skill.init();
-        logger.debug("  " + myID + " -> init() returned: " + initStatus);
-
-        checkPause();
+        logger.debug("  {} -> init() returned: {}", myID, initStatus);
 
-        //
-        // EXECUTION PHASE
-        //
-        ExitToken exitToken = (initStatus) ? successToken : fatalToken;
+        currentToken = (initStatus) ? successToken : fatalToken;
+        startStatus = currentToken.getExitStatus();
+        trace.endPhase(phase, startStatus);
         if (initStatus) {
-            logger.debug("  " + myID + " -> invoke execute()");
-            exitToken = invokeExecute(exitToken.getExitStatus());
-            logger.debug("  " + myID + " -> execute() returned: " + exitToken.getExitStatus().getStatus());
+            logger.debug("  {} -> invoke execute()", myID);
+            executePhase = trace.beginPhase(SkillPhaseEvent.EXECUTE);
         }
+        return initStatus;
+    }
 
-        checkPause();
+    /**
+     * Invokes <code>execute()</code> of the skill once.
+     *
+     * @return <code>true</code> if the skill is looping and <code>execute()</code> should be invoked again after
+     * {@link #getLoopDelay()} milliseconds
+     * @see AbstractSkill#execute()
+     */
+    public boolean step() {
+        SkillTrace previous = getTrace().enter();
+        SkillLoopEvent loop = trace.beginLoop();
+        try {
+            long timeExecutionBegin = Time.currentTimeMillis();
+            long begin = System.nanoTime();
+            currentToken = skill.execute(startStatus);
+            getMetrics().executed(System.nanoTime() - begin);
+            checkExecutionTime(timeExecutionBegin);
+        } catch (NullPointerException e) {
+            logger.error("NullPointer from execute!!", e);
+            e.printStackTrace();
+            currentToken = fatalToken;
+            return false;
+        } finally {
+            trace.endLoop(loop, ++iteration, (currentToken != null) ? currentToken.getExitStatus() : null);
+            SkillTrace.restore(previous);
+        }
+
+        if (!currentToken.getExitStatus().looping()) {
+            return false;
+        }
+        if (isForcedToEnd()) {
+            endForcedLoop();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The delay requested by the last looping <code>execute()</code> call.
+     *
+     * @return loop delay in milliseconds
+     */
+    public long getLoopDelay() {
+        return (currentToken != null) ? currentToken.getExitStatus().getLoopDelay() : 0;
+    }
+
+    /**
+     * Blocks the calling thread for the current loop delay or until the skill is forced to end. With a
+     * {@link Time#isVirtual() virtual clock} the delay passes on the clock.
+     */
+    public void awaitLoopDelay() {
+        synchronized (loopCondition) {
+            // a delay of 0 would wait forever
+            if (isForcedToEnd() || getLoopDelay() <= 0) {
+                return;
+            }
+            try {
+                Time.await(loopCondition, getLoopDelay());
+            } catch (InterruptedException e) {
+                logger.debug("looping cancelled");
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Terminates a loop that was interrupted by {@link #forceEnd()}.
+     */
+    public void endForcedLoop() {
+        logger.debug("Loop was forced to end");
+        if (currentToken == null || currentToken.getExitStatus().looping()) {
+            logger.warn("Skill was forced to end while looping.");
+            currentToken = fatalToken;
+        }
+    }
+
+    /**
+     * Runs the end phase, cleans up the skill and notifies all listeners.
+     *
+     * @return the final exit status of the skill
+     */
+    public ExitStatus finish() {
+        SkillTrace previous = getTrace().enter();
+        try {
+            return finishTraced();
+        } finally {
+            SkillTrace.restore(previous);
+        }
+    }
+
+    private ExitStatus finishTraced() {
+        ExitToken exitToken = currentToken;
+        if (executePhase != null) {
+            trace.endPhase(executePhase, exitToken.getExitStatus());
+            executePhase = null;
+        }
+        if (startStatus != null && startStatus.isSuccess()) {
+            logger.debug("  {} -> execute() returned: {}", myID, exitToken.getExitStatus().getStatus());
+        }
 
         //
         // END PHASE
         //
-        logger.debug("  " + myID + " -> invoke end()");
+        logger.debug("  {} -> invoke end()", myID);
+        SkillPhaseEvent phase = trace.beginPhase(SkillPhaseEvent.END);
         ExitToken endStatus = skill.end(exitToken);
-        logger.debug("  " + myID + " -> end() returned: " + endStatus.getExitStatus().getStatus());
+        trace.endPhase(phase, endStatus.getExitStatus());
+        logger.debug("  {} -> end() returned: {}", myID, endStatus.getExitStatus().getStatus());
 
         //
         // CLEAN UP
@@ -259,55 +427,44 @@ public class SkillRunner implements Runnable {
         try {
             execute();
         } catch (Throwable e) {
-            setAborted(e);
-            logger.fatal("An exception occurred while executing state: " + id.getCanonicalID() + ": " + e.getMessage(), e);
-            e.printStackTrace();
+            abort(e);
         }
     }
 
     /**
-     * This method invokes the <code>execute()</code> method of this state.
+     * Marks the skill as aborted because of an unexpected exception.
      *
-     * @return Exit status returned by <code>execute()</code> method.
-     * @see AbstractSkill#execute()
-     * @see ExitStatus
+     * @param e the cause
      */
-    private ExitToken invokeExecute(ExitStatus currentStatus) {
-        // Invoke execute() as long as processing status is equals "wait"
-        // and the state did not FATAL.
-        ExitToken tmpExitStatus = loopToken;
-
+    public void abort(Throwable e) {
+        SkillTrace previous = getTrace().enter();
         try {
-            do {
-                checkPause();
-                long timeExecutionBegin = Time.currentTimeMillis();
-                tmpExitStatus = skill.execute(currentStatus);
-                checkExecutionTime(timeExecutionBegin);
-                if (tmpExitStatus.getExitStatus().looping() && !isForcedToEnd()) {
-                    synchronized (loopCondition) {
-                        try {
-                            loopCondition.wait(tmpExitStatus.getExitStatus().getLoopDelay());
-                        } catch (InterruptedException e) {
-                            logger.debug("looping cancelled");
-                            Thread.currentThread().interrupt();
-                        }
-                    }
-                }
-            } while (tmpExitStatus.getExitStatus().looping() && !isForcedToEnd());
+            setAborted(e);
+        } finally {
+            SkillTrace.restore(previous);
+        }
+        logger.fatal("An exception occurred while executing state: {}: {}", id.getCanonicalID(), e.getMessage(), e);
+        e.printStackTrace();
+    }
 
-            if (isForcedToEnd()) {
-                logger.debug("Loop was forced to end");
-                if (tmpExitStatus.getExitStatus().looping()) {
-                    logger.warn("Skill was forced to end while looping.");
-                    return fatalToken;
-                }
-            }
-        } catch (NullPointerException e) {
-            logger.error("NullPointer from execute!!", e);
-            e.printStackTrace();
-            return fatalToken;
+    /**
+     * @return the flight recorder trace of this skill
+     */
+    public SkillTrace getTrace() {
+        if (trace == null) {
+            trace = new SkillTrace(id, skill.getClass());
         }
-        return tmpExitStatus;
+        return trace;
+    }
+
+    /**
+     * @return the aggregated metrics of the skill class
+     */
+    public MetricsRegistry.SkillMetrics getMetrics() {
+        if (metrics == null) {
+            metrics = MetricsRegistry.getInstance().skill(skill.getClass());
+        }
+        return metrics;
     }
 
     private void checkExecutionTime(long begin) {
@@ -319,7 +476,7 @@ public class SkillRunner implements Runnable {
         }
     }
 
-    protected synchronized boolean isForcedToEnd() {
+    public synchronized boolean isForcedToEnd() {
         return forceEnd;
     }
 
@@ -328,6 +485,7 @@ public class SkillRunner implements Runnable {
      */
     private synchronized void setExecuted(ExitStatus endStatus) {
         isFinished = true;
+        MetricsRegistry.getInstance().skillFinished(skill.getClass());
         listeners.forEach((listener) -> {
             listener.skillFinished(id, endStatus);
         });
@@ -351,13 +509,20 @@ public class SkillRunner implements Runnable {
      * <code>true</code> if the reason is a timeout.
      */
     public synchronized void forceEnd() {
-        logger.error("Forcing skill to end: " + id.getCanonicalSkill());
+        logger.error("Forcing skill to end: {}", id.getCanonicalSkill());
+        if (!forceEnd) {
+            getMetrics().forcedEnd();
+        }
         forceEnd = true;
         try {
             logger.error("notify loop to stop");
             synchronized (loopCondition) {
                 loopCondition.notifyAll();
             }
+            Runnable wakeup = loopWakeup;
+            if (wakeup != null) {
+                wakeup.run();
+            }
 
             logger.error("waiting for skill to quit");
             wait(1000);
@@ -377,13 +542,48 @@ public class SkillRunner implements Runnable {
         return isFinished;
     }
 
+    public StateID getId() {
+        return id;
+    }
+
+    public AbstractSkill getSkill() {
+        return skill;
+    }
+
+    /**
+     * Callback invoked by {@link #forceEnd()} so that executors which do not block in
+     * {@link #awaitLoopDelay()} can run the skill to its end without waiting out the loop delay.
+     *
+     * @param wakeup callback or <code>null</code>
+     */
+    public void setLoopWakeup(Runnable wakeup) {
+        this.loopWakeup = wakeup;
+    }
+
+    public boolean isPaused() {
+        return isPaused;
+    }
+
     public void setPause(boolean pause) {
-        this.isPaused = pause;
         synchronized (monitor) {
+            this.isPaused = pause;
             monitor.notifyAll();
         }
     }
 
+    /**
+     * Blocks the calling thread while this skill is paused.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitResume() throws InterruptedException {
+        synchronized (monitor) {
+            while (isPaused) {
+                monitor.wait();
+            }
+        }
+    }
+
     private void checkPause() {
 
         while (isPaused) {
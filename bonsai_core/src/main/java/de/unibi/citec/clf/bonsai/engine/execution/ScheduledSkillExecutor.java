@@ -0,0 +1,148 @@
+package de.unibi.citec.clf.bonsai.engine.execution;
+
+import de.unibi.citec.clf.bonsai.core.time.Time;
+import de.unibi.citec.clf.bonsai.engine.SkillRunner;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs skills as continuations on a shared {@link ScheduledExecutorService}.
+ * <p>
+ * Every phase of a skill is a short task. If <code>execute()</code> returns a looping status the next invocation is
+ * scheduled after the loop delay instead of blocking a thread, so the number of threads does not grow with the
+ * number of active skills. Skills that block inside <code>execute()</code> still occupy one pool thread while
+ * blocking.
+ * <p>
+ * With a {@link Time#isVirtual() virtual clock} the next invocation is {@link Time#schedule(Runnable, long) scheduled
+ * on the clock} and handed to the pool once the loop delay passed on it, so no pool thread waits for the clock. Paused
+ * skills are still polled in real time.
+ */
+public class ScheduledSkillExecutor implements SkillExecutor {
+
+    static final long PAUSE_POLL_MS = 100;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final SchedulingStatistics statistics = new SchedulingStatistics();
+
+    public ScheduledSkillExecutor(int poolSize) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "skill-scheduler-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        scheduler = new ScheduledThreadPoolExecutor(Math.max(1, poolSize), factory);
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public void execute(SkillRunner runner) {
+        new Continuation(runner).schedule(0, false);
+    }
+
+    @Override
+    public SchedulingStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * The remaining execution of one skill.
+     */
+    private class Continuation implements Runnable {
+
+        private final SkillRunner runner;
+        private boolean started = false;
+        private long due;
+        private long generation = 0;
+        private Future<?> pending;
+
+        Continuation(SkillRunner runner) {
+            this.runner = runner;
+            runner.setLoopWakeup(this::wakeup);
+        }
+
+        /**
+         * @param delayMillis the delay before the next run
+         * @param realTime    whether the delay is real time even with a virtual clock
+         */
+        synchronized void schedule(long delayMillis, boolean realTime) {
+            long scheduled = ++generation;
+            if (!realTime && delayMillis > 0 && Time.isVirtual()) {
+                pending = Time.schedule(() -> submit(scheduled), delayMillis);
+                return;
+            }
+            due = System.nanoTime() + delayMillis * 1000000L;
+            pending = scheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Hands the continuation to the pool once its delay passed on the virtual clock, unless it was scheduled
+         * again in the meantime.
+         */
+        private synchronized void submit(long scheduled) {
+            if (scheduled != generation) {
+                return;
+            }
+            due = System.nanoTime();
+            pending = scheduler.submit(this);
+        }
+
+        /**
+         * Called on {@link SkillRunner#forceEnd()}, runs a waiting loop immediately.
+         */
+        private synchronized void wakeup() {
+            if (pending != null && pending.cancel(false)) {
+                schedule(0, false);
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                pending = null;
+            }
+            statistics.record(runner.getId(), System.nanoTime() - due);
+            try {
+                if (runner.isPaused() && !runner.isForcedToEnd()) {
+                    schedule(PAUSE_POLL_MS, true);
+                    return;
+                }
+                if (!started) {
+                    started = true;
+                    if (!runner.begin()) {
+                        complete();
+                        return;
+                    }
+                } else if (runner.isForcedToEnd()) {
+                    runner.endForcedLoop();
+                    complete();
+                    return;
+                }
+
+                if (runner.step()) {
+                    schedule(runner.getLoopDelay(), false);
+                } else {
+                    complete();
+                }
+            } catch (Throwable e) {
+                runner.setLoopWakeup(null);
+                runner.abort(e);
+            }
+        }
+
+        private void complete() {
+            runner.setLoopWakeup(null);
+            runner.finish();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package de.unibi.citec.clf.bonsai.engine.execution;
+
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-skill scheduling latency, the time between the moment a skill phase was due and the moment it actually
+ * started running.
+ */
+public class SchedulingStatistics {
+
+    /**
+     * Aggregated latencies of one skill.
+     */
+    public static class Latency {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void add(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanMillis() {
+            long n = count.sum();
+            return (n == 0) ? 0 : total.sum() / (double) n / 1e6;
+        }
+
+        public double getMaxMillis() {
+            return max.get() / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.3fms max=%.3fms", getCount(), getMeanMillis(), getMaxMillis());
+        }
+    }
+
+    private final Map<String, Latency> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * @param id    the state of the skill
+     * @param nanos latency in nanoseconds, negative values are counted as zero
+     */
+    public void record(StateID id, long nanos) {
+        latencies.computeIfAbsent(id.getCanonicalSkill(), k -> new Latency()).add(Math.max(0, nanos));
+    }
+
+    /**
+     * @param skill canonical skill name, e.g. <code>dialog.Talk</code>
+     * @return the latency of the skill or <code>null</code> if it was never scheduled
+     */
+    public Latency get(String skill) {
+        return latencies.get(skill);
+    }
+
+    public Map<String, Latency> getAll() {
+        return new TreeMap<>(latencies);
+    }
+
+    public void clear() {
+        latencies.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("scheduling latency:");
+        getAll().forEach((skill, latency) -> sb.append("\n - ").append(skill).append(": ").append(latency));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package de.unibi.citec.clf.bonsai.engine.execution;
+
+import de.unibi.citec.clf.bonsai.engine.SkillRunner;
+
+/**
+ * Strategy that drives the phases of {@link SkillRunner}s.
+ */
+public interface SkillExecutor {
+
+    /**
+     * One platform thread per skill, loop delays block the thread.
+     */
+    String MODE_THREADS = "threads";
+    /**
+     * One virtual thread per skill (requires a Java 21 runtime, falls back to {@link #MODE_THREADS}).
+     */
+    String MODE_VIRTUAL = "virtual";
+    /**
+     * Skills are continuations on a shared scheduler, loop delays are scheduled re-invocations.
+     */
+    String MODE_SCHEDULED = "scheduled";
+
+    /**
+     * Starts the execution of the given runner. Returns immediately.
+     *
+     * @param runner the skill to execute
+     */
+    void execute(SkillRunner runner);
+
+    /**
+     * Scheduling latencies measured by this executor.
+     *
+     * @return the statistics, never <code>null</code>
+     */
+    SchedulingStatistics getStatistics();
+
+    /**
+     * Stops all threads of this executor. Running skills are not waited for.
+     */
+    void shutdown();
+
+    /**
+     * Creates the executor for one of the <code>MODE_*</code> names.
+     *
+     * @param mode     the name of the executor
+     * @param poolSize number of threads used by the {@link #MODE_SCHEDULED} executor
+     * @return the new executor
+     * @throws IllegalArgumentException for unknown modes
+     */
+    static SkillExecutor create(String mode, int poolSize) {
+        switch (mode.toLowerCase()) {
+            case MODE_THREADS:
+                return new ThreadedSkillExecutor(false);
+            case MODE_VIRTUAL:
+                return new ThreadedSkillExecutor(true);
+            case MODE_SCHEDULED:
+                return new ScheduledSkillExecutor(poolSize);
+            default:
+                throw new IllegalArgumentException("unknown skill executor: " + mode);
+        }
+    }
+
+}
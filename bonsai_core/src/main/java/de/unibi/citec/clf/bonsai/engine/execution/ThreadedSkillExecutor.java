@@ -0,0 +1,91 @@
+package de.unibi.citec.clf.bonsai.engine.execution;
+
+import de.unibi.citec.clf.bonsai.core.time.Time;
+import de.unibi.citec.clf.bonsai.engine.SkillRunner;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every skill in its own thread. Loop delays block the thread of the skill, unless the
+ * {@link Time#isVirtual() clock is virtual}.
+ * <p>
+ * With <code>virtual</code> enabled, virtual threads are used if the runtime provides them, so blocked skills do
+ * not occupy platform threads.
+ */
+public class ThreadedSkillExecutor implements SkillExecutor {
+
+    private static final Logger logger = Logger.getLogger(ThreadedSkillExecutor.class);
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final SchedulingStatistics statistics = new SchedulingStatistics();
+
+    public ThreadedSkillExecutor(boolean virtual) {
+        ExecutorService service = null;
+        if (virtual) {
+            try {
+                service = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("virtual threads are not available in this runtime, using platform threads");
+            }
+        }
+        this.virtual = service != null;
+        executor = this.virtual ? service : Executors.newCachedThreadPool();
+    }
+
+    /**
+     * @return whether skills run on virtual threads, <code>false</code> if they were requested but the runtime does
+     * not provide them
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public void execute(SkillRunner runner) {
+        final long submitted = System.nanoTime();
+        executor.submit(() -> {
+            statistics.record(runner.getId(), System.nanoTime() - submitted);
+            try {
+                drive(runner);
+            } catch (Throwable e) {
+                runner.abort(e);
+            }
+        });
+    }
+
+    private void drive(SkillRunner runner) throws Exception {
+        boolean initialized = runner.begin();
+        runner.awaitResume();
+
+        if (initialized) {
+            while (runner.step()) {
+                // virtual loop delays do not take real time
+                long delay = Time.isVirtual() ? 0 : runner.getLoopDelay();
+                long due = System.nanoTime() + delay * 1000000L;
+                runner.awaitLoopDelay();
+                if (runner.isForcedToEnd()) {
+                    runner.endForcedLoop();
+                    break;
+                }
+                statistics.record(runner.getId(), System.nanoTime() - due);
+                runner.awaitResume();
+            }
+        }
+
+        runner.awaitResume();
+        runner.finish();
+    }
+
+    @Override
+    public SchedulingStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
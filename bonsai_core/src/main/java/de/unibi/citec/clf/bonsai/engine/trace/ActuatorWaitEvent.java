@@ -0,0 +1,37 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A skill waiting for the future returned by an actuator.
+ */
+@Name(ActuatorWaitEvent.NAME)
+@Label("Actuator Wait")
+@Category({"BonSAI", "Actuator"})
+@Description("A skill waiting for the result of an actuator call")
+public class ActuatorWaitEvent extends SkillEvent {
+
+    public static final String NAME = "de.unibi.citec.clf.bonsai.ActuatorWait";
+
+    @Label("Actuator")
+    String actuator;
+
+    @Label("Actuator Type")
+    Class<?> actuatorType;
+
+    @Label("Method")
+    String method;
+
+    @Label("Timeout")
+    @Description("Timeout of the get call, -1 if it waited without timeout")
+    @Timespan(Timespan.MILLISECONDS)
+    long timeout;
+
+    @Label("Done")
+    @Description("The future completed while waiting")
+    boolean done;
+}
@@ -0,0 +1,33 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A skill waiting in <code>readLast</code> of a sensor.
+ */
+@Name(SensorReadEvent.NAME)
+@Label("Sensor Read")
+@Category({"BonSAI", "Sensor"})
+@Description("A skill waiting for data of a sensor")
+public class SensorReadEvent extends SkillEvent {
+
+    public static final String NAME = "de.unibi.citec.clf.bonsai.SensorRead";
+
+    @Label("Sensor")
+    String sensor;
+
+    @Label("Data Type")
+    Class<?> dataType;
+
+    @Label("Timeout")
+    @Timespan(Timespan.MILLISECONDS)
+    long timeout;
+
+    @Label("Received")
+    @Description("Data was returned before the timeout")
+    boolean received;
+}
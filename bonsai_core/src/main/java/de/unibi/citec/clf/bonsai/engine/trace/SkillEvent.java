@@ -0,0 +1,25 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of all flight recorder events of a skill, carries the state and the skill that caused it.
+ */
+@Category({"BonSAI", "Skill"})
+public abstract class SkillEvent extends Event {
+
+    @Label("State")
+    String state;
+
+    @Label("Skill")
+    Class<?> skill;
+
+    void setContext(SkillTrace trace) {
+        if (trace != null) {
+            state = trace.getState();
+            skill = trace.getSkill();
+        }
+    }
+}
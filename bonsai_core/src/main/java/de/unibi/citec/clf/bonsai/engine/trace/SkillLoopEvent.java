@@ -0,0 +1,30 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * One call of <code>execute()</code> of a skill.
+ */
+@Name(SkillLoopEvent.NAME)
+@Label("Skill Loop")
+@Category({"BonSAI", "Skill"})
+@Description("One execute() call of a skill")
+public class SkillLoopEvent extends SkillEvent {
+
+    public static final String NAME = "de.unibi.citec.clf.bonsai.SkillLoop";
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Loop Delay")
+    @Description("Delay requested before the next iteration, 0 if the skill did not loop")
+    @Timespan(Timespan.MILLISECONDS)
+    long loopDelay;
+
+    @Label("Exit Status")
+    String exitStatus;
+}
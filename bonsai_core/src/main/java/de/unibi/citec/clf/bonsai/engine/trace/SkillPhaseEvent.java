@@ -0,0 +1,34 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One phase of a skill: <code>configure</code>, <code>init</code>, <code>execute</code> (all loop iterations) or
+ * <code>end</code>.
+ */
+@Name(SkillPhaseEvent.NAME)
+@Label("Skill Phase")
+@Category({"BonSAI", "Skill"})
+@Description("A lifecycle phase of a skill")
+public class SkillPhaseEvent extends SkillEvent {
+
+    public static final String NAME = "de.unibi.citec.clf.bonsai.SkillPhase";
+
+    public static final String CONFIGURE = "configure";
+    public static final String INIT = "init";
+    public static final String EXECUTE = "execute";
+    public static final String END = "end";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Exit Status")
+    String exitStatus;
+
+    SkillPhaseEvent(String phase) {
+        this.phase = phase;
+    }
+}
@@ -0,0 +1,90 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+
+/**
+ * Flight recorder tracing of one running skill.
+ * <p>
+ * While a phase of the skill runs, its trace is the current trace of the executing thread, so the events of
+ * sensors and actuators used by the skill are attributed to its state. The events are only filled and committed if
+ * they are enabled in a running recording, otherwise tracing costs about as much as the check.
+ */
+public final class SkillTrace {
+
+    private static final ThreadLocal<SkillTrace> CURRENT = new ThreadLocal<>();
+
+    private final String state;
+    private final Class<?> skill;
+
+    public SkillTrace(StateID id, Class<?> skill) {
+        this.state = (id != null) ? id.getCanonicalID() : null;
+        this.skill = skill;
+    }
+
+    /**
+     * @return the trace of the skill running in the calling thread or <code>null</code>
+     */
+    public static SkillTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes this the current trace of the calling thread.
+     *
+     * @return the previous trace, to be passed to {@link #restore(SkillTrace)}
+     */
+    public SkillTrace enter() {
+        SkillTrace previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(SkillTrace previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public Class<?> getSkill() {
+        return skill;
+    }
+
+    public SkillPhaseEvent beginPhase(String phase) {
+        SkillPhaseEvent event = new SkillPhaseEvent(phase);
+        event.begin();
+        return event;
+    }
+
+    public void endPhase(SkillPhaseEvent event, ExitStatus status) {
+        if (event.shouldCommit()) {
+            event.exitStatus = (status != null) ? status.getFullStatus() : null;
+            event.setContext(this);
+            event.commit();
+        }
+    }
+
+    public SkillLoopEvent beginLoop() {
+        SkillLoopEvent event = new SkillLoopEvent();
+        event.begin();
+        return event;
+    }
+
+    public void endLoop(SkillLoopEvent event, int iteration, ExitStatus status) {
+        if (event.shouldCommit()) {
+            event.iteration = iteration;
+            if (status != null) {
+                event.exitStatus = status.getFullStatus();
+                event.loopDelay = status.looping() ? status.getLoopDelay() : 0;
+            }
+            event.setContext(this);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An event fired by a finished skill, including the time the state machine needed to process it.
+ */
+@Name(SkillTransitionEvent.NAME)
+@Label("Skill Transition")
+@Category({"BonSAI", "Skill"})
+@Description("Event fired by a finished skill")
+public class SkillTransitionEvent extends SkillEvent {
+
+    public static final String NAME = "de.unibi.citec.clf.bonsai.SkillTransition";
+
+    @Label("Event")
+    String event;
+
+    @Label("Final")
+    @Description("The state machine reached a final configuration")
+    boolean reachedFinal;
+
+    public SkillTransitionEvent(String event) {
+        this.event = event;
+    }
+
+    /**
+     * Commits the event with the skill of the current thread.
+     *
+     * @param reachedFinal the state machine reached a final configuration
+     */
+    public void end(boolean reachedFinal) {
+        if (shouldCommit()) {
+            this.reachedFinal = reachedFinal;
+            setContext(SkillTrace.current());
+            commit();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
+import de.unibi.citec.clf.bonsai.core.object.Actuator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps actuators handed to skills so that waiting for a returned {@link Future} records an
+ * {@link ActuatorWaitEvent}. The duration of every call and the time until a returned future is seen completed
+ * are recorded in the {@link MetricsRegistry}.
+ * <p>
+ * Whether to wrap is decided once per actuator: without a recording of {@link ActuatorWaitEvent}s and with
+ * {@link MetricsRegistry#isActuatorMetricsEnabled() actuator metrics} disabled, the actuator is handed out as is.
+ */
+public final class TracedActuator implements InvocationHandler {
+
+    private final String key;
+    private final Class<?> type;
+    private final Actuator actuator;
+    private final boolean recordMetrics;
+    private final ConcurrentMap<Method, MetricsRegistry.ActuatorMetrics> metrics = new ConcurrentHashMap<>();
+
+    private TracedActuator(String key, Class<?> type, Actuator actuator, boolean recordMetrics) {
+        this.key = key;
+        this.type = type;
+        this.actuator = actuator;
+        this.recordMetrics = recordMetrics;
+    }
+
+    /**
+     * Wraps an actuator that is requested by its interface. Actuators requested by their class are returned as is.
+     *
+     * @param key      the actuator key
+     * @param type     the requested type
+     * @param actuator the actuator
+     * @return a proxy of the requested interface or the actuator itself
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Actuator> T wrap(String key, Class<T> type, T actuator) {
+        if (actuator == null || !type.isInterface() || Proxy.isProxyClass(actuator.getClass())) {
+            return actuator;
+        }
+        boolean recordMetrics = MetricsRegistry.getInstance().isActuatorMetricsEnabled();
+        if (!recordMetrics && !new ActuatorWaitEvent().isEnabled()) {
+            return actuator;
+        }
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new TracedActuator(key, type, actuator, recordMetrics));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeTarget(method, args);
+        }
+        MetricsRegistry.ActuatorMetrics metrics = recordMetrics
+                ? this.metrics.computeIfAbsent(method, m -> MetricsRegistry.getInstance().actuator(key, m.getName()))
+                : null;
+        long begin = System.nanoTime();
+        Object result;
+        try {
+            result = invokeTarget(method, args);
+        } finally {
+            if (metrics != null) {
+                metrics.getCall().recordSince(begin);
+            }
+        }
+        if (result instanceof Future && method.getReturnType() == Future.class) {
+            return new TracedFuture<>((Future<?>) result, method.getName(), metrics, begin);
+        }
+        return result;
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(actuator, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class TracedFuture<V> implements Future<V> {
+
+        private final Future<V> future;
+        private final String method;
+        /**
+         * <code>null</code> if metrics are not recorded.
+         */
+        private final MetricsRegistry.ActuatorMetrics metrics;
+        private final long begin;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        TracedFuture(Future<V> future, String method, MetricsRegistry.ActuatorMetrics metrics, long begin) {
+            this.future = future;
+            this.method = method;
+            this.metrics = metrics;
+            this.begin = begin;
+        }
+
+        /**
+         * Records the result latency the first time the future is seen completed.
+         */
+        private boolean observe(boolean done) {
+            if (done && metrics != null && completed.compareAndSet(false, true)) {
+                metrics.getResult().recordSince(begin);
+            }
+            return done;
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            ActuatorWaitEvent event = new ActuatorWaitEvent();
+            event.begin();
+            try {
+                return future.get();
+            } finally {
+                commit(event, -1);
+            }
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            ActuatorWaitEvent event = new ActuatorWaitEvent();
+            event.begin();
+            try {
+                return future.get(timeout, unit);
+            } finally {
+                commit(event, unit.toMillis(timeout));
+            }
+        }
+
+        private void commit(ActuatorWaitEvent event, long timeout) {
+            boolean done = observe(future.isDone());
+            if (event.shouldCommit()) {
+                event.actuator = key;
+                event.actuatorType = type;
+                event.method = method;
+                event.timeout = timeout;
+                event.done = done;
+                event.setContext(SkillTrace.current());
+                event.commit();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return future.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return observe(future.isDone());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import de.unibi.citec.clf.bonsai.core.SensorListener;
+import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.object.Sensor;
+
+import java.io.IOException;
+
+/**
+ * Sensor handed to skills that records a {@link SensorReadEvent} for every <code>readLast</code>.
+ *
+ * @param <T> data type of the sensor
+ */
+public class TracedSensor<T> implements Sensor<T> {
+
+    private final String key;
+    private final Sensor<T> sensor;
+
+    public TracedSensor(String key, Sensor<T> sensor) {
+        this.key = key;
+        this.sensor = sensor;
+    }
+
+    /**
+     * @return the traced sensor
+     */
+    public Sensor<T> getSensor() {
+        return sensor;
+    }
+
+    @Override
+    public T readLast(long timeout) throws IOException, InterruptedException {
+        SensorReadEvent event = new SensorReadEvent();
+        event.begin();
+        T data = null;
+        try {
+            data = sensor.readLast(timeout);
+            return data;
+        } finally {
+            if (event.shouldCommit()) {
+                event.sensor = key;
+                event.dataType = sensor.getDataType();
+                event.timeout = timeout;
+                event.received = data != null;
+                event.setContext(SkillTrace.current());
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public Class<T> getDataType() {
+        return sensor.getDataType();
+    }
+
+    @Override
+    public String getTarget() {
+        return sensor.getTarget();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sensor.hasNext();
+    }
+
+    @Override
+    public void clear() {
+        sensor.clear();
+    }
+
+    @Override
+    public void addSensorListener(SensorListener<T> listener) {
+        sensor.addSensorListener(listener);
+    }
+
+    @Override
+    public void removeSensorListener(SensorListener<T> listener) {
+        sensor.removeSensorListener(listener);
+    }
+
+    @Override
+    public void removeAllSensorListeners() {
+        sensor.removeAllSensorListeners();
+    }
+
+    @Override
+    public void configure(IObjectConfigurator conf) throws ConfigurationException {
+        sensor.configure(conf);
+    }
+
+    @Override
+    public void cleanUp() throws IOException {
+        sensor.cleanUp();
+    }
+
+    @Override
+    public String toString() {
+        return sensor.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package de.unibi.citec.clf.bonsai.memory;
+
+import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.exception.CommunicationException;
+import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.exception.CoreObjectCreationException;
+import de.unibi.citec.clf.bonsai.core.object.MemorySlot;
+import de.unibi.citec.clf.bonsai.core.object.WorkingMemory;
+import de.unibi.citec.clf.bonsai.memory.slots.VersionedSlot;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe working memory for skills running in parallel regions.
+ * <p>
+ * Slots are created and looked up without locking, every recall returns a copy like in {@link DefaultMemory}.
+ */
+public class ConcurrentMemory implements WorkingMemory {
+
+    private final ConcurrentHashMap<String, VersionedSlot<?>> memorySlots = new ConcurrentHashMap<>();
+    private final LazyLogger logger = LazyLogger.getLogger(getClass());
+
+    @Override
+    public void configure(IObjectConfigurator conf) throws ConfigurationException {
+        //no configuration needed
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> MemorySlot<T> getSlot(String slotName, Class<T> dataType) throws CommunicationException, IllegalArgumentException, CoreObjectCreationException {
+        logger.debug("getSlot {}[{}]", slotName, dataType);
+        VersionedSlot<?> slot = memorySlots.computeIfAbsent(slotName, k -> new VersionedSlot<>(dataType));
+        if (slot.getDataType() != dataType) {
+            throw new CommunicationException("Slot [" + slotName + "] already in memory with type [" + slot.getDataType() + "] but type [" + dataType + "] was requested");
+        }
+        return (MemorySlot<T>) slot;
+    }
+
+    @Override
+    public void cleanUp() {
+        //no cleanup
+    }
+
+    public void clearAll() {
+        memorySlots.clear();
+    }
+
+}
@@ -7,7 +7,7 @@ import de.unibi.citec.clf.bonsai.core.exception.CoreObjectCreationException;
 import de.unibi.citec.clf.bonsai.core.object.MemorySlot;
 import de.unibi.citec.clf.bonsai.core.object.WorkingMemory;
 import de.unibi.citec.clf.bonsai.memory.slots.ObjectSlot;
-import org.apache.log4j.Logger;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
 
 import java.util.HashMap;
 
@@ -17,7 +17,7 @@ import java.util.HashMap;
 public class DefaultMemory implements WorkingMemory {
 
     private HashMap<String, MemorySlot> memorySlots = new HashMap<>();
-    private final Logger logger = Logger.getLogger(getClass());
+    private final LazyLogger logger = LazyLogger.getLogger(getClass());
 
     @Override
     public void configure(IObjectConfigurator conf) throws ConfigurationException {
@@ -26,7 +26,7 @@ public class DefaultMemory implements WorkingMemory {
 
     @Override
     public <T> MemorySlot<T> getSlot(String slotName, Class<T> dataType) throws CommunicationException, IllegalArgumentException, CoreObjectCreationException {
-        logger.debug("getSlot " + slotName + "[" + dataType + "]");
+        logger.debug("getSlot {}[{}]", slotName, dataType);
         MemorySlot<T> slot;
         if (memorySlots.containsKey(slotName)) {
             logger.trace("using old slot");
@@ -39,7 +39,7 @@ public class DefaultMemory implements WorkingMemory {
             slot = new ObjectSlot<>(dataType);
             memorySlots.put(slotName, slot);
         }
-        logger.trace("have " + memorySlots.size() + " slots");
+        logger.trace("have {} slots", memorySlots.size());
         return slot;
     }
 
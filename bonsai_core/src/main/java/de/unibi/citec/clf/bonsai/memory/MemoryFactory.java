@@ -3,11 +3,15 @@ package de.unibi.citec.clf.bonsai.memory;
 
 import de.unibi.citec.clf.bonsai.core.CoreObjectFactory;
 import de.unibi.citec.clf.bonsai.core.configuration.FactoryConfigurationResults;
+import de.unibi.citec.clf.bonsai.core.configuration.ObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.core.exception.CoreObjectCreationException;
 import de.unibi.citec.clf.bonsai.core.exception.InitializationException;
 import de.unibi.citec.clf.bonsai.core.object.*;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -23,6 +27,8 @@ public class MemoryFactory implements CoreObjectFactory {
 
     WorkingMemory memory = null;
 
+    private final Map<String, WorkingMemory> configuredMemories = new HashMap<>();
+
 
     /**
      * {@inheritDoc}
@@ -90,6 +96,9 @@ public class MemoryFactory implements CoreObjectFactory {
     public <T extends WorkingMemory> T createWorkingMemory(String key)
             throws IllegalArgumentException, CoreObjectCreationException {
 
+        if (configuredMemories.containsKey(key)) {
+            return (T) configuredMemories.get(key);
+        }
         if (memory == null) {
             logger.debug("create new Memory");
             memory = new DefaultMemory();
@@ -116,7 +125,14 @@ public class MemoryFactory implements CoreObjectFactory {
 
     @Override
     public void cleanUp() {
-        //not needed
+        for (WorkingMemory wm : configuredMemories.values()) {
+            try {
+                wm.cleanUp();
+            } catch (IOException e) {
+                logger.warn(e);
+            }
+        }
+        configuredMemories.clear();
     }
 
     @Override
@@ -131,7 +147,28 @@ public class MemoryFactory implements CoreObjectFactory {
 
     @Override
     public FactoryConfigurationResults configureWorkingMemories(Set<WorkingMemoryToConfigure> memories) throws IllegalArgumentException, CoreObjectCreationException {
-        return new FactoryConfigurationResults();
+        FactoryConfigurationResults results = new FactoryConfigurationResults();
+        for (WorkingMemoryToConfigure toConfigure : memories) {
+            if (configuredMemories.containsKey(toConfigure.getKey())) {
+                continue;
+            }
+            ObjectConfigurator conf = ObjectConfigurator.createConfigPhase();
+            try {
+                WorkingMemory wm = toConfigure.getMemoryClass().getConstructor().newInstance();
+                wm.configure(conf);
+                Map<String, String> options = toConfigure.getMemoryOptions();
+                conf.activateObjectPhase((options != null) ? options : new HashMap<>());
+                wm.configure(conf);
+                logger.debug("configured memory " + toConfigure.getKey() + ": " + wm.getClass().getSimpleName());
+                configuredMemories.put(toConfigure.getKey(), wm);
+            } catch (ConfigurationException e) {
+                results.exceptions.add(e);
+                results.exceptions.addAll(conf.getExceptions());
+            } catch (ReflectiveOperationException e) {
+                throw new CoreObjectCreationException(e);
+            }
+        }
+        return results;
     }
 
     @Override
@@ -0,0 +1,143 @@
+package de.unibi.citec.clf.bonsai.memory.slots;
+
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates independent copies of objects stored in memory slots.
+ * <p>
+ * The strategies of a class are looked up once and cached, in the order copy constructor, java serialization,
+ * <code>clone()</code>. If a strategy fails for an object the next one is tried. Immutable values (strings, boxed
+ * primitives, enums) and classes that support none of the strategies are not copied.
+ *
+ * @param <T> the type of the copied objects
+ */
+@FunctionalInterface
+public interface CopyStrategy<T> {
+
+    /**
+     * @param object the object to copy, not <code>null</code>
+     * @return an independent copy of the object
+     */
+    T copy(T object);
+
+    /**
+     * The cached strategy for the runtime class of the given object.
+     *
+     * @param object the object to copy
+     * @param <T>    the type of the object
+     * @return the copy strategy of the class of the object
+     */
+    @SuppressWarnings("unchecked")
+    static <T> CopyStrategy<T> of(T object) {
+        return (CopyStrategy<T>) Cache.strategies.computeIfAbsent(object.getClass(), Cache::resolve);
+    }
+
+    /**
+     * Per-class strategies.
+     */
+    final class Cache {
+
+        private static final LazyLogger logger = LazyLogger.getLogger(CopyStrategy.class);
+        private static final Map<Class<?>, CopyStrategy<?>> strategies = new ConcurrentHashMap<>();
+
+        private Cache() {
+        }
+
+        private static CopyStrategy<?> resolve(Class<?> clazz) {
+            if (isImmutable(clazz)) {
+                logger.trace("{} is immutable", clazz);
+                return object -> object;
+            }
+
+            java.util.List<CopyStrategy<Object>> candidates = new ArrayList<>();
+            try {
+                MethodHandle constructor = MethodHandles.publicLookup()
+                        .findConstructor(clazz, MethodType.methodType(void.class, clazz))
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                logger.trace("copy {} by copy constructor", clazz);
+                candidates.add(object -> {
+                    try {
+                        return constructor.invokeExact(object);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException("copy constructor of " + clazz + " failed", e);
+                    }
+                });
+            } catch (NoSuchMethodException | IllegalAccessException ex) {
+                logger.trace(ex);
+            }
+
+            if (Serializable.class.isAssignableFrom(clazz)) {
+                logger.trace("copy {} by serialization", clazz);
+                candidates.add(Cache::serializedCopy);
+            }
+
+            if (Cloneable.class.isAssignableFrom(clazz)) {
+                try {
+                    MethodHandle clone = MethodHandles.publicLookup()
+                            .findVirtual(clazz, "clone", MethodType.methodType(Object.class))
+                            .asType(MethodType.methodType(Object.class, Object.class));
+                    logger.trace("copy {} by clone()", clazz);
+                    candidates.add(object -> {
+                        try {
+                            return clone.invokeExact(object);
+                        } catch (Throwable e) {
+                            throw new IllegalStateException("clone of " + clazz + " failed", e);
+                        }
+                    });
+                } catch (NoSuchMethodException | IllegalAccessException ex) {
+                    logger.trace(ex);
+                }
+            }
+
+            if (candidates.isEmpty()) {
+                logger.warn(clazz
+                        + " not copyable, object mutation will change the object in memory \n "
+                        + " please create an issue: " + clazz + " not copyable");
+                return object -> object;
+            }
+            if (candidates.size() == 1) {
+                return candidates.get(0);
+            }
+            return object -> {
+                IllegalStateException failure = null;
+                for (CopyStrategy<Object> candidate : candidates) {
+                    try {
+                        return candidate.copy(object);
+                    } catch (IllegalStateException ex) {
+                        logger.trace(ex);
+                        failure = ex;
+                    }
+                }
+                throw failure;
+            };
+        }
+
+        private static boolean isImmutable(Class<?> clazz) {
+            return clazz == String.class || clazz == Boolean.class || clazz == Character.class
+                    || clazz == Byte.class || clazz == Short.class || clazz == Integer.class || clazz == Long.class
+                    || clazz == Float.class || clazz == Double.class || Enum.class.isAssignableFrom(clazz);
+        }
+
+        private static Object serializedCopy(Object object) {
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                    oos.writeObject(object);
+                }
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+                    return ois.readObject();
+                }
+            } catch (IOException | ClassNotFoundException ex) {
+                throw new IllegalStateException("serialization of " + object.getClass() + " failed", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.unibi.citec.clf.bonsai.memory.slots;
+
+import de.unibi.citec.clf.bonsai.core.MemorySlotListener;
+import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.exception.CommunicationException;
+import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.object.MemorySlot;
+import de.unibi.citec.clf.bonsai.core.object.VersionedValue;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe slot with a monotonic version, updated with compare-and-set.
+ * <p>
+ * Every recall returns a copy of the stored object. Reads are lock-free, writes are serialized so that listeners
+ * receive the changes in the order of their versions.
+ *
+ * @param <T>
+ * @see ObjectSlot
+ */
+public class VersionedSlot<T> implements MemorySlot<T> {
+
+    private final AtomicReference<VersionedValue<T>> current = new AtomicReference<>(new VersionedValue<>(null, 0));
+    private final List<MemorySlotListener<T>> listeners = new CopyOnWriteArrayList<>();
+    private final Class<T> dataType;
+
+    /**
+     * Changes not yet passed to the listeners, guarded by itself.
+     */
+    private final Queue<VersionedValue<T>> pending = new ArrayDeque<>();
+    private boolean notifying = false;
+
+    private final LazyLogger logger = LazyLogger.getLogger(getClass());
+
+    public VersionedSlot(Class<T> type) {
+        this.dataType = type;
+    }
+
+    @Override
+    public <S extends T> void memorize(S object) throws CommunicationException {
+        logger.trace("memorized {}", object);
+        synchronized (this) {
+            write(object, current.get().getVersion() + 1);
+        }
+        notifyListeners();
+    }
+
+    @Override
+    public <S extends T> boolean compareAndMemorize(long expectedVersion, S object) throws CommunicationException {
+        if (current.get().getVersion() != expectedVersion) {
+            return false;
+        }
+        synchronized (this) {
+            if (current.get().getVersion() != expectedVersion) {
+                return false;
+            }
+            write(object, expectedVersion + 1);
+        }
+        logger.trace("memorized {} as version {}", object, expectedVersion + 1);
+        notifyListeners();
+        return true;
+    }
+
+    /**
+     * Stores the object and queues the notification, must hold the lock of this slot so versions and
+     * notifications stay in the same order.
+     */
+    private void write(T stored, long version) {
+        VersionedValue<T> next = new VersionedValue<>(stored, version);
+        current.set(next);
+        if (!listeners.isEmpty()) {
+            synchronized (pending) {
+                pending.add(next);
+            }
+        }
+    }
+
+    @Override
+    public void forget() throws CommunicationException {
+        memorize(null);
+    }
+
+    @Override
+    public <S extends T> T recall() throws CommunicationException {
+        T stored = current.get().getValue();
+        logger.trace("recall {}", stored);
+        return read(stored);
+    }
+
+    @Override
+    public VersionedValue<T> recallVersioned() throws CommunicationException {
+        VersionedValue<T> value = current.get();
+        return new VersionedValue<>(read(value.getValue()), value.getVersion());
+    }
+
+    @Override
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    @Override
+    public void addSlotListener(MemorySlotListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeSlotListener(MemorySlotListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Passes the queued changes to the listeners. Only one thread notifies at a time, so a change is never passed
+     * before an older one, also if a listener memorizes into this slot.
+     */
+    private void notifyListeners() {
+        while (true) {
+            VersionedValue<T> value;
+            synchronized (pending) {
+                if (notifying) {
+                    return;
+                }
+                value = pending.poll();
+                if (value == null) {
+                    return;
+                }
+                notifying = true;
+            }
+            try {
+                for (MemorySlotListener<T> listener : listeners) {
+                    try {
+                        listener.slotChanged(read(value.getValue()), value.getVersion());
+                    } catch (RuntimeException e) {
+                        logger.error("slot listener failed", e);
+                    }
+                }
+            } finally {
+                synchronized (pending) {
+                    notifying = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Object handed to readers for a stored object.
+     */
+    private T read(T stored) {
+        if (stored == null) {
+            return null;
+        }
+        try {
+            return CopyStrategy.of(stored).copy(stored);
+        } catch (IllegalStateException ex) {
+            logger.warn(ex.getMessage() + ", object mutation will change the object in memory");
+            logger.trace(ex);
+            return stored;
+        }
+    }
+
+    @Override
+    public <S extends T> Class<S> getDataType() {
+        return (Class<S>) dataType;
+    }
+
+    @Override
+    public void cleanUp() {
+        logger.trace("clean up");
+        listeners.clear();
+        synchronized (this) {
+            current.set(new VersionedValue<>(null, current.get().getVersion() + 1));
+        }
+    }
+
+    @Override
+    public void configure(IObjectConfigurator conf) throws ConfigurationException {
+        //no configuration needed
+    }
+
+}
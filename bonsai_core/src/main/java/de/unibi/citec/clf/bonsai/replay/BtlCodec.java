@@ -0,0 +1,645 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+import org.apache.log4j.Logger;
+import sun.reflect.ReflectionFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary encoding of BTL objects and the plain Java objects they contain, used by the sensor logs.
+ * <p>
+ * Classes of the application are written field by field, including the fields of all super classes. Static and
+ * transient fields and loggers are skipped. Classes of the application that extend a JDK class other than
+ * <code>Object</code> are written like that class. Objects are restored with the constructor without arguments,
+ * which may be private, and the fields are set directly. Classes without such a constructor are allocated without
+ * running any of their constructors, like Java serialization does, so their skipped fields keep the default value
+ * of their type. Classes of the JDK are supported if they are
+ * strings, boxed primitives, enums, arrays, collections, maps, {@link ByteBuffer}s or {@link Serializable} value
+ * types of the packages allowed by {@link #SERIALIZED_FILTER}. Shared references and cycles are kept.
+ * <p>
+ * Every value is tagged, so values of fields that no longer exist are skipped when reading. Classes are referenced
+ * by the number of their {@link ClassDef definition}, the definitions are stored once per log.
+ */
+final class BtlCodec {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(BtlCodec.class);
+
+    static final byte NULL = 0;
+    static final byte REF = 1;
+    static final byte BOOLEAN = 2;
+    static final byte BYTE = 3;
+    static final byte SHORT = 4;
+    static final byte CHAR = 5;
+    static final byte INT = 6;
+    static final byte LONG = 7;
+    static final byte FLOAT = 8;
+    static final byte DOUBLE = 9;
+    static final byte STRING = 10;
+    static final byte ENUM = 11;
+    static final byte ARRAY = 12;
+    static final byte COLLECTION = 13;
+    static final byte MAP = 14;
+    static final byte BYTE_BUFFER = 15;
+    static final byte OBJECT = 16;
+    static final byte SERIALIZED = 17;
+
+    /**
+     * The JDK value types that are read with Java serialization, a log can not make the reader create other classes.
+     */
+    static final String SERIALIZED_FILTER = "java.lang.*;java.math.*;java.time.*;java.util.Date;java.util.UUID;"
+            + "java.net.URI;maxdepth=10;maxrefs=10000;maxbytes=16777216;!*";
+
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(SERIALIZED_FILTER);
+
+    /**
+     * A class used in a log, with the names of its fields if it is written field by field.
+     */
+    static final class ClassDef {
+        final String name;
+        final String[] fieldNames;
+        final Class<?> type;
+        /**
+         * The fields of {@link #type} by position in {@link #fieldNames}, <code>null</code> for fields that do not
+         * exist anymore.
+         */
+        final Field[] fields;
+
+        ClassDef(String name, String[] fieldNames, Class<?> type, Field[] fields) {
+            this.name = name;
+            this.fieldNames = fieldNames;
+            this.type = type;
+            this.fields = fields;
+        }
+    }
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        for (Class<?> c : new Class<?>[]{boolean.class, byte.class, short.class, char.class, int.class, long.class,
+                float.class, double.class}) {
+            PRIMITIVES.put(c.getName(), c);
+        }
+    }
+
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private final List<ClassDef> defs = new ArrayList<>();
+    private final Map<Class<?>, Integer> ids = new HashMap<>();
+    private final List<ClassDef> pending = new ArrayList<>();
+    private final IdentityHashMap<Object, Integer> written = new IdentityHashMap<>();
+    private final List<Object> read = new ArrayList<>();
+
+    // definitions ------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the definitions of classes first used by the last {@link #write(DataOutput, Object)}, they must be
+     * stored before the value
+     */
+    List<ClassDef> drainPending() {
+        List<ClassDef> result = new ArrayList<>(pending);
+        pending.clear();
+        return result;
+    }
+
+    /**
+     * Adds the next definition of a log that is read or appended to. A definition is only used for writing if the
+     * fields of the class did not change since.
+     */
+    void define(String name, String[] fieldNames) {
+        Class<?> type = null;
+        Field[] fields = new Field[fieldNames.length];
+        boolean current = false;
+        try {
+            type = PRIMITIVES.containsKey(name) ? PRIMITIVES.get(name)
+                    : Class.forName(name, false, BtlCodec.class.getClassLoader());
+            Field[] existing = isApplicationClass(type) ? fieldsOf(type) : new Field[0];
+            Map<String, Field> byName = new HashMap<>();
+            for (Field f : existing) {
+                byName.put(fieldName(f), f);
+            }
+            for (int i = 0; i < fieldNames.length; i++) {
+                fields[i] = byName.get(fieldNames[i]);
+                if (fields[i] == null) {
+                    logger.warn("field {} of the log does not exist anymore", fieldNames[i]);
+                }
+            }
+            current = Arrays.equals(fields, existing);
+        } catch (ClassNotFoundException e) {
+            logger.warn("class {} of the log is unknown", name);
+        }
+        ClassDef def = new ClassDef(name, fieldNames, type, fields);
+        defs.add(def);
+        if (current) {
+            ids.putIfAbsent(type, defs.size() - 1);
+        }
+    }
+
+    private int classId(Class<?> type) {
+        Integer id = ids.get(type);
+        if (id == null) {
+            Field[] fields = isApplicationClass(type) ? fieldsOf(type) : new Field[0];
+            String[] names = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                names[i] = fieldName(fields[i]);
+            }
+            ClassDef def = new ClassDef(type.getName(), names, type, fields);
+            defs.add(def);
+            pending.add(def);
+            id = defs.size() - 1;
+            ids.put(type, id);
+        }
+        return id;
+    }
+
+    private ClassDef def(int id) throws IOException {
+        if (id < 0 || id >= defs.size()) {
+            throw new IOException("undefined class " + id);
+        }
+        ClassDef def = defs.get(id);
+        if (def.type == null) {
+            throw new IOException("class " + def.name + " is not available");
+        }
+        return def;
+    }
+
+    // writing ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Writes a value, on failure the class definitions of the value are still {@link #drainPending() pending}.
+     */
+    void write(DataOutput out, Object value) throws IOException {
+        written.clear();
+        try {
+            writeValue(out, value);
+        } finally {
+            written.clear();
+        }
+    }
+
+    private void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (writePrimitive(out, value)) {
+            return;
+        }
+        if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+            return;
+        }
+        if (value instanceof Enum) {
+            out.writeByte(ENUM);
+            out.writeShort(classId(((Enum<?>) value).getDeclaringClass()));
+            writeString(out, ((Enum<?>) value).name());
+            return;
+        }
+
+        Integer handle = written.get(value);
+        if (handle != null) {
+            out.writeByte(REF);
+            out.writeInt(handle);
+            return;
+        }
+        written.put(value, written.size());
+
+        if (type.isArray()) {
+            out.writeByte(ARRAY);
+            out.writeShort(classId(type.getComponentType()));
+            int length = Array.getLength(value);
+            out.writeInt(length);
+            writeArray(out, value, length);
+        } else if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            out.writeByte(BYTE_BUFFER);
+            out.writeInt(buffer.position());
+            buffer.position(0);
+            out.writeInt(buffer.limit());
+            byte[] bytes = new byte[buffer.limit()];
+            buffer.get(bytes);
+            out.write(bytes);
+        } else if (isApplicationClass(type)) {
+            out.writeByte(OBJECT);
+            int id = classId(type);
+            out.writeShort(id);
+            for (Field field : defs.get(id).fields) {
+                try {
+                    writeValue(out, field.get(value));
+                } catch (IllegalAccessException e) {
+                    throw new IOException("can not read " + field, e);
+                }
+            }
+        } else if (value instanceof Collection) {
+            out.writeByte(COLLECTION);
+            out.writeShort(classId(type));
+            Collection<?> collection = (Collection<?>) value;
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            out.writeShort(classId(type));
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Serializable) {
+            // fail before the value is logged if it could never be read
+            checkSerialized(type);
+            out.writeByte(SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(value);
+            }
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        } else {
+            throw new IOException("can not encode " + type.getName());
+        }
+    }
+
+    private static void checkSerialized(Class<?> type) throws IOException {
+        ObjectInputFilter.Status status = FILTER.checkInput(new ObjectInputFilter.FilterInfo() {
+            @Override
+            public Class<?> serialClass() {
+                return type;
+            }
+
+            @Override
+            public long arrayLength() {
+                return -1;
+            }
+
+            @Override
+            public long depth() {
+                return 1;
+            }
+
+            @Override
+            public long references() {
+                return 0;
+            }
+
+            @Override
+            public long streamBytes() {
+                return 0;
+            }
+        });
+        if (status == ObjectInputFilter.Status.REJECTED) {
+            throw new IOException("can not encode " + type.getName() + ", it is not a value type of "
+                    + SERIALIZED_FILTER);
+        }
+    }
+
+    private static boolean writePrimitive(DataOutput out, Object value) throws IOException {
+        if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void writeArray(DataOutput out, Object array, int length) throws IOException {
+        Class<?> component = array.getClass().getComponentType();
+        if (component == byte.class) {
+            out.write((byte[]) array);
+        } else if (component == double.class) {
+            for (double d : (double[]) array) {
+                out.writeDouble(d);
+            }
+        } else if (component == float.class) {
+            for (float f : (float[]) array) {
+                out.writeFloat(f);
+            }
+        } else if (component == int.class) {
+            for (int i : (int[]) array) {
+                out.writeInt(i);
+            }
+        } else if (component == long.class) {
+            for (long l : (long[]) array) {
+                out.writeLong(l);
+            }
+        } else if (component == short.class) {
+            for (short s : (short[]) array) {
+                out.writeShort(s);
+            }
+        } else if (component == char.class) {
+            for (char c : (char[]) array) {
+                out.writeChar(c);
+            }
+        } else if (component == boolean.class) {
+            for (boolean b : (boolean[]) array) {
+                out.writeBoolean(b);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                writeValue(out, Array.get(array, i));
+            }
+        }
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // reading ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Reads a value written by {@link #write(DataOutput, Object)}.
+     */
+    Object read(ByteBuffer in) throws IOException {
+        read.clear();
+        try {
+            return readValue(in);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IOException("corrupt record", e);
+        } finally {
+            read.clear();
+        }
+    }
+
+    private Object readValue(ByteBuffer in) throws IOException, ReflectiveOperationException {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case REF:
+                return read.get(in.getInt());
+            case BOOLEAN:
+                return in.get() != 0;
+            case BYTE:
+                return in.get();
+            case SHORT:
+                return in.getShort();
+            case CHAR:
+                return in.getChar();
+            case INT:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case FLOAT:
+                return in.getFloat();
+            case DOUBLE:
+                return in.getDouble();
+            case STRING:
+                return readString(in);
+            case ENUM:
+                return readEnum(def(in.getShort()).type, readString(in));
+            case ARRAY:
+                return readArray(in, def(in.getShort()).type);
+            case BYTE_BUFFER: {
+                int position = in.getInt();
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                buffer.position(position);
+                read.add(buffer);
+                return buffer;
+            }
+            case OBJECT: {
+                ClassDef def = def(in.getShort());
+                Object object = instantiate(def.type);
+                read.add(object);
+                for (Field field : def.fields) {
+                    Object value = readValue(in);
+                    if (field != null) {
+                        field.set(object, value);
+                    }
+                }
+                return object;
+            }
+            case COLLECTION: {
+                Collection<Object> collection = newCollection(def(in.getShort()).type);
+                read.add(collection);
+                int size = in.getInt();
+                for (int i = 0; i < size; i++) {
+                    collection.add(readValue(in));
+                }
+                return collection;
+            }
+            case MAP: {
+                Map<Object, Object> map = newMap(def(in.getShort()).type);
+                read.add(map);
+                int size = in.getInt();
+                for (int i = 0; i < size; i++) {
+                    Object key = readValue(in);
+                    map.put(key, readValue(in));
+                }
+                return map;
+            }
+            case SERIALIZED: {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                // keep the position of the handle, the object is only known afterwards
+                int handle = read.size();
+                read.add(null);
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    ois.setObjectInputFilter(FILTER);
+                    Object object = ois.readObject();
+                    read.set(handle, object);
+                    return object;
+                }
+            }
+            default:
+                throw new IOException("unknown tag " + tag);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(Class<?> type, String name) {
+        return Enum.valueOf((Class<? extends Enum>) type, name);
+    }
+
+    private Object readArray(ByteBuffer in, Class<?> component) throws IOException, ReflectiveOperationException {
+        int length = in.getInt();
+        Object array = Array.newInstance(component, length);
+        read.add(array);
+        if (component == byte.class) {
+            in.get((byte[]) array);
+        } else if (component == double.class) {
+            in.asDoubleBuffer().get((double[]) array);
+            in.position(in.position() + length * Double.BYTES);
+        } else if (component == float.class) {
+            in.asFloatBuffer().get((float[]) array);
+            in.position(in.position() + length * Float.BYTES);
+        } else if (component == int.class) {
+            in.asIntBuffer().get((int[]) array);
+            in.position(in.position() + length * Integer.BYTES);
+        } else if (component == long.class) {
+            in.asLongBuffer().get((long[]) array);
+            in.position(in.position() + length * Long.BYTES);
+        } else if (component == short.class) {
+            in.asShortBuffer().get((short[]) array);
+            in.position(in.position() + length * Short.BYTES);
+        } else if (component == char.class) {
+            in.asCharBuffer().get((char[]) array);
+            in.position(in.position() + length * Character.BYTES);
+        } else if (component == boolean.class) {
+            boolean[] booleans = (boolean[]) array;
+            for (int i = 0; i < length; i++) {
+                booleans[i] = in.get() != 0;
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, readValue(in));
+            }
+        }
+        return array;
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> type) {
+        try {
+            return (Collection<Object>) type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // immutable or wrapped collections
+            if (SortedSet.class.isAssignableFrom(type)) {
+                return new TreeSet<>();
+            }
+            return Set.class.isAssignableFrom(type) ? new LinkedHashSet<>() : new ArrayList<>();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> type) {
+        try {
+            return (Map<Object, Object>) type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return SortedMap.class.isAssignableFrom(type) ? new TreeMap<>() : new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Creates an instance with the constructor without arguments, or without a constructor if there is none.
+     */
+    private static Object instantiate(Class<?> type) throws ReflectiveOperationException {
+        Constructor<?> constructor = CONSTRUCTORS.get(type);
+        if (constructor == null) {
+            try {
+                constructor = type.getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                // the constructor of Object, called for an instance of the class
+                constructor = ReflectionFactory.getReflectionFactory().newConstructorForSerialization(type,
+                        Object.class.getDeclaredConstructor());
+            }
+            constructor.setAccessible(true);
+            CONSTRUCTORS.put(type, constructor);
+        }
+        return constructor.newInstance();
+    }
+
+    // classes ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Classes outside of the JDK modules are written field by field, if none of their super classes is part of the
+     * JDK.
+     */
+    private static boolean isApplicationClass(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isInterface() || type.isEnum()) {
+            return false;
+        }
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            if (c.getModule().isNamed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String fieldName(Field field) {
+        return field.getDeclaringClass().getName() + "." + field.getName();
+    }
+
+    /**
+     * The written fields of a class, super classes first.
+     */
+    static Field[] fieldsOf(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, t -> {
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                hierarchy.add(0, c);
+            }
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c : hierarchy) {
+                for (Field field : c.getDeclaredFields()) {
+                    int mod = field.getModifiers();
+                    if (Modifier.isStatic(mod) || Modifier.isTransient(mod) || field.isSynthetic()
+                            || Logger.class.isAssignableFrom(field.getType())
+                            || LazyLogger.class.isAssignableFrom(field.getType())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return fields.toArray(new Field[0]);
+        });
+    }
+
+}
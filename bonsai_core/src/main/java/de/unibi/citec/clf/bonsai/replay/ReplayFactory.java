@@ -0,0 +1,225 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+import de.unibi.citec.clf.bonsai.core.CoreObjectFactory;
+import de.unibi.citec.clf.bonsai.core.configuration.FactoryConfigurationResults;
+import de.unibi.citec.clf.bonsai.core.configuration.ObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.exception.CoreObjectCreationException;
+import de.unibi.citec.clf.bonsai.core.exception.InitializationException;
+import de.unibi.citec.clf.bonsai.core.object.*;
+import de.unibi.citec.clf.bonsai.util.MapReader;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Factory for sensors that play back logs recorded with a {@link SensorRecorder}, so skills can run without
+ * middleware.
+ * <p>
+ * Sensors are configured with the sensor class {@link ReplaySensor} and the recorded type as wire type, see
+ * {@link ReplaySensor} for their options. The factory options select how the logs are paced:
+ * <ul>
+ * <li>{@value #KEY_DIRECTORY}: the directory of relative logs, default the working directory</li>
+ * <li>{@value #KEY_PACING}: {@value #PACING_REALTIME} (default) plays the records at their recorded times,
+ * {@value #PACING_ACCELERATED} plays them {@value #KEY_SPEED} times faster, {@value #PACING_FAST} hands out the
+ * next record on every read</li>
+ * <li>{@value #KEY_SPEED}: the factor of {@value #PACING_ACCELERATED}, default 10</li>
+ * </ul>
+ * Paced sensors start together when all objects are created, the records of all logs keep their recorded order.
+ */
+public class ReplayFactory implements CoreObjectFactory {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(ReplayFactory.class);
+
+    public static final String KEY_DIRECTORY = "DIRECTORY";
+    public static final String KEY_PACING = "PACING";
+    public static final String KEY_SPEED = "SPEED";
+
+    public static final String PACING_REALTIME = "realtime";
+    public static final String PACING_ACCELERATED = "accelerated";
+    public static final String PACING_FAST = "fast";
+
+    private Path directory = Paths.get(".");
+    private String pacing = PACING_REALTIME;
+    private double speed = 10.0;
+
+    private final Map<String, ReplaySensor<?>> sensors = new HashMap<>();
+    private boolean started = false;
+
+    @Override
+    public void initialize(Map<String, String> options) throws IllegalArgumentException, InitializationException {
+        directory = Paths.get(MapReader.readConfigString(KEY_DIRECTORY, directory.toString(), options));
+        pacing = MapReader.readConfigString(KEY_PACING, pacing, options);
+        try {
+            speed = MapReader.readConfigDouble(KEY_SPEED, speed, options);
+        } catch (MapReader.KeyNotFound keyNotFound) {
+            throw new IllegalArgumentException(keyNotFound);
+        }
+        if (!PACING_REALTIME.equals(pacing) && !PACING_ACCELERATED.equals(pacing) && !PACING_FAST.equals(pacing)) {
+            throw new IllegalArgumentException("unknown " + KEY_PACING + ": " + pacing);
+        }
+        if (speed <= 0) {
+            throw new IllegalArgumentException(KEY_SPEED + " must be positive: " + speed);
+        }
+        logger.info("replaying logs in {} with pacing {}{}", directory, pacing,
+                PACING_ACCELERATED.equals(pacing) ? " x" + speed : "");
+        cleanUp();
+    }
+
+    @Override
+    public FactoryConfigurationResults configureSensors(Set<SensorToConfigure> toConfigure)
+            throws IllegalArgumentException, CoreObjectCreationException {
+        FactoryConfigurationResults results = new FactoryConfigurationResults();
+        double factor = PACING_ACCELERATED.equals(pacing) ? speed : 1.0;
+        for (SensorToConfigure sensor : toConfigure) {
+            if (!ReplaySensor.class.equals(sensor.getSensorClass())) {
+                results.exceptions.add(new ConfigurationException("sensor " + sensor.getKey()
+                        + " must use " + ReplaySensor.class.getName()));
+                continue;
+            }
+            Class<?> type = sensor.isListSensor() ? sensor.getListTypeClass() : sensor.getDataTypeClass();
+            ReplaySensor<?> replay = new ReplaySensor<>(sensor.getKey(), type, directory, pacing, factor);
+            ObjectConfigurator conf = ObjectConfigurator.createConfigPhase();
+            try {
+                replay.configure(conf);
+                Map<String, String> options = sensor.getSensorOptions();
+                conf.activateObjectPhase((options != null) ? options : new HashMap<>());
+                replay.configure(conf);
+                replay.open();
+                sensors.put(sensor.getKey(), replay);
+                logger.debug("configured replay of {} for {}", replay.getTarget(), sensor.getKey());
+            } catch (ConfigurationException e) {
+                results.exceptions.add(e);
+                results.exceptions.addAll(conf.getExceptions());
+            } catch (IOException e) {
+                results.exceptions.add(new CoreObjectCreationException(e));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public FactoryConfigurationResults configureActuators(Set<ActuatorToConfigure> actuators)
+            throws IllegalArgumentException, CoreObjectCreationException {
+        return new FactoryConfigurationResults();
+    }
+
+    @Override
+    public FactoryConfigurationResults configureWorkingMemories(Set<WorkingMemoryToConfigure> memories)
+            throws IllegalArgumentException, CoreObjectCreationException {
+        return new FactoryConfigurationResults();
+    }
+
+    @Override
+    public FactoryConfigurationResults configureCoordinateTransformer(CoordinateTransformerToConfigure value)
+            throws IllegalArgumentException, CoreObjectCreationException {
+        return new FactoryConfigurationResults();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Sensor<T> createSensor(String key, Class<T> dataType) throws IllegalArgumentException,
+            CoreObjectCreationException {
+        if (!canCreateSensor(key, dataType)) {
+            throw new IllegalArgumentException("no replay of " + dataType + " for " + key);
+        }
+        // the playback starts with createAndCacheAllConfiguredObjects, so listeners can be added before
+        return (Sensor<T>) sensors.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <S extends List<T>, T> Sensor<S> createSensor(String key, Class<S> listType, Class<T> dataType)
+            throws IllegalArgumentException, CoreObjectCreationException {
+        return createSensor(key, listType);
+    }
+
+    @Override
+    public boolean canCreateSensor(String key, Class<?> dataType) {
+        ReplaySensor<?> sensor = sensors.get(key);
+        return sensor != null && dataType.isAssignableFrom(sensor.getDataType());
+    }
+
+    @Override
+    public boolean canCreateSensor(String key, Class<? extends List<?>> listType, Class<?> dataType) {
+        return canCreateSensor(key, listType);
+    }
+
+    @Override
+    public <T extends Actuator> T createActuator(String key, Class<T> actuatorClass)
+            throws IllegalArgumentException, CoreObjectCreationException {
+        throw new IllegalArgumentException("replay has no actuators");
+    }
+
+    @Override
+    public boolean canCreateActuator(String key, Class<? extends Actuator> actuatorClass) {
+        return false;
+    }
+
+    @Override
+    public <T extends WorkingMemory> T createWorkingMemory(String key)
+            throws IllegalArgumentException, CoreObjectCreationException {
+        throw new IllegalArgumentException("replay has no working memories");
+    }
+
+    @Override
+    public boolean canCreateWorkingMemory(String key) {
+        return false;
+    }
+
+    @Override
+    public <T extends TransformLookup> T createCoordinateTransformer() throws IllegalArgumentException,
+            CoreObjectCreationException {
+        throw new IllegalArgumentException("replay has no coordinate transformer");
+    }
+
+    @Override
+    public boolean canCreateCoordinateTransformer() {
+        return false;
+    }
+
+    @Override
+    public FactoryConfigurationResults createAndCacheAllConfiguredObjects() throws CoreObjectCreationException {
+        startAll();
+        return new FactoryConfigurationResults();
+    }
+
+    /**
+     * Starts the paced playback of all sensors at the same time, the earliest record of all logs is played first.
+     */
+    private synchronized void startAll() {
+        if (started) {
+            return;
+        }
+        started = true;
+        long origin = Long.MAX_VALUE;
+        for (ReplaySensor<?> sensor : sensors.values()) {
+            if (sensor.getFirstStamp() >= 0) {
+                origin = Math.min(origin, sensor.getFirstStamp());
+            }
+        }
+        long start = System.nanoTime();
+        for (ReplaySensor<?> sensor : sensors.values()) {
+            sensor.start(start, origin);
+        }
+    }
+
+    @Override
+    public synchronized void cleanUp() {
+        for (ReplaySensor<?> sensor : sensors.values()) {
+            try {
+                sensor.cleanUp();
+            } catch (IOException e) {
+                logger.warn(e);
+            }
+        }
+        sensors.clear();
+        started = false;
+    }
+}
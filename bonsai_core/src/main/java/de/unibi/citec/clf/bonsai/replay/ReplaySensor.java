@@ -0,0 +1,294 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+import de.unibi.citec.clf.bonsai.core.SensorListener;
+import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.object.Sensor;
+import de.unibi.citec.clf.bonsai.core.time.Time;
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays back a sensor log written by a {@link SensorRecorder}, created by the {@link ReplayFactory}.
+ * <p>
+ * With paced playback a thread hands every record to the buffer and the listeners at its recorded time, relative
+ * to the start of the playback and divided by the speed. With {@link ReplayFactory#PACING_FAST} there is no
+ * thread, every <code>readLast</code> returns the next record immediately and passes it to the listeners, so every
+ * record is read exactly once and as fast as the skill asks for it.
+ *
+ * <pre>
+ * Options:
+ *  file:       [String] Optional (default: "&lt;key&gt;.bslog")
+ *                  -> The log, relative to the directory of the factory
+ *  loop:       [boolean] Optional (default: false)
+ *                  -> Start again at the end of the log
+ *  bufferSize: [int] Optional (default: 1)
+ *                  -> Number of records kept for readLast with paced playback
+ *  bufferType: [String] Optional (default: "synchronized")
+ *                  -> See {@link SensorBuffer}
+ * </pre>
+ *
+ * @param <T> data type of the sensor
+ */
+public class ReplaySensor<T> implements Sensor<T> {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(ReplaySensor.class);
+
+    private final String key;
+    private final Class<T> dataType;
+    private final Path directory;
+    private final String pacing;
+    private final double speed;
+    private final Set<SensorListener<T>> listeners = new CopyOnWriteArraySet<>();
+
+    private Path file;
+    private boolean loop;
+    private SensorBuffer<T> queue;
+    private SensorLogReader reader;
+    private long firstStamp = -1;
+
+    private volatile Thread player = null;
+    private volatile boolean running = false;
+
+    /**
+     * Fast playback: whether the reader is on a record that was not read yet.
+     */
+    private boolean ahead = false;
+    /**
+     * Fast playback: whether a record could be decoded since the start of the log, a log without readable records
+     * is not looped.
+     */
+    private boolean decoded = false;
+
+    /**
+     * @param key       the key of the sensor
+     * @param dataType  the data type of the sensor, the log must contain it
+     * @param directory the directory of relative logs
+     * @param pacing    one of the pacings of the {@link ReplayFactory}
+     * @param speed     the factor of the playback speed for paced playback
+     */
+    public ReplaySensor(String key, Class<T> dataType, Path directory, String pacing, double speed) {
+        this.key = key;
+        this.dataType = dataType;
+        this.directory = directory;
+        this.pacing = pacing;
+        this.speed = speed;
+    }
+
+    @Override
+    public void configure(IObjectConfigurator conf) throws ConfigurationException {
+        file = directory.resolve(conf.requestOptionalValue("file", key + ".bslog"));
+        loop = conf.requestOptionalBool("loop", false);
+        int bufferSize = conf.requestOptionalInt("bufferSize", 1);
+        queue = SensorBuffer.fromConfig(conf, bufferSize);
+    }
+
+    /**
+     * Opens the log.
+     *
+     * @throws IOException if the log can not be read or contains another data type
+     */
+    synchronized void open() throws IOException {
+        if (reader != null) {
+            return;
+        }
+        if (!Files.isReadable(file)) {
+            throw new IOException("can not read " + file);
+        }
+        reader = new SensorLogReader(file);
+        Class<?> recorded = reader.getDataType();
+        if (recorded == null || !dataType.isAssignableFrom(recorded)) {
+            String name = reader.getDataTypeName();
+            reader.close();
+            reader = null;
+            throw new IOException(file + " contains " + name + ", not " + dataType.getName());
+        }
+        if (reader.next()) {
+            firstStamp = reader.getStamp();
+            ahead = true;
+        }
+        logger.debug("opened {} for {}", file, key);
+    }
+
+    /**
+     * @return the time of the first record in nanoseconds since the epoch, -1 if the log is empty
+     */
+    long getFirstStamp() {
+        return firstStamp;
+    }
+
+    /**
+     * Starts paced playback, does nothing for fast playback.
+     *
+     * @param startNanos  {@link System#nanoTime()} of the start of the playback
+     * @param originNanos the recorded time that is played at the start
+     */
+    synchronized void start(long startNanos, long originNanos) {
+        if (player != null || ReplayFactory.PACING_FAST.equals(pacing) || firstStamp < 0) {
+            return;
+        }
+        running = true;
+        player = new Thread(() -> play(startNanos, originNanos), "replay-" + key);
+        player.setDaemon(true);
+        player.start();
+    }
+
+    private void play(long startNanos, long originNanos) {
+        long offset = 0;
+        long lastStamp = firstStamp;
+        long records = 0;
+        try {
+            while (running) {
+                if (!ahead) {
+                    ahead = reader.next();
+                    if (!ahead) {
+                        if (!loop) {
+                            logger.info("end of {}", file);
+                            return;
+                        }
+                        // the next pass follows after the mean interval of the records, a log of one record is
+                        // repeated every millisecond
+                        long length = lastStamp - firstStamp;
+                        long gap = (records > 1) ? length / (records - 1) : 0;
+                        offset += Math.max(length + gap, TimeUnit.MILLISECONDS.toNanos(1));
+                        records = 0;
+                        reader.rewind();
+                        continue;
+                    }
+                }
+                lastStamp = reader.getStamp();
+                records++;
+                long due = startNanos + (long) ((lastStamp - originNanos + offset) / speed);
+                for (long wait = due - System.nanoTime(); wait > 0 && running; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(this, wait);
+                }
+                if (!running) {
+                    return;
+                }
+                T data = readCurrent();
+                ahead = false;
+                if (data != null) {
+                    queue.push(data);
+                    notifyListeners(data);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("could not read {}", file, e);
+        }
+    }
+
+    /**
+     * Decodes the current record, records that can not be decoded are skipped.
+     */
+    private T readCurrent() {
+        try {
+            return dataType.cast(reader.read());
+        } catch (IOException | ClassCastException e) {
+            logger.warn("skipping record of {}", file, e);
+            return null;
+        }
+    }
+
+    private void notifyListeners(T data) {
+        for (SensorListener<T> listener : listeners) {
+            listener.newDataAvailable(data);
+        }
+    }
+
+    @Override
+    public Class<T> getDataType() {
+        return dataType;
+    }
+
+    @Override
+    public String getTarget() {
+        return (file != null) ? file.toString() : key;
+    }
+
+    @Override
+    public T readLast(long timeout) throws IOException, InterruptedException {
+        if (!ReplayFactory.PACING_FAST.equals(pacing)) {
+            return queue.nextCached(timeout);
+        }
+        synchronized (this) {
+            while (ahead) {
+                T data = readCurrent();
+                decoded |= (data != null);
+                ahead = reader.next();
+                if (!ahead && loop && decoded) {
+                    reader.rewind();
+                    decoded = false;
+                    ahead = reader.next();
+                }
+                if (data != null) {
+                    notifyListeners(data);
+                    return data;
+                }
+            }
+        }
+        // nothing left, let the timeout pass on the clock
+        if (timeout > 0) {
+            Time.sleep(timeout);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (ReplayFactory.PACING_FAST.equals(pacing)) {
+            synchronized (this) {
+                return ahead;
+            }
+        }
+        return !queue.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+
+    @Override
+    public void addSensorListener(SensorListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeSensorListener(SensorListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void removeAllSensorListeners() {
+        listeners.clear();
+    }
+
+    @Override
+    public void cleanUp() throws IOException {
+        running = false;
+        Thread thread = player;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            player = null;
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+        }
+    }
+}
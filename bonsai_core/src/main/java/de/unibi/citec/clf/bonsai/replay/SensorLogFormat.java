@@ -0,0 +1,28 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+/**
+ * Layout of sensor logs.
+ * <p>
+ * A log starts with a header of {@link #MAGIC}, {@link #VERSION} and the name of the data type. It is followed by
+ * records of <code>int</code> length, <code>byte</code> kind and body, all numbers big-endian. The length counts
+ * the body only.
+ * <ul>
+ * <li>{@link #KIND_CLASS}: the name of a class and the names of its fields, classes are numbered in the order of
+ * these records</li>
+ * <li>{@link #KIND_DATA}: the time of the data in nanoseconds since the epoch and the encoded data</li>
+ * </ul>
+ * Logs are only appended to, a record that was not written completely is dropped when the log is opened again.
+ */
+final class SensorLogFormat {
+
+    static final int MAGIC = 0x42534c47;
+    static final short VERSION = 1;
+
+    static final int RECORD_HEADER = Integer.BYTES + Byte.BYTES;
+
+    static final byte KIND_CLASS = 1;
+    static final byte KIND_DATA = 2;
+
+    private SensorLogFormat() {
+    }
+}
@@ -0,0 +1,199 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a sensor log written by a {@link SensorLogWriter} front to back, see {@link SensorLogFormat}.
+ * <p>
+ * The log is mapped into memory with {@link FileChannel#map}, logs larger than {@value #WINDOW} bytes are mapped
+ * in windows. Records are only decoded on {@link #read()}, skipping records is cheap. The size of the log is taken
+ * when it is opened, data appended later is not read.
+ */
+public class SensorLogReader implements Closeable {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(SensorLogReader.class);
+
+    static final int WINDOW = 1 << 30;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private final String dataTypeName;
+    private final long dataStart;
+    private BtlCodec codec;
+
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+
+    private long position;
+    private ByteBuffer current = null;
+    private long stamp = 0;
+
+    /**
+     * Opens a log for reading.
+     *
+     * @param file the log
+     * @throws IOException if the log can not be read or is no sensor log
+     */
+    public SensorLogReader(Path file) throws IOException {
+        this(file, new BtlCodec());
+    }
+
+    SensorLogReader(Path file, BtlCodec codec) throws IOException {
+        this.file = file;
+        this.codec = codec;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            ByteBuffer header = slice(0, (int) Math.min(size, Integer.BYTES + Short.BYTES + Integer.BYTES));
+            if (header.remaining() < Integer.BYTES + Short.BYTES + Integer.BYTES
+                    || header.getInt() != SensorLogFormat.MAGIC) {
+                throw new IOException(file + " is no sensor log");
+            }
+            short version = header.getShort();
+            if (version != SensorLogFormat.VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            int nameLength = header.getInt();
+            long nameStart = Integer.BYTES + Short.BYTES + Integer.BYTES;
+            if (nameLength < 0 || nameStart + nameLength > size) {
+                throw new IOException(file + " has a broken header");
+            }
+            ByteBuffer name = slice(nameStart, nameLength);
+            byte[] bytes = new byte[nameLength];
+            name.get(bytes);
+            dataTypeName = new String(bytes, StandardCharsets.UTF_8);
+            dataStart = nameStart + nameLength;
+            position = dataStart;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the name of the data type given to the writer
+     */
+    public String getDataTypeName() {
+        return dataTypeName;
+    }
+
+    /**
+     * @return the data type, <code>null</code> if it is not available
+     */
+    public Class<?> getDataType() {
+        try {
+            return Class.forName(dataTypeName, false, SensorLogReader.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Moves to the next data record.
+     *
+     * @return <code>false</code> at the end of the log
+     * @throws IOException if the log can not be read
+     */
+    public boolean next() throws IOException {
+        current = null;
+        while (position + SensorLogFormat.RECORD_HEADER <= size) {
+            ByteBuffer header = slice(position, SensorLogFormat.RECORD_HEADER);
+            int length = header.getInt();
+            byte kind = header.get();
+            long bodyStart = position + SensorLogFormat.RECORD_HEADER;
+            if (length < 0 || bodyStart + length > size) {
+                logger.warn("incomplete record at the end of {}", file);
+                return false;
+            }
+            ByteBuffer body = slice(bodyStart, length);
+            position = bodyStart + length;
+            if (kind == SensorLogFormat.KIND_CLASS) {
+                String name = BtlCodec.readString(body);
+                String[] fields = new String[body.getShort()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = BtlCodec.readString(body);
+                }
+                codec.define(name, fields);
+            } else if (kind == SensorLogFormat.KIND_DATA) {
+                stamp = body.getLong();
+                current = body;
+                return true;
+            } else {
+                throw new IOException("unknown record kind " + kind + " in " + file);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the time of the current record in nanoseconds since the epoch
+     */
+    public long getStamp() {
+        if (current == null) {
+            throw new IllegalStateException("no current record");
+        }
+        return stamp;
+    }
+
+    /**
+     * Decodes the data of the current record.
+     *
+     * @return the data
+     * @throws IOException if the data can not be decoded
+     */
+    public Object read() throws IOException {
+        if (current == null) {
+            throw new IllegalStateException("no current record");
+        }
+        return codec.read(current.duplicate());
+    }
+
+    /**
+     * Moves before the first record.
+     */
+    public void rewind() {
+        position = dataStart;
+        current = null;
+        codec = new BtlCodec();
+    }
+
+    /**
+     * @return the length of the log up to the end of the last complete record that was passed
+     */
+    long getValidLength() {
+        return position;
+    }
+
+    /**
+     * A view of the mapped log, the region must not be larger than {@link #WINDOW}.
+     */
+    private ByteBuffer slice(long start, int length) throws IOException {
+        if (window == null || start < windowStart || start + length > windowStart + window.capacity()) {
+            long mapped = Math.min(size - start, Math.max(WINDOW, length));
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, mapped);
+            windowStart = start;
+        }
+        return window.slice((int) (start - windowStart), length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        current = null;
+        channel.close();
+    }
+}
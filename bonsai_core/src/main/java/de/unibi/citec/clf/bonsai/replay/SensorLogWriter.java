@@ -0,0 +1,173 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends timestamped data to a sensor log, see {@link SensorLogFormat}.
+ * <p>
+ * An existing log of the same data type is continued. Every record is written with a single write of the file
+ * channel, records of concurrent callers are not interleaved.
+ */
+public class SensorLogWriter implements Closeable {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(SensorLogWriter.class);
+
+    /**
+     * {@link ByteArrayOutputStream} that hands out its buffer instead of copying it.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        ByteBuffer wrap() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    private final Path file;
+    private final Class<?> dataType;
+    private final FileChannel channel;
+    private final BtlCodec codec = new BtlCodec();
+    private final Buffer buffer = new Buffer();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    private long records = 0;
+
+    /**
+     * Opens a log for appending, creates it if it does not exist.
+     *
+     * @param file     the log
+     * @param dataType the type of the data, must match the type of an existing log
+     * @throws IOException if the log can not be written or has another type
+     */
+    public SensorLogWriter(Path file, Class<?> dataType) throws IOException {
+        this.file = file;
+        this.dataType = dataType;
+        long end = 0;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (SensorLogReader existing = new SensorLogReader(file, codec)) {
+                if (!existing.getDataTypeName().equals(dataType.getName())) {
+                    throw new IOException(file + " contains " + existing.getDataTypeName() + ", not "
+                            + dataType.getName());
+                }
+                while (existing.next()) {
+                    records++;
+                }
+                end = existing.getValidLength();
+            }
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (end > 0) {
+            if (channel.size() > end) {
+                logger.warn("dropping incomplete record at the end of {}", file);
+                channel.truncate(end);
+            }
+            channel.position(end);
+        } else {
+            channel.truncate(0);
+            out.writeInt(SensorLogFormat.MAGIC);
+            out.writeShort(SensorLogFormat.VERSION);
+            BtlCodec.writeString(out, dataType.getName());
+            flush();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Class<?> getDataType() {
+        return dataType;
+    }
+
+    /**
+     * @return the number of data records in the log
+     */
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Appends data to the log.
+     *
+     * @param stampNanos the time of the data in nanoseconds since the epoch
+     * @param data       the data
+     * @throws IOException if the data can not be encoded or written
+     */
+    public synchronized void append(long stampNanos, Object data) throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException(file + " is closed");
+        }
+        buffer.reset();
+        out.writeInt(0);
+        out.writeByte(SensorLogFormat.KIND_DATA);
+        out.writeLong(stampNanos);
+        IOException failure = null;
+        try {
+            codec.write(out, data);
+        } catch (IOException e) {
+            failure = e;
+        }
+        List<BtlCodec.ClassDef> defs = codec.drainPending();
+        if (defs.isEmpty() && failure == null) {
+            flushRecord();
+            records++;
+            return;
+        }
+        byte[] encoded = (failure == null) ? buffer.toByteArray() : null;
+
+        // classes that got a number have to be defined before they are used, even if the data failed
+        for (BtlCodec.ClassDef def : defs) {
+            buffer.reset();
+            out.writeInt(0);
+            out.writeByte(SensorLogFormat.KIND_CLASS);
+            BtlCodec.writeString(out, def.name);
+            out.writeShort(def.fieldNames.length);
+            for (String name : def.fieldNames) {
+                BtlCodec.writeString(out, name);
+            }
+            flushRecord();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        buffer.reset();
+        buffer.write(encoded);
+        flushRecord();
+        records++;
+    }
+
+    private void flushRecord() throws IOException {
+        ByteBuffer record = buffer.wrap();
+        record.putInt(0, record.remaining() - SensorLogFormat.RECORD_HEADER);
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    private void flush() throws IOException {
+        ByteBuffer bytes = buffer.wrap();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        buffer.reset();
+    }
+
+    /**
+     * Writes all data to the disk and closes the log.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
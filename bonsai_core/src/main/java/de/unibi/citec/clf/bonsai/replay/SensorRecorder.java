@@ -0,0 +1,111 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+import de.unibi.citec.clf.bonsai.core.SensorListener;
+import de.unibi.citec.clf.bonsai.core.object.Sensor;
+import de.unibi.citec.clf.bonsai.core.time.Time;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records everything a sensor receives into a sensor log, which can be played back with the {@link ReplayFactory}.
+ * <p>
+ * The recorder is a {@link SensorListener}, data is encoded and written in the thread that notifies the listeners.
+ * Data that can not be encoded is skipped and counted. Every record is stamped with the {@link Time time} it was
+ * received.
+ *
+ * <pre>
+ * SensorRecorder&lt;LaserData&gt; recorder = SensorRecorder.attach(laserSensor, Paths.get("laser.bslog"));
+ * ...
+ * recorder.close();
+ * </pre>
+ *
+ * @param <T> data type of the recorded sensor
+ */
+public class SensorRecorder<T> implements SensorListener<T>, Closeable {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(SensorRecorder.class);
+
+    private final SensorLogWriter writer;
+    private final AtomicLong failures = new AtomicLong();
+    private final long originNanos;
+    private Sensor<T> sensor = null;
+
+    /**
+     * Creates a recorder that is not attached to a sensor, data is only recorded on
+     * {@link #newDataAvailable(Object)}.
+     *
+     * @param file     the log, appended to if it exists
+     * @param dataType the data type of the sensor
+     * @throws IOException if the log can not be written
+     */
+    public SensorRecorder(Path file, Class<T> dataType) throws IOException {
+        writer = new SensorLogWriter(file, dataType);
+        originNanos = TimeUnit.MILLISECONDS.toNanos(Time.currentTimeMillis()) - Time.nanoTime();
+    }
+
+    /**
+     * Records all data of a sensor until the recorder is closed.
+     *
+     * @param sensor the sensor to record
+     * @param file   the log, appended to if it exists
+     * @param <T>    data type of the sensor
+     * @return the attached recorder
+     * @throws IOException if the log can not be written
+     */
+    public static <T> SensorRecorder<T> attach(Sensor<T> sensor, Path file) throws IOException {
+        SensorRecorder<T> recorder = new SensorRecorder<>(file, sensor.getDataType());
+        recorder.sensor = sensor;
+        sensor.addSensorListener(recorder);
+        logger.info("recording {} to {}", sensor.getTarget(), file);
+        return recorder;
+    }
+
+    @Override
+    public void newDataAvailable(T newData) {
+        try {
+            writer.append(originNanos + Time.nanoTime(), newData);
+        } catch (IOException e) {
+            if (failures.getAndIncrement() == 0) {
+                logger.warn("could not record to {}", writer.getFile(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of records in the log
+     */
+    public long getRecordCount() {
+        return writer.getRecordCount();
+    }
+
+    /**
+     * @return the number of data that could not be recorded
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public Path getFile() {
+        return writer.getFile();
+    }
+
+    /**
+     * Detaches the recorder from the sensor and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        if (sensor != null) {
+            sensor.removeSensorListener(this);
+            sensor = null;
+        }
+        writer.close();
+        if (failures.get() > 0) {
+            logger.warn("{} data could not be recorded to {}", failures.get(), writer.getFile());
+        }
+    }
+}
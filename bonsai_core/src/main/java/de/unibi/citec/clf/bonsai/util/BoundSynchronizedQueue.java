@@ -3,6 +3,8 @@ package de.unibi.citec.clf.bonsai.util;
 
 import de.unibi.citec.clf.bonsai.util.exceptions.QueueClosedException;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Creates a synchronized bound queue with a limited capacity. Before pushing an
  * object into the queue it removes elements so that the size of the queue is
@@ -13,10 +15,12 @@ import de.unibi.citec.clf.bonsai.util.exceptions.QueueClosedException;
  * @author marc
  * @author jwienke
  */
-public class BoundSynchronizedQueue<T> extends SynchronizedQueue<T> {
+public class BoundSynchronizedQueue<T> extends SynchronizedQueue<T> implements SensorBuffer<T> {
 
     private int capacity;
     private T cache;
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
 
     /**
      * Returns the maximum capacity of this queue.
@@ -64,8 +68,20 @@ public class BoundSynchronizedQueue<T> extends SynchronizedQueue<T> {
 
         while (!super.isEmpty() && super.getSize() >= capacity) {
             super.pop();
+            dropped.increment();
         }
         super.push(element);
+        pushed.increment();
+    }
+
+    @Override
+    public long getPushCount() {
+        return pushed.sum();
+    }
+
+    @Override
+    public long getDropCount() {
+        return dropped.sum();
     }
 
     /**
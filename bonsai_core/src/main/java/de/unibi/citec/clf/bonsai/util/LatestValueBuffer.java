@@ -0,0 +1,43 @@
+package de.unibi.citec.clf.bonsai.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link SensorBuffer} holding only the newest element in a single atomic slot. Pushing never blocks and
+ * replaces an unread element.
+ *
+ * @param <T> type of elements contained in this buffer
+ */
+public class LatestValueBuffer<T> extends LockFreeSensorBuffer<T> {
+
+    private final AtomicReference<T> latest = new AtomicReference<>();
+
+    @Override
+    public void push(T element) {
+        if (latest.getAndSet(element) != null) {
+            dropped(1);
+        }
+        signal();
+    }
+
+    @Override
+    protected T poll() {
+        return latest.getAndSet(null);
+    }
+
+    @Override
+    public T front() {
+        return latest.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return latest.get() == null;
+    }
+
+    @Override
+    public void clear() {
+        latest.set(null);
+    }
+
+}
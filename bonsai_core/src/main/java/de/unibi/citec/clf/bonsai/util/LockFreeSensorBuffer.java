@@ -0,0 +1,126 @@
+package de.unibi.citec.clf.bonsai.util;
+
+import de.unibi.citec.clf.bonsai.core.time.Time;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base of the lock-free {@link SensorBuffer}s. Readers waiting for data are parked with {@link LockSupport}
+ * and unparked by the writer, no monitor is involved.
+ *
+ * @param <T> type of elements contained in this buffer
+ */
+abstract class LockFreeSensorBuffer<T> implements SensorBuffer<T> {
+
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    private volatile T cache;
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Returns and consumes the newest element without waiting.
+     *
+     * @return the newest unread element or <code>null</code>
+     */
+    protected abstract T poll();
+
+    /**
+     * Wakes up all waiting readers, to be called after an element was published.
+     */
+    protected void signal() {
+        pushed.increment();
+        if (waiters.isEmpty()) {
+            return;
+        }
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Counts elements that were dropped without being read.
+     *
+     * @param count the number of dropped elements
+     */
+    protected void dropped(long count) {
+        if (count > 0) {
+            dropped.add(count);
+        }
+    }
+
+    @Override
+    public long getPushCount() {
+        return pushed.sum();
+    }
+
+    @Override
+    public long getDropCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public T next(long timeout) throws InterruptedException {
+        T data = poll();
+        if (data != null) {
+            return data;
+        }
+        Thread current = Thread.currentThread();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        // with a virtual clock the timeout passes on the clock, which unparks the reader
+        AtomicBoolean due = new AtomicBoolean();
+        Future<?> timer = (timeout > 0 && Time.isVirtual()) ? Time.schedule(() -> {
+            due.set(true);
+            LockSupport.unpark(current);
+        }, timeout) : null;
+        waiters.add(current);
+        try {
+            while (true) {
+                // check after registering, an element may have been pushed in between
+                data = poll();
+                if (data != null) {
+                    return data;
+                }
+                if (due.get()) {
+                    return null;
+                }
+                if (timeout <= 0 || timer != null) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiters.remove(current);
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public T nextCached(long timeout) throws InterruptedException {
+        T data = next(timeout);
+        if (data == null) {
+            T tmp = cache;
+            cache = null;
+            return tmp;
+        } else {
+            cache = data;
+            return data;
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package de.unibi.citec.clf.bonsai.util;
+
+import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
+
+/**
+ * Buffer between the thread receiving sensor data and the threads reading it with
+ * {@link de.unibi.citec.clf.bonsai.core.object.Sensor#readLast(long)}.
+ * <p>
+ * All implementations return the newest unread element. Reading with {@link #next(long)} consumes only that
+ * element, the {@link BoundSynchronizedQueue} and the {@link SpscRingBuffer} keep older unread elements, so
+ * {@link #isEmpty()} stays <code>false</code> until they are read as well. The {@link LatestValueBuffer} keeps only
+ * the newest element.
+ *
+ * @param <T> type of elements contained in this buffer
+ */
+public interface SensorBuffer<T> {
+
+    /**
+     * Synchronized bounded queue, see {@link BoundSynchronizedQueue}.
+     */
+    String TYPE_SYNCHRONIZED = "synchronized";
+    /**
+     * Single atomic slot holding the newest element, see {@link LatestValueBuffer}.
+     */
+    String TYPE_LATEST = "latest";
+    /**
+     * Lock-free single producer ring of the newest elements, see {@link SpscRingBuffer}.
+     */
+    String TYPE_RING = "ring";
+
+    /**
+     * Sensor option selecting the buffer type.
+     */
+    String KEY_BUFFER_TYPE = "bufferType";
+
+    /**
+     * Adds an element, older elements are dropped if the buffer is full.
+     *
+     * @param element the element to add
+     */
+    void push(T element);
+
+    /**
+     * Returns the newest element without consuming it.
+     *
+     * @return the newest unread element or <code>null</code>
+     */
+    T front();
+
+    /**
+     * Returns and consumes the newest unread element, waiting for one if the buffer is empty.
+     *
+     * @param timeout maximum time to wait in milliseconds, values &lt;= 0 wait until an element arrives
+     * @return the newest element or <code>null</code> if the timeout was reached
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    T next(long timeout) throws InterruptedException;
+
+    /**
+     * Like {@link #next(long)}, but returns the last element read once more if the timeout was reached.
+     *
+     * @param timeout maximum time to wait in milliseconds
+     * @return the newest element, the last element read or <code>null</code>
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    T nextCached(long timeout) throws InterruptedException;
+
+    /**
+     * @return <code>true</code> if there is no unread element
+     */
+    boolean isEmpty();
+
+    /**
+     * Drops all unread elements.
+     */
+    void clear();
+
+    /**
+     * @return the number of elements pushed into this buffer
+     */
+    long getPushCount();
+
+    /**
+     * Counts elements that were never read, because they were pushed out of the full buffer. Elements removed by
+     * {@link #clear()} are not counted.
+     *
+     * @return the number of dropped elements
+     */
+    long getDropCount();
+
+    /**
+     * Creates a buffer of the given type.
+     *
+     * @param type     one of {@link #TYPE_SYNCHRONIZED}, {@link #TYPE_LATEST} or {@link #TYPE_RING}
+     * @param capacity the number of elements to keep
+     * @param <T>      type of elements contained in the buffer
+     * @return the new buffer
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    static <T> SensorBuffer<T> create(String type, int capacity) {
+        switch (type) {
+            case TYPE_SYNCHRONIZED:
+                return new BoundSynchronizedQueue<>(capacity);
+            case TYPE_LATEST:
+                return new LatestValueBuffer<>();
+            case TYPE_RING:
+                return (capacity > 1) ? new SpscRingBuffer<>(capacity) : new LatestValueBuffer<>();
+            default:
+                throw new IllegalArgumentException("unknown buffer type: " + type);
+        }
+    }
+
+    /**
+     * Creates the buffer selected by the sensor option {@value #KEY_BUFFER_TYPE}, defaults to
+     * {@link #TYPE_SYNCHRONIZED}.
+     *
+     * @param conf     configurator of the sensor
+     * @param capacity the number of elements to keep
+     * @param <T>      type of elements contained in the buffer
+     * @return the new buffer
+     * @throws ConfigurationException if the type is unknown
+     */
+    static <T> SensorBuffer<T> fromConfig(IObjectConfigurator conf, int capacity) throws ConfigurationException {
+        String type = conf.requestOptionalValue(KEY_BUFFER_TYPE, TYPE_SYNCHRONIZED);
+        try {
+            return create(type, capacity);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(e.getMessage());
+        }
+    }
+
+    /**
+     * Like {@link #fromConfig(IObjectConfigurator, int)}, and publishes the counters of the buffer in the
+     * {@link MetricsRegistry}.
+     *
+     * @param conf     configurator of the sensor
+     * @param capacity the number of elements to keep
+     * @param name     the name of the sensor in the metrics, usually its topic
+     * @param <T>      type of elements contained in the buffer
+     * @return the new buffer
+     * @throws ConfigurationException if the type is unknown
+     */
+    static <T> SensorBuffer<T> fromConfig(IObjectConfigurator conf, int capacity, String name)
+            throws ConfigurationException {
+        SensorBuffer<T> buffer = fromConfig(conf, capacity);
+        MetricsRegistry.getInstance().registerSensor(name, buffer);
+        return buffer;
+    }
+
+}
@@ -0,0 +1,137 @@
+package de.unibi.citec.clf.bonsai.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer for a single producer, typically the subscriber callback of a sensor. The newest
+ * <code>capacity</code> elements are kept, the producer overwrites the oldest element and never waits for
+ * readers.
+ * <p>
+ * Like the {@link BoundSynchronizedQueue}, {@link #next(long)} returns and removes the newest unread element, older
+ * unread elements stay until they are read or overwritten. {@link #drain()} reads all of them, oldest first. A read
+ * element is removed from its slot, so every element is read at most once.
+ *
+ * @param <T> type of elements contained in this buffer
+ */
+public class SpscRingBuffer<T> extends LockFreeSensorBuffer<T> {
+
+    private static final class Entry<T> {
+        final long sequence;
+        final T value;
+
+        Entry(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry<T>> slots;
+    private final int capacity;
+    /**
+     * Sequence of the next element to write, only written by the producer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    public SpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void push(T element) {
+        long sequence = head.get();
+        // a slot still holding an entry was never read
+        if (slots.getAndSet(index(sequence), new Entry<>(sequence, element)) != null) {
+            dropped(1);
+        }
+        head.set(sequence + 1);
+        signal();
+    }
+
+    @Override
+    protected T poll() {
+        long h = head.get();
+        for (long s = h - 1; s >= Math.max(0, h - capacity); s--) {
+            Entry<T> entry = take(s);
+            if (entry != null) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns and consumes all unread elements that are still in the buffer, oldest first.
+     *
+     * @return the unread elements, may be empty
+     */
+    public List<T> drain() {
+        long h = head.get();
+        List<T> result = new ArrayList<>();
+        for (long s = Math.max(0, h - capacity); s < h; s++) {
+            Entry<T> entry = take(s);
+            if (entry != null) {
+                result.add(entry.value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the unread element with the sequence from its slot.
+     *
+     * @return the entry or <code>null</code> if it was read or overwritten
+     */
+    private Entry<T> take(long sequence) {
+        int i = index(sequence);
+        Entry<T> entry = slots.get(i);
+        if (entry != null && entry.sequence == sequence && slots.compareAndSet(i, entry, null)) {
+            return entry;
+        }
+        return null;
+    }
+
+    @Override
+    public T front() {
+        long h = head.get();
+        for (long s = h - 1; s >= Math.max(0, h - capacity); s--) {
+            Entry<T> entry = slots.get(index(s));
+            if (entry != null && entry.sequence == s) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (int i = 0; i < capacity; i++) {
+            if (slots.get(i) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+}
@@ -1,6 +1,7 @@
 package de.unibi.citec.clf.bonsai.util;
 
 
+import de.unibi.citec.clf.bonsai.core.time.Time;
 import de.unibi.citec.clf.bonsai.util.exceptions.QueueClosedException;
 import org.apache.log4j.Logger;
 
@@ -178,6 +179,8 @@ public class SynchronizedQueue<T> {
             // will be notified upon push or close
             if (timeout == -1) {
                 this.wait();
+            } else if (timeout > 0) {
+                Time.await(this, timeout);
             } else {
                 this.wait(timeout);
             }
@@ -0,0 +1,393 @@
+package de.unibi.citec.clf.bonsai.util.logging;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.helpers.AppenderAttachableImpl;
+import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Appender that hands events to a bounded lock-free ring and writes them to its attached appenders in a single
+ * background thread, so logging threads never wait for disk or console I/O.
+ * <p>
+ * If the ring is full, events below {@link #setBlockingThreshold(Level) the blocking threshold} are dropped and
+ * counted, the number is logged once there is space again. Events at or above the threshold, <code>ERROR</code>
+ * by default, wait for space.
+ * <p>
+ * The thread dependent parts of an event are copied before it is queued. The location of the caller is only
+ * copied with {@link #setLocationInfo(boolean)}, without it use <code>%c</code> instead of <code>%C</code>, <code>%L</code>
+ * or <code>%M</code> in layouts.
+ * <p>
+ * {@link #install()} moves the appenders of all configured loggers behind rings, e.g. after a
+ * {@link org.apache.log4j.PropertyConfigurator}, which can not attach appenders to appenders.
+ */
+public class AsyncRingAppender extends AppenderSkeleton implements AppenderAttachable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_PARK = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT = 5000;
+    /**
+     * Conversion characters of {@link PatternLayout} that need the location of the caller.
+     */
+    private static final Pattern LOCATION_PATTERN = Pattern.compile("%-?\\d*(\\.\\d+)?[CFlLM]");
+
+    private final AppenderAttachableImpl appenders = new AppenderAttachableImpl();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private int capacity = DEFAULT_CAPACITY;
+    private boolean locationInfo = false;
+    private Level blockingThreshold = Level.ERROR;
+
+    private AtomicReferenceArray<LoggingEvent> events;
+    private AtomicLongArray sequences;
+    private int mask;
+    /**
+     * Next sequence to read, only used by the writer.
+     */
+    private long head = 0;
+    private long reportedDrops = 0;
+    private volatile Thread writer;
+    private volatile boolean writerParked = false;
+    private volatile boolean running = false;
+
+    public AsyncRingAppender() {
+        super();
+    }
+
+    /**
+     * @param capacity the number of events the ring can hold, rounded up to a power of two
+     */
+    public AsyncRingAppender(int capacity) {
+        this();
+        setCapacity(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the size of the ring, has no effect once the appender is activated.
+     *
+     * @param capacity the number of events the ring can hold, rounded up to a power of two
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        // a slot sequence can not tell free from readable in a ring of one
+        this.capacity = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+    }
+
+    public boolean getLocationInfo() {
+        return locationInfo;
+    }
+
+    public void setLocationInfo(boolean locationInfo) {
+        this.locationInfo = locationInfo;
+    }
+
+    public Level getBlockingThreshold() {
+        return blockingThreshold;
+    }
+
+    /**
+     * @param blockingThreshold events at or above this level wait for space instead of being dropped
+     */
+    public void setBlockingThreshold(Level blockingThreshold) {
+        this.blockingThreshold = blockingThreshold;
+    }
+
+    /**
+     * @return the number of events dropped because the ring was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public synchronized void activateOptions() {
+        if (writer != null) {
+            return;
+        }
+        events = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+        running = true;
+        Thread thread = new Thread(this::dispatchLoop, "AsyncRingAppender-" + getName());
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * Like {@link AppenderSkeleton#doAppend(LoggingEvent)}, but without holding the monitor of the appender.
+     */
+    @Override
+    public void doAppend(LoggingEvent event) {
+        if (closed || !isAsSevereAsThreshold(event.getLevel())) {
+            return;
+        }
+        for (Filter f = getFirstFilter(); f != null; f = f.getNext()) {
+            int decision = f.decide(event);
+            if (decision == Filter.DENY) {
+                return;
+            } else if (decision == Filter.ACCEPT) {
+                break;
+            }
+        }
+        append(event);
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+        if (writer == null) {
+            activateOptions();
+        }
+        if (!running || Thread.currentThread() == writer) {
+            dispatch(event);
+            return;
+        }
+        // copy everything that depends on the calling thread or may change later
+        event.getNDC();
+        event.getThreadName();
+        event.getMDCCopy();
+        event.getRenderedMessage();
+        event.getThrowableStrRep();
+        if (locationInfo) {
+            event.getLocationInformation();
+        }
+
+        boolean block = event.getLevel().isGreaterOrEqual(blockingThreshold);
+        while (!offer(event)) {
+            if (!block || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, FULL_PARK);
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Bounded multi producer queue with a sequence per slot, a slot is free for <code>pos</code> if its sequence is
+     * <code>pos</code> and readable if it is <code>pos + 1</code>.
+     */
+    private boolean offer(LoggingEvent event) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    events.set(index, event);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private LoggingEvent poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        LoggingEvent event = events.get(index);
+        events.set(index, null);
+        sequences.set(index, head + capacity);
+        head++;
+        return event;
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            LoggingEvent event = poll();
+            if (event != null) {
+                dispatch(event);
+                continue;
+            }
+            reportDrops();
+            if (!running) {
+                return;
+            }
+            writerParked = true;
+            // an event may have been queued before the flag was visible
+            if (sequences.get((int) (head & mask)) != head + 1) {
+                LockSupport.parkNanos(this, IDLE_PARK);
+            }
+            writerParked = false;
+        }
+    }
+
+    private void reportDrops() {
+        long count = dropped.get();
+        if (count != reportedDrops) {
+            dispatch(new LoggingEvent(AsyncRingAppender.class.getName(), Logger.getLogger(AsyncRingAppender.class),
+                    Level.WARN, "ring full, dropped " + (count - reportedDrops) + " events", null));
+            reportedDrops = count;
+        }
+    }
+
+    private void dispatch(LoggingEvent event) {
+        synchronized (appenders) {
+            appenders.appendLoopOnAppenders(event);
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            running = false;
+            thread = writer;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(CLOSE_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (appenders) {
+            Enumeration<?> all = appenders.getAllAppenders();
+            while (all != null && all.hasMoreElements()) {
+                ((Appender) all.nextElement()).close();
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+    @Override
+    public void addAppender(Appender appender) {
+        synchronized (appenders) {
+            appenders.addAppender(appender);
+        }
+    }
+
+    @Override
+    public Enumeration getAllAppenders() {
+        synchronized (appenders) {
+            return appenders.getAllAppenders();
+        }
+    }
+
+    @Override
+    public Appender getAppender(String name) {
+        synchronized (appenders) {
+            return appenders.getAppender(name);
+        }
+    }
+
+    @Override
+    public boolean isAttached(Appender appender) {
+        synchronized (appenders) {
+            return appenders.isAttached(appender);
+        }
+    }
+
+    @Override
+    public void removeAllAppenders() {
+        synchronized (appenders) {
+            appenders.removeAllAppenders();
+        }
+    }
+
+    @Override
+    public void removeAppender(Appender appender) {
+        synchronized (appenders) {
+            appenders.removeAppender(appender);
+        }
+    }
+
+    @Override
+    public void removeAppender(String name) {
+        synchronized (appenders) {
+            appenders.removeAppender(name);
+        }
+    }
+
+    /**
+     * Moves the appenders of the root logger and every other logger that has appenders behind an
+     * {@link AsyncRingAppender} with {@link #DEFAULT_CAPACITY}. Loggers that already log asynchronously are kept.
+     * The location of the caller is copied if a {@link PatternLayout} of a moved appender prints it.
+     * Pending events are written when the JVM shuts down.
+     *
+     * @return the installed appenders
+     */
+    public static synchronized List<AsyncRingAppender> install() {
+        List<Logger> loggers = new ArrayList<>();
+        loggers.add(LogManager.getRootLogger());
+        for (Object logger : Collections.list(LogManager.getCurrentLoggers())) {
+            loggers.add((Logger) logger);
+        }
+
+        List<AsyncRingAppender> installed = new ArrayList<>();
+        for (Logger logger : loggers) {
+            List<Appender> current = new ArrayList<>();
+            for (Object appender : Collections.list(logger.getAllAppenders())) {
+                current.add((Appender) appender);
+            }
+            if (current.isEmpty() || current.stream().anyMatch(a -> a instanceof AsyncRingAppender)) {
+                continue;
+            }
+            AsyncRingAppender async = new AsyncRingAppender();
+            async.setName("async-" + logger.getName());
+            current.forEach(async::addAppender);
+            async.setLocationInfo(current.stream().anyMatch(AsyncRingAppender::needsLocation));
+            async.activateOptions();
+            // removeAllAppenders would close the moved appenders
+            current.forEach(logger::removeAppender);
+            logger.addAppender(async);
+            installed.add(async);
+        }
+        if (!installed.isEmpty()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> installed.forEach(AsyncRingAppender::close),
+                    "AsyncRingAppender-shutdown"));
+        }
+        return installed;
+    }
+
+    private static boolean needsLocation(Appender appender) {
+        return appender.getLayout() instanceof PatternLayout
+                && LOCATION_PATTERN.matcher(((PatternLayout) appender.getLayout()).getConversionPattern()).find();
+    }
+
+}
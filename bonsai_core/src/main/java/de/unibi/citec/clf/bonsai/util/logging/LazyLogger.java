@@ -0,0 +1,238 @@
+package de.unibi.citec.clf.bonsai.util.logging;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Log4j logger for hot paths. Messages are only built if their level is enabled, either from a pattern with
+ * <code>{}</code> placeholders or from a {@link Supplier}:
+ * <pre>
+ * logger.debug("{} -> invoke execute()", myID);
+ * logger.trace(() -&gt; "scan: " + expensiveSummary(scan));
+ * </pre>
+ * If the last argument is a {@link Throwable} that has no placeholder, it is logged as the throwable of the event.
+ * <p>
+ * Levels are checked by log4j on every call, so changes with {@link Logger#setLevel(Level)} or a configurator apply
+ * at once. The check walks the logger hierarchy without allocating, a disabled level builds no message.
+ */
+public final class LazyLogger {
+
+    private static final String FQCN = LazyLogger.class.getName();
+    private static final ConcurrentMap<String, LazyLogger> LOGGERS = new ConcurrentHashMap<>();
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Logger logger;
+
+    private LazyLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static LazyLogger getLogger(Class<?> clazz) {
+        return getLogger(clazz.getName());
+    }
+
+    public static LazyLogger getLogger(String name) {
+        return LOGGERS.computeIfAbsent(name, n -> new LazyLogger(Logger.getLogger(n)));
+    }
+
+    /**
+     * @return the underlying log4j logger
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+    public boolean isEnabledFor(Level level) {
+        return logger.isEnabledFor(level);
+    }
+
+    public boolean isTraceEnabled() {
+        return isEnabledFor(Level.TRACE);
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabledFor(Level.DEBUG);
+    }
+
+    public boolean isInfoEnabled() {
+        return isEnabledFor(Level.INFO);
+    }
+
+    public void trace(Object message) {
+        log(Level.TRACE, message);
+    }
+
+    public void trace(Supplier<?> message) {
+        log(Level.TRACE, message);
+    }
+
+    public void trace(String pattern, Object arg) {
+        log(Level.TRACE, pattern, arg);
+    }
+
+    public void trace(String pattern, Object arg1, Object arg2) {
+        log(Level.TRACE, pattern, arg1, arg2);
+    }
+
+    public void trace(String pattern, Object... args) {
+        log(Level.TRACE, pattern, args);
+    }
+
+    public void debug(Object message) {
+        log(Level.DEBUG, message);
+    }
+
+    public void debug(Supplier<?> message) {
+        log(Level.DEBUG, message);
+    }
+
+    public void debug(String pattern, Object arg) {
+        log(Level.DEBUG, pattern, arg);
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2) {
+        log(Level.DEBUG, pattern, arg1, arg2);
+    }
+
+    public void debug(String pattern, Object... args) {
+        log(Level.DEBUG, pattern, args);
+    }
+
+    public void info(Object message) {
+        log(Level.INFO, message);
+    }
+
+    public void info(Supplier<?> message) {
+        log(Level.INFO, message);
+    }
+
+    public void info(String pattern, Object arg) {
+        log(Level.INFO, pattern, arg);
+    }
+
+    public void info(String pattern, Object arg1, Object arg2) {
+        log(Level.INFO, pattern, arg1, arg2);
+    }
+
+    public void info(String pattern, Object... args) {
+        log(Level.INFO, pattern, args);
+    }
+
+    public void warn(Object message) {
+        log(Level.WARN, message);
+    }
+
+    public void warn(Supplier<?> message) {
+        log(Level.WARN, message);
+    }
+
+    public void warn(String pattern, Object arg) {
+        log(Level.WARN, pattern, arg);
+    }
+
+    public void warn(String pattern, Object arg1, Object arg2) {
+        log(Level.WARN, pattern, arg1, arg2);
+    }
+
+    public void warn(String pattern, Object... args) {
+        log(Level.WARN, pattern, args);
+    }
+
+    public void error(Object message) {
+        log(Level.ERROR, message);
+    }
+
+    public void error(Supplier<?> message) {
+        log(Level.ERROR, message);
+    }
+
+    public void error(String pattern, Object arg) {
+        log(Level.ERROR, pattern, arg);
+    }
+
+    public void error(String pattern, Object arg1, Object arg2) {
+        log(Level.ERROR, pattern, arg1, arg2);
+    }
+
+    public void error(String pattern, Object... args) {
+        log(Level.ERROR, pattern, args);
+    }
+
+    public void fatal(Object message) {
+        log(Level.FATAL, message);
+    }
+
+    public void fatal(String pattern, Object arg) {
+        log(Level.FATAL, pattern, arg);
+    }
+
+    public void fatal(String pattern, Object arg1, Object arg2) {
+        log(Level.FATAL, pattern, arg1, arg2);
+    }
+
+    public void fatal(String pattern, Object... args) {
+        log(Level.FATAL, pattern, args);
+    }
+
+    private void log(Level level, Object message) {
+        if (isEnabledFor(level)) {
+            logger.log(FQCN, level, message, null);
+        }
+    }
+
+    private void log(Level level, Supplier<?> message) {
+        if (isEnabledFor(level)) {
+            logger.log(FQCN, level, message.get(), null);
+        }
+    }
+
+    private void log(Level level, String pattern, Object arg) {
+        if (isEnabledFor(level)) {
+            emit(level, pattern, new Object[]{arg});
+        }
+    }
+
+    private void log(Level level, String pattern, Object arg1, Object arg2) {
+        if (isEnabledFor(level)) {
+            emit(level, pattern, new Object[]{arg1, arg2});
+        }
+    }
+
+    private void log(Level level, String pattern, Object[] args) {
+        if (isEnabledFor(level)) {
+            emit(level, pattern, (args != null) ? args : NO_ARGS);
+        }
+    }
+
+    private void emit(Level level, String pattern, Object[] args) {
+        StringBuilder message = new StringBuilder(pattern.length() + 16 * args.length);
+        int used = format(message, pattern, args);
+        Throwable t = null;
+        if (used < args.length && args[args.length - 1] instanceof Throwable) {
+            t = (Throwable) args[args.length - 1];
+        }
+        logger.log(FQCN, level, message.toString(), t);
+    }
+
+    /**
+     * Replaces each <code>{}</code> of the pattern with the next argument.
+     *
+     * @return the number of arguments used
+     */
+    static int format(StringBuilder out, String pattern, Object[] args) {
+        int used = 0;
+        int start = 0;
+        int index;
+        while (used < args.length && (index = pattern.indexOf("{}", start)) >= 0) {
+            out.append(pattern, start, index).append(args[used++]);
+            start = index + 2;
+        }
+        out.append(pattern, start, pattern.length());
+        return used;
+    }
+
+}
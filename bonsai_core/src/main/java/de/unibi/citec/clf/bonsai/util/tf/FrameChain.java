@@ -0,0 +1,169 @@
+package de.unibi.citec.clf.bonsai.util.tf;
+
+import de.unibi.citec.clf.bonsai.core.exception.ExtrapolationException;
+
+import javax.media.j3d.Transform3D;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The path of a frame to the root of its tree.
+ * <p>
+ * Consecutive static transforms are precomposed into a single hop, so evaluating the chain costs one
+ * multiplication per dynamic hop plus one per static sub-chain. A chain is only valid for the topology version
+ * it was built for.
+ */
+class FrameChain {
+
+    /**
+     * One step towards the root, either a precomposed static transform or a dynamic frame looked up in its
+     * {@link TransformHistory}.
+     */
+    static final class Hop {
+        private final Transform3D staticTransform;
+        private final TransformHistory history;
+
+        private Hop(Transform3D staticTransform, TransformHistory history) {
+            this.staticTransform = staticTransform;
+            this.history = history;
+        }
+
+        static Hop ofStatic(Transform3D transform) {
+            return new Hop(transform, null);
+        }
+
+        static Hop ofDynamic(TransformHistory history) {
+            return new Hop(null, history);
+        }
+
+        boolean isStatic() {
+            return history == null;
+        }
+    }
+
+    private final String source;
+    private final String root;
+    private final Hop[] hops;
+    private final long version;
+    private final boolean fullyStatic;
+
+    FrameChain(String source, String root, List<Hop> hops, long version) {
+        this.source = source;
+        this.root = root;
+        this.hops = hops.toArray(new Hop[0]);
+        this.version = version;
+        boolean allStatic = true;
+        for (Hop hop : this.hops) {
+            allStatic &= hop.isStatic();
+        }
+        this.fullyStatic = allStatic;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    String getRoot() {
+        return root;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return <code>true</code> if the chain contains no dynamic frames, its transform never changes
+     */
+    boolean isFullyStatic() {
+        return fullyStatic;
+    }
+
+    /**
+     * @return <code>true</code> if the frame is the root of its tree or unknown
+     */
+    boolean isEmpty() {
+        return hops.length == 0;
+    }
+
+    /**
+     * @return the dynamic frames of this chain that are also part of the other chain, the frames above the
+     * common ancestor of both
+     */
+    Set<TransformHistory> sharedFrames(FrameChain other) {
+        Set<TransformHistory> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Hop hop : hops) {
+            if (!hop.isStatic()) {
+                for (Hop otherHop : other.hops) {
+                    if (otherHop.history == hop.history) {
+                        shared.add(hop.history);
+                    }
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * @param shared dynamic frames that are ignored
+     * @return the latest time all other dynamic frames have a transform at, the oldest of their newest stamps, 0
+     * if there are none or one of them has no transform
+     */
+    long latestCommonStamp(Set<TransformHistory> shared) {
+        long latest = Long.MAX_VALUE;
+        for (Hop hop : hops) {
+            if (!hop.isStatic() && !shared.contains(hop.history)) {
+                TransformSample newest = hop.history.getLatest();
+                if (newest == null) {
+                    return 0;
+                }
+                latest = Math.min(latest, newest.getStamp());
+            }
+        }
+        return (latest == Long.MAX_VALUE) ? 0 : latest;
+    }
+
+    /**
+     * Composes the transform of the source frame to the root.
+     *
+     * @param stamp the time in nanoseconds, 0 for the {@link #latestCommonStamp(Set) latest common time}
+     * @throws ExtrapolationException if a dynamic frame has no transform at the time
+     */
+    TransformSample evaluate(long stamp) throws ExtrapolationException {
+        return evaluate(stamp, Collections.emptySet());
+    }
+
+    /**
+     * Composes the transform of the source frame to the root.
+     * <p>
+     * At time 0 the dynamic frames are looked up at the {@link #latestCommonStamp(Set) latest common time}, like
+     * tf2 does. Shared frames use their newest transform, they cancel out if the same frames are used for the
+     * other side of a lookup. The stamp of the result is the time of the other dynamic frames, 0 if there are none.
+     *
+     * @param stamp  the time in nanoseconds, 0 for the newest
+     * @param shared dynamic frames above the common ancestor of a lookup
+     * @throws ExtrapolationException if a dynamic frame has no transform at the time
+     */
+    TransformSample evaluate(long stamp, Set<TransformHistory> shared) throws ExtrapolationException {
+        Transform3D result = new Transform3D();
+        long time = (stamp == 0) ? latestCommonStamp(shared) : stamp;
+        for (Hop hop : hops) {
+            Transform3D toParent;
+            if (hop.isStatic()) {
+                toParent = hop.staticTransform;
+            } else if (shared.contains(hop.history)) {
+                toParent = hop.history.getLatest().toTransform3D();
+            } else {
+                TransformSample sample = hop.history.get(time);
+                time = sample.getStamp();
+                toParent = sample.toTransform3D();
+            }
+            Transform3D next = new Transform3D();
+            next.mul(toParent, result);
+            result = next;
+        }
+        return new TransformSample(time, source, root, result);
+    }
+
+}
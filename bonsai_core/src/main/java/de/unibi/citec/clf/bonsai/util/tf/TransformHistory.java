@@ -0,0 +1,173 @@
+package de.unibi.citec.clf.bonsai.util.tf;
+
+import de.unibi.citec.clf.bonsai.core.exception.ExtrapolationException;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Time-sorted history of the transforms of one frame to its parent.
+ * <p>
+ * Samples are kept in a ring buffer ordered by their stamp, so lookups use a binary search and transforms
+ * between two samples are interpolated (linear for the translation, SLERP for the rotation). Lookups before the
+ * oldest or after the newest sample fail like in tf2 instead of returning the closest sample. Samples older than
+ * the history length relative to the newest sample are dropped; the newest sample is always kept. Reads and writes
+ * are guarded by a read/write lock.
+ */
+public class TransformHistory {
+
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Upper bound of samples per frame, protects against publishers with very high rates.
+     */
+    static final int MAX_CAPACITY = 1 << 14;
+
+    private final long historyNsecs;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TransformSample[] samples = new TransformSample[INITIAL_CAPACITY];
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * @param historyNsecs how long samples are kept, relative to the newest sample
+     */
+    public TransformHistory(long historyNsecs) {
+        if (historyNsecs < 0) {
+            throw new IllegalArgumentException("history must not be negative");
+        }
+        this.historyNsecs = historyNsecs;
+    }
+
+    /**
+     * Adds a sample. Samples usually arrive in order and are appended, late samples are inserted at their
+     * position and samples older than the whole history are ignored.
+     */
+    public void add(TransformSample sample) {
+        lock.writeLock().lock();
+        try {
+            if (size > 0 && newest() - sample.getStamp() > historyNsecs) {
+                return;
+            }
+            if (size == samples.length) {
+                if (size < MAX_CAPACITY) {
+                    grow();
+                } else {
+                    removeOldest();
+                }
+            }
+            int pos = size;
+            if (size > 0 && sample.getStamp() < newest()) {
+                pos = upperBound(sample.getStamp());
+                for (int i = size; i > pos; i--) {
+                    samples[physical(i)] = samples[physical(i - 1)];
+                }
+            }
+            samples[physical(pos)] = sample;
+            size++;
+
+            long oldestAllowed = newest() - historyNsecs;
+            while (size > 1 && samples[head].getStamp() < oldestAllowed) {
+                removeOldest();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the newest sample or {@code null} if the history is empty
+     */
+    public TransformSample getLatest() {
+        lock.readLock().lock();
+        try {
+            return (size == 0) ? null : samples[physical(size - 1)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the transform at the given time, interpolated between the two bracketing samples.
+     *
+     * @param stamp the time in nanoseconds, 0 for the newest sample
+     * @return the sample at the time or {@code null} if the history is empty
+     * @throws ExtrapolationException if the time is before the oldest or after the newest sample
+     */
+    public TransformSample get(long stamp) throws ExtrapolationException {
+        TransformSample before;
+        TransformSample after;
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                return null;
+            }
+            TransformSample newest = samples[physical(size - 1)];
+            if (stamp == 0 || stamp == newest.getStamp()) {
+                return newest;
+            }
+            TransformSample oldest = samples[head];
+            if (stamp < oldest.getStamp() || stamp > newest.getStamp()) {
+                throw new ExtrapolationException(newest.getFrame(), stamp, oldest.getStamp(), newest.getStamp());
+            }
+            int upper = upperBound(stamp);
+            before = samples[physical(upper - 1)];
+            after = samples[physical(upper)];
+        } finally {
+            lock.readLock().unlock();
+        }
+        return (before.getStamp() == stamp) ? before : TransformSample.interpolate(before, after, stamp);
+    }
+
+    /**
+     * @return the number of samples in the history
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Logical index of the first sample with a stamp greater than {@code stamp}.
+     */
+    private int upperBound(long stamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (samples[physical(mid)].getStamp() <= stamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long newest() {
+        return samples[physical(size - 1)].getStamp();
+    }
+
+    private int physical(int index) {
+        return (head + index) % samples.length;
+    }
+
+    private void removeOldest() {
+        samples[head] = null;
+        head = (head + 1) % samples.length;
+        size--;
+    }
+
+    private void grow() {
+        TransformSample[] grown = new TransformSample[Math.min(samples.length * 2, MAX_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            grown[i] = samples[physical(i)];
+        }
+        samples = grown;
+        head = 0;
+    }
+
+}
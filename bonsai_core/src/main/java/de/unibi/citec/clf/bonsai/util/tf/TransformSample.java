@@ -0,0 +1,144 @@
+package de.unibi.citec.clf.bonsai.util.tf;
+
+import javax.media.j3d.Transform3D;
+import javax.vecmath.Quat4d;
+import javax.vecmath.Vector3d;
+
+/**
+ * A rigid transform of points in a frame to its parent frame at a time.
+ * <p>
+ * Samples are immutable, the getters return copies. Stamps are in nanoseconds, frame names are used as given.
+ */
+public final class TransformSample {
+
+    private final long stamp;
+    private final String frame;
+    private final String parent;
+    private final Vector3d translation;
+    private final Quat4d rotation;
+
+    /**
+     * @param stamp       the time in nanoseconds
+     * @param frame       the frame the transform applies to
+     * @param parent      the frame the transform leads to
+     * @param translation the translation, copied
+     * @param rotation    the rotation, copied and normalized, a zero quaternion is the identity
+     */
+    public TransformSample(long stamp, String frame, String parent, Vector3d translation, Quat4d rotation) {
+        this.stamp = stamp;
+        this.frame = frame;
+        this.parent = parent;
+        this.translation = new Vector3d(translation);
+        this.rotation = new Quat4d(rotation);
+        if (rotation.x == 0 && rotation.y == 0 && rotation.z == 0 && rotation.w == 0) {
+            this.rotation.w = 1;
+        } else {
+            this.rotation.normalize();
+        }
+    }
+
+    /**
+     * @param transform a rigid transform, a scale is dropped
+     */
+    public TransformSample(long stamp, String frame, String parent, Transform3D transform) {
+        this.stamp = stamp;
+        this.frame = frame;
+        this.parent = parent;
+        this.translation = new Vector3d();
+        this.rotation = new Quat4d();
+        transform.get(rotation, translation);
+    }
+
+    /**
+     * Creates a sample from the fields of a transform message. Unlike the {@link Quat4d} constructors this keeps
+     * a zero quaternion, as sent by some publishers for the identity, from turning into NaN.
+     */
+    public static TransformSample of(long stamp, String frame, String parent, double tx, double ty, double tz,
+                                     double qx, double qy, double qz, double qw) {
+        Quat4d rotation = new Quat4d();
+        rotation.x = qx;
+        rotation.y = qy;
+        rotation.z = qz;
+        rotation.w = qw;
+        return new TransformSample(stamp, frame, parent, new Vector3d(tx, ty, tz), rotation);
+    }
+
+    public long getStamp() {
+        return stamp;
+    }
+
+    public String getFrame() {
+        return frame;
+    }
+
+    public String getParent() {
+        return parent;
+    }
+
+    public Vector3d getTranslation() {
+        return new Vector3d(translation);
+    }
+
+    public Quat4d getRotation() {
+        return new Quat4d(rotation);
+    }
+
+    public Transform3D toTransform3D() {
+        return new Transform3D(rotation, translation, 1.0);
+    }
+
+    /**
+     * Interpolates between two samples of the same frame, linear for the translation and SLERP for the rotation.
+     * If the frame was reparented between the samples the closer one is returned.
+     *
+     * @param stamp the time between the stamps of both samples
+     */
+    static TransformSample interpolate(TransformSample a, TransformSample b, long stamp) {
+        double ratio = (b.stamp == a.stamp) ? 0 : (double) (stamp - a.stamp) / (b.stamp - a.stamp);
+        if (!a.parent.equals(b.parent)) {
+            return ratio < 0.5 ? a : b;
+        }
+        Vector3d translation = new Vector3d();
+        translation.interpolate(a.translation, b.translation, ratio);
+        return new TransformSample(stamp, a.frame, a.parent, translation, slerp(a.rotation, b.rotation, ratio));
+    }
+
+    static Quat4d slerp(Quat4d qa, Quat4d qb, double ratio) {
+        double bx = qb.x;
+        double by = qb.y;
+        double bz = qb.z;
+        double bw = qb.w;
+        double dot = qa.x * bx + qa.y * by + qa.z * bz + qa.w * bw;
+        if (dot < 0) {
+            // take the short way
+            dot = -dot;
+            bx = -bx;
+            by = -by;
+            bz = -bz;
+            bw = -bw;
+        }
+        double wa;
+        double wb;
+        if (dot > 0.9995) {
+            // nearly identical, linear interpolation avoids the division by sin(~0)
+            wa = 1 - ratio;
+            wb = ratio;
+        } else {
+            double theta = Math.acos(dot);
+            double sin = Math.sin(theta);
+            wa = Math.sin((1 - ratio) * theta) / sin;
+            wb = Math.sin(ratio * theta) / sin;
+        }
+        Quat4d result = new Quat4d(wa * qa.x + wb * bx, wa * qa.y + wb * by, wa * qa.z + wb * bz,
+                wa * qa.w + wb * bw);
+        result.normalize();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TransformSample[" + frame + " -> " + parent + " @ " + stamp + ", t=" + translation + ", r=" + rotation
+                + "]";
+    }
+
+}
@@ -0,0 +1,302 @@
+package de.unibi.citec.clf.bonsai.util.tf;
+
+import de.unibi.citec.clf.bonsai.core.exception.ExtrapolationException;
+import de.unibi.citec.clf.bonsai.core.exception.TransformException;
+import de.unibi.citec.clf.bonsai.util.logging.LazyLogger;
+
+import javax.media.j3d.Transform3D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A tree of the transforms between coordinate frames, shared by the tf adapters of ROS and ROS2.
+ * <p>
+ * Every dynamic frame keeps a {@link TransformHistory} of its transforms to the parent frame, lookups at a time
+ * interpolate between the two bracketing samples and fail with an {@link ExtrapolationException} outside of the
+ * history. Lookups at time 0 use the newest transforms. Static transforms never change and are valid at every
+ * time.
+ * <p>
+ * The path of every frame to its root is cached as a {@link FrameChain} with static sub-chains precomposed; the
+ * cache is invalidated only when the topology changes (new frames, reparented frames or new static transforms).
+ * Frame names are relative, a leading slash is dropped.
+ */
+public class TransformTree {
+
+    private static final LazyLogger logger = LazyLogger.getLogger(TransformTree.class);
+
+    public static final double DEFAULT_HISTORY_SECONDS = 10.0;
+
+    private final long historyNsecs;
+
+    /**
+     * History of every dynamic frame by child frame, each frame has exactly one parent.
+     */
+    private final Map<String, TransformHistory> transforms = new ConcurrentHashMap<>();
+
+    /**
+     * Static transforms by child frame.
+     */
+    private final Map<String, TransformSample> staticTransforms = new ConcurrentHashMap<>();
+
+    /**
+     * Parent of each dynamic frame, used to detect changes of the topology.
+     */
+    private final Map<String, String> parents = new ConcurrentHashMap<>();
+
+    private final Map<String, FrameChain> chains = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Path>> paths = new ConcurrentHashMap<>();
+    private final AtomicLong topologyVersion = new AtomicLong();
+
+    /**
+     * Memoized lookup from a source to a target frame.
+     */
+    private static final class Path {
+        final FrameChain sourceChain;
+        final FrameChain targetChain;
+        /**
+         * Inverse of the target chain if it is fully static, {@code null} otherwise.
+         */
+        final Transform3D staticTargetInverse;
+        /**
+         * Dynamic frames above the common ancestor, they cancel out.
+         */
+        final Set<TransformHistory> shared;
+
+        Path(FrameChain sourceChain, FrameChain targetChain) throws ExtrapolationException {
+            this.sourceChain = sourceChain;
+            this.targetChain = targetChain;
+            this.shared = sourceChain.sharedFrames(targetChain);
+            if (targetChain.isFullyStatic()) {
+                staticTargetInverse = targetChain.evaluate(0).toTransform3D();
+                staticTargetInverse.invert();
+            } else {
+                staticTargetInverse = null;
+            }
+        }
+
+        boolean isValid(long version) {
+            return sourceChain.getVersion() == version && targetChain.getVersion() == version;
+        }
+    }
+
+    public TransformTree() {
+        this(DEFAULT_HISTORY_SECONDS);
+    }
+
+    /**
+     * @param historySeconds how long transforms are kept, relative to the newest transform of each frame
+     */
+    public TransformTree(double historySeconds) {
+        if (historySeconds < 0) {
+            throw new IllegalArgumentException("history must not be negative");
+        }
+        historyNsecs = (long) (historySeconds * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Adds a transform of a dynamic frame, as received on <code>/tf</code>.
+     */
+    public void update(TransformSample sample) {
+        String child = frame(sample.getFrame());
+        String parent = frame(sample.getParent());
+        if (staticTransforms.remove(child) != null) {
+            logger.warn("frame {} was static, now is dynamic", child);
+            topologyChanged();
+        }
+        transforms.computeIfAbsent(child, k -> new TransformHistory(historyNsecs)).add(sample);
+        String previous = parents.put(child, parent);
+        if (!parent.equals(previous)) {
+            topologyChanged();
+        }
+    }
+
+    /**
+     * Adds a transform that never changes, as received on <code>/tf_static</code>.
+     */
+    public void updateStatic(TransformSample sample) {
+        String child = frame(sample.getFrame());
+        staticTransforms.put(child, sample);
+        if (transforms.remove(child) != null) {
+            parents.remove(child);
+        }
+        topologyChanged();
+    }
+
+    /**
+     * @return whether a transform of the frame to its parent is known
+     */
+    public boolean hasFrame(String frame) {
+        String name = frame(frame);
+        return staticTransforms.containsKey(name) || transforms.containsKey(name);
+    }
+
+    /**
+     * @return the newest transform of the frame to its parent or {@code null} if the frame is unknown
+     */
+    public TransformSample getLatest(String frame) {
+        String name = frame(frame);
+        TransformHistory history = transforms.get(name);
+        return (history == null) ? staticTransforms.get(name) : history.getLatest();
+    }
+
+    /**
+     * @param stamp the time in nanoseconds, 0 for the newest
+     * @return the transform of the frame to its parent at the time or {@code null} if the frame is unknown
+     * @throws ExtrapolationException if the time is outside of the history of the frame
+     */
+    public TransformSample get(String frame, long stamp) throws ExtrapolationException {
+        String name = frame(frame);
+        TransformHistory history = transforms.get(name);
+        return (history == null) ? staticTransforms.get(name) : history.get(stamp);
+    }
+
+    /**
+     * Looks up the transform of points in the source frame to the target frame.
+     * <p>
+     * At time 0 all frames are looked up at the latest common time, the oldest of the newest transforms of the
+     * dynamic frames below the common ancestor on both sides, so frames that are published at different rates can
+     * be combined.
+     *
+     * @param source the frame to transform from
+     * @param target the frame to transform to
+     * @param stamp  the time in nanoseconds, 0 for the newest transforms
+     * @return the transform with the time it is valid at, 0 if both frames are connected by static transforms
+     * @throws ExtrapolationException if the time is outside of the history of a frame on the path
+     * @throws TransformException     if both frames are not connected by known transforms
+     */
+    public TransformSample lookup(String source, String target, long stamp) throws TransformException {
+        String from = frame(source);
+        String to = frame(target);
+        if (from.equals(to)) {
+            return new TransformSample(stamp, from, to, new Transform3D());
+        }
+        Path path = path(from, to);
+        if (path == null) {
+            throw new TransformException(from, to, stamp, "frames are not connected");
+        }
+        long time = stamp;
+        if (time == 0) {
+            time = earliest(path.sourceChain.latestCommonStamp(path.shared),
+                    path.targetChain.latestCommonStamp(path.shared));
+        }
+        TransformSample sourceToRoot = path.sourceChain.evaluate(time, path.shared);
+        Transform3D rootToTarget = path.staticTargetInverse;
+        if (rootToTarget == null) {
+            rootToTarget = path.targetChain.evaluate(sourceToRoot.getStamp(), path.shared).toTransform3D();
+            rootToTarget.invert();
+        }
+        Transform3D transform = new Transform3D();
+        transform.mul(rootToTarget, sourceToRoot.toTransform3D());
+        return new TransformSample(sourceToRoot.getStamp(), from, to, transform);
+    }
+
+    /**
+     * @return the earlier of both times, times of 0 are unknown
+     */
+    private static long earliest(long a, long b) {
+        if (a == 0) {
+            return b;
+        }
+        return (b == 0) ? a : Math.min(a, b);
+    }
+
+    /**
+     * The topology version is increased whenever frames are added, reparented or become static, cached chains of
+     * older versions are rebuilt on their next lookup.
+     */
+    public long getTopologyVersion() {
+        return topologyVersion.get();
+    }
+
+    private void topologyChanged() {
+        topologyVersion.incrementAndGet();
+        chains.clear();
+        paths.clear();
+    }
+
+    /**
+     * Memoized chains of source and target, {@code null} if both are not in the same tree.
+     */
+    private Path path(String source, String target) throws ExtrapolationException {
+        long version = topologyVersion.get();
+        Map<String, Path> fromSource = paths.computeIfAbsent(source, k -> new ConcurrentHashMap<>());
+        Path path = fromSource.get(target);
+        if (path != null && path.isValid(version)) {
+            return path;
+        }
+        FrameChain sourceChain = chain(source, version);
+        FrameChain targetChain = chain(target, version);
+        if (!sourceChain.getRoot().equals(targetChain.getRoot())) {
+            return null;
+        }
+        path = new Path(sourceChain, targetChain);
+        fromSource.put(target, path);
+        return path;
+    }
+
+    /**
+     * @return the cached chain of the frame to its root, built for the current topology
+     */
+    FrameChain chain(String source) {
+        return chain(frame(source), topologyVersion.get());
+    }
+
+    /**
+     * Builds or returns the cached chain of {@code source} to its root.
+     */
+    private FrameChain chain(String source, long version) {
+        FrameChain cached = chains.get(source);
+        if (cached != null && cached.getVersion() == version) {
+            return cached;
+        }
+        List<FrameChain.Hop> hops = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Transform3D pendingStatic = null;
+        String current = source;
+        while (visited.add(current)) {
+            TransformSample staticTransform = staticTransforms.get(current);
+            if (staticTransform != null) {
+                Transform3D hop = staticTransform.toTransform3D();
+                if (pendingStatic != null) {
+                    hop.mul(pendingStatic);
+                }
+                pendingStatic = hop;
+                current = frame(staticTransform.getParent());
+                continue;
+            }
+            TransformHistory history = transforms.get(current);
+            String parent = parents.get(current);
+            if (history == null || parent == null) {
+                break;
+            }
+            if (pendingStatic != null) {
+                hops.add(FrameChain.Hop.ofStatic(pendingStatic));
+                pendingStatic = null;
+            }
+            hops.add(FrameChain.Hop.ofDynamic(history));
+            current = parent;
+        }
+        if (pendingStatic != null) {
+            hops.add(FrameChain.Hop.ofStatic(pendingStatic));
+        }
+        FrameChain chain = new FrameChain(source, current, hops, version);
+        if (topologyVersion.get() == version) {
+            chains.put(source, chain);
+        }
+        return chain;
+    }
+
+    /**
+     * tf2 frame ids are relative, tf frame ids may start with a slash.
+     */
+    static String frame(String frame) {
+        return (frame.startsWith("/")) ? frame.substring(1) : frame;
+    }
+
+}
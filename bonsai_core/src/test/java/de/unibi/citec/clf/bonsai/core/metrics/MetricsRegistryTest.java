@@ -0,0 +1,149 @@
+package de.unibi.citec.clf.bonsai.core.metrics;
+
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void histogramTest() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(4));
+        histogram.record(TimeUnit.SECONDS.toNanos(20));
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(TimeUnit.SECONDS.toNanos(20), histogram.getMax());
+        long[] counts = histogram.getBucketCounts();
+        assertEquals(Histogram.getBounds().length + 1, counts.length);
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[counts.length - 1]);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), histogram.getPercentile(0.5));
+        assertEquals(TimeUnit.SECONDS.toNanos(20), histogram.getPercentile(1));
+    }
+
+    @Test
+    public void skillMetricsTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.SkillMetrics metrics = registry.skill(MetricsRegistryTest.class);
+        metrics.executed(TimeUnit.MILLISECONDS.toNanos(2));
+        metrics.executed(TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.forcedEnd();
+
+        // no transition recorded without a finished skill
+        registry.stateEntered();
+        assertEquals(0, metrics.getTransition().getCount());
+        registry.skillFinished(MetricsRegistryTest.class);
+        registry.stateEntered();
+        registry.stateEntered();
+
+        assertEquals(2, metrics.getIterations());
+        assertEquals(1, metrics.getRuns());
+        assertEquals(1, metrics.getForcedEnds());
+        assertEquals(1, metrics.getTransition().getCount());
+
+        String skill = "skill=\"" + MetricsRegistryTest.class.getName() + "\"";
+        String scrape = registry.scrape();
+        assertTrue(scrape, scrape.contains("# TYPE bonsai_skill_execute_seconds histogram\n"));
+        assertTrue(scrape, scrape.contains("bonsai_skill_execute_seconds_bucket{" + skill + ",le=\"0.0025\"} 1\n"));
+        assertTrue(scrape, scrape.contains("bonsai_skill_execute_seconds_bucket{" + skill + ",le=\"+Inf\"} 2\n"));
+        assertTrue(scrape, scrape.contains("bonsai_skill_execute_seconds_sum{" + skill + "} 0.022\n"));
+        assertTrue(scrape, scrape.contains("bonsai_skill_execute_seconds_count{" + skill + "} 2\n"));
+        assertTrue(scrape, scrape.contains("bonsai_skill_iterations_total{" + skill + "} 2\n"));
+        assertTrue(scrape, scrape.contains("bonsai_skill_forced_end_total{" + skill + "} 1\n"));
+    }
+
+    @Test
+    public void sensorAndActuatorTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        SensorBuffer<Integer> buffer = SensorBuffer.create(SensorBuffer.TYPE_SYNCHRONIZED, 1);
+        registry.registerSensor("/scan", buffer);
+        buffer.push(1);
+        buffer.push(2);
+        registry.actuator("nav", "moveTo").getCall().record(TimeUnit.MILLISECONDS.toNanos(1));
+        MetricsRegistry.DeliveryMetrics delivery = registry.delivery("/scan");
+        delivery.received();
+        delivery.received();
+        delivery.conflated();
+        delivery.failed();
+        delivery.getLag().record(TimeUnit.MILLISECONDS.toNanos(1));
+
+        String scrape = registry.scrape();
+        assertTrue(scrape, scrape.contains("bonsai_sensor_messages_total{sensor=\"/scan\"} 2\n"));
+        assertTrue(scrape, scrape.contains("bonsai_sensor_dropped_total{sensor=\"/scan\"} 1\n"));
+        assertTrue(scrape, scrape.contains("bonsai_sensor_received_total{sensor=\"/scan\"} 2\n"));
+        assertTrue(scrape, scrape.contains("bonsai_sensor_conflated_total{sensor=\"/scan\"} 1\n"));
+        assertTrue(scrape, scrape.contains("bonsai_sensor_failed_total{sensor=\"/scan\"} 1\n"));
+        assertTrue(scrape, scrape.contains("bonsai_sensor_delivery_seconds_count{sensor=\"/scan\"} 1\n"));
+        assertTrue(scrape, scrape.contains("bonsai_actuator_call_seconds_count{actuator=\"nav\",method=\"moveTo\"} 1\n"));
+    }
+
+    @Test
+    public void parallelTransitionTest() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.SkillMetrics first = registry.skill(MetricsRegistryTest.class);
+        MetricsRegistry.SkillMetrics second = registry.skill(String.class);
+
+        // a skill of a parallel state finishes in another thread before the transition of the first one
+        registry.skillFinished(MetricsRegistryTest.class);
+        Thread other = new Thread(() -> registry.skillFinished(String.class));
+        other.start();
+        other.join();
+        registry.stateEntered();
+
+        assertEquals(1, first.getTransition().getCount());
+        assertEquals(0, second.getTransition().getCount());
+    }
+
+    @Test
+    public void duplicateSensorTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        SensorBuffer<Integer> first = SensorBuffer.create(SensorBuffer.TYPE_LATEST, 1);
+        SensorBuffer<Integer> second = SensorBuffer.create(SensorBuffer.TYPE_LATEST, 1);
+        assertEquals("/odom", registry.registerSensor("/odom", first));
+        assertEquals("/odom#2", registry.registerSensor("/odom", second));
+        assertEquals("/odom", registry.registerSensor("/odom", first));
+        first.push(1);
+        second.push(1);
+        second.push(2);
+
+        String scrape = registry.scrape();
+        assertTrue(scrape, scrape.contains("bonsai_sensor_messages_total{sensor=\"/odom\"} 1\n"));
+        assertTrue(scrape, scrape.contains("bonsai_sensor_messages_total{sensor=\"/odom#2\"} 2\n"));
+    }
+
+    @Test
+    public void scraperRateTest() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        SensorBuffer<Integer> buffer = SensorBuffer.create(SensorBuffer.TYPE_LATEST, 1);
+        registry.registerSensor("/rate", buffer);
+        MetricsRegistry.Scraper fast = registry.newScraper();
+        MetricsRegistry.Scraper slow = registry.newScraper();
+        for (int i = 0; i < 10; i++) {
+            buffer.push(i);
+        }
+
+        Thread.sleep(1100);
+        assertTrue(rate(fast.scrape()) > 0);
+        Thread.sleep(1100);
+        assertEquals(0, rate(fast.scrape()), 0.0);
+        // the scrapes of the fast scraper do not reset the interval of the slow one
+        assertFalse(rate(slow.scrape()) == 0);
+    }
+
+    private static double rate(String scrape) {
+        String prefix = "bonsai_sensor_message_rate{sensor=\"/rate\"} ";
+        int begin = scrape.indexOf(prefix) + prefix.length();
+        return Double.parseDouble(scrape.substring(begin, scrape.indexOf('\n', begin)));
+    }
+
+}
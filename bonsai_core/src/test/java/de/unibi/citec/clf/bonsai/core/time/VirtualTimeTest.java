@@ -0,0 +1,226 @@
+package de.unibi.citec.clf.bonsai.core.time;
+
+import de.unibi.citec.clf.bonsai.engine.SkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.SkillListener;
+import de.unibi.citec.clf.bonsai.engine.SkillRunner;
+import de.unibi.citec.clf.bonsai.engine.execution.SkillExecutor;
+import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import de.unibi.citec.clf.bonsai.skills.WaitHourSkill;
+import de.unibi.citec.clf.bonsai.util.SensorBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualTimeTest {
+
+    private VirtualTime clock;
+
+    @Before
+    public void setUp() {
+        clock = new VirtualTime(1000);
+        Time.setProvider(clock);
+    }
+
+    @After
+    public void tearDown() {
+        Time.reset();
+    }
+
+    @Test
+    public void clockTest() throws Exception {
+        assertTrue(Time.isVirtual());
+        assertEquals(1000, Time.currentTimeMillis());
+        assertEquals(1000, Time.now().getTime());
+
+        Time.sleep(500);
+        assertEquals(1500, Time.currentTimeMillis());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), Time.nanoTime());
+
+        assertEquals(3500, clock.advance(2000));
+        assertEquals(2500, clock.getElapsedMillis());
+    }
+
+    @Test(timeout = 10000)
+    public void parallelSleepTest() throws Exception {
+        // a long settle time so slow test machines do not fall behind the clock
+        VirtualTime parallel = new VirtualTime(0, 20);
+        int steps = 30;
+        CyclicBarrier start = new CyclicBarrier(3);
+        List<Thread> threads = new ArrayList<>();
+        List<Long> woken = Collections.synchronizedList(new ArrayList<>());
+        for (long delay : new long[]{1000, 1000, 3000}) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    for (long slept = 0; slept < steps * 1000; slept += delay) {
+                        parallel.sleep(delay);
+                    }
+                    woken.add(parallel.getElapsedMillis());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        // the sleepers share the clock instead of each moving it by their own delays
+        assertEquals(3, woken.size());
+        for (long time : woken) {
+            assertEquals(steps * 1000L, time);
+        }
+        assertEquals(steps * 1000L, parallel.getElapsedMillis());
+    }
+
+    @Test(timeout = 5000)
+    public void earliestWakeupTest() throws Exception {
+        VirtualTime parallel = new VirtualTime(0, 20);
+        long[] late = new long[1];
+        Thread t = new Thread(() -> {
+            try {
+                parallel.sleep(5000);
+                late[0] = parallel.getElapsedMillis();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        t.start();
+        while (t.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+
+        // the earlier sleeper wakes first and does not move the clock past its own wake-up
+        parallel.sleep(1000);
+        assertEquals(1000, parallel.getElapsedMillis());
+        t.join();
+        assertEquals(5000, late[0]);
+    }
+
+    @Test(timeout = 5000)
+    public void bufferTimeoutTest() throws Exception {
+        for (String type : new String[]{SensorBuffer.TYPE_LATEST, SensorBuffer.TYPE_RING,
+                SensorBuffer.TYPE_SYNCHRONIZED}) {
+            long before = clock.getElapsedMillis();
+            SensorBuffer<Integer> buffer = SensorBuffer.create(type, 2);
+            assertNull(buffer.next(60000));
+            assertEquals(before + 60000, clock.getElapsedMillis());
+
+            buffer.push(1);
+            assertEquals(Integer.valueOf(1), buffer.next(60000));
+            assertEquals(before + 60000, clock.getElapsedMillis());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void scheduleTest() throws Exception {
+        List<Long> ran = Collections.synchronizedList(new ArrayList<>());
+        clock.schedule(() -> ran.add(clock.getElapsedMillis()), 300);
+        clock.schedule(() -> ran.add(clock.getElapsedMillis()), 100);
+        Future<?> cancelled = clock.schedule(() -> ran.add(clock.getElapsedMillis()), 200);
+        assertTrue(cancelled.cancel(false));
+
+        clock.sleep(1000);
+        assertEquals(List.of(100L, 300L), ran);
+        assertEquals(1000, clock.getElapsedMillis());
+    }
+
+    /**
+     * Starts a thread that sleeps on the clock and then runs the action. The clock settles long enough for the
+     * caller to start waiting before it moves.
+     */
+    private Thread wakeAfter(long millis, Runnable action) throws InterruptedException {
+        Time.setProvider(new VirtualTime(0, 200));
+        Thread t = new Thread(() -> {
+            try {
+                Time.sleep(millis);
+                action.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        t.start();
+        while (t.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        return t;
+    }
+
+    @Test(timeout = 10000)
+    public void monitorWakeupTest() throws Exception {
+        Object monitor = new Object();
+        Thread t = wakeAfter(100, () -> {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        });
+        synchronized (monitor) {
+            Time.await(monitor, 60000);
+        }
+        // the notification ends the wait before the timeout passed on the clock
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), Time.nanoTime());
+        t.join();
+    }
+
+    @Test(timeout = 10000)
+    public void bufferWakeupTest() throws Exception {
+        for (String type : new String[]{SensorBuffer.TYPE_LATEST, SensorBuffer.TYPE_RING,
+                SensorBuffer.TYPE_SYNCHRONIZED}) {
+            SensorBuffer<Integer> buffer = SensorBuffer.create(type, 2);
+            Thread t = wakeAfter(100, () -> buffer.push(1));
+            assertEquals(type, Integer.valueOf(1), buffer.next(60000));
+            assertEquals(type, TimeUnit.MILLISECONDS.toNanos(100), Time.nanoTime());
+            t.join();
+        }
+    }
+
+    private void runHour(String mode) throws Exception {
+        SkillExecutor executor = SkillExecutor.create(mode, 1);
+        CompletableFuture<ExitStatus> result = new CompletableFuture<>();
+        SkillRunner runner = new SkillRunner(new WaitHourSkill(), new StateID(WaitHourSkill.class.getName()), null,
+                null, new SkillListener() {
+                    @Override
+                    public void skillFinished(StateID id, ExitStatus token) {
+                        result.complete(token);
+                    }
+
+                    @Override
+                    public void skillAborted(StateID id, Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+        runner.configureOnStart(SkillConfigurator.getDefaultConf());
+
+        executor.execute(runner);
+
+        assertTrue(result.get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(clock.getElapsedMillis() >= TimeUnit.HOURS.toMillis(1));
+        executor.shutdown();
+    }
+
+    @Test
+    public void threadedLoopTest() throws Exception {
+        runHour(SkillExecutor.MODE_THREADS);
+    }
+
+    @Test
+    public void scheduledLoopTest() throws Exception {
+        runHour(SkillExecutor.MODE_SCHEDULED);
+    }
+
+}
@@ -0,0 +1,50 @@
+package de.unibi.citec.clf.bonsai.engine;
+
+import de.unibi.citec.clf.bonsai.core.exception.StateIDException;
+import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import de.unibi.citec.clf.bonsai.skills.LoopingSkill;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SkillFactoryRegistryTest {
+
+    @Test
+    public void createTest() throws Exception {
+        SkillFactoryRegistry registry = new SkillFactoryRegistry();
+        StateID id = new StateID("de.unibi.citec.clf.bonsai.skills.", "LoopingSkill");
+
+        registry.resolve(id);
+        assertTrue(registry.isResolved(id));
+
+        AbstractSkill a = registry.create(id);
+        AbstractSkill b = registry.create(id);
+        assertTrue(a instanceof LoopingSkill);
+        assertNotSame(a, b);
+    }
+
+    @Test
+    public void warmUpTest() throws Exception {
+        SkillFactoryRegistry registry = new SkillFactoryRegistry();
+        StateID id = new StateID("de.unibi.citec.clf.bonsai.skills.", "LoopingSkill#warm");
+
+        AbstractSkill spare = registry.warmUp(id);
+        assertSame(spare, registry.warmUp(id));
+        assertSame(spare, registry.create(id));
+        assertNotSame(spare, registry.create(id));
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void missingClassTest() throws StateIDException, ClassNotFoundException, InstantiationException {
+        new SkillFactoryRegistry().create(new StateID("de.unibi.citec.clf.bonsai.skills.", "DoesNotExist"));
+    }
+
+    @Test(expected = InstantiationException.class)
+    public void noSkillTest() throws StateIDException, ClassNotFoundException, InstantiationException {
+        new SkillFactoryRegistry().create(new StateID("java.lang.", "Object"));
+    }
+
+}
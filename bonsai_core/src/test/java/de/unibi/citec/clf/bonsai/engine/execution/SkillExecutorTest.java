@@ -0,0 +1,94 @@
+package de.unibi.citec.clf.bonsai.engine.execution;
+
+import de.unibi.citec.clf.bonsai.engine.SkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.SkillListener;
+import de.unibi.citec.clf.bonsai.engine.SkillRunner;
+import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import de.unibi.citec.clf.bonsai.skills.LoopingSkill;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SkillExecutorTest {
+
+    private static SkillRunner createRunner(LoopingSkill skill, CompletableFuture<ExitStatus> result)
+            throws Exception {
+        SkillRunner runner = new SkillRunner(skill, new StateID(LoopingSkill.class.getName()), null, null,
+                new SkillListener() {
+                    @Override
+                    public void skillFinished(StateID id, ExitStatus token) {
+                        result.complete(token);
+                    }
+
+                    @Override
+                    public void skillAborted(StateID id, Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+        runner.configureOnStart(SkillConfigurator.getDefaultConf());
+        return runner;
+    }
+
+    private void executeLoopingSkill(SkillExecutor executor) throws Exception {
+        LoopingSkill skill = new LoopingSkill();
+        CompletableFuture<ExitStatus> result = new CompletableFuture<>();
+        SkillRunner runner = createRunner(skill, result);
+
+        executor.execute(runner);
+
+        assertTrue(result.get(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals(LoopingSkill.LOOPS, skill.getIterations());
+        assertTrue(runner.hasBeenExecuted());
+
+        SchedulingStatistics.Latency latency = executor.getStatistics().get(runner.getId().getCanonicalSkill());
+        assertNotNull(latency);
+        assertEquals(LoopingSkill.LOOPS, latency.getCount());
+        executor.shutdown();
+    }
+
+    @Test
+    public void threadedExecutorTest() throws Exception {
+        executeLoopingSkill(SkillExecutor.create(SkillExecutor.MODE_THREADS, 1));
+    }
+
+    @Test
+    public void virtualExecutorTest() throws Exception {
+        SkillExecutor executor = SkillExecutor.create(SkillExecutor.MODE_VIRTUAL, 1);
+        // virtual threads are used where the runtime has them, older runtimes fall back to platform threads
+        assertEquals(Runtime.version().feature() >= 21, ((ThreadedSkillExecutor) executor).isVirtual());
+        executeLoopingSkill(executor);
+    }
+
+    @Test
+    public void pausedThreadedExecutorTest() throws Exception {
+        SkillExecutor executor = SkillExecutor.create(SkillExecutor.MODE_THREADS, 1);
+        LoopingSkill skill = new LoopingSkill();
+        CompletableFuture<ExitStatus> result = new CompletableFuture<>();
+        SkillRunner runner = createRunner(skill, result);
+        runner.setPause(true);
+
+        executor.execute(runner);
+
+        Thread.sleep(200);
+        assertFalse(result.isDone());
+        assertEquals(0, skill.getIterations());
+
+        runner.setPause(false);
+        assertTrue(result.get(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals(LoopingSkill.LOOPS, skill.getIterations());
+        executor.shutdown();
+    }
+
+    @Test
+    public void scheduledExecutorTest() throws Exception {
+        executeLoopingSkill(SkillExecutor.create(SkillExecutor.MODE_SCHEDULED, 1));
+    }
+
+}
@@ -0,0 +1,203 @@
+package de.unibi.citec.clf.bonsai.engine.trace;
+
+import de.unibi.citec.clf.bonsai.core.SensorListener;
+import de.unibi.citec.clf.bonsai.core.configuration.IObjectConfigurator;
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
+import de.unibi.citec.clf.bonsai.core.object.Actuator;
+import de.unibi.citec.clf.bonsai.core.object.Sensor;
+import de.unibi.citec.clf.bonsai.engine.SkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.SkillRunner;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import de.unibi.citec.clf.bonsai.skills.LoopingSkill;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SkillTraceTest {
+
+    public interface TestActuator extends Actuator {
+        Future<Boolean> move();
+    }
+
+    private static List<RecordedEvent> record(Runnable run) throws IOException {
+        Path file = Files.createTempFile("skilltrace", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(SkillPhaseEvent.NAME).withoutThreshold();
+            recording.enable(SkillLoopEvent.NAME).withoutThreshold();
+            recording.enable(SensorReadEvent.NAME).withoutThreshold();
+            recording.enable(ActuatorWaitEvent.NAME).withoutThreshold();
+            recording.start();
+            run.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        try {
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void skillPhasesAndLoops() throws Exception {
+        StateID id = new StateID(LoopingSkill.class.getName());
+        List<RecordedEvent> events = record(() -> {
+            SkillRunner runner = new SkillRunner(new LoopingSkill(), id, null, null, null);
+            runner.configureOnStart(SkillConfigurator.getDefaultConf());
+            try {
+                assertTrue(runner.execute().isSuccess());
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        List<RecordedEvent> loops = ofType(events, SkillLoopEvent.NAME);
+        assertEquals(LoopingSkill.LOOPS, loops.size());
+        assertEquals(id.getCanonicalID(), loops.get(0).getString("state"));
+        assertEquals(LoopingSkill.class.getName(), loops.get(0).getClass("skill").getName());
+        assertEquals(5, loops.get(0).getLong("loopDelay"));
+        assertEquals(0, loops.get(LoopingSkill.LOOPS - 1).getLong("loopDelay"));
+        assertEquals("success", loops.get(LoopingSkill.LOOPS - 1).getString("exitStatus"));
+
+        List<String> phases = ofType(events, SkillPhaseEvent.NAME).stream()
+                .map(e -> e.getString("phase")).collect(Collectors.toList());
+        assertEquals(List.of(SkillPhaseEvent.CONFIGURE, SkillPhaseEvent.INIT, SkillPhaseEvent.EXECUTE,
+                SkillPhaseEvent.END), phases);
+    }
+
+    @Test
+    public void sensorAndActuatorWaits() throws Exception {
+        TracedSensor<String> sensor = new TracedSensor<>("TestSensor", new StringSensor());
+        CompletableFuture<Boolean> done = CompletableFuture.completedFuture(true);
+        TestActuator actuator = TracedActuator.wrap("TestActuator", TestActuator.class, testActuator(done));
+
+        SkillTrace trace = new SkillTrace(new StateID(LoopingSkill.class.getName()), LoopingSkill.class);
+        List<RecordedEvent> events = record(() -> {
+            SkillTrace previous = trace.enter();
+            try {
+                assertEquals("data", sensor.readLast(10));
+                assertTrue(actuator.move().get(1, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            } finally {
+                SkillTrace.restore(previous);
+            }
+        });
+        assertNull(SkillTrace.current());
+
+        List<RecordedEvent> reads = ofType(events, SensorReadEvent.NAME);
+        assertEquals(1, reads.size());
+        assertEquals("TestSensor", reads.get(0).getString("sensor"));
+        assertTrue(reads.get(0).getBoolean("received"));
+        assertEquals(trace.getState(), reads.get(0).getString("state"));
+
+        List<RecordedEvent> waits = ofType(events, ActuatorWaitEvent.NAME);
+        assertEquals(1, waits.size());
+        assertEquals("move", waits.get(0).getString("method"));
+        assertEquals(1000, waits.get(0).getLong("timeout"));
+        assertEquals(LoopingSkill.class.getName(), waits.get(0).getClass("skill").getName());
+    }
+
+    @Test
+    public void actuatorWrapping() throws Exception {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        TestActuator plain = testActuator(CompletableFuture.completedFuture(true));
+
+        TestActuator traced = TracedActuator.wrap("WrappedActuator", TestActuator.class, plain);
+        assertNotSame(plain, traced);
+        traced.move();
+        traced.move();
+        assertEquals(2, registry.actuator("WrappedActuator", "move").getCall().getCount());
+
+        registry.setActuatorMetricsEnabled(false);
+        try {
+            // neither metrics nor a recording need the proxy
+            assertSame(plain, TracedActuator.wrap("WrappedActuator", TestActuator.class, plain));
+        } finally {
+            registry.setActuatorMetricsEnabled(true);
+        }
+    }
+
+    private static TestActuator testActuator(Future<Boolean> done) {
+        return new TestActuator() {
+            @Override
+            public Future<Boolean> move() {
+                return done;
+            }
+
+            @Override
+            public void configure(IObjectConfigurator conf) {
+            }
+
+            @Override
+            public void cleanUp() {
+            }
+        };
+    }
+
+    private static class StringSensor implements Sensor<String> {
+        @Override
+        public Class<String> getDataType() {
+            return String.class;
+        }
+
+        @Override
+        public String getTarget() {
+            return "test";
+        }
+
+        @Override
+        public String readLast(long timeout) {
+            return "data";
+        }
+
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public void addSensorListener(SensorListener<String> listener) {
+        }
+
+        @Override
+        public void removeSensorListener(SensorListener<String> listener) {
+        }
+
+        @Override
+        public void removeAllSensorListeners() {
+        }
+
+        @Override
+        public void configure(IObjectConfigurator conf) {
+        }
+
+        @Override
+        public void cleanUp() {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package de.unibi.citec.clf.bonsai.memory;
+
+import de.unibi.citec.clf.bonsai.core.exception.CommunicationException;
+import de.unibi.citec.clf.bonsai.core.object.MemorySlot;
+import de.unibi.citec.clf.bonsai.core.object.MemorySlotReader;
+import de.unibi.citec.clf.bonsai.core.object.VersionedValue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentMemoryTest {
+
+    private static final int THREADS = 4;
+    private static final int INCREMENTS = 500;
+
+    @Test
+    public void versionAndCompareAndMemorizeTest() throws Exception {
+        ConcurrentMemory memory = new ConcurrentMemory();
+        MemorySlot<Integer> slot = memory.getSlot("/counter", Integer.class);
+        assertSame(slot, memory.getSlot("/counter", Integer.class));
+        assertEquals(0, slot.getVersion());
+
+        slot.memorize(1);
+        assertEquals(1, slot.getVersion());
+        assertFalse(slot.compareAndMemorize(0, 2));
+        assertTrue(slot.compareAndMemorize(1, 2));
+        assertEquals(Integer.valueOf(2), slot.recall());
+
+        slot.forget();
+        assertEquals(3, slot.getVersion());
+    }
+
+    @Test(expected = CommunicationException.class)
+    public void typeMismatchTest() throws Exception {
+        ConcurrentMemory memory = new ConcurrentMemory();
+        memory.getSlot("/slot", Integer.class);
+        memory.getSlot("/slot", String.class);
+    }
+
+    @Test
+    public void concurrentIncrementsTest() throws Exception {
+        ConcurrentMemory memory = new ConcurrentMemory();
+        MemorySlot<Integer> slot = memory.getSlot("/counter", Integer.class);
+        slot.memorize(0);
+        AtomicLong notified = new AtomicLong();
+        slot.addSlotListener((value, version) -> notified.incrementAndGet());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    for (int n = 0; n < INCREMENTS; n++) {
+                        VersionedValue<Integer> current;
+                        do {
+                            current = slot.recallVersioned();
+                        } while (!slot.compareAndMemorize(current.getVersion(), current.getValue() + 1));
+                    }
+                } catch (CommunicationException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(Integer.valueOf(THREADS * INCREMENTS), slot.recall());
+        assertEquals(THREADS * INCREMENTS + 1, slot.getVersion());
+        assertEquals(THREADS * INCREMENTS, notified.get());
+    }
+
+    @Test
+    public void listenerOrderTest() throws Exception {
+        ConcurrentMemory memory = new ConcurrentMemory();
+        MemorySlot<Integer> slot = memory.getSlot("/value", Integer.class);
+        // readers reach versions and listeners without casting
+        MemorySlotReader<Integer> reader = slot;
+        List<Long> versions = Collections.synchronizedList(new ArrayList<>());
+        reader.addSlotListener((value, version) -> versions.add(version));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    for (int n = 0; n < INCREMENTS; n++) {
+                        slot.memorize(n);
+                    }
+                } catch (CommunicationException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(THREADS * INCREMENTS, versions.size());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(i + 1, (long) versions.get(i));
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package de.unibi.citec.clf.bonsai.memory;
+
+import de.unibi.citec.clf.bonsai.core.object.WorkingMemory;
+import de.unibi.citec.clf.bonsai.core.object.WorkingMemoryToConfigure;
+import de.unibi.citec.clf.bonsai.memory.slots.ObjectSlot;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryFactoryTest {
+
+    private static WorkingMemoryToConfigure memory(Class<? extends WorkingMemory> memoryClass) {
+        WorkingMemoryToConfigure memory = new WorkingMemoryToConfigure();
+        memory.setKey("WorkingMemory");
+        memory.setMemoryClass(memoryClass);
+        memory.setMemoryOptions(new HashMap<>());
+        return memory;
+    }
+
+    @Test
+    public void reconfigureAfterCleanUpTest() throws Exception {
+        MemoryFactory factory = new MemoryFactory();
+        factory.configureWorkingMemories(Collections.singleton(memory(ConcurrentMemory.class)));
+        WorkingMemory wm = factory.createWorkingMemory("WorkingMemory");
+        assertTrue(wm instanceof ConcurrentMemory);
+        assertFalse(wm.getSlot("a", String.class) instanceof ObjectSlot);
+
+        // a reload with a changed configuration must not reuse the memory of the previous one
+        factory.cleanUp();
+        factory.configureWorkingMemories(Collections.singleton(memory(DefaultMemory.class)));
+        wm = factory.createWorkingMemory("WorkingMemory");
+        assertTrue(wm.getSlot("a", String.class) instanceof ObjectSlot);
+    }
+
+}
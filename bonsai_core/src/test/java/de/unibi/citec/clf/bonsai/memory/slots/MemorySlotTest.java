@@ -0,0 +1,74 @@
+package de.unibi.citec.clf.bonsai.memory.slots;
+
+import de.unibi.citec.clf.bonsai.core.object.MemorySlot;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MemorySlotTest {
+
+    @Test
+    public void objectSlotCopiesOnRecallTest() throws Exception {
+        MemorySlot<ArrayList> slot = new ObjectSlot<>(ArrayList.class);
+        ArrayList<String> list = new ArrayList<>();
+        list.add("a");
+        slot.memorize(list);
+
+        ArrayList first = slot.recall();
+        ArrayList second = slot.recall();
+        assertEquals(list, first);
+        assertNotSame(list, first);
+        assertNotSame(first, second);
+    }
+
+    /**
+     * Copy constructor that fails for some objects.
+     */
+    public static class Fragile implements Serializable {
+        public final String value;
+
+        public Fragile(String value) {
+            this.value = value;
+        }
+
+        public Fragile(Fragile other) {
+            if (other.value == null) {
+                throw new IllegalArgumentException("no value");
+            }
+            this.value = other.value;
+        }
+    }
+
+    @Test
+    public void copyStrategyFallbackTest() {
+        Fragile copy = CopyStrategy.of(new Fragile("a")).copy(new Fragile("a"));
+        assertEquals("a", copy.value);
+
+        // the copy constructor throws, serialization is used instead
+        Fragile empty = new Fragile((String) null);
+        Fragile emptyCopy = CopyStrategy.of(empty).copy(empty);
+        assertNotSame(empty, emptyCopy);
+        assertNull(emptyCopy.value);
+    }
+
+    @Test
+    public void immutableValuesAreNotCopiedTest() {
+        String value = "a";
+        assertSame(value, CopyStrategy.of(value).copy(value));
+        Integer number = 1000;
+        assertSame(number, CopyStrategy.of(number).copy(number));
+    }
+
+    @Test
+    public void copyStrategyIsCachedTest() {
+        ArrayList<String> list = new ArrayList<>();
+        assertSame(CopyStrategy.of(list), CopyStrategy.of(new ArrayList<String>()));
+    }
+
+}
@@ -0,0 +1,47 @@
+package de.unibi.citec.clf.bonsai.skills;
+
+import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
+import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
+import de.unibi.citec.clf.bonsai.engine.model.ExitToken;
+import de.unibi.citec.clf.bonsai.engine.model.config.ISkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.model.config.SkillConfigurationException;
+
+/**
+ * Loops {@link #LOOPS} times with a short delay, then succeeds.
+ */
+public class LoopingSkill extends AbstractSkill {
+
+    public static final int LOOPS = 5;
+
+    private ExitToken tokenSuccess;
+    private int iterations;
+
+    @Override
+    public void configure(ISkillConfigurator configurator) throws SkillConfigurationException {
+        tokenSuccess = configurator.requestExitToken(ExitStatus.SUCCESS());
+    }
+
+    @Override
+    public boolean init() {
+        iterations = 0;
+        return true;
+    }
+
+    @Override
+    public ExitToken execute() {
+        if (++iterations < LOOPS) {
+            return ExitToken.loop(5);
+        }
+        return tokenSuccess;
+    }
+
+    @Override
+    public ExitToken end(ExitToken curToken) {
+        return curToken;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+}
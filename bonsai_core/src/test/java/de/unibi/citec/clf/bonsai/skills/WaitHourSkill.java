@@ -0,0 +1,44 @@
+package de.unibi.citec.clf.bonsai.skills;
+
+import de.unibi.citec.clf.bonsai.core.time.Time;
+import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
+import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
+import de.unibi.citec.clf.bonsai.engine.model.ExitToken;
+import de.unibi.citec.clf.bonsai.engine.model.config.ISkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.model.config.SkillConfigurationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loops in steps of a minute until an hour has passed on the {@link Time clock}, then succeeds.
+ */
+public class WaitHourSkill extends AbstractSkill {
+
+    private ExitToken tokenSuccess;
+    private long start;
+
+    @Override
+    public void configure(ISkillConfigurator configurator) throws SkillConfigurationException {
+        tokenSuccess = configurator.requestExitToken(ExitStatus.SUCCESS());
+    }
+
+    @Override
+    public boolean init() {
+        start = Time.currentTimeMillis();
+        return true;
+    }
+
+    @Override
+    public ExitToken execute() {
+        if (Time.currentTimeMillis() - start < TimeUnit.HOURS.toMillis(1)) {
+            return ExitToken.loop(TimeUnit.MINUTES.toMillis(1));
+        }
+        return tokenSuccess;
+    }
+
+    @Override
+    public ExitToken end(ExitToken curToken) {
+        return curToken;
+    }
+
+}
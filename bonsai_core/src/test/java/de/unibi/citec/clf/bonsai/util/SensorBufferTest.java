@@ -0,0 +1,111 @@
+package de.unibi.citec.clf.bonsai.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SensorBufferTest {
+
+    @Test
+    public void latestValueTest() throws Exception {
+        checkLatestSemantics(SensorBuffer.create(SensorBuffer.TYPE_LATEST, 1));
+    }
+
+    @Test
+    public void ringTest() throws Exception {
+        checkLatestSemantics(SensorBuffer.create(SensorBuffer.TYPE_RING, 1));
+        checkQueueSemantics(SensorBuffer.create(SensorBuffer.TYPE_RING, 4));
+    }
+
+    @Test
+    public void synchronizedTest() throws Exception {
+        checkLatestSemantics(SensorBuffer.create(SensorBuffer.TYPE_SYNCHRONIZED, 1));
+        checkQueueSemantics(SensorBuffer.create(SensorBuffer.TYPE_SYNCHRONIZED, 4));
+    }
+
+    private void checkLatestSemantics(SensorBuffer<Integer> buffer) throws Exception {
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.next(10));
+
+        buffer.push(1);
+        buffer.push(2);
+        assertFalse(buffer.isEmpty());
+        assertEquals(Integer.valueOf(2), buffer.front());
+        assertEquals(Integer.valueOf(2), buffer.nextCached(10));
+        assertTrue(buffer.isEmpty());
+        assertEquals(2, buffer.getPushCount());
+        assertEquals(1, buffer.getDropCount());
+
+        // the cached element is returned once after a timeout
+        assertEquals(Integer.valueOf(2), buffer.nextCached(10));
+        assertNull(buffer.nextCached(10));
+
+        buffer.push(3);
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        // cleared elements are not counted as dropped
+        assertEquals(3, buffer.getPushCount());
+        assertEquals(1, buffer.getDropCount());
+    }
+
+    private void checkQueueSemantics(SensorBuffer<Integer> buffer) throws Exception {
+        buffer.push(1);
+        buffer.push(2);
+        buffer.push(3);
+        assertEquals(Integer.valueOf(3), buffer.next(10));
+        // older elements are kept until they are read
+        assertFalse(buffer.isEmpty());
+        assertEquals(Integer.valueOf(2), buffer.front());
+        assertEquals(Integer.valueOf(2), buffer.next(10));
+
+        buffer.push(4);
+        assertEquals(Integer.valueOf(4), buffer.next(10));
+        assertEquals(Integer.valueOf(1), buffer.next(10));
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.next(10));
+        assertEquals(0, buffer.getDropCount());
+    }
+
+    @Test
+    public void ringDrainTest() {
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.push(i);
+        }
+        assertEquals(Integer.valueOf(5), buffer.front());
+        assertEquals(Arrays.asList(3, 4, 5), buffer.drain());
+        assertTrue(buffer.isEmpty());
+        assertEquals(2, buffer.getDropCount());
+
+        // read elements are neither drained nor dropped again
+        buffer.push(6);
+        buffer.push(7);
+        assertEquals(Integer.valueOf(7), buffer.front());
+        buffer.push(8);
+        buffer.push(9);
+        assertEquals(Arrays.asList(7, 8, 9), buffer.drain());
+        assertEquals(3, buffer.getDropCount());
+    }
+
+    @Test(timeout = 5000)
+    public void blockingReadTest() throws Exception {
+        SensorBuffer<Integer> buffer = new LatestValueBuffer<>();
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            buffer.push(42);
+        });
+        producer.start();
+        assertEquals(Integer.valueOf(42), buffer.next(0));
+        producer.join();
+    }
+
+}
@@ -0,0 +1,209 @@
+package de.unibi.citec.clf.bonsai.util.logging;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncLoggingTest {
+
+    private static final String NAME = "de.unibi.citec.clf.bonsai.util.logging.test";
+
+    private static class Capture extends AppenderSkeleton {
+        final List<LoggingEvent> events = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch blocked = null;
+        volatile Thread thread = null;
+
+        @Override
+        protected void append(LoggingEvent event) {
+            thread = Thread.currentThread();
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        Logger logger = Logger.getLogger(NAME);
+        logger.removeAllAppenders();
+        logger.setLevel(null);
+        logger.setAdditivity(true);
+    }
+
+    private Capture attach(Level level) {
+        Capture capture = new Capture();
+        Logger logger = Logger.getLogger(NAME);
+        logger.setAdditivity(false);
+        logger.setLevel(level);
+        logger.addAppender(capture);
+        return capture;
+    }
+
+    @Test
+    public void formatTest() {
+        StringBuilder out = new StringBuilder();
+        assertEquals(2, LazyLogger.format(out, "a {} b {} c {}", new Object[]{1, null}));
+        assertEquals("a 1 b null c {}", out.toString());
+    }
+
+    @Test
+    public void lazyLoggerTest() {
+        Capture capture = attach(Level.INFO);
+        LazyLogger logger = LazyLogger.getLogger(NAME);
+        assertSame(logger, LazyLogger.getLogger(NAME));
+
+        AtomicInteger built = new AtomicInteger();
+        logger.debug(() -> "built " + built.incrementAndGet());
+        logger.debug("dropped {}", new Object() {
+            @Override
+            public String toString() {
+                built.incrementAndGet();
+                return "arg";
+            }
+        });
+        assertEquals(0, built.get());
+        assertTrue(capture.events.isEmpty());
+
+        Exception cause = new IllegalStateException("cause");
+        logger.info("{} -> {}", "a", "b");
+        logger.warn("failed", cause);
+        assertEquals(2, capture.events.size());
+        assertEquals("a -> b", capture.events.get(0).getRenderedMessage());
+        assertEquals("failed", capture.events.get(1).getRenderedMessage());
+        assertSame(cause, capture.events.get(1).getThrowableInformation().getThrowable());
+
+        // level changes apply at once
+        Logger.getLogger(NAME).setLevel(Level.DEBUG);
+        assertTrue(logger.isDebugEnabled());
+        logger.debug(() -> "built " + built.incrementAndGet());
+        assertEquals("built 1", capture.events.get(2).getRenderedMessage());
+    }
+
+    @Test(timeout = 10000)
+    public void asyncAppenderTest() throws Exception {
+        Capture capture = new Capture();
+        AsyncRingAppender async = new AsyncRingAppender(4);
+        async.setName("test");
+        async.addAppender(capture);
+        async.activateOptions();
+        Logger logger = Logger.getLogger(NAME);
+        logger.setAdditivity(false);
+        logger.setLevel(Level.ALL);
+        logger.addAppender(async);
+
+        // block the writer, so the ring fills up
+        capture.blocked = new CountDownLatch(1);
+        logger.info("first");
+        while (capture.thread == null) {
+            Thread.sleep(1);
+        }
+        assertFalse(Thread.currentThread() == capture.thread);
+        for (int i = 0; i < 10; i++) {
+            logger.debug("event " + i);
+        }
+        assertEquals(6, async.getDroppedCount());
+        capture.blocked.countDown();
+
+        async.close();
+        // first, four queued events and the report of the dropped events
+        assertEquals(6, capture.events.size());
+        assertEquals("first", capture.events.get(0).getRenderedMessage());
+        assertEquals("event 3", capture.events.get(4).getRenderedMessage());
+        assertEquals("ring full, dropped 6 events", capture.events.get(5).getRenderedMessage());
+    }
+
+    @Test(timeout = 10000)
+    public void installTest() throws Exception {
+        StringWriter out = new StringWriter();
+        WriterAppender writer = new WriterAppender(new PatternLayout("%p %m%n"), out);
+        writer.setName("writer");
+        Logger logger = Logger.getLogger(NAME);
+        logger.setAdditivity(false);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(writer);
+
+        List<AsyncRingAppender> installed = AsyncRingAppender.install();
+        try {
+            Appender appender = logger.getAppender("async-" + NAME);
+            assertTrue(appender instanceof AsyncRingAppender);
+            assertTrue(installed.contains(appender));
+            assertSame(writer, ((AsyncRingAppender) appender).getAppender("writer"));
+            assertNull(logger.getAppender("writer"));
+            assertTrue("installing again keeps the ring", AsyncRingAppender.install().isEmpty());
+
+            // the moved appender is still open and writes in the background
+            logger.info("moved");
+            while (!out.toString().contains("INFO moved")) {
+                Thread.sleep(1);
+            }
+        } finally {
+            uninstall(installed);
+        }
+        assertSame(writer, logger.getAppender("writer"));
+        logger.info("again");
+        assertTrue(out.toString().contains("INFO again"));
+    }
+
+    /**
+     * Puts the appenders moved by {@link AsyncRingAppender#install()} back, without closing them.
+     */
+    private static void uninstall(List<AsyncRingAppender> installed) {
+        List<Logger> loggers = new ArrayList<>();
+        loggers.add(LogManager.getRootLogger());
+        for (Object logger : Collections.list(LogManager.getCurrentLoggers())) {
+            loggers.add((Logger) logger);
+        }
+        for (Logger logger : loggers) {
+            for (AsyncRingAppender async : installed) {
+                if (logger.getAppender(async.getName()) != async) {
+                    continue;
+                }
+                logger.removeAppender(async);
+                for (Object moved : Collections.list(async.getAllAppenders())) {
+                    async.removeAppender((Appender) moved);
+                    logger.addAppender((Appender) moved);
+                }
+                async.close();
+            }
+        }
+    }
+
+}
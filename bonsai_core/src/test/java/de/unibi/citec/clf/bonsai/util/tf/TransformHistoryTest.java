@@ -0,0 +1,134 @@
+package de.unibi.citec.clf.bonsai.util.tf;
+
+import de.unibi.citec.clf.bonsai.core.exception.ExtrapolationException;
+import org.junit.Test;
+
+import javax.vecmath.Quat4d;
+import javax.vecmath.Vector3d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TransformHistoryTest {
+
+    private static final double EPSILON = 1e-9;
+
+    static TransformSample sample(long stamp, double x, double yaw) {
+        Quat4d rotation = new Quat4d(0, 0, Math.sin(yaw / 2), Math.cos(yaw / 2));
+        return new TransformSample(stamp, "child", "parent", new Vector3d(x, 0, 0), rotation);
+    }
+
+    static double yaw(TransformSample sample) {
+        Quat4d q = sample.getRotation();
+        return 2 * Math.atan2(q.z, q.w);
+    }
+
+    @Test
+    public void interpolationTest() throws Exception {
+        TransformHistory history = new TransformHistory(1000);
+        history.add(sample(100, 0, 0));
+        history.add(sample(200, 2, Math.PI / 2));
+
+        TransformSample between = history.get(150);
+        assertEquals(150, between.getStamp());
+        assertEquals(1.0, between.getTranslation().x, EPSILON);
+        assertEquals(Math.PI / 4, yaw(between), EPSILON);
+
+        TransformSample quarter = history.get(125);
+        assertEquals(0.5, quarter.getTranslation().x, EPSILON);
+        assertEquals(Math.PI / 8, yaw(quarter), EPSILON);
+    }
+
+    @Test
+    public void exactAndLatestTest() throws Exception {
+        TransformHistory history = new TransformHistory(1000);
+        assertNull(history.get(0));
+        assertNull(history.getLatest());
+
+        TransformSample first = sample(100, 0, 0);
+        TransformSample second = sample(200, 1, 0);
+        history.add(second);
+        history.add(first);
+
+        assertSame(second, history.getLatest());
+        assertSame(second, history.get(0));
+        assertSame(second, history.get(200));
+        assertSame(first, history.get(100));
+    }
+
+    @Test
+    public void lateSampleTest() throws Exception {
+        TransformHistory history = new TransformHistory(1000);
+        history.add(sample(100, 0, 0));
+        history.add(sample(300, 2, 0));
+        history.add(sample(200, 10, 0));
+
+        assertEquals(3, history.size());
+        assertEquals(5.0, history.get(150).getTranslation().x, EPSILON);
+        assertEquals(6.0, history.get(250).getTranslation().x, EPSILON);
+    }
+
+    @Test
+    public void evictionTest() throws Exception {
+        TransformHistory history = new TransformHistory(100);
+        for (long stamp = 0; stamp <= 1000; stamp += 10) {
+            history.add(sample(stamp, stamp, 0));
+        }
+        assertEquals(11, history.size());
+        assertEquals(950.0, history.get(950).getTranslation().x, EPSILON);
+
+        // older than the whole history
+        history.add(sample(500, 0, 0));
+        assertEquals(11, history.size());
+
+        try {
+            history.get(850);
+            fail("evicted samples must not be used");
+        } catch (ExtrapolationException e) {
+            assertEquals(900, e.getOldest());
+            assertEquals(1000, e.getNewest());
+        }
+    }
+
+    @Test
+    public void capacityTest() throws Exception {
+        TransformHistory history = new TransformHistory(Long.MAX_VALUE / 2);
+        int samples = TransformHistory.MAX_CAPACITY + 10;
+        for (int i = 1; i <= samples; i++) {
+            history.add(sample(i, i, 0));
+        }
+        assertEquals(TransformHistory.MAX_CAPACITY, history.size());
+        assertEquals(samples, history.getLatest().getStamp());
+        assertEquals(samples - 100, history.get(samples - 100).getTranslation().x, EPSILON);
+        try {
+            history.get(10);
+            fail("the oldest samples are dropped at the capacity");
+        } catch (ExtrapolationException e) {
+            assertEquals(11, e.getOldest());
+        }
+    }
+
+    @Test
+    public void extrapolationTest() throws Exception {
+        TransformHistory history = new TransformHistory(1000);
+        history.add(sample(100, 0, 0));
+        history.add(sample(200, 1, 0));
+
+        try {
+            history.get(99);
+            fail("lookups before the history must fail");
+        } catch (ExtrapolationException e) {
+            assertEquals("child", e.getFrame());
+            assertEquals(99, e.getTime());
+        }
+        try {
+            history.get(201);
+            fail("lookups after the history must fail");
+        } catch (ExtrapolationException e) {
+            assertEquals(201, e.getTime());
+        }
+    }
+
+}
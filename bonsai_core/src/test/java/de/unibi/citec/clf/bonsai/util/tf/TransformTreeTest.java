@@ -0,0 +1,204 @@
+package de.unibi.citec.clf.bonsai.util.tf;
+
+import de.unibi.citec.clf.bonsai.core.exception.ExtrapolationException;
+import de.unibi.citec.clf.bonsai.core.exception.TransformException;
+import org.junit.Test;
+
+import javax.vecmath.Quat4d;
+import javax.vecmath.Vector3d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransformTreeTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final Quat4d IDENTITY = new Quat4d(0, 0, 0, 1);
+
+    private static TransformSample translation(long stamp, String frame, String parent, double x) {
+        return new TransformSample(stamp, frame, parent, new Vector3d(x, 0, 0), IDENTITY);
+    }
+
+    private static double x(TransformSample sample) {
+        return sample.getTranslation().x;
+    }
+
+    @Test
+    public void chainLookupTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        tree.update(translation(100, "base", "odom", 1));
+        tree.update(translation(200, "base", "odom", 3));
+        tree.updateStatic(translation(0, "laser", "base", 0.5));
+        tree.updateStatic(translation(0, "/odom", "/map", 10));
+
+        assertEquals(13.5, x(tree.lookup("laser", "map", 200)), EPSILON);
+        assertEquals(12.5, x(tree.lookup("/laser", "map", 150)), EPSILON);
+        assertEquals(-12.5, x(tree.lookup("map", "laser", 150)), EPSILON);
+        assertEquals(2.5, x(tree.lookup("laser", "odom", 150)), EPSILON);
+
+        TransformSample latest = tree.lookup("laser", "map", 0);
+        assertEquals(200, latest.getStamp());
+        assertEquals(13.5, x(latest), EPSILON);
+
+        TransformSample fullyStatic = tree.lookup("odom", "map", 0);
+        assertEquals(0, fullyStatic.getStamp());
+        assertEquals(10, x(fullyStatic), EPSILON);
+    }
+
+    @Test
+    public void differentRatesTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        long ms = 1000000;
+        // odom is published at a lower rate than base_link
+        tree.update(translation(900 * ms, "odom", "map", 10));
+        tree.update(translation(1000 * ms, "odom", "map", 20));
+        tree.update(translation(920 * ms, "base_link", "odom", 1));
+        tree.update(translation(1020 * ms, "base_link", "odom", 2));
+        tree.update(translation(1010 * ms, "gripper", "odom", 5));
+
+        // the newest lookup uses the latest time both frames are known at
+        TransformSample latest = tree.lookup("base_link", "map", 0);
+        assertEquals(1000 * ms, latest.getStamp());
+        assertEquals(21.8, x(latest), EPSILON);
+
+        // also across both sides of the path
+        TransformSample between = tree.lookup("base_link", "gripper", 0);
+        assertEquals(1010 * ms, between.getStamp());
+        assertEquals(1.9 - 5, x(between), EPSILON);
+
+        // a single dynamic frame still uses its newest transform
+        assertEquals(1020 * ms, tree.lookup("base_link", "odom", 0).getStamp());
+    }
+
+    @Test
+    public void rotatedChainTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        Quat4d quarter = new Quat4d(0, 0, Math.sin(Math.PI / 4), Math.cos(Math.PI / 4));
+        tree.updateStatic(new TransformSample(0, "arm", "base", new Vector3d(1, 0, 0), quarter));
+        tree.updateStatic(translation(0, "hand", "arm", 1));
+
+        Vector3d hand = tree.lookup("hand", "base", 0).getTranslation();
+        assertEquals(1, hand.x, EPSILON);
+        assertEquals(1, hand.y, EPSILON);
+    }
+
+    @Test
+    public void unconnectedTest() {
+        TransformTree tree = new TransformTree(1.0);
+        tree.update(translation(100, "a", "root_a", 1));
+        tree.update(translation(100, "b", "root_b", 1));
+        try {
+            tree.lookup("a", "b", 0);
+            fail("frames of different trees must not be connected");
+        } catch (ExtrapolationException e) {
+            fail("not an extrapolation");
+        } catch (TransformException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void extrapolationTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        tree.update(translation(100, "base", "odom", 1));
+        tree.update(translation(200, "base", "odom", 3));
+        tree.updateStatic(translation(0, "laser", "base", 0.5));
+
+        try {
+            tree.lookup("laser", "odom", 300);
+            fail("lookups after the history must fail");
+        } catch (ExtrapolationException e) {
+            assertEquals("base", e.getFrame());
+        }
+        try {
+            tree.get("base", 50);
+            fail("lookups before the history must fail");
+        } catch (ExtrapolationException e) {
+            assertEquals(100, e.getOldest());
+        }
+        // static transforms are valid at every time
+        assertEquals(0.5, x(tree.get("laser", 300)), EPSILON);
+    }
+
+    @Test
+    public void cachedChainTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        tree.update(translation(100, "base", "odom", 1));
+        tree.updateStatic(translation(0, "laser", "base", 0.5));
+        long version = tree.getTopologyVersion();
+
+        FrameChain chain = tree.chain("laser");
+        assertEquals("odom", chain.getRoot());
+        assertFalse(chain.isFullyStatic());
+
+        // new samples of known frames keep the topology and the cached chain
+        tree.update(translation(200, "base", "odom", 3));
+        assertEquals(version, tree.getTopologyVersion());
+        assertSame(chain, tree.chain("laser"));
+        assertEquals(3.5, x(tree.lookup("laser", "odom", 0)), EPSILON);
+    }
+
+    @Test
+    public void newFrameInvalidatesChainTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        tree.update(translation(100, "base", "odom", 1));
+        FrameChain chain = tree.chain("base");
+        assertEquals(1.0, x(tree.lookup("base", "odom", 0)), EPSILON);
+
+        tree.update(translation(100, "odom", "map", 10));
+
+        FrameChain rebuilt = tree.chain("base");
+        assertNotSame(chain, rebuilt);
+        assertEquals("map", rebuilt.getRoot());
+        assertEquals(11.0, x(tree.lookup("base", "map", 0)), EPSILON);
+    }
+
+    @Test
+    public void reparentInvalidatesChainTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        tree.updateStatic(translation(0, "odom", "map", 10));
+        tree.updateStatic(translation(0, "other", "map", 20));
+        tree.update(translation(100, "base", "odom", 1));
+        assertEquals(11.0, x(tree.lookup("base", "map", 0)), EPSILON);
+        FrameChain chain = tree.chain("base");
+        long version = tree.getTopologyVersion();
+
+        tree.update(translation(200, "base", "other", 2));
+
+        assertTrue(tree.getTopologyVersion() > version);
+        assertNotSame(chain, tree.chain("base"));
+        // a stale path would still compose base -> odom -> map
+        assertEquals(22.0, x(tree.lookup("base", "map", 0)), EPSILON);
+        assertEquals(12.0, x(tree.lookup("base", "odom", 0)), EPSILON);
+    }
+
+    @Test
+    public void staticUpdateInvalidatesChainTest() throws Exception {
+        TransformTree tree = new TransformTree(1.0);
+        tree.updateStatic(translation(0, "laser", "base", 0.5));
+        tree.update(translation(100, "base", "odom", 1));
+        assertEquals(1.5, x(tree.lookup("laser", "odom", 0)), EPSILON);
+        assertTrue(tree.chain("odom").isEmpty());
+
+        // a corrected calibration replaces the precomposed static hop
+        tree.updateStatic(translation(0, "laser", "base", 0.7));
+        assertEquals(1.7, x(tree.lookup("laser", "odom", 0)), EPSILON);
+
+        // a dynamic frame that becomes static drops its history
+        tree.updateStatic(translation(0, "base", "odom", 5));
+        FrameChain chain = tree.chain("laser");
+        assertTrue(chain.isFullyStatic());
+        assertEquals(5.7, x(tree.lookup("laser", "odom", 0)), EPSILON);
+        assertEquals(5.7, x(tree.lookup("laser", "odom", 12345)), EPSILON);
+
+        // and a static frame that becomes dynamic gets one again
+        tree.update(translation(300, "base", "odom", 2));
+        assertNotSame(chain, tree.chain("laser"));
+        assertEquals(2.7, x(tree.lookup("laser", "odom", 0)), EPSILON);
+    }
+
+}
@@ -0,0 +1,291 @@
+package de.unibi.citec.clf.bonsai.util.slam;
+
+import de.unibi.citec.clf.btl.data.map.GridMap;
+
+import java.util.Arrays;
+
+/**
+ * Array based variant of the navigation graph of {@link SlamTools#generateNavigationGraph(GridMap, int)}.
+ * <p>
+ * The map is divided into blocks of <code>binsPerNode x binsPerNode</code> bins, each block is one node. A node is
+ * clear if its block contains clear bins and no obstacle. Clear nodes are connected to their eight neighbors if these
+ * are clear as well. Nodes are numbered <code>nx + ny * nodesX</code>, so finding the node of a bin is a computation
+ * instead of a search and edges are implicit.
+ */
+public class NavigationGrid {
+
+    private static final float SLAM_MIDDLE_VALUE = 0.5f;
+    private static final float SLAM_TOLERANCE = 0.001f;
+    private static final double WEIGHT_STRAIGHT = 1.0;
+    private static final double WEIGHT_DIAGONAL = Math.sqrt(2.0);
+    private static final int[] NEIGHBOR_X = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] NEIGHBOR_Y = {0, 0, -1, 1, -1, 1, -1, 1};
+    private static final double[] NEIGHBOR_WEIGHT = {
+            WEIGHT_STRAIGHT, WEIGHT_STRAIGHT, WEIGHT_STRAIGHT, WEIGHT_STRAIGHT,
+            WEIGHT_DIAGONAL, WEIGHT_DIAGONAL, WEIGHT_DIAGONAL, WEIGHT_DIAGONAL};
+
+    private final int binsPerNode;
+    private final int anchorOffset;
+    private final int nodesX;
+    private final int nodesY;
+    private final boolean[] clear;
+
+    /**
+     * Shortest path distances from one source node to all nodes.
+     */
+    public final class DistanceField {
+
+        private final double[] distances;
+
+        private DistanceField(double[] distances) {
+            this.distances = distances;
+        }
+
+        /**
+         * @param x the x index of the target bin
+         * @param y the y index of the target bin
+         * @return the distance in nodes to the node nearest to the bin or {@link Double#MAX_VALUE} if it is not
+         * reachable
+         */
+        public double getDistance(int x, int y) {
+            int node = getNearestNode(x, y);
+            return (node < 0) ? Double.MAX_VALUE : distances[node];
+        }
+
+        /**
+         * Distances to many bins, see {@link #getDistance(int, int)}.
+         *
+         * @param xs the x indices of the target bins
+         * @param ys the y indices of the target bins
+         * @return the distance for each target
+         */
+        public double[] getDistances(int[] xs, int[] ys) {
+            if (xs.length != ys.length) {
+                throw new IllegalArgumentException("got " + xs.length + " x and " + ys.length + " y indices");
+            }
+            double[] result = new double[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                result[i] = getDistance(xs[i], ys[i]);
+            }
+            return result;
+        }
+
+        /**
+         * @return the distance to a node or {@link Double#MAX_VALUE} if it is not reachable
+         */
+        public double getNodeDistance(int node) {
+            return distances[node];
+        }
+    }
+
+    /**
+     * Generates the navigation grid of a map.
+     *
+     * @param map         the map
+     * @param binsPerNode the number of bins that belong to one node on one axis
+     */
+    public NavigationGrid(GridMap map, int binsPerNode) {
+        if (binsPerNode <= 0) {
+            throw new IllegalArgumentException("bins per node must be positive: " + binsPerNode);
+        }
+        this.binsPerNode = binsPerNode;
+        // same anchor as the nodes of SlamTools
+        this.anchorOffset = (binsPerNode / 2) / 2;
+        this.nodesX = (map.getWidth() >= binsPerNode) ? (map.getWidth() - binsPerNode) / binsPerNode + 1 : 0;
+        this.nodesY = (map.getHeight() >= binsPerNode) ? (map.getHeight() - binsPerNode) / binsPerNode + 1 : 0;
+        this.clear = new boolean[nodesX * nodesY];
+        for (int ny = 0; ny < nodesY; ny++) {
+            for (int nx = 0; nx < nodesX; nx++) {
+                clear[nx + ny * nodesX] = isAreaClear(map, nx * binsPerNode, ny * binsPerNode);
+            }
+        }
+    }
+
+    private boolean isAreaClear(GridMap map, int x0, int y0) {
+        boolean foundClear = false;
+        for (int y = y0; y < y0 + binsPerNode; y++) {
+            for (int x = x0; x < x0 + binsPerNode; x++) {
+                float value = map.getValue(x, y);
+                if (value < SLAM_MIDDLE_VALUE - SLAM_TOLERANCE) {
+                    return false;
+                } else if (value >= SLAM_MIDDLE_VALUE + SLAM_TOLERANCE) {
+                    foundClear = true;
+                }
+            }
+        }
+        return foundClear;
+    }
+
+    public int getBinsPerNode() {
+        return binsPerNode;
+    }
+
+    public int getNodesX() {
+        return nodesX;
+    }
+
+    public int getNodesY() {
+        return nodesY;
+    }
+
+    public int getNodeCount() {
+        return clear.length;
+    }
+
+    public boolean isClear(int node) {
+        return clear[node];
+    }
+
+    public int getAnchorX(int node) {
+        return (node % nodesX) * binsPerNode + anchorOffset;
+    }
+
+    public int getAnchorY(int node) {
+        return (node / nodesX) * binsPerNode + anchorOffset;
+    }
+
+    /**
+     * The node whose anchor is nearest to a bin, like {@link SlamTools#getNearestNode}.
+     *
+     * @param x the x index of the bin
+     * @param y the y index of the bin
+     * @return the node or <code>-1</code> if the grid is empty
+     */
+    public int getNearestNode(int x, int y) {
+        if (clear.length == 0) {
+            return -1;
+        }
+        // anchors form a lattice, so the nearest anchor is the nearest one on each axis
+        return nearestOnAxis(x, nodesX) + nearestOnAxis(y, nodesY) * nodesX;
+    }
+
+    private int nearestOnAxis(int bin, int nodes) {
+        int index = (int) Math.ceil((bin - anchorOffset) / (double) binsPerNode - 0.5);
+        return Math.max(0, Math.min(nodes - 1, index));
+    }
+
+    /**
+     * Computes the shortest path distances from the node nearest to a bin to all nodes.
+     *
+     * @param x the x index of the source bin
+     * @param y the y index of the source bin
+     * @return the distances, in nodes
+     */
+    public DistanceField getDistanceField(int x, int y) {
+        double[] distances = new double[clear.length];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        int source = getNearestNode(x, y);
+        if (source < 0) {
+            return new DistanceField(distances);
+        }
+
+        distances[source] = 0;
+        NodeHeap heap = new NodeHeap(clear.length, distances);
+        heap.push(source);
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (!clear[node]) {
+                continue;
+            }
+            int nx = node % nodesX;
+            int ny = node / nodesX;
+            for (int k = 0; k < NEIGHBOR_X.length; k++) {
+                int ox = nx + NEIGHBOR_X[k];
+                int oy = ny + NEIGHBOR_Y[k];
+                if (ox < 0 || oy < 0 || ox >= nodesX || oy >= nodesY) {
+                    continue;
+                }
+                int other = ox + oy * nodesX;
+                double distance = distances[node] + NEIGHBOR_WEIGHT[k];
+                if (clear[other] && distance < distances[other]) {
+                    distances[other] = distance;
+                    heap.push(other);
+                }
+            }
+        }
+        return new DistanceField(distances);
+    }
+
+    /**
+     * Binary min heap of node ids ordered by their distance, with decrease key.
+     */
+    private static final class NodeHeap {
+        private final int[] heap;
+        private final int[] position;
+        private final double[] keys;
+        private int size = 0;
+
+        NodeHeap(int capacity, double[] keys) {
+            this.heap = new int[capacity];
+            this.position = new int[capacity];
+            this.keys = keys;
+            Arrays.fill(position, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Inserts a node or moves it up after its key decreased.
+         */
+        void push(int node) {
+            int i = position[node];
+            if (i < 0) {
+                i = size++;
+                heap[i] = node;
+                position[node] = i;
+            }
+            siftUp(i);
+        }
+
+        int pop() {
+            int top = heap[0];
+            position[top] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int i) {
+            int node = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[heap[parent]] <= keys[node]) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                position[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+
+        private void siftDown(int i) {
+            int node = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[node] <= keys[heap[child]]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                position[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+    }
+
+}
@@ -3,14 +3,12 @@ package de.unibi.citec.clf.bonsai.util.slam;
 
 
 import de.unibi.citec.clf.btl.data.map.BinarySlamMap;
-import de.unibi.citec.clf.btl.data.map.DynamicGridMap;
+import de.unibi.citec.clf.btl.data.map.GridMap;
 import edu.uci.ics.jung.algorithms.shortestpath.DijkstraDistance;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.UndirectedSparseMultigraph;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.util.Map;
 import org.apache.commons.collections15.Transformer;
 import org.apache.log4j.Logger;
@@ -44,24 +42,26 @@ public class SlamTools {
         return gridMapToImage(slamMap.getDynamicGridMap());
     }
 
-    public static BufferedImage gridMapToImage(DynamicGridMap map) {
-        // Graphics setup, gray level image etc.
-        BufferedImage image = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D g2d = image.createGraphics();
-
-        // Create one pixel for each point in the occupancy grid
-        for (int x = 0; x < map.getWidth(); x++) {
-            for (int y = 0; y < map.getHeight(); y++) {
-                // Create a grey value from the occupancy value (0 = black =
-                // occupied, 1 = white = unoccupied).
-                float mapValue = map.getGridMap()[x][y];
-                g2d.setColor(new Color(mapValue, mapValue, mapValue));
-
-                // Create a 1 pixel rectangle and draw it (mirroring the y
-                // coordinate, because of the occupancy grids layout, described
-                // at the top).
-                Rectangle2D pixelRect = new Rectangle2D.Double(x, (map.getHeight() - 1) - y, 1, 1);
-                g2d.draw(pixelRect);
+    /**
+     * Converts a grid map to a gray level image, 0 = black = occupied, 1 = white = unoccupied. The pixels are
+     * written directly into the raster of the image.
+     *
+     * @param map
+     *            The grid map, must not be null.
+     * @return An image of the occupancy grid in its original size (1 grid cell
+     *         = 1 pixel), never null.
+     */
+    public static BufferedImage gridMapToImage(GridMap map) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        // mirror the y coordinate, because of the occupancy grids layout, described at the top
+        for (int y = 0; y < height; y++) {
+            int row = ((height - 1) - y) * width;
+            for (int x = 0; x < width; x++) {
+                pixels[row + x] = (byte) Math.round(map.getValue(x, y) * 255f);
             }
         }
 
@@ -148,6 +148,7 @@ public class SlamTools {
      * @param y
      *            The map bin's y coordinate.
      * @return The corresponding node.
+     * @see NavigationGrid#getNearestNode(int, int)
      */
     public static Node getNearestNode(Graph<Node, Edge> g, int x, int y) {
 
@@ -177,10 +178,10 @@ public class SlamTools {
      * @param targetY
      *            The target map bin's y coordinate.
      * @return the shortest path distance to the given bin.
+     * @see NavigationGrid.DistanceField#getDistance(int, int)
      */
     public static double getDistance(Graph<Node, Edge> g, Map<Node, Number> distanceMap, int targetX, int targetY) {
 
-        // TODO this can be implemented much faster!!!
         Node target = getNearestNode(g, targetX, targetY);
         if (distanceMap.containsKey(target)) {
             return distanceMap.get(target).doubleValue();
@@ -224,8 +225,9 @@ public class SlamTools {
      *            node on one axis. That means one node will correspond to
      *            numBinsPerNode^2 map bins.
      * @return The graph.
+     * @see NavigationGrid
      */
-    public static Graph<Node, Edge> generateNavigationGraph(DynamicGridMap slamMap, int numBinsPerNode) {
+    public static Graph<Node, Edge> generateNavigationGraph(GridMap slamMap, int numBinsPerNode) {
 
         UndirectedSparseMultigraph<Node, Edge> g = new UndirectedSparseMultigraph<>();
         int halfSize = numBinsPerNode / 2;
@@ -268,7 +270,7 @@ public class SlamTools {
                 }
 
                 // edge to beneath left node
-                if (y + numBinsPerNode < slamMap.getHeight() && x - numBinsPerNode >= 0) {
+                if (y + numBinsPerNode <= slamMap.getHeight() - numBinsPerNode && x - numBinsPerNode >= 0) {
                     Node otherNode = nodeMap[x - numBinsPerNode][y + numBinsPerNode];
                     if (n.isclear() && otherNode.isclear()) {
                         g.addEdge(new Edge(WEIGHT_DIAGONAL), n, otherNode);
@@ -280,7 +282,7 @@ public class SlamTools {
         return g;
     }
 
-    private static boolean isAreaClear(DynamicGridMap slamMap, int topLeftX, int topLeftY, int areaSize) {
+    private static boolean isAreaClear(GridMap slamMap, int topLeftX, int topLeftY, int areaSize) {
 
         boolean foundObstacle = false;
         boolean foundUnknown = false;
@@ -293,9 +295,10 @@ public class SlamTools {
                 if (y >= slamMap.getHeight()) {
                     break;
                 }
-                if (slamMap.getValue(x, y) < SLAM_MIDDLE_VALUE - SLAM_TOLERANCE) {
+                float value = slamMap.getValue(x, y);
+                if (value < SLAM_MIDDLE_VALUE - SLAM_TOLERANCE) {
                     foundObstacle = true;
-                } else if (slamMap.getValue(x, y) < SLAM_MIDDLE_VALUE + SLAM_TOLERANCE) {
+                } else if (value < SLAM_MIDDLE_VALUE + SLAM_TOLERANCE) {
                     foundUnknown = true;
                 } else {
                     foundClear = true;
@@ -105,6 +105,7 @@ public class BinarySlamMap extends Pose2D {
 
     public BinarySlamMap(BinarySlamMap other) {
         super(other);
+        slamMap = new DynamicGridMap(other.slamMap);
         slamMap.setGenerator(other.generator);
         slamMap.setTimestamp(new Timestamp(other.timestamp));
     }
@@ -165,10 +166,10 @@ public class BinarySlamMap extends Pose2D {
      * Get the occupancy grid. See the class comment ({@link BinarySlamMap}) for
      * a description of the format.
      * 
-     * @return A two dimensional float array (never null).
+     * @return A copy as two dimensional float array (never null).
      */
     public float[][] getSlamMap() {
-        return slamMap.getGridMap();
+        return slamMap.copyGridMap();
     }
 
     /**
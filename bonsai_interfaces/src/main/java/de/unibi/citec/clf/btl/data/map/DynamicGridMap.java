@@ -5,7 +5,7 @@ package de.unibi.citec.clf.btl.data.map;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-
+import java.nio.FloatBuffer;
 
 import de.unibi.citec.clf.btl.StampedType;
 import de.unibi.citec.clf.btl.data.common.Timestamp;
@@ -25,12 +25,14 @@ import de.unibi.citec.clf.btl.units.UnitConverter;
  * like an image in computer graphics (x right, y down, origin at the the top
  * left).
  * 
+ * The cells are stored in one array row by row ({@code x + y * width}).
+ * 
  * @author dklotz
  * @author jwienke
  * @author lziegler
  */
 @Deprecated
-public class DynamicGridMap extends StampedType {
+public class DynamicGridMap extends StampedType implements GridMap {
 
 	private static final String ATTACHMENT_URI_ATTRIBUTE_NAME = "uri";
 	private static final String PROPERTY_ELEMENT_NAME = "MAPPROPERTIES";
@@ -48,7 +50,7 @@ public class DynamicGridMap extends StampedType {
 
 	private double resolution;
 
-	private float[][] gridMap;
+	private float[] cells;
 
 	private String uri;
 
@@ -88,7 +90,7 @@ public class DynamicGridMap extends StampedType {
 		this.resolution = UnitConverter
 				.convert(resolution, resolutionUnit, iLU);
 
-		this.gridMap = convertLinearTo2dMap(map, width, height);
+		this.cells = columnToRowWise(map, width, height);
 	}
 
 	/**
@@ -97,6 +99,41 @@ public class DynamicGridMap extends StampedType {
 	public DynamicGridMap() {
 	}
 
+	/**
+	 * Creates a new {@link DynamicGridMap} with the values of any grid, e.g.
+	 * an {@link OccupancyGrid}.
+	 * 
+	 * @param grid
+	 *            the grid to copy
+	 */
+	public DynamicGridMap(GridMap grid) {
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.originX = grid.getOriginX();
+		this.originY = grid.getOriginY();
+		this.resolution = grid.getResolution(iLU);
+		this.cells = new float[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				cells[x + y * width] = grid.getValue(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Copy type.
+	 */
+	public DynamicGridMap(DynamicGridMap other) {
+		super(other);
+		this.width = other.width;
+		this.height = other.height;
+		this.originX = other.originX;
+		this.originY = other.originY;
+		this.resolution = other.resolution;
+		this.uri = other.uri;
+		this.cells = (other.cells != null) ? other.cells.clone() : null;
+	}
+
 	/**
 	 * converts idx to metric coordinates (x)
 	 * 
@@ -106,6 +143,7 @@ public class DynamicGridMap extends StampedType {
 	 *            Length unit of the returned value.
 	 * @return the x coordinate in metres
 	 */
+	@Override
 	public double idx2x(int x, LengthUnit lu) {
 		return (((double) x) - originX)
 				* UnitConverter.convert(resolution, iLU, lu);
@@ -120,6 +158,7 @@ public class DynamicGridMap extends StampedType {
 	 *            Length unit of the returned value.
 	 * @return the y coordinate in metres
 	 */
+	@Override
 	public double idx2y(int y, LengthUnit lu) {
 		return (((double) y) - originY)
 				* UnitConverter.convert(resolution, iLU, lu);
@@ -134,6 +173,7 @@ public class DynamicGridMap extends StampedType {
 	 *            Length unit of the input value.
 	 * @return the X index of the map
 	 */
+	@Override
 	public int x2idx(double x, LengthUnit lu) {
 		return (int) (UnitConverter.convert(x, lu, iLU) / resolution + originX);
 	}
@@ -147,66 +187,63 @@ public class DynamicGridMap extends StampedType {
 	 *            Length unit of the input value.
 	 * @return the Y index of the map
 	 */
+	@Override
 	public int y2idx(double y, LengthUnit lu) {
 		return (int) (UnitConverter.convert(y, lu, iLU) / resolution + originY);
 	}
 
 	/**
-	 * Creates a float array of the SlamMap.
-	 * 
-	 * @return a 2d float array
+	 * Converts a column wise linear map to the row wise layout.
 	 */
-	private static float[][] convertLinearTo2dMap(float[] linearMap, int width,
+	private static float[] columnToRowWise(float[] linearMap, int width,
 			int height) {
 		assert (linearMap.length == width * height);
 
-		float[][] tempMap = new float[width][height];
-
+		float[] rowWise = new float[width * height];
 		for (int x = 0; x < width; x++) {
 			for (int y = 0; y < height; y++) {
-				int linearIndex = (x * height) + y;
-				tempMap[x][y] = linearMap[linearIndex];
+				rowWise[x + y * width] = linearMap[(x * height) + y];
 			}
 		}
-
-		return tempMap;
+		return rowWise;
 	}
 
 	/**
 	 * Get the occupancy grid. See the class comment ({@link BinarySlamMap}) for
 	 * a description of the format.
 	 * 
-	 * @return A two dimensional float array (never null).
+	 * @return A copy of the grid, see {@link #copyGridMap()}.
+	 * @deprecated The map is no longer stored as a two dimensional array, the
+	 *             returned array is a copy and changes to it are not written
+	 *             to the map. Use {@link #copyGridMap()}, or
+	 *             {@link #getValue(int, int)} and {@link #getValues()} to read
+	 *             without copying.
 	 */
+	@Deprecated
 	public float[][] getGridMap() {
-		return gridMap;
+		return copyGridMap();
 	}
 
 	/**
-	 * Get the occupancy grid. See the class comment ({@link BinarySlamMap}) for
-	 * a description of the format.
+	 * Copies the occupancy grid into a two dimensional array. See the class
+	 * comment ({@link BinarySlamMap}) for a description of the format.
+	 * 
+	 * Changes to the array are not written to the map, use
+	 * {@link #setGridMap(float[][])} to write it back. Use
+	 * {@link #getValue(int, int)} or {@link #getValues()} to read single cells.
 	 * 
-	 * @return A one dimensional float array (never null).
+	 * @return A new two dimensional float array (never null).
 	 */
-	public float[] getLinearMap() {
-
-		int width = 0;
-		int height = 0;
-		if (gridMap != null) {
-			width = gridMap.length;
-			if (width > 0) {
-				height = gridMap[0].length;
-			}
+	public float[][] copyGridMap() {
+		float[][] tempMap = new float[width][height];
+		if (cells == null) {
+			return tempMap;
 		}
-		float[] tempMap = new float[width * height];
-
 		for (int x = 0; x < width; x++) {
 			for (int y = 0; y < height; y++) {
-				int linearIndex = (x * height) + y;
-				tempMap[linearIndex] = gridMap[x][y];
+				tempMap[x][y] = cells[x + y * width];
 			}
 		}
-
 		return tempMap;
 	}
 
@@ -214,30 +251,41 @@ public class DynamicGridMap extends StampedType {
 	 * Get the occupancy grid. See the class comment ({@link BinarySlamMap}) for
 	 * a description of the format.
 	 * 
-	 * @return A one dimensional float array (never null).
+	 * @return A one dimensional float array, column by column (never null).
 	 */
-	public float[] getLinearMapRowWise() {
-
-		int width = 0;
-		int height = 0;
-		if (gridMap != null) {
-			width = gridMap.length;
-			if (width > 0) {
-				height = gridMap[0].length;
-			}
+	public float[] getLinearMap() {
+		if (cells == null) {
+			return new float[0];
 		}
 		float[] tempMap = new float[width * height];
-
 		for (int x = 0; x < width; x++) {
 			for (int y = 0; y < height; y++) {
-				int linearIndex = x + y * width;
-				tempMap[linearIndex] = gridMap[x][y];
+				tempMap[(x * height) + y] = cells[x + y * width];
 			}
 		}
-
 		return tempMap;
 	}
 
+	/**
+	 * Get the occupancy grid. See the class comment ({@link BinarySlamMap}) for
+	 * a description of the format.
+	 * 
+	 * @return A one dimensional float array, row by row (never null).
+	 */
+	public float[] getLinearMapRowWise() {
+		return (cells != null) ? cells.clone() : new float[0];
+	}
+
+	/**
+	 * A read-only view of the occupancy grid row by row, without copying it.
+	 * 
+	 * @return The cells, {@code x + y * width}.
+	 */
+	public FloatBuffer getValues() {
+		return FloatBuffer.wrap(cells != null ? cells : new float[0])
+				.asReadOnlyBuffer();
+	}
+
 	/**
 	 * Sets the slam map as linear array using width and height to convert it to
 	 * a 2d map.
@@ -246,7 +294,20 @@ public class DynamicGridMap extends StampedType {
 	 *            linear slam map array
 	 */
 	public void setGridMap(float[] linearMap) {
-		this.gridMap = convertLinearTo2dMap(linearMap, getWidth(), getHeight());
+		this.cells = columnToRowWise(linearMap, getWidth(), getHeight());
+	}
+
+	/**
+	 * Sets the slam map as row wise linear array ({@code x + y * width})
+	 * using width and height. The array is used without copying, it must not
+	 * be changed afterwards.
+	 * 
+	 * @param rowWise
+	 *            row wise slam map array
+	 */
+	public void setGridMapRowWise(float[] rowWise) {
+		assert (rowWise.length == getWidth() * getHeight());
+		this.cells = rowWise;
 	}
 
 	/**
@@ -257,13 +318,19 @@ public class DynamicGridMap extends StampedType {
 	 *            2d slam map array
 	 */
 	public void setGridMap(float[][] map) {
-		this.gridMap = map;
-		if (gridMap != null) {
-			width = gridMap.length;
-			if (width > 0) {
-				height = gridMap[0].length;
+		if (map == null) {
+			this.cells = null;
+			return;
+		}
+		width = map.length;
+		height = (width > 0) ? map[0].length : 0;
+		float[] rowWise = new float[width * height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				rowWise[x + y * width] = map[x][y];
 			}
 		}
+		this.cells = rowWise;
 	}
 
 	/**
@@ -279,9 +346,9 @@ public class DynamicGridMap extends StampedType {
 		try {
 			// put everything in the file
 			try (BufferedWriter out = new BufferedWriter(new FileWriter(filename))) {
-				for (int j = 0; j < gridMap[1].length; j++) {
-					for (float[] aGridMap : gridMap) {
-						out.append(String.valueOf(aGridMap[j]) + separator);
+				for (int j = 0; j < height; j++) {
+					for (int i = 0; i < width; i++) {
+						out.append(String.valueOf(cells[i + j * width]) + separator);
 					}
 					out.append("\n");
 				}
@@ -295,6 +362,7 @@ public class DynamicGridMap extends StampedType {
 		}
 	}
 
+	@Override
 	public int getWidth() {
 		return width;
 	}
@@ -303,6 +371,7 @@ public class DynamicGridMap extends StampedType {
 		this.width = width;
 	}
 
+	@Override
 	public int getHeight() {
 		return height;
 	}
@@ -311,6 +380,7 @@ public class DynamicGridMap extends StampedType {
 		this.height = height;
 	}
 
+	@Override
 	public int getOriginX() {
 		return originX;
 	}
@@ -319,6 +389,7 @@ public class DynamicGridMap extends StampedType {
 		this.originX = originX;
 	}
 
+	@Override
 	public int getOriginY() {
 		return originY;
 	}
@@ -327,6 +398,7 @@ public class DynamicGridMap extends StampedType {
 		this.originY = originY;
 	}
 
+	@Override
 	public double getResolution(LengthUnit unit) {
 		return UnitConverter.convert(resolution, iLU, unit);
 	}
@@ -343,8 +415,9 @@ public class DynamicGridMap extends StampedType {
 		this.uri = uri;
 	}
 
+	@Override
 	public float getValue(int i, int j) {
-		return gridMap[i][j];
+		return cells[i + j * width];
 	}
 
 	/**
@@ -448,7 +521,7 @@ public class DynamicGridMap extends StampedType {
 	 */
 	public void resize(int width, int height, int originX, int originY) {
 
-		float[][] newMap = new float[width][height];
+		float[] newMap = new float[width * height];
 		int oldMapMinX = originX - this.originX;
 		int oldMapMaxX = originX + (this.width - this.originX) - 1;
 		int oldMapMinY = originY - this.originY;
@@ -461,14 +534,14 @@ public class DynamicGridMap extends StampedType {
 				if (x < oldMapMinX || x > oldMapMaxX || y < oldMapMinY
 						|| y > oldMapMaxY) {
 					// if outside of old map initialize with 0.5
-					newMap[x][y] = 0.5f;
+					newMap[x + y * width] = 0.5f;
 				} else {
 					// otherwise set old value to new position
-					newMap[x][y] = gridMap[x - offsetX][y - offsetY];
+					newMap[x + y * width] = cells[(x - offsetX) + (y - offsetY) * this.width];
 				}
 			}
 		}
-		gridMap = newMap;
+		cells = newMap;
 		this.width = width;
 		this.height = height;
 		this.originX = originX;
@@ -0,0 +1,81 @@
+package de.unibi.citec.clf.btl.data.map;
+
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import de.unibi.citec.clf.btl.units.UnitConverter;
+
+/**
+ * Read access to an occupancy grid. Values range from 0.0 (certainly occupied) to 1.0 (certainly empty), 0.5 means
+ * unknown. The grid is ordered like the first quadrant of a mathematical plot, x to the right and y upwards.
+ */
+public interface GridMap {
+
+    /**
+     * Receives the bounds of one tile, <code>[x0, x1) x [y0, y1)</code>.
+     */
+    @FunctionalInterface
+    interface TileVisitor {
+        void visit(int x0, int y0, int x1, int y1);
+    }
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * @return the grid x coordinate of the origin of the world coordinate system
+     */
+    int getOriginX();
+
+    /**
+     * @return the grid y coordinate of the origin of the world coordinate system
+     */
+    int getOriginY();
+
+    /**
+     * @param unit the unit of the returned value
+     * @return the edge length of one cell
+     */
+    double getResolution(LengthUnit unit);
+
+    /**
+     * @param x the x index of the cell
+     * @param y the y index of the cell
+     * @return the occupancy value of the cell
+     */
+    float getValue(int x, int y);
+
+    default double idx2x(int x, LengthUnit unit) {
+        return (x - getOriginX()) * getResolution(unit);
+    }
+
+    default double idx2y(int y, LengthUnit unit) {
+        return (y - getOriginY()) * getResolution(unit);
+    }
+
+    default int x2idx(double x, LengthUnit unit) {
+        return (int) (UnitConverter.convert(x, unit, LengthUnit.METER) / getResolution(LengthUnit.METER) + getOriginX());
+    }
+
+    default int y2idx(double y, LengthUnit unit) {
+        return (int) (UnitConverter.convert(y, unit, LengthUnit.METER) / getResolution(LengthUnit.METER) + getOriginY());
+    }
+
+    /**
+     * Visits the grid in square tiles, row by row. Tiles at the upper and right border may be smaller.
+     *
+     * @param tileSize the edge length of a tile in cells
+     * @param visitor  called once per tile
+     */
+    default void forEachTile(int tileSize, TileVisitor visitor) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tile size must be positive: " + tileSize);
+        }
+        for (int y0 = 0; y0 < getHeight(); y0 += tileSize) {
+            int y1 = Math.min(y0 + tileSize, getHeight());
+            for (int x0 = 0; x0 < getWidth(); x0 += tileSize) {
+                visitor.visit(x0, y0, Math.min(x0 + tileSize, getWidth()), y1);
+            }
+        }
+    }
+
+}
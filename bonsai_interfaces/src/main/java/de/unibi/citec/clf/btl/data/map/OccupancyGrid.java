@@ -0,0 +1,171 @@
+package de.unibi.citec.clf.btl.data.map;
+
+import de.unibi.citec.clf.btl.StampedType;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import de.unibi.citec.clf.btl.units.UnitConverter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An immutable occupancy grid with one byte per cell, in the format of <code>nav_msgs/OccupancyGrid</code>: cells are
+ * stored row by row starting at the bottom left, a cell holds the probability of being occupied in percent or
+ * {@link #UNKNOWN}.
+ * <p>
+ * The cells are copied once when the grid is created, so buffers of received messages may be reused afterwards.
+ * {@link #getValue(int, int)} converts single cells to the float values of {@link DynamicGridMap} on access, so the
+ * grid can be used wherever a {@link GridMap} is expected. Copies of the grid share the immutable cells.
+ * <p>
+ * A map whose origin is rotated keeps the rotation in {@link #getOriginYaw()}, the grid coordinates of the origin
+ * are then given in the rotated grid.
+ */
+public class OccupancyGrid extends StampedType implements GridMap {
+
+    public static final byte UNKNOWN = -1;
+    public static final byte FREE = 0;
+    public static final byte OCCUPIED = 100;
+
+    private static final float UNKNOWN_VALUE = 0.5f;
+    private static LengthUnit iLU = LengthUnit.METER;
+
+    private final int width;
+    private final int height;
+    private final int originX;
+    private final int originY;
+    private final double resolution;
+    private final double originYaw;
+    private final ByteBuffer data;
+
+    /**
+     * Creates a grid from the remaining bytes of the buffer.
+     *
+     * @param width          the number of cells in x direction
+     * @param height         the number of cells in y direction
+     * @param data           the cells row by row, copied
+     * @param originX        the grid x coordinate of the origin of the world coordinate system
+     * @param originY        the grid y coordinate of the origin of the world coordinate system
+     * @param resolution     the edge length of a cell
+     * @param resolutionUnit the unit of the resolution
+     */
+    public OccupancyGrid(int width, int height, ByteBuffer data, int originX, int originY, double resolution,
+                         LengthUnit resolutionUnit) {
+        this(width, height, data, originX, originY, 0, resolution, resolutionUnit);
+    }
+
+    /**
+     * Creates a grid from the remaining bytes of the buffer, with a rotated origin.
+     *
+     * @param originYaw the rotation of the grid around the z axis of the world coordinate system in radians
+     * @see #OccupancyGrid(int, int, ByteBuffer, int, int, double, LengthUnit)
+     */
+    public OccupancyGrid(int width, int height, ByteBuffer data, int originX, int originY, double originYaw,
+                         double resolution, LengthUnit resolutionUnit) {
+        if (width < 0 || height < 0 || data.remaining() < width * height) {
+            throw new IllegalArgumentException("grid of " + width + "x" + height + " needs " + width * height
+                    + " bytes, got " + data.remaining());
+        }
+        this.width = width;
+        this.height = height;
+        byte[] cells = new byte[width * height];
+        data.duplicate().get(cells);
+        this.data = ByteBuffer.wrap(cells).asReadOnlyBuffer();
+        this.originX = originX;
+        this.originY = originY;
+        this.originYaw = originYaw;
+        this.resolution = UnitConverter.convert(resolution, resolutionUnit, iLU);
+    }
+
+    /**
+     * Creates a grid from the array.
+     *
+     * @see #OccupancyGrid(int, int, ByteBuffer, int, int, double, LengthUnit)
+     */
+    public OccupancyGrid(int width, int height, byte[] data, int originX, int originY, double resolution,
+                         LengthUnit resolutionUnit) {
+        this(width, height, ByteBuffer.wrap(data), originX, originY, resolution, resolutionUnit);
+    }
+
+    /**
+     * Copy type, shares the cells.
+     */
+    public OccupancyGrid(OccupancyGrid other) {
+        super(other);
+        this.width = other.width;
+        this.height = other.height;
+        this.data = other.data;
+        this.originX = other.originX;
+        this.originY = other.originY;
+        this.originYaw = other.originYaw;
+        this.resolution = other.resolution;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getOriginX() {
+        return originX;
+    }
+
+    @Override
+    public int getOriginY() {
+        return originY;
+    }
+
+    /**
+     * @return the rotation of the grid around the z axis of the world coordinate system in radians
+     */
+    public double getOriginYaw() {
+        return originYaw;
+    }
+
+    @Override
+    public double getResolution(LengthUnit unit) {
+        return UnitConverter.convert(resolution, iLU, unit);
+    }
+
+    /**
+     * @return the raw cell, the occupancy probability in percent or {@link #UNKNOWN}
+     */
+    public byte getCell(int x, int y) {
+        return data.get(x + y * width);
+    }
+
+    /**
+     * @return the cell converted to the {@link DynamicGridMap} convention, 1.0 is free, 0.0 occupied
+     */
+    @Override
+    public float getValue(int x, int y) {
+        byte cell = getCell(x, y);
+        return (cell < 0) ? UNKNOWN_VALUE : 1f - cell / 100f;
+    }
+
+    /**
+     * @return a read-only view of all cells row by row, starting at position 0
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * @return a read-only view of the cells of one row
+     */
+    public ByteBuffer getRow(int y) {
+        ByteBuffer row = data.duplicate();
+        row.position(y * width).limit((y + 1) * width);
+        return row.slice();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + getClass().getSimpleName() + ": timestamp = " + getTimestamp() + ", width = " + width
+                + ", height = " + height + ", originX = " + originX + ", originY = " + originY
+                + ", originYaw = " + originYaw + ", resolution = " + resolution + "]";
+    }
+}
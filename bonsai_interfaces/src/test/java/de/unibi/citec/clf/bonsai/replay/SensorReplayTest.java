@@ -0,0 +1,274 @@
+package de.unibi.citec.clf.bonsai.replay;
+
+import de.unibi.citec.clf.bonsai.core.object.Sensor;
+import de.unibi.citec.clf.bonsai.core.object.SensorToConfigure;
+import de.unibi.citec.clf.bonsai.core.time.Time;
+import de.unibi.citec.clf.bonsai.core.time.VirtualTime;
+import de.unibi.citec.clf.btl.data.map.OccupancyGrid;
+import de.unibi.citec.clf.btl.data.speech.Language;
+import de.unibi.citec.clf.btl.data.speech.NLU;
+import de.unibi.citec.clf.btl.data.speech.NLUEntity;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import de.unibi.citec.clf.btl.units.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SensorReplayTest {
+
+    /**
+     * Type without a constructor without arguments.
+     */
+    public static class NoDefault {
+        private final int value;
+        private transient String cache = "cache";
+
+        public NoDefault(int value) {
+            this.value = value;
+        }
+    }
+
+    private Path folder;
+    private VirtualTime clock;
+
+    @Before
+    public void setUp() throws Exception {
+        folder = Files.createTempDirectory("replay");
+        clock = new VirtualTime(1000000);
+        Time.setProvider(clock);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Time.reset();
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(folder);
+    }
+
+    private static NLU nlu(int seq) {
+        NLUEntity entity = new NLUEntity("object", "cup " + seq, null, seq);
+        entity.setEntityScore(0.5f);
+        // the same entity twice, a shared reference
+        NLU nlu = new NLU("bring me cup " + seq, "bring", seq / 10f, List.of(entity, entity),
+                (seq % 2 == 0) ? Language.EN : Language.DE);
+        nlu.setGenerator("test");
+        return nlu;
+    }
+
+    private static void assertNLU(int seq, Object data) {
+        NLU nlu = (NLU) data;
+        assertEquals("bring me cup " + seq, nlu.getText());
+        assertEquals("bring", nlu.getIntent());
+        assertEquals(seq / 10f, nlu.getConfidence(), 0f);
+        assertEquals((seq % 2 == 0) ? Language.EN : Language.DE, nlu.getLang());
+        assertEquals("test", nlu.getGenerator());
+        List<NLUEntity> entities = nlu.getEntities();
+        assertEquals(2, entities.size());
+        assertSame(entities.get(0), entities.get(1));
+        NLUEntity entity = entities.get(0);
+        assertEquals("object", entity.getKey());
+        assertEquals("cup " + seq, entity.getValue());
+        assertNull(entity.getRole());
+        assertEquals(Integer.valueOf(seq), entity.getGroup());
+        assertEquals(0.5f, entity.getEntityScore(), 0f);
+    }
+
+    private Path record(String name, int from, int to) throws Exception {
+        Path file = folder.resolve(name);
+        try (SensorRecorder<NLU> recorder = new SensorRecorder<>(file, NLU.class)) {
+            long before = recorder.getRecordCount();
+            for (int i = from; i <= to; i++) {
+                recorder.newDataAvailable(nlu(i));
+                clock.advance(100);
+            }
+            // not encodable, skipped
+            NLU broken = nlu(to + 1);
+            ((List) broken.getEntities()).add(Thread.currentThread());
+            recorder.newDataAvailable(broken);
+            assertEquals(1, recorder.getFailureCount());
+            assertEquals(before + to - from + 1, recorder.getRecordCount());
+        }
+        return file;
+    }
+
+    @Test
+    public void logTest() throws Exception {
+        Path file = record("nlu.bslog", 0, 3);
+        // continue the log
+        record("nlu.bslog", 4, 6);
+        // a record that was not written completely
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, SensorLogFormat.KIND_DATA, 1, 2}));
+        }
+
+        List<Integer> expected = List.of(0, 1, 2, 3, 4, 5, 6);
+        try (SensorLogReader reader = new SensorLogReader(file)) {
+            assertEquals(NLU.class, reader.getDataType());
+            long last = 0;
+            for (int seq : expected) {
+                assertTrue(reader.next());
+                assertTrue(reader.getStamp() >= last);
+                last = reader.getStamp();
+                assertNLU(seq, reader.read());
+            }
+            assertFalse(reader.next());
+
+            reader.rewind();
+            assertTrue(reader.next());
+            assertNLU(0, reader.read());
+        }
+
+        // the incomplete record is dropped when appending
+        record("nlu.bslog", 7, 7);
+        try (SensorLogReader reader = new SensorLogReader(file)) {
+            int count = 0;
+            while (reader.next()) {
+                reader.read();
+                count++;
+            }
+            assertEquals(expected.size() + 1, count);
+        }
+    }
+
+    private static Object roundTrip(BtlCodec codec, Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.write(new DataOutputStream(bytes), value);
+        return codec.read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    @Test
+    public void codecTest() throws Exception {
+        BtlCodec codec = new BtlCodec();
+        OccupancyGrid grid = new OccupancyGrid(3, 2, new byte[]{0, 100, -1, 50, 0, 0}, 1, 2, 0.05,
+                LengthUnit.METER);
+        grid.setTimestamp(1500, TimeUnit.MILLISECONDS);
+        grid.setFrameId("map");
+        OccupancyGrid restored = (OccupancyGrid) roundTrip(codec, grid);
+        assertEquals(3, restored.getWidth());
+        assertEquals(2, restored.getHeight());
+        assertEquals(1, restored.getOriginX());
+        assertEquals(2, restored.getOriginY());
+        assertEquals(0.05, restored.getResolution(LengthUnit.METER), 1e-9);
+        assertEquals(grid.getData(), restored.getData());
+        assertEquals(1500, restored.getTimestamp().getCreated(TimeUnit.MILLISECONDS));
+        assertEquals("map", restored.getFrameId());
+
+        // allocated without a constructor, the transient field keeps its default
+        NoDefault noDefault = (NoDefault) roundTrip(codec, new NoDefault(1));
+        assertEquals(1, noDefault.value);
+        assertNull(noDefault.cache);
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("date", new Date(1000));
+        values.put("decimal", new BigDecimal("1.25"));
+        values.put("duration", Duration.ofSeconds(3));
+        assertEquals(values, roundTrip(codec, values));
+
+        // serializable JDK classes that could not be read are rejected when they are written
+        for (Object value : List.of(new AtomicInteger(1), Locale.GERMAN)) {
+            try {
+                codec.write(new DataOutputStream(new ByteArrayOutputStream()), value);
+                fail("the filter rejects " + value.getClass());
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(value.getClass().getName()));
+            }
+        }
+    }
+
+    private ReplayFactory factory(String pacing, String speed) throws Exception {
+        ReplayFactory factory = new ReplayFactory();
+        Map<String, String> options = new HashMap<>();
+        options.put(ReplayFactory.KEY_DIRECTORY, folder.toString());
+        options.put(ReplayFactory.KEY_PACING, pacing);
+        options.put(ReplayFactory.KEY_SPEED, speed);
+        factory.initialize(options);
+
+        SensorToConfigure sensor = new SensorToConfigure();
+        sensor.setKey("NLU");
+        sensor.setDataTypeClass(NLU.class);
+        sensor.setWireClass(NLU.class);
+        sensor.setSensorClass((Class) ReplaySensor.class);
+        sensor.setSensorOptions(Map.of("file", "nlu.bslog", "bufferSize", "8"));
+        assertTrue(factory.configureSensors(Collections.singleton(sensor)).exceptions.isEmpty());
+        assertTrue(factory.canCreateSensor("NLU", NLU.class));
+        assertFalse(factory.canCreateSensor("NLU", String.class));
+        return factory;
+    }
+
+    @Test(timeout = 10000)
+    public void fastReplayTest() throws Exception {
+        record("nlu.bslog", 0, 4);
+        ReplayFactory factory = factory(ReplayFactory.PACING_FAST, "1");
+        factory.createAndCacheAllConfiguredObjects();
+        Sensor<NLU> sensor = factory.createSensor("NLU", NLU.class);
+
+        // the replay can be recorded again
+        Path copy = folder.resolve("copy.bslog");
+        SensorRecorder<NLU> recorder = SensorRecorder.attach(sensor, copy);
+        for (int i = 0; i <= 4; i++) {
+            assertTrue(sensor.hasNext());
+            assertNLU(i, sensor.readLast(1000));
+        }
+        assertFalse(sensor.hasNext());
+        long before = clock.getElapsedMillis();
+        assertNull(sensor.readLast(60000));
+        assertEquals(before + 60000, clock.getElapsedMillis());
+        recorder.close();
+        assertEquals(5, recorder.getRecordCount());
+        factory.cleanUp();
+    }
+
+    @Test(timeout = 10000)
+    public void acceleratedReplayTest() throws Exception {
+        record("nlu.bslog", 0, 9);
+        ReplayFactory factory = factory(ReplayFactory.PACING_ACCELERATED, "100");
+        Sensor<NLU> sensor = factory.createSensor("NLU", NLU.class);
+        List<NLU> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(10);
+        sensor.addSensorListener(data -> {
+            received.add(data);
+            done.countDown();
+        });
+        factory.createAndCacheAllConfiguredObjects();
+
+        // one second of data, recorded every 100ms, played in 10ms
+        done.await();
+        for (int i = 0; i < received.size(); i++) {
+            assertNLU(i, received.get(i));
+        }
+        factory.cleanUp();
+    }
+
+}
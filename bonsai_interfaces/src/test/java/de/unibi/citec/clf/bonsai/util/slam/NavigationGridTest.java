@@ -0,0 +1,79 @@
+package de.unibi.citec.clf.bonsai.util.slam;
+
+import de.unibi.citec.clf.btl.data.map.DynamicGridMap;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import edu.uci.ics.jung.graph.Graph;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NavigationGridTest {
+
+    private static final int BINS = 7;
+
+    private static DynamicGridMap randomMap(int width, int height, long seed) {
+        Random random = new Random(seed);
+        float[] cells = new float[width * height];
+        for (int i = 0; i < cells.length; i++) {
+            double r = random.nextDouble();
+            cells[i] = (r < 0.002) ? 0f : (r < 0.01 ? 0.5f : 1f);
+        }
+        DynamicGridMap map = new DynamicGridMap();
+        map.setWidth(width);
+        map.setHeight(height);
+        map.setGridMapRowWise(cells);
+        return map;
+    }
+
+    @Test
+    public void sameDistancesAsGraph() {
+        DynamicGridMap map = randomMap(150, 110, 42);
+        Graph<SlamTools.Node, SlamTools.Edge> graph = SlamTools.generateNavigationGraph(map, BINS);
+        NavigationGrid grid = new NavigationGrid(map, BINS);
+        assertEquals(graph.getVertexCount(), grid.getNodeCount());
+
+        Map<SlamTools.Node, Number> distances = SlamTools.getDistanceMap(graph, 40, 30);
+        NavigationGrid.DistanceField field = grid.getDistanceField(40, 30);
+
+        Random random = new Random(1);
+        int[] xs = new int[200];
+        int[] ys = new int[200];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(map.getWidth());
+            ys[i] = random.nextInt(map.getHeight());
+        }
+        double[] batch = field.getDistances(xs, ys);
+        for (int i = 0; i < xs.length; i++) {
+            SlamTools.Node node = SlamTools.getNearestNode(graph, xs[i], ys[i]);
+            int gridNode = grid.getNearestNode(xs[i], ys[i]);
+            assertEquals(node.getAnchorX(), grid.getAnchorX(gridNode));
+            assertEquals(node.getAnchorY(), grid.getAnchorY(gridNode));
+            assertEquals(SlamTools.getDistance(graph, distances, xs[i], ys[i]), batch[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void blockedSource() {
+        float[] cells = new float[14 * 7];
+        Arrays.fill(cells, 1f);
+        cells[0] = 0f;
+        DynamicGridMap map = new DynamicGridMap();
+        map.setWidth(14);
+        map.setHeight(7);
+        map.setGridMapRowWise(cells);
+        NavigationGrid grid = new NavigationGrid(map, BINS);
+
+        assertFalse(grid.isClear(0));
+        assertTrue(grid.isClear(1));
+        NavigationGrid.DistanceField field = grid.getDistanceField(0, 0);
+        assertEquals(0, field.getNodeDistance(0), 0);
+        assertEquals(Double.MAX_VALUE, field.getDistance(10, 3), 0);
+        assertEquals(0, grid.getDistanceField(10, 3).getNodeDistance(1), 0);
+        assertEquals(Double.MAX_VALUE, grid.getDistanceField(10, 3).getNodeDistance(0), 0);
+    }
+
+}
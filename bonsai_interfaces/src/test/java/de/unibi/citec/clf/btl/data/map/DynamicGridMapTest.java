@@ -0,0 +1,85 @@
+package de.unibi.citec.clf.btl.data.map;
+
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DynamicGridMapTest {
+
+    private static DynamicGridMap map(int width, int height) {
+        float[] linear = new float[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                linear[x * height + y] = (x * 10 + y) / 100f;
+            }
+        }
+        return new DynamicGridMap(width, height, linear, null, 0, 0, 0.05, LengthUnit.METER);
+    }
+
+    @Test
+    public void layout() {
+        DynamicGridMap map = map(3, 2);
+
+        assertEquals(0.21f, map.getValue(2, 1), 0f);
+        assertEquals(0.21f, map.copyGridMap()[2][1], 0f);
+        assertEquals(0.21f, map.getLinearMap()[2 * 2 + 1], 0f);
+        assertEquals(0.21f, map.getLinearMapRowWise()[2 + 1 * 3], 0f);
+        assertEquals(0.21f, map.getValues().get(2 + 1 * 3), 0f);
+
+        map.resize(4, 3, 1, 1);
+        assertEquals(0.21f, map.getValue(3, 2), 0f);
+        assertEquals(0.5f, map.getValue(0, 0), 0f);
+    }
+
+    @Test
+    public void copy() {
+        DynamicGridMap map = map(3, 2);
+        DynamicGridMap copy = new DynamicGridMap(map);
+        map.setGridMap(new float[3][2]);
+
+        assertEquals(0.21f, copy.getValue(2, 1), 0f);
+        assertEquals(0f, map.getValue(2, 1), 0f);
+
+        map.copyGridMap()[2][1] = 1f;
+        assertEquals("the array is a copy", 0f, map.getValue(2, 1), 0f);
+    }
+
+    @Test
+    public void occupancyGrid() {
+        byte[] cells = {OccupancyGrid.UNKNOWN, OccupancyGrid.FREE, OccupancyGrid.OCCUPIED, 50, 0, 0};
+        OccupancyGrid grid = new OccupancyGrid(3, 2, ByteBuffer.wrap(cells), 1, 0, 5, LengthUnit.CENTIMETER);
+
+        assertEquals(0.5f, grid.getValue(0, 0), 0f);
+        assertEquals(1f, grid.getValue(1, 0), 0f);
+        assertEquals(0f, grid.getValue(2, 0), 0f);
+        assertEquals(0.5f, grid.getValue(0, 1), 0f);
+        assertEquals(OccupancyGrid.OCCUPIED, grid.getRow(0).get(2));
+        assertTrue(grid.getData().isReadOnly());
+        assertEquals(-0.05, grid.idx2x(0, LengthUnit.METER), 1e-9);
+
+        cells[1] = OccupancyGrid.OCCUPIED;
+        assertEquals("copied from the array", 1f, grid.getValue(1, 0), 0f);
+        assertEquals(0.0, grid.getOriginYaw(), 0.0);
+        assertEquals(1.5, new OccupancyGrid(new OccupancyGrid(3, 2, ByteBuffer.wrap(cells), 1, 0, 1.5, 5,
+                LengthUnit.CENTIMETER)).getOriginYaw(), 0.0);
+
+        DynamicGridMap map = new DynamicGridMap(grid);
+        assertEquals(0f, map.getValue(2, 0), 0f);
+        assertEquals(0.05, map.getResolution(LengthUnit.METER), 1e-9);
+    }
+
+    @Test
+    public void tiles() {
+        List<int[]> tiles = new ArrayList<>();
+        map(5, 3).forEachTile(2, (x0, y0, x1, y1) -> tiles.add(new int[]{x0, y0, x1, y1}));
+
+        assertEquals(6, tiles.size());
+        assertArrayEquals(new int[]{4, 2, 5, 3}, tiles.get(5));
+    }
+
+}
@@ -11,7 +11,11 @@ import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.URIResolver;
 import javax.xml.transform.stream.StreamSource;
+import java.io.File;
 import java.io.StringReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,6 +25,7 @@ import java.util.Map;
 class MapEntryResolver implements URIResolver {
 
     private Map<String, String> map = new HashMap<>();
+    private Collection<URI> sources = null;
 
     private static final String PREFIX = "map://";
 
@@ -30,7 +35,10 @@ class MapEntryResolver implements URIResolver {
     public Source resolve(String href, String base) throws TransformerException {
         Source snippet = null;
 
-        if (!href.startsWith(PREFIX)) return snippet;
+        if (!href.startsWith(PREFIX)) {
+            record(href, base);
+            return snippet;
+        }
 
         String key = href.replace(PREFIX, "");
 
@@ -49,4 +57,22 @@ class MapEntryResolver implements URIResolver {
         this.map = map;
     }
 
+    /**
+     * @param sources receives the documents that are sourced, the transformer loads them itself
+     */
+    public void setSources(Collection<URI> sources) {
+        this.sources = sources;
+    }
+
+    private void record(String href, String base) {
+        if (sources == null) return;
+        try {
+            sources.add((base != null) ? new URI(base).resolve(href) : new File(href).toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // not a plain file reference, the transformer resolves it but it can not be tracked
+            logger.debug("untracked source '" + href + "': " + e.getMessage());
+            sources.add(URI.create("untracked:" + sources.size()));
+        }
+    }
+
 }
@@ -0,0 +1,323 @@
+package de.unibi.citec.clf.bonsai.engine;
+
+import de.unibi.citec.clf.bonsai.core.exception.StateIDException;
+import de.unibi.citec.clf.bonsai.core.object.Actuator;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import de.unibi.citec.clf.bonsai.engine.scxml.config.StateMachineConfigurator;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Content hashed cache of loaded state machines.
+ * <p>
+ * An entry holds the resolved scxml of a task and the results of configuring its skills: the slot xpaths and the
+ * requested sensors and actuators. The registered exit tokens are not stored, they are only needed to validate the
+ * state machine, which a cached load skips. An entry also lists every input of the load with its SHA-256, these are
+ * the task file, all sourced files and the class files of the skills with their superclasses and member classes. The
+ * include mapping and the external datamodel parameters are part of the entry name. An entry is only used if all
+ * inputs are unchanged, so reloading an unchanged task skips the transformation, the configuration of the skills and
+ * the validation.
+ * <p>
+ * Other classes a skill uses, e.g. helpers, anonymous classes or lambdas, are not hashed. The cache directory has to
+ * be cleared after changing how such a class configures a skill.
+ */
+public class SCXMLCache {
+
+    private static final Logger logger = Logger.getLogger(SCXMLCache.class);
+
+    private static final String CLASS_PREFIX = "class:";
+    private static final String SUFFIX = ".ser";
+    /**
+     * Entries only contain strings in hash maps, anything else in a cache file is rejected before it is created.
+     */
+    private static final ObjectInputFilter ENTRY_FILTER = ObjectInputFilter.Config.createFilter(
+            Entry.class.getName() + ";java.util.HashMap;java.util.LinkedHashMap;java.lang.String;"
+                    + "maxdepth=5;maxrefs=100000;maxbytes=67108864;!*");
+
+    private final File directory;
+
+    public SCXMLCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The directory given by the <code>bonsai.cache.dir</code> property, otherwise
+     * <code>$XDG_CACHE_HOME/bonsai/scxml</code> or <code>~/.cache/bonsai/scxml</code>.
+     *
+     * @return the default cache directory
+     */
+    public static File defaultDirectory() {
+        String dir = System.getProperty("bonsai.cache.dir");
+        if (dir != null && !dir.isEmpty()) {
+            return new File(dir);
+        }
+        String xdg = System.getenv("XDG_CACHE_HOME");
+        File base = (xdg != null && !xdg.isEmpty()) ? new File(xdg) : new File(System.getProperty("user.home"), ".cache");
+        return new File(new File(base, "bonsai"), "scxml");
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * A cached load of a task.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 2L;
+
+        private final String scxml;
+        private final String statePrefix;
+        private final Map<String, String> inputs;
+        private final HashMap<String, HashMap<String, String>> slots = new HashMap<>();
+        private final HashMap<String, String> sensors = new HashMap<>();
+        private final HashMap<String, String> actuators = new HashMap<>();
+
+        private Entry(String scxml, String statePrefix, Map<String, String> inputs) {
+            this.scxml = scxml;
+            this.statePrefix = statePrefix;
+            this.inputs = inputs;
+        }
+
+        /**
+         * @return the scxml with all sources resolved
+         */
+        public String getScxml() {
+            return scxml;
+        }
+
+        public String getStatePrefix() {
+            return statePrefix;
+        }
+
+        public Map<StateID, Map<String, String>> getSlotXPathMappings() throws StateIDException {
+            Map<StateID, Map<String, String>> mapping = new HashMap<>();
+            for (Map.Entry<String, HashMap<String, String>> e : slots.entrySet()) {
+                mapping.put(new StateID(e.getKey()), new HashMap<>(e.getValue()));
+            }
+            return mapping;
+        }
+
+        public Map<String, Class<?>> getRequestedSensors() throws ClassNotFoundException {
+            Map<String, Class<?>> result = new HashMap<>();
+            for (Map.Entry<String, String> e : sensors.entrySet()) {
+                result.put(e.getKey(), Class.forName(e.getValue()));
+            }
+            return result;
+        }
+
+        public Map<String, Class<? extends Actuator>> getRequestedActuators() throws ClassNotFoundException {
+            Map<String, Class<? extends Actuator>> result = new HashMap<>();
+            for (Map.Entry<String, String> e : actuators.entrySet()) {
+                result.put(e.getKey(), Class.forName(e.getValue()).asSubclass(Actuator.class));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Looks up the cached load of a task.
+     *
+     * @param task           the task file
+     * @param includeMapping the include mapping used to resolve sources
+     * @param params         the external datamodel parameters
+     * @return the entry or <code>null</code> if there is none or any of its inputs changed
+     */
+    public Entry load(File task, Map<String, String> includeMapping, Map<String, String> params) {
+        File file = entryFile(task, includeMapping, params);
+        if (!file.isFile()) {
+            logger.debug("no cached state machine for " + task);
+            return null;
+        }
+
+        Entry entry;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.setObjectInputFilter(ENTRY_FILTER);
+            entry = (Entry) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            logger.warn("ignoring unreadable cache entry " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        for (Map.Entry<String, String> input : entry.inputs.entrySet()) {
+            if (!input.getValue().equals(hash(input.getKey()))) {
+                logger.info("cached state machine outdated, changed: " + input.getKey());
+                return null;
+            }
+        }
+        logger.info("using cached state machine for " + task + " (" + entry.inputs.size() + " inputs unchanged)");
+        return entry;
+    }
+
+    /**
+     * Stores the load of a task. Nothing is stored if an input can not be hashed, e.g. a source that is no file.
+     *
+     * @param task           the task file
+     * @param includeMapping the include mapping used to resolve sources
+     * @param params         the external datamodel parameters
+     * @param scxml          the resolved scxml
+     * @param sources        the sourced files reported by the transformation
+     * @param statePrefix    the state prefix used to configure
+     * @param configurator   the configurator after configuring all skills
+     */
+    public void store(File task, Map<String, String> includeMapping, Map<String, String> params, String scxml,
+                      Collection<URI> sources, String statePrefix, StateMachineConfigurator configurator) {
+        Map<String, String> inputs = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>();
+        keys.add(task.getAbsoluteFile().toURI().toString());
+        for (URI source : sources) {
+            keys.add(source.toString());
+        }
+        Set<String> classes = new TreeSet<>();
+        for (StateID id : configurator.getSlotXPathMappings().keySet()) {
+            addClasses(id.getFullSkill(), classes);
+        }
+        for (String name : classes) {
+            keys.add(CLASS_PREFIX + name);
+        }
+        for (String key : keys) {
+            String hash = hash(key);
+            if (hash == null) {
+                logger.info("state machine not cached, can not hash input: " + key);
+                return;
+            }
+            inputs.put(key, hash);
+        }
+
+        Entry entry = new Entry(scxml, statePrefix, inputs);
+        configurator.getSlotXPathMappings().forEach((id, slots) ->
+                entry.slots.put(id.getFullID(), new HashMap<>(slots)));
+        configurator.getRequestedSensors().forEach((key, type) -> entry.sensors.put(key, type.getName()));
+        configurator.getRequestedActuators().forEach((key, type) -> entry.actuators.put(key, type.getName()));
+
+        File file = entryFile(task, includeMapping, params);
+        try {
+            Files.createDirectories(directory.toPath());
+            File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeObject(entry);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("cached state machine " + task + " in " + file);
+        } catch (IOException e) {
+            logger.warn("could not cache state machine in " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the cached load of a task.
+     *
+     * @param task           the task file
+     * @param includeMapping the include mapping used to resolve sources
+     * @param params         the external datamodel parameters
+     */
+    public void remove(File task, Map<String, String> includeMapping, Map<String, String> params) {
+        File file = entryFile(task, includeMapping, params);
+        try {
+            if (Files.deleteIfExists(file.toPath())) {
+                logger.debug("removed cached state machine " + task);
+            }
+        } catch (IOException e) {
+            logger.warn("could not remove cache entry " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collects a skill class with its superclasses and member classes, classes of the JDK are left out.
+     *
+     * @param name    the name of the class
+     * @param classes the collected class names
+     */
+    static void addClasses(String name, Set<String> classes) {
+        Class<?> skill;
+        try {
+            skill = Class.forName(name, false, SCXMLCache.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            // hashing fails for this name and nothing is cached
+            classes.add(name);
+            return;
+        }
+        for (Class<?> c = skill; c != null && !isJdkClass(c); c = c.getSuperclass()) {
+            if (!classes.add(c.getName())) {
+                continue;
+            }
+            Class<?>[] members;
+            try {
+                members = c.getDeclaredClasses();
+            } catch (LinkageError | SecurityException e) {
+                logger.debug("can not list member classes of " + c.getName() + ": " + e.getMessage());
+                continue;
+            }
+            for (Class<?> member : members) {
+                addClasses(member.getName(), classes);
+            }
+        }
+    }
+
+    private static boolean isJdkClass(Class<?> c) {
+        ClassLoader loader = c.getClassLoader();
+        return loader == null || loader == ClassLoader.getPlatformClassLoader();
+    }
+
+    private File entryFile(File task, Map<String, String> includeMapping, Map<String, String> params) {
+        StringBuilder key = new StringBuilder(task.getAbsolutePath());
+        new TreeMap<>(includeMapping).forEach((k, v) -> key.append('\n').append(k).append('=').append(v));
+        key.append('\n');
+        new TreeMap<>(params).forEach((k, v) -> key.append('\n').append(k).append('=').append(v));
+        return new File(directory, toHex(digest().digest(key.toString().getBytes(StandardCharsets.UTF_8))) + SUFFIX);
+    }
+
+    /**
+     * @param input a file uri or a class name with {@link #CLASS_PREFIX}
+     * @return the hash of the content or <code>null</code> if it can not be read
+     */
+    private static String hash(String input) {
+        try {
+            URL url;
+            if (input.startsWith(CLASS_PREFIX)) {
+                String resource = input.substring(CLASS_PREFIX.length()).replace('.', '/') + ".class";
+                url = SCXMLCache.class.getClassLoader().getResource(resource);
+            } else {
+                URI uri = new URI(input);
+                url = "file".equals(uri.getScheme()) ? uri.toURL() : null;
+            }
+            if (url == null) {
+                return null;
+            }
+            MessageDigest md = digest();
+            try (InputStream in = url.openStream()) {
+                byte[] buffer = new byte[8192];
+                for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                    md.update(buffer, 0, n);
+                }
+            }
+            return toHex(md.digest());
+        } catch (Exception e) {
+            logger.debug("can not hash " + input + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+}
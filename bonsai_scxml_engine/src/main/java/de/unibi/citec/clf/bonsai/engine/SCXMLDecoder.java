@@ -21,10 +21,12 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
+import java.net.URI;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -55,7 +57,18 @@ public class SCXMLDecoder {
 
     }
     public static SCXML parseSCXML(File scxml, Map<String, String> includeMapping, SCXMLReader.Configuration conf) throws TransformerException {
-        String transformed = transformSCXML(scxml, includeMapping);
+        return parseResolvedSCXML(transformSCXML(scxml, includeMapping), conf);
+    }
+
+    /**
+     * Parses SCXML whose sources are already resolved, e.g. the result of {@link #transformSCXML(File, Map)}.
+     *
+     * @param transformed the resolved scxml
+     * @param conf        the reader configuration
+     * @return the scxml as SCXML
+     * @throws TransformerException if the state machine has duplicates or is no valid scxml
+     */
+    public static SCXML parseResolvedSCXML(String transformed, SCXMLReader.Configuration conf) throws TransformerException {
         InputSource is = new InputSource(new StringReader(transformed));
         is.setEncoding("UTF-16");
 
@@ -107,9 +120,22 @@ public class SCXMLDecoder {
      * @return the transformed file as String
      */
     public static String transformSCXML(File scxml, Map<String, String> includeMapping) throws TransformerException {
+        return transformSCXML(scxml, includeMapping, null);
+    }
+
+    /**
+     * Resolves all includes and src attributes.
+     *
+     * @param scxml
+     * @param includeMapping
+     * @param sources        receives the uris of all sourced files, may be <code>null</code>
+     * @return the transformed file as String
+     */
+    public static String transformSCXML(File scxml, Map<String, String> includeMapping, Collection<URI> sources) throws TransformerException {
         TransformerFactoryImpl factory = new TransformerFactoryImpl();
         MapEntryResolver uriResolver = new MapEntryResolver();
         uriResolver.setMap(includeMapping);
+        uriResolver.setSources(sources);
 
         factory.setURIResolver(uriResolver);
         Transformer transformer = null;
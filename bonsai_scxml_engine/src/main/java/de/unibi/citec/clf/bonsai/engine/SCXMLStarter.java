@@ -2,6 +2,7 @@ package de.unibi.citec.clf.bonsai.engine;
 
 import de.unibi.citec.clf.bonsai.engine.communication.SCXMLServer;
 import de.unibi.citec.clf.bonsai.engine.control.StateMachineController;
+import de.unibi.citec.clf.bonsai.util.logging.AsyncRingAppender;
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
@@ -25,6 +26,10 @@ public abstract class SCXMLStarter {
      * The log.
      */
     static final Logger LOG = Logger.getLogger(SCXMLStarter.class);
+    /**
+     * System property to disable asynchronous logging, enabled by default.
+     */
+    public static final String ASYNC_LOGGING_PROPERTY = "bonsai.log.async";
 
     private static final String PATH_TO_STATEMACHINES = System.getProperty("user.dir") + "/src/main/config/state_machines";
     public static Map<String, String> DEFAULT_INCLUDE_MAPPINGS;
@@ -122,6 +127,9 @@ public abstract class SCXMLStarter {
             }
             LOG.debug("Found logging properties file. - " + pathToLoggingProperties);
         }
+        if (Boolean.parseBoolean(System.getProperty(ASYNC_LOGGING_PROPERTY, "true"))) {
+            AsyncRingAppender.install();
+        }
 
         prefs = Preferences.userRoot().node("StateMachineViewer");
         if (pathToConfig == null) {
@@ -156,6 +164,10 @@ public abstract class SCXMLStarter {
 
     }
 
+    /**
+     * Creates the server of the state machine. It is registered with {@link SkillStateMachine#addServer} once this
+     * returns, servers that block have to register themselves before, they are not registered twice.
+     */
     public abstract SCXMLServer createServer();
 
 
@@ -7,6 +7,7 @@ import de.unibi.citec.clf.bonsai.core.configuration.ConfigurationResults;
 import de.unibi.citec.clf.bonsai.core.configuration.XmlConfigurationParser;
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.core.exception.StateIDException;
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
 import de.unibi.citec.clf.bonsai.core.object.Actuator;
 import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
 import de.unibi.citec.clf.bonsai.engine.model.ExitToken;
@@ -16,6 +17,8 @@ import de.unibi.citec.clf.bonsai.engine.communication.SCXMLServer;
 import de.unibi.citec.clf.bonsai.engine.communication.StateChangePublisher;
 import de.unibi.citec.clf.bonsai.engine.communication.StatemachineStatus;
 import de.unibi.citec.clf.bonsai.engine.config.SkillStateMachineConfig;
+import de.unibi.citec.clf.bonsai.engine.execution.SchedulingStatistics;
+import de.unibi.citec.clf.bonsai.engine.execution.SkillExecutor;
 import de.unibi.citec.clf.bonsai.engine.scxml.BonsaiActionProvider;
 import de.unibi.citec.clf.bonsai.engine.scxml.BonsaiTransition;
 import de.unibi.citec.clf.bonsai.engine.scxml.SCXMLSkillRunner;
@@ -26,6 +29,7 @@ import de.unibi.citec.clf.bonsai.engine.scxml.config.ValidationResult;
 import de.unibi.citec.clf.bonsai.engine.scxml.exception.LoadingException;
 import de.unibi.citec.clf.bonsai.engine.scxml.exception.StateMachineException;
 import de.unibi.citec.clf.bonsai.engine.scxml.exception.StateNotFoundException;
+import de.unibi.citec.clf.bonsai.engine.trace.SkillTransitionEvent;
 import de.unibi.citec.clf.bonsai.util.MapReader;
 import de.unibi.citec.clf.bonsai.util.helper.ListClass;
 import org.apache.commons.scxml2.*;
@@ -35,11 +39,12 @@ import org.apache.commons.scxml2.io.SCXMLReader;
 import org.apache.commons.scxml2.model.*;
 import org.apache.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.xml.sax.InputSource;
 
 import javax.xml.transform.TransformerException;
 import java.io.File;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.io.StringReader;
+import java.net.URI;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
@@ -173,9 +178,10 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
      */
     private HashMap<StateID, SCXMLSkillRunner> corruptStates = new HashMap<>();
     /**
-     * EventDispatcher implementation that can schedule delayed events.
+     * Executes the skills of entered states, selected by {@link SkillStateMachineConfig#skillExecutor}.
      */
-    private ExecutorService skillExecutor = Executors.newCachedThreadPool();
+    private SkillExecutor skillExecutor = SkillExecutor.create(config.skillExecutor, config.skillExecutorThreads);
+    private String skillExecutorMode = config.skillExecutor;
     /**
      * Is the state machine paused?
      */
@@ -190,7 +196,9 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
     private InitlializedState isInitialized = InitlializedState.FALSE;
     private boolean isLoading = false;
     private StateMachineConfigurator configurator;
+    private final SkillFactoryRegistry skillFactories = new SkillFactoryRegistry();
     private SCXMLValidator validator;
+    private SCXMLCache scxmlCache = new SCXMLCache(SCXMLCache.defaultDirectory());
     private Set<SkillExceptionHandler> exceptionHandlers = new HashSet<>();
     final private LinkedList<Throwable> exceptions = new LinkedList<>();
     private Set<SCXMLListener> listeners = new HashSet<>();
@@ -212,7 +220,14 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
         addServer(server, true);
     }
 
+    /**
+     * Registers a server for status updates. A server that is already registered is ignored.
+     */
     public void addServer(SCXMLServer server, boolean sendAlive) {
+        if (server != null && scxmlServers.contains(server)) {
+            logger.debug("SCXML server already set");
+            return;
+        }
         scxmlServers.add(server);
         logger.info("SCXML server set");
 
@@ -284,7 +299,18 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
                 + actions.stream().map(it -> it.getNamespaceURI() + " >> " + it.getLocalName()).collect(Collectors.joining("\n ")) +
                 "\n");
         SCXMLReader.Configuration conf = new SCXMLReader.Configuration(null, null, actions);
-        scxml = SCXMLDecoder.parseSCXML(new File(pathToTask), includeMapping, conf);
+        File taskFile = new File(pathToTask);
+        // an entry only exists if a load of this task enabled the cache, its scxml holds the current datamodel
+        SCXMLCache.Entry cached = scxmlCache.load(taskFile, includeMapping, datamodelParams);
+        Set<URI> sources = new HashSet<>();
+        String resolved;
+        if (cached != null) {
+            resolved = cached.getScxml();
+            scxml = SCXMLDecoder.parseSCXML(new InputSource(new StringReader(resolved)), conf);
+        } else {
+            resolved = SCXMLDecoder.transformSCXML(taskFile, includeMapping, sources);
+            scxml = SCXMLDecoder.parseResolvedSCXML(resolved, conf);
+        }
         if (scxml == null) {
             LoadingException e = new LoadingException(
                     "Error while decoding/parsing SCXML file.");
@@ -308,24 +334,51 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
             logger.fatal("configuration error: " + ex.getMessage());
             cx = ex;
         }
+        try {
+            setupSkillExecutor();
+        } catch (IllegalArgumentException ex) {
+            logger.fatal("configuration error: " + ex.getMessage());
+            cx = ex;
+        }
+
+        if (cached != null && !config.hashSkillConfigurations) {
+            // the task disabled the cache, it is configured and validated as usual
+            scxmlCache.remove(taskFile, includeMapping, datamodelParams);
+            cached = null;
+        }
 
         LoadingResults results = new LoadingResults();
         ConfigurationParser parser = new XmlConfigurationParser();
         ConfigurationResults confResults = null;
-        configurator = new StateMachineConfigurator(config.statePrefix);
+        skillFactories.clear();
+        configurator = new StateMachineConfigurator(config.statePrefix, skillFactories);
 
 
         // Check if skills use existing sensors/actuators
         if(config.configureSkills) {
-            StateMachineConfiguratorResults smResults = configurator
-                    .configureSkills(scxml, config.generateDefaultSlots, config.ignoredStates, config.checkForMixedTokens);
+            StateMachineConfiguratorResults smResults;
+            ValidationResult scxmlValid;
+            if (config.hashSkillConfigurations && restoreConfiguration(cached)) {
+                smResults = new StateMachineConfiguratorResults();
+                scxmlValid = new ValidationResult();
+            } else {
+                smResults = configurator.configureSkills(scxml, config.generateDefaultSlots, config.ignoredStates,
+                        config.checkForMixedTokens);
 
-            Map<StateID, Set<ExitToken>> registeredTokens
-                    = configurator.getRegisteredExitTokens();
+                Map<StateID, Set<ExitToken>> registeredTokens
+                        = configurator.getRegisteredExitTokens();
 
-            // Check if classes and transitions exist
-            validator = new SCXMLValidator(this, config.statePrefix);
-            ValidationResult scxmlValid = validator.validate(scxml, registeredTokens, config.ignoredStates);
+                // Check if classes and transitions exist
+                validator = new SCXMLValidator(this, config.statePrefix);
+                scxmlValid = validator.validate(scxml, registeredTokens, config.ignoredStates);
+
+                // only clean loads are cached, a cached load reports no faults
+                if (config.hashSkillConfigurations && cached == null && smResults.success(true)
+                        && scxmlValid.success() && scxmlValid.getWarnings().isEmpty()) {
+                    scxmlCache.store(taskFile, includeMapping, datamodelParams, resolved, sources,
+                            config.statePrefix, configurator);
+                }
+            }
 
             Map<String, Class<?>> rs = configurator.getRequestedSensors();
             @SuppressWarnings("rawtypes")
@@ -379,6 +432,9 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
             results.configurationResults = confResults;
         }
         results.showDefaultSlotWarnings = config.showDefaultSlotWarnings;
+        if (config.warmUpSkills) {
+            warmUpSkills();
+        }
         if (results.success()) {
             isInitialized = InitlializedState.TRUE;
         } else {
@@ -409,6 +465,34 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
 
     }
 
+    /**
+     * Restore the skill configuration from the cache instead of configuring and validating all skills.
+     *
+     * @param cached the cache entry of the current task, may be <code>null</code>
+     * @return <code>true</code> if the configuration was restored
+     */
+    private boolean restoreConfiguration(SCXMLCache.Entry cached) {
+        if (cached == null || !cached.getStatePrefix().equals(config.statePrefix)) {
+            return false;
+        }
+        try {
+            configurator.restore(cached.getSlotXPathMappings(), cached.getRequestedSensors(),
+                    cached.getRequestedActuators());
+            return true;
+        } catch (StateIDException | ClassNotFoundException | ClassCastException e) {
+            logger.warn("can not restore cached configuration: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public SCXMLCache getScxmlCache() {
+        return scxmlCache;
+    }
+
+    public void setScxmlCache(SCXMLCache scxmlCache) {
+        this.scxmlCache = scxmlCache;
+    }
+
     /**
      * Instantiate and initialize the underlying executor instance.
      *
@@ -430,6 +514,37 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
 
     }
 
+    /**
+     * Create and configure one instance of every skill in advance so the first entry of a state is not a cold path.
+     */
+    private void warmUpSkills() {
+        int count = configurator.warmUpSkills(scxml, config.ignoredStates);
+        logger.info("warmed up " + count + " skills");
+    }
+
+    /**
+     * Replace the skill executor if another one was configured in the data model.
+     */
+    private void setupSkillExecutor() {
+        if (skillExecutorMode.equalsIgnoreCase(config.skillExecutor)) {
+            return;
+        }
+        SkillExecutor executor = SkillExecutor.create(config.skillExecutor, config.skillExecutorThreads);
+        logger.info("using skill executor: " + config.skillExecutor);
+        skillExecutor.shutdown();
+        skillExecutor = executor;
+        skillExecutorMode = config.skillExecutor;
+    }
+
+    /**
+     * Scheduling latency of all skills executed since the last load.
+     *
+     * @return the statistics of the current skill executor
+     */
+    public SchedulingStatistics getSchedulingStatistics() {
+        return skillExecutor.getStatistics();
+    }
+
     /**
      * Analyze the data model and look for special variables like "#_STATE_PREFIX".
      *
@@ -512,6 +627,8 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
             return false;
         }
         TriggerEvent evts = new TriggerEvent(event, TriggerEvent.SIGNAL_EVENT);
+        SkillTransitionEvent transition = new SkillTransitionEvent(event);
+        transition.begin();
         try {
             logger.debug("FIRE SKILL Event: " + event);
             logger.trace("All Current Active states:");
@@ -533,7 +650,9 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
             logger.error("Error while fireing an event", me);
             logger.error(me.getMessage());
         }
-        return scxmlExecutor.getStatus().isFinal();
+        boolean reachedFinal = scxmlExecutor.getStatus().isFinal();
+        transition.end(reachedFinal);
+        return reachedFinal;
     }
 
     public boolean fireEvent(final String event) {
@@ -562,14 +681,8 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
 
         String shortID = state.getCanonicalSkill();
         try {
-            Class<?> c = Class.forName(state.getFullSkill());
-
-            Constructor<?>[] constrs = c.getConstructors();
-            Constructor<?> aConstructor = constrs[0];
-
             // Create Skill
-            AbstractSkill skill;
-            skill = (AbstractSkill) aConstructor.newInstance();
+            AbstractSkill skill = skillFactories.create(state);
 
             // Create Skill Runner
             logger.trace("Invoking skill: " + state.getFullSkill());
@@ -578,7 +691,7 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
             activeStates.put(state, runner);
 
             // Schedule Execution
-            skillExecutor.submit(runner);
+            skillExecutor.execute(runner.getRunner());
 
             return true;
         } catch (InstantiationException e) {
@@ -587,12 +700,6 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
             logger.info("No class for skill " + shortID);
             // logger.error("just assume simple debug skill/state");
             return true;
-        } catch (IllegalArgumentException e) {
-            logger.error("Illegal argument for skill " + shortID, e);
-        } catch (IllegalAccessException e) {
-            logger.error("Illegal access to skill " + shortID, e);
-        } catch (InvocationTargetException e) {
-            logger.error("Error invoking skill " + shortID, e);
         } catch (SkillConfigurationException e) {
             logger.error("Error configuring skill " + shortID, e);
         }
@@ -684,6 +791,7 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
         PAUSE = false;
         running = false;
         logger.info("\n#######################\nSTATE MACHINE STOPPED AND RESET\n#######################");
+        logger.debug(skillExecutor.getStatistics());
 
     }
 
@@ -747,6 +855,7 @@ public class SkillStateMachine implements SCXMLListener, SkillExceptionHandler {
     @SuppressWarnings("unchecked")
     @Override
     public void onEntry(final EnterableState entered) {
+        MetricsRegistry.getInstance().stateEntered();
 
         logger.debug("\tOnEntry: " + entered.getId());
         logger.trace("All Current states:");
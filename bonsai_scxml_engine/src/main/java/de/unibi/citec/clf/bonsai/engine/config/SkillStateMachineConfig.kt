@@ -1,5 +1,6 @@
 package de.unibi.citec.clf.bonsai.engine.config
 
+import de.unibi.citec.clf.bonsai.engine.execution.SkillExecutor
 import de.unibi.citec.clf.bonsai.util.MapReader
 import org.apache.log4j.Logger
 
@@ -28,6 +29,12 @@ class SkillStateMachineConfig {
     var ignoredStates = mutableSetOf<String>()
     @JvmField
     var checkForMixedTokens = false
+    @JvmField
+    var warmUpSkills = false
+    @JvmField
+    var skillExecutor = SkillExecutor.MODE_THREADS
+    @JvmField
+    var skillExecutorThreads = Runtime.getRuntime().availableProcessors()
     
     @Throws(MapReader.KeyNotFound::class)
     fun configure(data: Map<String?, String?>?) {
@@ -49,7 +56,8 @@ class SkillStateMachineConfig {
         configureSkills = MapReader.readConfigBool("#_CONFIGURE_AND_VALIDATE", configureSkills, data)
         logger.debug("Enable full configuration and validation: $configureSkills")
 
-        hashSkillConfigurations = MapReader.readConfigBool("#_ENABLE_CONFIG_CACHE", hashSkillConfigurations, data)
+        // not kept from a previous task, every task has to enable the cache itself
+        hashSkillConfigurations = MapReader.readConfigBool("#_ENABLE_CONFIG_CACHE", false, data)
         logger.debug("Enable configuration cache: $hashSkillConfigurations")
 
         customFinalStates = MapReader.readConfigBool("#_FINAL_STATES", customFinalStates, data)
@@ -67,6 +75,15 @@ class SkillStateMachineConfig {
         logger.debug("new state publishing: $newStatePublishing")
 
 
+        warmUpSkills = MapReader.readConfigBool("#_WARM_UP_SKILLS", warmUpSkills, data)
+        logger.debug("warm up skills: $warmUpSkills")
+
+        skillExecutor = MapReader.readConfigString("#_SKILL_EXECUTOR", skillExecutor, data)
+        logger.debug("skill executor: $skillExecutor")
+
+        skillExecutorThreads = MapReader.readConfigInteger("#_SKILL_EXECUTOR_THREADS", skillExecutorThreads, data)
+        logger.debug("skill executor threads: $skillExecutorThreads")
+
         val ign = MapReader.readConfigString("#_VALIDATE_IGNORE_THESE_STATES", "", data)
         ignoredStates = ign.split(";").toMutableSet()
         logger.error("Ignore following ids during validate: $ignoredStates")
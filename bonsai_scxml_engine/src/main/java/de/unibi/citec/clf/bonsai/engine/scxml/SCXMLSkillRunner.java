@@ -1,7 +1,6 @@
 package de.unibi.citec.clf.bonsai.engine.scxml;
 
 
-import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.engine.SkillConfigurator;
 import de.unibi.citec.clf.bonsai.engine.SkillListener;
 import de.unibi.citec.clf.bonsai.engine.SkillRunner;
@@ -9,6 +8,7 @@ import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
 import de.unibi.citec.clf.bonsai.engine.model.ExitStatus;
 import de.unibi.citec.clf.bonsai.engine.model.StateID;
 import de.unibi.citec.clf.bonsai.engine.SkillStateMachine;
+import de.unibi.citec.clf.bonsai.engine.execution.SkillExecutor;
 import org.apache.log4j.Logger;
 
 import java.util.Map;
@@ -35,23 +35,28 @@ public class SCXMLSkillRunner implements Runnable, SkillListener {
         super();
         this.statemachine = statemachine;
         this.runner = new SkillRunner(skill, state, vars, slotXPathMapping, this);
-    }
 
-    @Override
-    public void run() {
         SkillConfigurator.Config defaultConf = SkillConfigurator.getDefaultConf();
         defaultConf.activateObjectAnyway = true;
         defaultConf.checkCoreCreation = false;
         defaultConf.unusedParamsAsError = true;
+        this.runner.configureOnStart(defaultConf);
+    }
 
-        try {
-            this.runner.configure(defaultConf);
-        } catch (ConfigurationException e) {
-            logger.warn(e);
-        }
+    @Override
+    public void run() {
         this.runner.run();
     }
 
+    /**
+     * The runner that executes the skill, to be passed to a {@link SkillExecutor}.
+     *
+     * @return the runner of this state
+     */
+    public SkillRunner getRunner() {
+        return runner;
+    }
+
     /**
      * Force this state to end as soon as possible.
      *
@@ -5,6 +5,7 @@ import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
 import de.unibi.citec.clf.bonsai.core.exception.StateIDException;
 import de.unibi.citec.clf.bonsai.core.object.Actuator;
 import de.unibi.citec.clf.bonsai.engine.SkillConfigurator;
+import de.unibi.citec.clf.bonsai.engine.SkillFactoryRegistry;
 import de.unibi.citec.clf.bonsai.engine.config.fault.MissingSlotFault;
 import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
 import de.unibi.citec.clf.bonsai.engine.model.ExitToken;
@@ -17,8 +18,6 @@ import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 
 /**
@@ -38,6 +37,10 @@ public class StateMachineConfigurator {
         return stateIDXPathMapping.get(state);
     }
 
+    public Map<StateID, Map<String, String>> getSlotXPathMappings() {
+        return stateIDXPathMapping;
+    }
+
 
     private static final Logger logger = Logger.getLogger(StateMachineConfigurator.class);
     /**
@@ -62,11 +65,21 @@ public class StateMachineConfigurator {
      */
     private final Map<String, Map<String, String>> stateSlotXPathMapping = new HashMap<>();
     private final String prefix;
+    private final SkillFactoryRegistry skillFactories;
     // TODO: Revise this! Skills should request working memory.
     public final static String WORKING_MEMORY_NAME = "WorkingMemory";
 
     public StateMachineConfigurator(String prefix) {
+        this(prefix, new SkillFactoryRegistry());
+    }
+
+    /**
+     * @param prefix         the state prefix
+     * @param skillFactories registry that caches the skill classes resolved while configuring
+     */
+    public StateMachineConfigurator(String prefix, SkillFactoryRegistry skillFactories) {
         this.prefix = prefix;
+        this.skillFactories = skillFactories;
         logger.debug("CREATING NEW STATE MACHINE CONFIGURATOR");
     }
 
@@ -267,6 +280,41 @@ public class StateMachineConfigurator {
         return results;
     }
 
+    /**
+     * Creates one instance of the skill of every simple state in advance and runs its configuration phase, so the
+     * first entry of a state neither loads nor configures a skill for the first time. The instances are handed out by
+     * the next {@link SkillFactoryRegistry#create(StateID)} of their state and configured again on entry.
+     *
+     * @param scxml         the state machine
+     * @param ignoredStates states without skills
+     * @return the number of warmed up skills
+     */
+    public synchronized int warmUpSkills(SCXML scxml, Set<String> ignoredStates) {
+        @SuppressWarnings("unchecked")
+        Map<String, TransitionTarget> targetMap = scxml.getTargets();
+        Map<String, String> globals = createGlobalVars(scxml);
+
+        int count = 0;
+        for (Map.Entry<String, TransitionTarget> target : targetMap.entrySet()) {
+            if (ignoredStates.contains(target.getKey()) || !(target.getValue() instanceof State)
+                    || !((State) target.getValue()).isSimple()) {
+                continue;
+            }
+            State state = (State) target.getValue();
+            try {
+                StateID id = new StateID(prefix, target.getKey());
+                AbstractSkill skill = skillFactories.warmUp(id);
+                SkillConfigurator conf = SkillConfigurator.createConfigPhase(SkillConfigurator.getDefaultConf(),
+                        readVariables(state.getDatamodel(), globals));
+                skill.configure(conf);
+                count++;
+            } catch (StateIDException | ClassNotFoundException | InstantiationException | ConfigurationException e) {
+                logger.debug("no warm up for state " + target.getKey() + ": " + e.getMessage());
+            }
+        }
+        return count;
+    }
+
     private Map<String, String> createGlobalVars(SCXML scxml) {
         Map<String, String> vars = new HashMap<String, String>();
 
@@ -373,6 +421,22 @@ public class StateMachineConfigurator {
         return registeredExitTokens;
     }
 
+    /**
+     * Restores the results of a previous {@link #configureSkills} of the same state machine instead of configuring
+     * every skill again.
+     *
+     * @param slotMapping the slot xpaths of every state
+     * @param sensors     the requested sensors
+     * @param actuators   the requested actuators
+     */
+    public synchronized void restore(Map<StateID, Map<String, String>> slotMapping, Map<String, Class<?>> sensors,
+                                     Map<String, Class<? extends Actuator>> actuators) {
+        stateIDXPathMapping.putAll(slotMapping);
+        requestedSensorMap.putAll(sensors);
+        requestedActuatorMap.putAll(actuators);
+        logger.info("restored configuration of " + slotMapping.size() + " skills");
+    }
+
     private StateMachineConfiguratorResults configureSkill(StateID id, State state, Map<String, String> globals, boolean generateDefaultSlots, boolean checkExitTokenPS) {
 
         StateMachineConfiguratorResults results = new StateMachineConfiguratorResults();
@@ -383,14 +447,10 @@ public class StateMachineConfigurator {
         // create instance of skill
         AbstractSkill aSkill;
         try {
-            Class<?> c = Class.forName(id.getFullSkill());
+            skillFactories.resolve(id);
+            aSkill = skillFactories.create(id);
 
-            logger.debug("created class object: " + c);
-
-            Constructor<?>[] constrs = c.getConstructors();
-            Constructor<?> aConstructor = constrs[0];
-
-            aSkill = (AbstractSkill) aConstructor.newInstance();
+            logger.debug("created skill object: " + aSkill.getClass());
 
         } catch (InstantiationException e) {
 
@@ -405,24 +465,6 @@ public class StateMachineConfigurator {
             logger.debug(s.getErrorMessage(), e);
             //results.add(s); //REMOVED DOUBLE ERROR MESSAGE (instantiating and configure)
             return results;
-        } catch (IllegalArgumentException e) {
-            SkillConfigFaults s = new SkillConfigFaults(id,
-                    "Error while configuring a State! Illegal Argument: " + e.getMessage());
-            logger.debug(s.getErrorMessage(), e);
-            results.add(s);
-            return results;
-        } catch (IllegalAccessException e) {
-            SkillConfigFaults s = new SkillConfigFaults(id,
-                    "Error while configuring a State! Illegal Access: " + e.getMessage());
-            logger.debug(s.getErrorMessage(), e);
-            results.add(s);
-            return results;
-        } catch (InvocationTargetException e) {
-            SkillConfigFaults s = new SkillConfigFaults(id,
-                    "Error while configuring a State! Invocation Target Exception: " + e.getMessage());
-            logger.debug(s.getErrorMessage(), e);
-            results.add(s);
-            return results;
         }
 
         Map<String, String> datamodelVars = readVariables(state.getDatamodel(), globals);
@@ -0,0 +1,197 @@
+package de.unibi.citec.clf.bonsai.engine;
+
+import de.unibi.citec.clf.bonsai.engine.model.AbstractSkill;
+import de.unibi.citec.clf.bonsai.engine.model.StateID;
+import de.unibi.citec.clf.bonsai.engine.scxml.config.StateMachineConfigurator;
+import de.unibi.citec.clf.bonsai.test.actuators.SpeechActuatorStub;
+import de.unibi.citec.clf.bonsai.test.skills.Nop;
+import org.apache.log4j.PropertyConfigurator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class SCXMLCacheTest {
+
+    private static final String PREFIX = "de.unibi.citec.clf.bonsai.test.skills.";
+
+    private final String PATH_TO_LOGGING_PROPERTIES = getClass().getResource("/testLogging.properties").getPath();
+    private final String PATH_TO_SM = getClass().getResource("/state_machines").getPath();
+    private final String PATH_TO_CF = getClass().getResource("/bonsai_configs").getPath();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void initialize() {
+        PropertyConfigurator.configure(PATH_TO_LOGGING_PROPERTIES);
+    }
+
+    /**
+     * A skill with a superclass and a member class from this project.
+     */
+    public static class NopWithHelper extends Nop {
+        static class Helper {
+        }
+    }
+
+    /**
+     * Records if it was ever deserialized.
+     */
+    static class Payload implements Serializable {
+        static boolean deserialized = false;
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            deserialized = true;
+        }
+    }
+
+    /**
+     * Records the entries found by the state machine.
+     */
+    static class RecordingCache extends SCXMLCache {
+        final List<Entry> loaded = new ArrayList<>();
+
+        RecordingCache(File directory) {
+            super(directory);
+        }
+
+        @Override
+        public Entry load(File task, Map<String, String> includeMapping, Map<String, String> params) {
+            Entry entry = super.load(task, includeMapping, params);
+            loaded.add(entry);
+            return entry;
+        }
+    }
+
+    private File task(String content) throws IOException {
+        File task = new File(folder.getRoot(), "task.xml");
+        Files.write(task.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return task;
+    }
+
+    private StateMachineConfigurator configurator(String state) throws Exception {
+        StateMachineConfigurator configurator = new StateMachineConfigurator(PREFIX);
+        configurator.restore(Map.of(new StateID(PREFIX + state), Map.of("Slot", "/test/one")),
+                Map.of("Sensor", String.class), Map.of("Speech", SpeechActuatorStub.class));
+        return configurator;
+    }
+
+    private File[] entries(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".ser"));
+        return (files == null) ? new File[0] : files;
+    }
+
+    @Test
+    public void storeAndLoad() throws Exception {
+        File directory = folder.newFolder("cache");
+        SCXMLCache cache = new SCXMLCache(directory);
+        File task = task("<scxml/>");
+        File source = folder.newFile("source.xml");
+        Map<String, String> mapping = Map.of("TEST", PATH_TO_SM);
+
+        assertNull(cache.load(task, mapping, Map.of()));
+        cache.store(task, mapping, Map.of(), "<scxml resolved/>", Collections.singleton(source.toURI()), PREFIX,
+                configurator("Nop#a"));
+        assertEquals(1, entries(directory).length);
+
+        SCXMLCache.Entry entry = cache.load(task, mapping, Map.of());
+        assertNotNull(entry);
+        assertEquals("<scxml resolved/>", entry.getScxml());
+        assertEquals(PREFIX, entry.getStatePrefix());
+        assertEquals("/test/one", entry.getSlotXPathMappings().get(new StateID(PREFIX + "Nop#a")).get("Slot"));
+        assertEquals(String.class, entry.getRequestedSensors().get("Sensor"));
+        assertEquals(SpeechActuatorStub.class, entry.getRequestedActuators().get("Speech"));
+
+        // the mapping and the parameters select the entry
+        assertNull(cache.load(task, Map.of("TEST", "/elsewhere"), Map.of()));
+        assertNull(cache.load(task, mapping, Map.of("val", "true")));
+
+        // changed inputs invalidate it
+        Files.write(source.toPath(), "<changed/>".getBytes(StandardCharsets.UTF_8));
+        assertNull(cache.load(task, mapping, Map.of()));
+    }
+
+    @Test
+    public void notStoredWithoutHash() throws Exception {
+        File directory = folder.newFolder("cache");
+        SCXMLCache cache = new SCXMLCache(directory);
+        File task = task("<scxml/>");
+
+        cache.store(task, Map.of(), Map.of(), "<scxml/>", Collections.singleton(new URI("http://example.org/a.xml")),
+                PREFIX, configurator("Nop#a"));
+        cache.store(task, Map.of(), Map.of(), "<scxml/>", Collections.emptySet(), PREFIX,
+                configurator("DoesNotExist#a"));
+        assertEquals(0, entries(directory).length);
+    }
+
+    @Test
+    public void foreignObjectsAreRejected() throws Exception {
+        File directory = folder.newFolder("cache");
+        SCXMLCache cache = new SCXMLCache(directory);
+        File task = task("<scxml/>");
+        cache.store(task, Map.of(), Map.of(), "<scxml/>", Collections.emptySet(), PREFIX, configurator("Nop#a"));
+        File[] files = entries(directory);
+        assertEquals(1, files.length);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(files[0]))) {
+            out.writeObject(new Payload());
+        }
+        Payload.deserialized = false;
+        assertNull(cache.load(task, Map.of(), Map.of()));
+        assertFalse("the filter rejects the class before it is read", Payload.deserialized);
+    }
+
+    @Test
+    public void superAndMemberClassesAreHashed() {
+        Set<String> classes = new TreeSet<>();
+        SCXMLCache.addClasses(NopWithHelper.class.getName(), classes);
+
+        assertTrue(classes.contains(NopWithHelper.class.getName()));
+        assertTrue(classes.contains(NopWithHelper.Helper.class.getName()));
+        assertTrue(classes.contains(Nop.class.getName()));
+        assertTrue(classes.contains(AbstractSkill.class.getName()));
+        assertFalse(classes.contains(Object.class.getName()));
+    }
+
+    @Test
+    public void reloadUsesCache() throws Exception {
+        File directory = folder.newFolder("cache");
+        RecordingCache cache = new RecordingCache(directory);
+        String task = PATH_TO_SM + "/configCache.xml";
+        String config = PATH_TO_CF + "/TestConfig.xml";
+
+        SkillStateMachine stateMachine = new SkillStateMachine(Map.of("TEST", PATH_TO_SM));
+        stateMachine.setScxmlCache(cache);
+
+        // the option is only known after the first load
+        assertTrue(stateMachine.initalize(task, config, true).success());
+        assertTrue(cache.loaded.isEmpty());
+        assertEquals(1, entries(directory).length);
+
+        LoadingResults results = stateMachine.initalize(task, config, true);
+        assertTrue(results.success());
+        assertEquals(1, cache.loaded.size());
+        assertNotNull("the unchanged task is loaded from the cache", cache.loaded.get(0));
+    }
+
+}
@@ -1,5 +1,6 @@
 package de.unibi.citec.clf.bonsai.engine.scxml
 
+import de.unibi.citec.clf.bonsai.core.time.VirtualTime
 import de.unibi.citec.clf.bonsai.test.TestListener.Companion.newEndFatal
 import de.unibi.citec.clf.bonsai.test.TestListener.Companion.newEndFatalSkillCounter
 import junit.framework.TestCase
@@ -184,7 +185,21 @@ class StatemachineTest {
         TestCase.assertTrue(res.success())
         val test = newEndFatal()
         TestCase.assertTrue(TestTools.testStatemachine(conf, sm, test))
-    } //    @Test
+    }
+
+    @Test
+    @Throws(TransformerException::class, TimeoutException::class)
+    fun virtualTimeWait() {
+        val sm = "memorySlotsWait.xml"
+        val conf = "TestConfig.xml"
+        val clock = VirtualTime()
+        val start = System.currentTimeMillis()
+        TestCase.assertTrue(TestTools.testStatemachine(conf, sm, newEndFatal(), clock))
+        // the skill waits 5s on the virtual clock
+        TestCase.assertTrue(clock.elapsedMillis >= 5000)
+        TestCase.assertTrue(System.currentTimeMillis() - start < 5000)
+    }
+    //    @Test
     //    public void testParallelWorking() throws TransformerException, TimeoutException {
     //        final String sm = "parallelWorking.xml";
     //        final String conf = "TestConfig.xml";
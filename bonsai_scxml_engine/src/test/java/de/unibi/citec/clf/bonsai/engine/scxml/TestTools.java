@@ -1,6 +1,9 @@
 package de.unibi.citec.clf.bonsai.engine.scxml;
 
 import de.unibi.citec.clf.bonsai.core.exception.ConfigurationException;
+import de.unibi.citec.clf.bonsai.core.time.Time;
+import de.unibi.citec.clf.bonsai.core.time.TimeProvider;
+import de.unibi.citec.clf.bonsai.core.time.VirtualTime;
 import de.unibi.citec.clf.bonsai.engine.LoadingResults;
 import de.unibi.citec.clf.bonsai.engine.SkillStateMachine;
 import de.unibi.citec.clf.bonsai.engine.control.StateMachineController;
@@ -68,4 +71,20 @@ public class TestTools {
 
         return ret;
     }
+
+    /**
+     * Like {@link #testStatemachine(String, String, TestListener)}, but with a {@link VirtualTime}, so loop delays
+     * and timeouts of the skills do not take real time.
+     *
+     * @param clock the clock to use, e.g. to check the simulated time afterwards
+     */
+    static boolean testStatemachine(String config, String scxml, TestListener test, VirtualTime clock)
+            throws TimeoutException {
+        TimeProvider previous = Time.setProvider(clock);
+        try {
+            return testStatemachine(config, scxml, test);
+        } finally {
+            Time.setProvider(previous);
+        }
+    }
 }
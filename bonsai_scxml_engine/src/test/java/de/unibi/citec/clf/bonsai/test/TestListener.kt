@@ -1,6 +1,5 @@
 package de.unibi.citec.clf.bonsai.test
 
-import de.unibi.citec.clf.bonsai.core.time.Time
 import org.apache.commons.scxml2.SCXMLListener
 import org.apache.commons.scxml2.model.EnterableState
 import org.apache.commons.scxml2.model.Transition
@@ -21,13 +20,16 @@ class TestListener private constructor() : SCXMLListener {
     private var successState: String? = null
     private var failureState: String? = null
     private var successTransition: String? = null
+    /**
+     * Waits for the end of the statemachine, the timeout is wall clock time even if a virtual clock is installed.
+     */
     @JvmOverloads
     @Throws(TimeoutException::class)
     fun waitForStatus(timeout: Long = 9000): Boolean {
-        val endtimeout = timeout + Time.currentTimeMillis()
+        val endtimeout = timeout + System.currentTimeMillis()
         while (state == State.running) {
             Thread.yield()
-            if (Time.currentTimeMillis() > endtimeout) {
+            if (System.currentTimeMillis() > endtimeout) {
                 throw TimeoutException("Statemachine took too long")
             }
         }
@@ -1,5 +1,6 @@
 package de.unibi.citec.clf.bonsai.engine;
 
+import de.unibi.citec.clf.bonsai.engine.communication.MetricsPublisherROS;
 import de.unibi.citec.clf.bonsai.engine.communication.ROSServer;
 import de.unibi.citec.clf.bonsai.engine.communication.SCXMLServer;
 import de.unibi.citec.clf.bonsai.engine.communication.StateChangePublisher;
@@ -28,6 +29,7 @@ public class SCXMLStarterROS extends SCXMLStarter {
     public static final String DEFAULT_TOPIC_STATUS = "/bonsai/status";
     public static final String DEFAULT_TOPIC_STATES = "/bonsai/states";
     public static final String DEFAULT_SERVER_TOPIC = "/bonsai/server";
+    public static final long DEFAULT_METRICS_PERIOD = 5000;
 
 
     @Option(name = "-s", aliases = {"--server_topic"}, metaVar = "VALUE", usage = "topic for ros server")
@@ -39,6 +41,10 @@ public class SCXMLStarterROS extends SCXMLStarter {
     private String topicStatus = DEFAULT_TOPIC_STATUS;
     @Option(name = "-ts", aliases = {"--states_topic"}, metaVar = "VALUE", usage = "topic for state list")
     private String topicStates = DEFAULT_TOPIC_STATES;
+    @Option(name = "-tm", aliases = {"--metrics_topic"}, metaVar = "VALUE", usage = "topic for metrics, disabled if empty")
+    private String topicMetrics = "";
+    @Option(name = "--metrics_period", metaVar = "VALUE", usage = "period of publishing metrics in ms")
+    private long metricsPeriod = DEFAULT_METRICS_PERIOD;
 
     @Override
     public SCXMLServer createServer() {
@@ -58,6 +64,10 @@ public class SCXMLStarterROS extends SCXMLStarter {
 
         LOG.info("Ros server started");
 
+        if (!topicMetrics.isEmpty()) {
+            new MetricsPublisherROS(topicMetrics, metricsPeriod);
+        }
+
         skillStateMachine.addListener(pub);
 
         return srv;
@@ -0,0 +1,87 @@
+package de.unibi.citec.clf.bonsai.engine.communication;
+
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry;
+import de.unibi.citec.clf.bonsai.ros.RosFactory;
+import de.unibi.citec.clf.bonsai.ros.RosNode;
+import org.apache.log4j.Logger;
+import org.ros.namespace.GraphName;
+import org.ros.node.ConnectedNode;
+import org.ros.node.topic.Publisher;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Periodically publishes the {@link MetricsRegistry} in the Prometheus text format as <code>std_msgs/String</code>.
+ */
+public class MetricsPublisherROS {
+
+    private static final Logger LOG = Logger.getLogger(MetricsPublisherROS.class);
+
+    private static class MetricsNode extends RosNode {
+
+        private final String topic;
+        private final long period;
+        private final MetricsRegistry.Scraper scraper = MetricsRegistry.getInstance().newScraper();
+        private Publisher<std_msgs.String> pub;
+        private ScheduledFuture<?> task;
+
+        MetricsNode(String topic, long period) {
+            this.topic = topic;
+            this.period = period;
+        }
+
+        @Override
+        public void onStart(ConnectedNode connectedNode) {
+            pub = connectedNode.newPublisher(topic, std_msgs.String._TYPE);
+            task = connectedNode.getScheduledExecutorService().scheduleAtFixedRate(this::publish, period, period,
+                    TimeUnit.MILLISECONDS);
+            markInitialized();
+        }
+
+        private void publish() {
+            try {
+                std_msgs.String msg = pub.newMessage();
+                msg.setData(scraper.scrape());
+                pub.publish(msg);
+            } catch (RuntimeException e) {
+                // an exception would cancel the periodic task
+                LOG.warn("could not publish metrics: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void destroyNode() {
+            if (task != null) {
+                task.cancel(false);
+            }
+            if (pub != null) {
+                pub.shutdown();
+            }
+        }
+
+        @Override
+        public GraphName getDefaultNodeName() {
+            return GraphName.of("MetricsPublisherRosNode");
+        }
+    }
+
+    private final MetricsNode node;
+
+    /**
+     * @param topic  the topic to publish on
+     * @param period the publishing period in milliseconds
+     */
+    public MetricsPublisherROS(String topic, long period) {
+        node = new MetricsNode(topic, period);
+        try {
+            new RosFactory().spawnRosNode(node, true);
+            LOG.info("publishing metrics on " + topic + " every " + period + "ms");
+        } catch (TimeoutException | ExecutionException | InterruptedException e) {
+            LOG.error("could not start metrics publisher", e);
+        }
+    }
+
+}
@@ -290,7 +290,7 @@ public class ROSController extends RosNode implements SCXMLRemote {
         } catch (ServiceNotFoundException ex) {
             logger.fatal(ex);
         }
-        initialized = true;
+        markInitialized();
     }
 
     @Override
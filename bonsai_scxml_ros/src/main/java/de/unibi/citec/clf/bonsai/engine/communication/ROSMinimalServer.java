@@ -85,7 +85,7 @@ public class ROSMinimalServer extends RosNode implements SCXMLServer {
         stateListPublisher = connectedNode.newPublisher(topicCurrentStates, StateList._TYPE);
         statusPublisher = connectedNode.newPublisher(topicStatus, std_msgs.String._TYPE);
         messageFactory = connectedNode.getTopicMessageFactory();
-        initialized = true;
+        markInitialized();
     }
 
     @Override
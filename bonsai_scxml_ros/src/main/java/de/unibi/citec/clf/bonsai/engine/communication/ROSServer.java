@@ -56,7 +56,7 @@ public class ROSServer extends ROSMinimalServer implements SCXMLServerWithContro
     @Override
     public void onStart(ConnectedNode connectedNode) {
         super.onStart(connectedNode);
-        initialized = false;
+        resetInitialized();
 
         ServiceServer s;
 
@@ -77,7 +77,7 @@ public class ROSServer extends ROSMinimalServer implements SCXMLServerWithContro
         s = connectedNode.newServiceServer(topic + "/" + T_STOP_EVENTS, DisableAutomaticTransitions._TYPE, new StopEventsCallback());
         server.add(s);
 
-        initialized = true;
+        markInitialized();
     }
 
     @Override
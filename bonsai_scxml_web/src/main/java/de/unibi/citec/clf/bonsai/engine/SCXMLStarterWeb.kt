@@ -16,6 +16,7 @@ import io.ktor.server.plugins.contentnegotiation.*
 import io.ktor.server.request.*
 import io.ktor.server.response.*
 import io.ktor.server.routing.*
+import io.ktor.server.sse.*
 import io.ktor.server.util.*
 import kotlinx.html.a
 import kotlinx.html.body
@@ -54,11 +55,16 @@ class SCXMLStarterWeb : SCXMLStarter() {
     override fun createServer(): SCXMLServer {
         srv = WebServer()
         srv!!.setController(stateMachineController)
+        // the server blocks below, so it has to receive the state machine updates before it is started
+        skillStateMachine.addServer(srv)
+        skillStateMachine.addListener(srv!!.transitionPublisher)
+        skillStateMachine.addExceptionHandler(srv)
 
         val server = embeddedServer(Netty, port, host) {
             install(ContentNegotiation) {
                 json()
             }
+            install(SSE)
             routing {
                 serverRoutes(srv!!)
                 get("/") {
@@ -71,6 +77,7 @@ class SCXMLStarterWeb : SCXMLStarter() {
                             }
                             ul {
                                 li { a("/status") { +"Get Current Status" } }
+                                li { a("/bonsai/events") { +"Stream states, transitions, status and skill exceptions" } }
                                 li { a("/skills") { +"Show all Skills" } }
                                 li { a("/skill/dialog.Talk") { +"Get dialog.Talk" } }
                                 li { a("/skill/dialog.nlu.CheckIntent") { +"Get dialog.nlu.CheckIntent" } }
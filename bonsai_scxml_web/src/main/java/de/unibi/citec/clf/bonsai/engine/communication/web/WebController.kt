@@ -1,16 +1,18 @@
 package de.unibi.citec.clf.bonsai.engine.communication.web
 
 import de.unibi.citec.clf.bonsai.engine.communication.SCXMLRemote
-import de.unibi.citec.clf.bonsai.engine.communication.web.model.LoadData
-import de.unibi.citec.clf.bonsai.engine.communication.web.model.StateIds
-import de.unibi.citec.clf.bonsai.engine.communication.web.model.Transitions
+import de.unibi.citec.clf.bonsai.engine.communication.web.model.*
 import io.ktor.client.*
 import io.ktor.client.call.*
 import io.ktor.client.plugins.contentnegotiation.*
+import io.ktor.client.plugins.sse.*
 import io.ktor.client.request.*
 import io.ktor.http.*
 import io.ktor.serialization.kotlinx.json.*
+import io.ktor.sse.*
 import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.decodeFromString
+import kotlinx.serialization.json.Json
 import org.apache.log4j.Logger
 
 
@@ -23,6 +25,35 @@ open class WebController(val host: String, val port: Int) : SCXMLRemote {
         install(ContentNegotiation) {
             json()
         }
+        install(SSE)
+    }
+
+    /**
+     * Receives the updates pushed by the server until the connection is closed.
+     */
+    fun streamEvents(listener: WebEventListener) {
+        runBlocking {
+            client.sse("$bonsai/events") {
+                incoming.collect { dispatch(it, listener) }
+            }
+        }
+    }
+
+    private fun dispatch(event: ServerSentEvent, listener: WebEventListener) {
+        val data = event.data ?: return
+        when (event.event) {
+            WebEventStream.EVENT_STATES -> Json.decodeFromString<StatesUpdate>(data).let {
+                listener.onStates(it.states, it.transitions)
+            }
+            WebEventStream.EVENT_STATUS -> listener.onStatus(Json.decodeFromString<StatusUpdate>(data).status)
+            WebEventStream.EVENT_TRANSITION -> Json.decodeFromString<TransitionUpdate>(data).let {
+                listener.onTransition(it.from, it.to, it.event)
+            }
+            WebEventStream.EVENT_EXCEPTION -> Json.decodeFromString<SkillExceptionUpdate>(data).let {
+                listener.onSkillException(it.type, it.message)
+            }
+            else -> logger?.debug("unknown event ${event.event}")
+        }
     }
 
     override fun fireEvent(event: String): Boolean {
@@ -0,0 +1,16 @@
+package de.unibi.citec.clf.bonsai.engine.communication.web
+
+/**
+ * Receives the updates pushed by the [WebServer], see [WebController.streamEvents].
+ */
+interface WebEventListener {
+
+    fun onStates(states: List<String>, transitions: List<String>)
+
+    fun onTransition(from: String, to: String, event: String)
+
+    fun onStatus(status: String)
+
+    fun onSkillException(type: String, message: String)
+
+}
@@ -0,0 +1,71 @@
+package de.unibi.citec.clf.bonsai.engine.communication.web
+
+import de.unibi.citec.clf.bonsai.engine.communication.web.model.SkillExceptionUpdate
+import de.unibi.citec.clf.bonsai.engine.communication.web.model.StatesUpdate
+import de.unibi.citec.clf.bonsai.engine.communication.web.model.StatusUpdate
+import de.unibi.citec.clf.bonsai.engine.communication.web.model.TransitionUpdate
+import io.ktor.server.sse.*
+import io.ktor.sse.*
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.*
+import kotlinx.serialization.encodeToString
+import kotlinx.serialization.json.Json
+
+/**
+ * Pushes the updates of the state machine to server sent event clients.
+ *
+ * Current states and status are snapshots, a slow client skips intermediate ones and gets the latest. Transitions
+ * and skill exceptions are buffered per client, a client that falls more than `bufferSize` events behind loses the
+ * oldest ones. Publishing never blocks the state machine.
+ */
+class WebEventStream(bufferSize: Int = DEFAULT_BUFFER_SIZE) {
+
+    private val states = MutableStateFlow<StatesUpdate?>(null)
+    private val status = MutableStateFlow<StatusUpdate?>(null)
+    private val events = MutableSharedFlow<ServerSentEvent>(
+        extraBufferCapacity = bufferSize,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+
+    val subscribers: Int
+        get() = events.subscriptionCount.value
+
+    fun publishStates(states: List<String>, transitions: List<String>) {
+        this.states.value = StatesUpdate(states, transitions)
+    }
+
+    fun publishStatus(status: String) {
+        this.status.value = StatusUpdate(status)
+    }
+
+    fun publishTransition(from: String, to: String, event: String) {
+        events.tryEmit(toEvent(EVENT_TRANSITION, TransitionUpdate(from, to, event)))
+    }
+
+    fun publishSkillException(e: Throwable) {
+        events.tryEmit(toEvent(EVENT_EXCEPTION, SkillExceptionUpdate(e.javaClass.name, e.message.toString())))
+    }
+
+    /**
+     * Sends the updates to a client until it disconnects, starting with the latest states and status.
+     */
+    suspend fun stream(session: ServerSSESession) {
+        merge(
+            states.filterNotNull().map { toEvent(EVENT_STATES, it) },
+            status.filterNotNull().map { toEvent(EVENT_STATUS, it) },
+            events
+        ).collect { session.send(it) }
+    }
+
+    companion object {
+        const val DEFAULT_BUFFER_SIZE = 64
+        const val EVENT_STATES = "states"
+        const val EVENT_STATUS = "status"
+        const val EVENT_TRANSITION = "transition"
+        const val EVENT_EXCEPTION = "exception"
+    }
+}
+
+private inline fun <reified T> toEvent(name: String, data: T): ServerSentEvent {
+    return ServerSentEvent(data = Json.encodeToString(data), event = name)
+}
@@ -1,7 +1,9 @@
 package de.unibi.citec.clf.bonsai.engine.communication.web
 
+import de.unibi.citec.clf.bonsai.core.metrics.MetricsRegistry
 import de.unibi.citec.clf.bonsai.engine.SCXMLStarterWeb.Companion.logger
 import de.unibi.citec.clf.bonsai.engine.communication.SCXMLServerWithControl
+import de.unibi.citec.clf.bonsai.engine.communication.StateChangePublisher
 import de.unibi.citec.clf.bonsai.engine.communication.StatemachineStatus
 import de.unibi.citec.clf.bonsai.engine.communication.web.model.LoadData
 import de.unibi.citec.clf.bonsai.engine.communication.web.model.LoadingResult
@@ -9,19 +11,33 @@ import de.unibi.citec.clf.bonsai.engine.communication.web.model.StateIds
 import de.unibi.citec.clf.bonsai.engine.communication.web.model.Transitions
 import de.unibi.citec.clf.bonsai.engine.control.StateMachineController
 import de.unibi.citec.clf.bonsai.engine.scxml.BonsaiTransition
+import de.unibi.citec.clf.bonsai.engine.scxml.SkillExceptionHandler
 import io.ktor.http.*
 import io.ktor.server.request.*
 import io.ktor.server.response.*
 import io.ktor.server.routing.*
+import io.ktor.server.sse.*
 import org.apache.log4j.Logger
 
 
 /**
  * @author lruegeme
  */
-class WebServer : SCXMLServerWithControl {
+class WebServer : SCXMLServerWithControl, SkillExceptionHandler {
     private var smc: StateMachineController? = null
 
+    val events = WebEventStream()
+    val metrics: MetricsRegistry.Scraper = MetricsRegistry.getInstance().newScraper()
+
+    /**
+     * Publishes the transitions to [events], has to be added as listener of the state machine.
+     */
+    val transitionPublisher: StateChangePublisher = object : StateChangePublisher() {
+        override fun publish(from: String?, to: String?, transition: String?) {
+            events.publishTransition(from ?: "", to ?: "", transition ?: "")
+        }
+    }
+
     override fun setController(stateMachineController: StateMachineController?) {
         this.smc = stateMachineController
     }
@@ -36,6 +52,7 @@ class WebServer : SCXMLServerWithControl {
 
     override fun sendCurrentStates(states: MutableList<String?>?) {
         logger.debug("Sending current states")
+        events.publishStates(states?.filterNotNull() ?: listOf(), listOf())
     }
 
     override fun sendCurrentStatesAndTransitions(
@@ -43,10 +60,16 @@ class WebServer : SCXMLServerWithControl {
         transitions: MutableList<BonsaiTransition?>?
     ) {
         logger.debug("Sending current states and transitions")
+        events.publishStates(states?.filterNotNull() ?: listOf(), transitions?.mapNotNull { it?.event } ?: listOf())
     }
 
     override fun sendStatus(status: StatemachineStatus?) {
         logger.debug("Sending current status")
+        status?.let { events.publishStatus(it.name) }
+    }
+
+    override fun handle(e: Throwable) {
+        events.publishSkillException(e)
     }
 
     companion object {
@@ -129,6 +152,12 @@ fun Route.serverRoutes(server: WebServer) {
         get("/states") {
             call.respond(server.getCurrentStates())
         }
+        sse("/events") {
+            server.events.stream(this)
+        }
+        get("/metrics") {
+            call.respondText(server.metrics.scrape(), ContentType.parse("text/plain; version=0.0.4"))
+        }
         post("/stop") {
             server.stop()
             call.respond(HttpStatusCode.OK)
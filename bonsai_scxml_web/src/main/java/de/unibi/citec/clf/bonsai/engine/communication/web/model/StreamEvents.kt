@@ -0,0 +1,15 @@
+package de.unibi.citec.clf.bonsai.engine.communication.web.model
+
+import kotlinx.serialization.Serializable
+
+@Serializable
+data class StatesUpdate(val states: List<String>, val transitions: List<String>)
+
+@Serializable
+data class TransitionUpdate(val from: String, val to: String, val event: String)
+
+@Serializable
+data class StatusUpdate(val status: String)
+
+@Serializable
+data class SkillExceptionUpdate(val type: String, val message: String)
@@ -2,9 +2,11 @@ package de.unibi.citec.clf.bonsai.engine.fxgui.communication.web;
 
 
 import de.unibi.citec.clf.bonsai.engine.communication.web.WebController;
+import de.unibi.citec.clf.bonsai.engine.communication.web.WebEventListener;
 import de.unibi.citec.clf.bonsai.engine.fxgui.communication.FXGUISCXMLRemote;
 import de.unibi.citec.clf.bonsai.engine.fxgui.communication.ICurrentStateListener;
 import de.unibi.citec.clf.bonsai.engine.fxgui.communication.IStateListener;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
@@ -12,10 +14,7 @@ import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * @author lruegeme
@@ -24,80 +23,110 @@ public class RemoteWebController extends WebController implements FXGUISCXMLRemo
 
     private static final org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(RemoteWebController.class);
 
+    private static final long RECONNECT_DELAY = 1000;
+
     private SimpleStringProperty status;
     private boolean running = true;
 
-    private ICurrentStateListener listener;
+    private volatile ICurrentStateListener listener;
+    private volatile IStateListener stateListener;
+    private volatile Thread streamThread;
+    private String lastStatus = null;
 
     public RemoteWebController(@NotNull String host, int port) {
         super(host, port);
         status = new SimpleStringProperty();
     }
+
     @Override
     public void addCurrentStateTrigger(ICurrentStateListener list) {
         listener = list;
-        RemoteWebController r = this;
-
-        Task task = new Task<Void>() {
+        startStream();
+    }
 
-            List<String> old = new LinkedList<>();
+    @Override
+    public void addStateTrigger(IStateListener list) {
+        stateListener = list;
+        if (streamThread != null) {
+            new Thread(this::updateStateIds).start();
+        }
+        startStream();
+    }
 
+    /**
+     * Follows the state machine with the event stream of the server, reconnects if the connection is lost.
+     */
+    private synchronized void startStream() {
+        if (streamThread != null) {
+            return;
+        }
+        RemoteWebController r = this;
+        WebEventListener events = new WebEventListener() {
             @Override
-            protected Void call() throws Exception {
-                while (running) {
-                    List<String> ids = r.getCurrentStates();
-                    List<String> ev = r.getTransitions();
-                    logger.debug("current states: " + ids);
+            public void onStates(@NotNull List<String> states, @NotNull List<String> transitions) {
+                logger.debug("current states: " + states);
 
-                    ObservableList o = FXCollections.observableArrayList();
-                    o.addAll(ids);
-                    if (listener != null) listener.updateStateList(o);
+                ObservableList o = FXCollections.observableArrayList();
+                o.addAll(states);
+                if (listener != null) listener.updateStateList(o);
 
-                    o = FXCollections.observableArrayList();
-                    o.addAll(ev);
-                    if (listener != null) listener.updateEventList(o);
+                o = FXCollections.observableArrayList();
+                o.addAll(transitions);
+                if (listener != null) listener.updateEventList(o);
+            }
 
-                    Thread.sleep(250);
+            @Override
+            public void onTransition(@NotNull String from, @NotNull String to, @NotNull String event) {
+                logger.debug("transition " + from + " -> " + to + " on " + event);
+            }
+
+            @Override
+            public void onStatus(@NotNull String s) {
+                if (!s.equals(lastStatus)) {
+                    lastStatus = s;
+                    Platform.runLater(() -> status.set(s));
+                    // states only change when a state machine is loaded
+                    updateStateIds();
                 }
-                return null;
             }
 
+            @Override
+            public void onSkillException(@NotNull String type, @NotNull String message) {
+                logger.warn("skill exception " + type + ": " + message);
+            }
         };
-        new Thread(task).start();
-
-    }
 
-    @Override
-    public void addStateTrigger(IStateListener list) {
-        RemoteWebController r = this;
         Task task = new Task<Void>() {
 
-            List<String> old = new LinkedList<>();
-
             @Override
             protected Void call() throws Exception {
                 while (running) {
-                    List<String> ids = r.getStateIds();
-                    if (ids != null && changed(ids, old)) {
-                        ObservableList o = FXCollections.observableArrayList();
-                        o.addAll(ids);
-                        list.setStateList(o);
-                        old = ids;
+                    try {
+                        updateStateIds();
+                        r.streamEvents(events);
+                    } catch (Exception e) {
+                        logger.debug("event stream closed: " + e.getMessage());
                     }
-                    Thread.sleep(500);
+                    Thread.sleep(RECONNECT_DELAY);
                 }
                 return null;
             }
 
-            private boolean changed(List<String> evs, List<String> ev) {
-                return (evs.size() != ev.size() ||
-                        !evs.containsAll(ev)
-                );
-            }
-
         };
+        streamThread = new Thread(task);
+        streamThread.start();
+    }
 
-        new Thread(task).start();
+    private void updateStateIds() {
+        if (stateListener == null) {
+            return;
+        }
+        List<String> ids = getStateIds();
+        if (ids != null) {
+            ObservableList o = FXCollections.observableArrayList();
+            o.addAll(ids);
+            stateListener.setStateList(o);
+        }
     }
 
     @Override
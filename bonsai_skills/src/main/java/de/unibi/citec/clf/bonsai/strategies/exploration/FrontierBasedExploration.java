@@ -5,9 +5,9 @@ package de.unibi.citec.clf.bonsai.strategies.exploration;
 import de.unibi.citec.clf.bonsai.core.object.Sensor;
 import de.unibi.citec.clf.bonsai.core.time.Time;
 import de.unibi.citec.clf.bonsai.util.Pair;
+import de.unibi.citec.clf.bonsai.util.slam.NavigationGrid;
+import de.unibi.citec.clf.bonsai.util.slam.NavigationGrid.DistanceField;
 import de.unibi.citec.clf.bonsai.util.slam.SlamTools;
-import de.unibi.citec.clf.bonsai.util.slam.SlamTools.Edge;
-import de.unibi.citec.clf.bonsai.util.slam.SlamTools.Node;
 import de.unibi.citec.clf.btl.data.geometry.Point2DStamped;
 import de.unibi.citec.clf.btl.data.map.Annotation;
 import de.unibi.citec.clf.btl.data.map.BinarySlamMap;
@@ -17,7 +17,6 @@ import de.unibi.citec.clf.btl.data.geometry.Pose2D;
 import de.unibi.citec.clf.btl.units.AngleUnit;
 import de.unibi.citec.clf.btl.units.LengthUnit;
 import de.unibi.citec.clf.btl.units.UnitConverter;
-import edu.uci.ics.jung.graph.Graph;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Graphics;
@@ -28,10 +27,9 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import static java.lang.Math.cos;
 import static java.lang.Math.sin;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 import java.util.Vector;
 import javax.swing.JFrame;
@@ -56,27 +54,21 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 	private static final int DEBUG_HEIGHT = 500;
 	private static final int DEBUG_WIDTH = 500;
 	private static final int ORIENTATION_SEGMENTS = 8;
-	private static final double SLAM_MIDDLE_VALUE = 0.5;
+	static final double SLAM_MIDDLE_VALUE = 0.5;
 	private static final double SLAM_VALUE_TOLERANCE = 0.001;
 	private static final int INITIAL_TIMEOUT = 300;
 
-	/**
-	 * Occupancy definitions.
-	 */
-	private enum Occupancy {
-		UNKNOWN, OBSTACLE, CLEAR
-	}
-
 	private Logger logger = Logger.getLogger(this.getClass());
 
 	private DynamicGridMap currentSlamMap;
 	private DynamicGridMap currentDataMap;
-	private DynamicGridMap oldDataMap;
 	private Object slamLock = new Object();
 	private Random random = new Random(Time.currentTimeMillis());
-	private List<Pair<Integer>> frontiers = new LinkedList<>();
+	private List<Pair<Integer>> frontiers = new ArrayList<>();
 	private Vector<Double> distancesForMean = new Vector<>();
 	private double meanDistance = 0;
+	private NavigationGrid navigationGrid;
+	private DynamicGridMap navigationGridMap;
 
 	// DEBUGGING
 	private boolean debugMode = false;
@@ -87,6 +79,7 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 
 	// Options
 	private Options options;
+	private FrontierDetector detector;
 
 	/**
 	 * Constructs a new instance of this strategy.
@@ -120,6 +113,7 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 			Sensor<DynamicGridMap> frontierSensor, Options options) {
 
 		this.options = options;
+		this.detector = new FrontierDetector(options);
 
 		try {
 			currentSlamMap = slamSensor.readLast(INITIAL_TIMEOUT)
@@ -265,9 +259,12 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 				try {
 					// calculate shortest path using dijkstra algorithm
 					long start = Time.currentTimeMillis();
-					Graph<Node, Edge> graph = SlamTools
-							.generateNavigationGraph(currentSlamMap,
-									options.binsPerNodeInPathPlanning);
+					if (navigationGrid == null || navigationGridMap != currentSlamMap
+							|| navigationGrid.getBinsPerNode() != options.binsPerNodeInPathPlanning) {
+						navigationGrid = new NavigationGrid(currentSlamMap,
+								options.binsPerNodeInPathPlanning);
+						navigationGridMap = currentSlamMap;
+					}
 					long stop = Time.currentTimeMillis();
 					logger.debug("generate nav graph took " + (stop - start)
 							+ MSEC);
@@ -276,8 +273,7 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 					int y = currentSlamMap.getBinYFromPosition(currentPosition);
 
 					start = Time.currentTimeMillis();
-					Map<Node, Number> distances = SlamTools.getDistanceMap(
-							graph, x, y);
+					DistanceField distances = navigationGrid.getDistanceField(x, y);
 					stop = Time.currentTimeMillis();
 					logger.debug("generate dist map took " + (stop - start)
 							+ MSEC);
@@ -287,13 +283,19 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 					distancesForMean.clear();
 					boolean foundReachableFrontier = false;
 
-					for (Pair<Integer> frontier : frontiers) {
-						int i = frontier.getFirst().intValue()
+					int[] xs = new int[frontiers.size()];
+					int[] ys = new int[frontiers.size()];
+					for (int k = 0; k < frontiers.size(); k++) {
+						xs[k] = frontiers.get(k).getFirst().intValue()
 								+ currentSlamMap.getOriginX();
-						int j = frontier.getSecond().intValue()
+						ys[k] = frontiers.get(k).getSecond().intValue()
 								+ currentSlamMap.getOriginY();
-						double distance = SlamTools.getDistance(graph,
-								distances, i, j);
+					}
+					double[] frontierDistances = distances.getDistances(xs, ys);
+
+					for (int k = 0; k < frontiers.size(); k++) {
+						Pair<Integer> frontier = frontiers.get(k);
+						double distance = frontierDistances[k];
 
 						// save mean distance and convert to meter
 						distancesForMean.add(distance
@@ -490,171 +492,10 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 			dataMap = slam;
 		}
 
-		boolean widthEqual = true;
-		boolean heightEqual = true;
-		if (oldDataMap != null) {
-			widthEqual = oldDataMap.getWidth() == dataMap.getWidth();
-			heightEqual = oldDataMap.getHeight() == dataMap.getHeight();
-		}
-
-		logger.debug("checking map");
-
-		// search on map
-		for (int i = 0; i < dataMap.getWidth(); i++) {
-			for (int j = 0; j < dataMap.getHeight(); j++) {
-
-				// check if something altered to previous update
-				if (oldDataMap != null && widthEqual && heightEqual) {
-					if (dataMap.getValue(i, j) == oldDataMap.getValue(i, j)) {
-						continue;
-					}
-				}
-
-				// calculate id relative to coordinate origin
-				int i0 = i - dataMap.getOriginX();
-				int j0 = j - dataMap.getOriginY();
-
-				// remove old frontier
-				frontiers.removeIf(f -> f.getFirst().intValue() == i0
-						&& f.getSecond().intValue() == j0);
-
-				// check if another frontier is near by
-				if (isNearExistingFrontier(dataMap, i, j)) {
-					continue;
-				}
-
-				if (isFrontier(slam, dataMap, i, j)) {
-					frontiers.add(new Pair<>(i0, j0));
-				}
-
-			}
-		}
+		frontiers = detector.update(slam, dataMap);
 		if (frontiers.isEmpty()) {
 			logger.warn("No frontiers found!");
 		}
-
-		oldDataMap = dataMap;
-	}
-
-	private boolean isNearExistingFrontier(DynamicGridMap slamMap, int i, int j) {
-
-		// check only already analysed area
-		for (Pair<Integer> frontier : frontiers) {
-
-			// check only already analysed area
-			int fi = frontier.getFirst().intValue();
-			int fj = frontier.getSecond().intValue();
-
-			// calculate id relative to coordinate origin
-			int i0 = i - slamMap.getOriginX();
-			int j0 = j - slamMap.getOriginY();
-
-			boolean checkedArea = fi < i0 || (fi == i0 && fj < j0);
-
-			if (checkedArea) {
-
-				// check distance distance
-				int distance = (int) Math.sqrt(Math.pow(fi - i0, 2)
-						+ Math.pow(fj - j0, 2));
-
-				if (distance <= options.minBinsDistanceToOtherFrontier) {
-					return true;
-				}
-			}
-		}
-		return false;
-	}
-
-	private boolean isFrontier(DynamicGridMap slamMap, DynamicGridMap dataMap,
-			int i, int j) {
-
-		// check if position is known to be clear
-		if (dataMap.getValue(i, j) == SLAM_MIDDLE_VALUE
-				|| slamMap.getValue(i, j) <= SLAM_MIDDLE_VALUE) {
-			return false;
-		}
-
-		// check neighborhood
-		boolean foundUnknown = false;
-		boolean foundObstacle = false;
-		DynamicGridMap d = dataMap;
-		switch (options.neighborhood) {
-		case EIGHT_CELL:
-
-			if (isUnknown(d, i - 1, j - 1) || isUnknown(d, i + 1, j - 1)
-					|| isUnknown(d, i - 1, j + 1) || isUnknown(d, i + 1, j + 1)) {
-				foundUnknown = true;
-			}
-			if (isUnknown(d, i, j - 1) || isUnknown(d, i, j + 1)
-					|| isUnknown(d, i - 1, j) || isUnknown(d, i + 1, j)) {
-				foundUnknown = true;
-			}
-			break;
-
-		case FOUR_CELL:
-
-			if (isUnknown(d, i, j - 1) || isUnknown(d, i, j + 1)
-					|| isUnknown(d, i - 1, j) || isUnknown(d, i + 1, j)) {
-				foundUnknown = true;
-			}
-
-			break;
-
-		default:
-			break;
-		}
-
-		int bins = options.minBinsDistanceToObstacle;
-		for (int x = i - bins; x < i + bins; x++) {
-			for (int y = j - bins; y < j + bins; y++) {
-
-				if (isObstacle(slamMap, x, y)) {
-					foundObstacle = true;
-				}
-			}
-		}
-
-		// if an obstacle is in the neighborhood, this is not really an
-		// interesting frontier.
-		if (foundObstacle) {
-			return false;
-		}
-
-		// if the known area borders an unknown area, this is an interesting
-		// frontier.
-		if (foundUnknown) {
-			return true;
-		}
-
-		// otherwise this is not a frontier
-		return false;
-	}
-
-	private boolean isUnknown(DynamicGridMap slamMap, int i, int j) {
-		return checkOccupancy(slamMap, i, j) == Occupancy.UNKNOWN;
-	}
-
-	private boolean isObstacle(DynamicGridMap slamMap, int i, int j) {
-		return checkOccupancy(slamMap, i, j) == Occupancy.OBSTACLE;
-	}
-
-	private Occupancy checkOccupancy(DynamicGridMap slamMap, int i, int j) {
-
-		if (i < 0 || j < 0 || i >= slamMap.getWidth()
-				|| j >= slamMap.getHeight()) {
-			return Occupancy.OBSTACLE;
-		}
-
-		float value = slamMap.getValue(i, j);
-
-		double tolerance = options.toleranceForSlamMiddleValue;
-		if (value < SLAM_MIDDLE_VALUE - tolerance) {
-			return Occupancy.OBSTACLE;
-		} else if (value < SLAM_MIDDLE_VALUE + tolerance) {
-			return Occupancy.UNKNOWN;
-		} else {
-			return Occupancy.CLEAR;
-		}
 	}
 
 	private void debug(List<Pair<Integer>> frontiers, Pose2D chosen,
@@ -888,6 +729,11 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 		 */
 		public static final Neighborhood DEFAULT_NEIGHBORHOOD = Neighborhood.FOUR_CELL;
 
+		/**
+		 * Search changed parts of large maps on all cores.
+		 */
+		public static final boolean DEFAULT_PARALLEL_UPDATE = true;
+
 		// CHECKSTYLE:OFF
 		public int binsPerNodeInPathPlanning = DEFAULT_BINS_PER_NODE;
 		public int numFrontiersForMeanDistance = DEFAULT_MEAN_DIST_NUM;
@@ -897,5 +743,6 @@ public class FrontierBasedExploration implements ExplorationStrategy {
 		public double goalDistanceToTurnInPlace = DEFAULT_TURN_DISTANCE;
 		public Variant variant = DEFAULT_VARIANT;
 		public Neighborhood neighborhood = DEFAULT_NEIGHBORHOOD;
+		public boolean parallelUpdate = DEFAULT_PARALLEL_UPDATE;
 	}
 }
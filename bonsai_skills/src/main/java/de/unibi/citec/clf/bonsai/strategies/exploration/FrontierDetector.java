@@ -0,0 +1,329 @@
+package de.unibi.citec.clf.bonsai.strategies.exploration;
+
+import de.unibi.citec.clf.bonsai.strategies.exploration.FrontierBasedExploration.Options;
+import de.unibi.citec.clf.bonsai.util.Pair;
+import de.unibi.citec.clf.btl.data.map.GridMap;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Incremental frontier search for the {@link FrontierBasedExploration}.
+ * <p>
+ * The map is divided into tiles. An update only searches the tiles that changed since the previous update, plus the
+ * tiles whose neighborhood, obstacle window or frontier distance reaches into a changed tile. Frontiers are kept in a
+ * grid index of these tiles, so the distance check to other frontiers only looks at nearby tiles. The obstacle window
+ * of a cell is answered by a mask that is precomputed once per slam map. Tiles are searched in parallel, the found
+ * frontiers are then accepted in the order of a full scan of the map, so the distance check gives the same result as
+ * a scan.
+ */
+class FrontierDetector {
+
+    /**
+     * Edge length of a tile in bins.
+     */
+    static final int TILE_SIZE = 32;
+
+    private final Logger logger = Logger.getLogger(getClass());
+    private final Options options;
+
+    private GridMap lastData;
+    private GridMap lastSlam;
+    private int width;
+    private int height;
+    private int originX;
+    private int originY;
+    private int tilesX;
+    private int tilesY;
+    /**
+     * Accepted frontiers of every tile, {@code null} for tiles without frontiers.
+     */
+    private List<List<Pair<Integer>>> tiles;
+
+    /**
+     * Cells with an obstacle in their window, column major like the grid map.
+     */
+    private boolean[] nearObstacle;
+    private int maskWidth;
+    private int maskHeight;
+
+    FrontierDetector(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * Searches the changed parts of the maps for frontiers.
+     *
+     * @param slam    the slam map, used for the obstacle check
+     * @param dataMap the map to search for frontiers, may be the slam map
+     * @return all frontiers, relative to the map origin
+     */
+    List<Pair<Integer>> update(GridMap slam, GridMap dataMap) {
+        boolean full = lastData == null
+                || dataMap.getWidth() != width || dataMap.getHeight() != height
+                || dataMap.getOriginX() != originX || dataMap.getOriginY() != originY;
+        boolean slamChanged = slam != lastSlam;
+        if (slamChanged && (lastSlam == null || slam.getWidth() != lastSlam.getWidth()
+                || slam.getHeight() != lastSlam.getHeight())) {
+            full = true;
+        }
+        if (slamChanged) {
+            buildObstacleMask(slam);
+        }
+
+        boolean[] dirty;
+        if (full) {
+            reset(dataMap);
+            dirty = new boolean[tilesX * tilesY];
+            Arrays.fill(dirty, true);
+        } else {
+            boolean[] changed = changedTiles(dataMap, lastData);
+            if (slamChanged && slam != dataMap) {
+                boolean[] slamChangedTiles = changedTiles(slam, lastSlam);
+                for (int t = 0; t < changed.length; t++) {
+                    changed[t] |= slamChangedTiles[t];
+                }
+            }
+            dirty = dilate(changed);
+        }
+        lastData = dataMap;
+        lastSlam = slam;
+
+        long[] candidates = range(dirty.length)
+                .filter(t -> dirty[t])
+                .mapToObj(t -> searchTile(slam, dataMap, t))
+                .flatMapToLong(found -> found)
+                .toArray();
+        Arrays.sort(candidates);
+
+        int count = 0;
+        for (int t = 0; t < dirty.length; t++) {
+            if (dirty[t]) {
+                tiles.set(t, null);
+                count++;
+            }
+        }
+        for (long cell : candidates) {
+            int i = (int) (cell >>> 32);
+            int j = (int) cell;
+            if (!isNearExistingFrontier(i, j)) {
+                int t = tileOf(i, j);
+                if (tiles.get(t) == null) {
+                    tiles.set(t, new ArrayList<>());
+                }
+                tiles.get(t).add(new Pair<>(i - originX, j - originY));
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("searched " + count + " of " + dirty.length + " tiles, "
+                    + candidates.length + " candidates");
+        }
+
+        List<Pair<Integer>> frontiers = new ArrayList<>();
+        for (List<Pair<Integer>> tile : tiles) {
+            if (tile != null) {
+                frontiers.addAll(tile);
+            }
+        }
+        return frontiers;
+    }
+
+    private void reset(GridMap dataMap) {
+        width = dataMap.getWidth();
+        height = dataMap.getHeight();
+        originX = dataMap.getOriginX();
+        originY = dataMap.getOriginY();
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        tiles = new ArrayList<>(Collections.nCopies(tilesX * tilesY, null));
+    }
+
+    private IntStream range(int end) {
+        IntStream range = IntStream.range(0, end);
+        return options.parallelUpdate ? range.parallel() : range;
+    }
+
+    private int tileOf(int i, int j) {
+        return (i / TILE_SIZE) * tilesY + j / TILE_SIZE;
+    }
+
+    private boolean[] changedTiles(GridMap map, GridMap old) {
+        boolean[] changed = new boolean[tilesX * tilesY];
+        range(changed.length).forEach(t -> {
+            int i0 = (t / tilesY) * TILE_SIZE;
+            int j0 = (t % tilesY) * TILE_SIZE;
+            int i1 = Math.min(i0 + TILE_SIZE, width);
+            int j1 = Math.min(j0 + TILE_SIZE, height);
+            for (int i = i0; i < i1; i++) {
+                for (int j = j0; j < j1; j++) {
+                    if (map.getValue(i, j) != old.getValue(i, j)) {
+                        changed[t] = true;
+                        return;
+                    }
+                }
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Extends the changed tiles by the tiles whose cells look into them, either with their neighborhood and
+     * obstacle window or with the minimal distance to other frontiers. Frontiers that are only rejected through a
+     * chain of frontiers reaching further than this distance are not searched again until their tile changes.
+     */
+    private boolean[] dilate(boolean[] changed) {
+        int reach = Math.max(1, Math.max(options.minBinsDistanceToObstacle, options.minBinsDistanceToOtherFrontier));
+        int margin = (reach + TILE_SIZE - 1) / TILE_SIZE;
+        boolean[] dirty = new boolean[changed.length];
+        for (int t = 0; t < changed.length; t++) {
+            if (!changed[t]) {
+                continue;
+            }
+            int tx = t / tilesY;
+            int ty = t % tilesY;
+            for (int x = Math.max(0, tx - margin); x <= Math.min(tilesX - 1, tx + margin); x++) {
+                for (int y = Math.max(0, ty - margin); y <= Math.min(tilesY - 1, ty + margin); y++) {
+                    dirty[x * tilesY + y] = true;
+                }
+            }
+        }
+        return dirty;
+    }
+
+    private LongStream searchTile(GridMap slam, GridMap dataMap, int t) {
+        int i0 = (t / tilesY) * TILE_SIZE;
+        int j0 = (t % tilesY) * TILE_SIZE;
+        int i1 = Math.min(i0 + TILE_SIZE, width);
+        int j1 = Math.min(j0 + TILE_SIZE, height);
+        LongStream.Builder found = LongStream.builder();
+        for (int i = i0; i < i1; i++) {
+            for (int j = j0; j < j1; j++) {
+                if (isFrontier(slam, dataMap, i, j)) {
+                    found.add(((long) i << 32) | j);
+                }
+            }
+        }
+        return found.build();
+    }
+
+    /**
+     * Checks for frontiers within the minimal distance that a scan of the map would have accepted before the cell.
+     */
+    private boolean isNearExistingFrontier(int i, int j) {
+        int minDistance = options.minBinsDistanceToOtherFrontier;
+        if (minDistance < 0) {
+            return false;
+        }
+        int i0 = i - originX;
+        int j0 = j - originY;
+        int txMin = Math.max(0, (i - minDistance) / TILE_SIZE);
+        int txMax = Math.min(tilesX - 1, (i + minDistance) / TILE_SIZE);
+        int tyMin = Math.max(0, (j - minDistance) / TILE_SIZE);
+        int tyMax = Math.min(tilesY - 1, (j + minDistance) / TILE_SIZE);
+        for (int tx = txMin; tx <= txMax; tx++) {
+            for (int ty = tyMin; ty <= tyMax; ty++) {
+                List<Pair<Integer>> tile = tiles.get(tx * tilesY + ty);
+                if (tile == null) {
+                    continue;
+                }
+                for (Pair<Integer> frontier : tile) {
+                    int fi = frontier.getFirst();
+                    int fj = frontier.getSecond();
+                    boolean checkedArea = fi < i0 || (fi == i0 && fj < j0);
+                    if (checkedArea) {
+                        int distance = (int) Math.sqrt(Math.pow(fi - i0, 2) + Math.pow(fj - j0, 2));
+                        if (distance <= minDistance) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isFrontier(GridMap slamMap, GridMap dataMap, int i, int j) {
+
+        // check if position is known to be clear
+        if (dataMap.getValue(i, j) == FrontierBasedExploration.SLAM_MIDDLE_VALUE || slamMap.getValue(i, j) <= FrontierBasedExploration.SLAM_MIDDLE_VALUE) {
+            return false;
+        }
+
+        // if an obstacle is in the neighborhood, this is not really an interesting frontier.
+        if (i >= maskWidth || j >= maskHeight || nearObstacle[i * maskHeight + j]) {
+            return false;
+        }
+
+        // if the known area borders an unknown area, this is an interesting frontier.
+        GridMap d = dataMap;
+        switch (options.neighborhood) {
+            case EIGHT_CELL:
+                if (isUnknown(d, i - 1, j - 1) || isUnknown(d, i + 1, j - 1)
+                        || isUnknown(d, i - 1, j + 1) || isUnknown(d, i + 1, j + 1)) {
+                    return true;
+                }
+                return isUnknown(d, i, j - 1) || isUnknown(d, i, j + 1)
+                        || isUnknown(d, i - 1, j) || isUnknown(d, i + 1, j);
+            case FOUR_CELL:
+                return isUnknown(d, i, j - 1) || isUnknown(d, i, j + 1)
+                        || isUnknown(d, i - 1, j) || isUnknown(d, i + 1, j);
+            default:
+                return false;
+        }
+    }
+
+    private boolean isUnknown(GridMap map, int i, int j) {
+        if (i < 0 || j < 0 || i >= map.getWidth() || j >= map.getHeight()) {
+            return false;
+        }
+        float value = map.getValue(i, j);
+        double tolerance = options.toleranceForSlamMiddleValue;
+        return value >= FrontierBasedExploration.SLAM_MIDDLE_VALUE - tolerance && value < FrontierBasedExploration.SLAM_MIDDLE_VALUE + tolerance;
+    }
+
+    private boolean isObstacle(GridMap map, int i, int j) {
+        return map.getValue(i, j) < FrontierBasedExploration.SLAM_MIDDLE_VALUE - options.toleranceForSlamMiddleValue;
+    }
+
+    /**
+     * Marks every cell with an obstacle in the window <code>[i - bins, i + bins) x [j - bins, j + bins)</code>,
+     * cells outside of the map count as obstacles. The window is separable, so a sliding count along the rows
+     * followed by one along the columns computes the mask in linear time for any window size.
+     */
+    private void buildObstacleMask(GridMap slam) {
+        int w = slam.getWidth();
+        int h = slam.getHeight();
+        int bins = options.minBinsDistanceToObstacle;
+        boolean[] mask = new boolean[w * h];
+        if (bins > 0) {
+            boolean[] rows = new boolean[w * h];
+            range(h).forEach(j -> {
+                int[] count = new int[w + 1];
+                for (int i = 0; i < w; i++) {
+                    count[i + 1] = count[i] + (isObstacle(slam, i, j) ? 1 : 0);
+                }
+                for (int i = 0; i < w; i++) {
+                    rows[i * h + j] = i - bins < 0 || i + bins > w || count[i + bins] - count[i - bins] > 0;
+                }
+            });
+            range(w).forEach(i -> {
+                int[] count = new int[h + 1];
+                for (int j = 0; j < h; j++) {
+                    count[j + 1] = count[j] + (rows[i * h + j] ? 1 : 0);
+                }
+                for (int j = 0; j < h; j++) {
+                    mask[i * h + j] = j - bins < 0 || j + bins > h || count[j + bins] - count[j - bins] > 0;
+                }
+            });
+        }
+        nearObstacle = mask;
+        maskWidth = w;
+        maskHeight = h;
+    }
+
+}
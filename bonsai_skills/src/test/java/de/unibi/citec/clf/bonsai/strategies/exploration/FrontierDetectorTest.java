@@ -0,0 +1,228 @@
+package de.unibi.citec.clf.bonsai.strategies.exploration;
+
+import de.unibi.citec.clf.bonsai.strategies.exploration.FrontierBasedExploration.Options;
+import de.unibi.citec.clf.bonsai.util.Pair;
+import de.unibi.citec.clf.btl.data.common.Timestamp;
+import de.unibi.citec.clf.btl.data.map.DynamicGridMap;
+import de.unibi.citec.clf.btl.data.map.GridMap;
+import de.unibi.citec.clf.btl.units.LengthUnit;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FrontierDetectorTest {
+
+    private static final float UNKNOWN = 0.5f;
+    private static final float CLEAR = 1.0f;
+    private static final float OBSTACLE = 0.0f;
+
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 110;
+
+    private static DynamicGridMap map(float[] cells, int originX, int originY) {
+        return new DynamicGridMap(WIDTH, HEIGHT, cells.clone(), new Timestamp(), originX, originY, 0.05,
+                LengthUnit.METER);
+    }
+
+    /**
+     * Unknown map with explored discs and a few obstacles, column major.
+     */
+    private static float[] explored(Random random, int discs) {
+        float[] cells = new float[WIDTH * HEIGHT];
+        Arrays.fill(cells, UNKNOWN);
+        for (int d = 0; d < discs; d++) {
+            explore(cells, random.nextInt(WIDTH), random.nextInt(HEIGHT), 8 + random.nextInt(20));
+        }
+        for (int o = 0; o < 20; o++) {
+            cells[random.nextInt(WIDTH) * HEIGHT + random.nextInt(HEIGHT)] = OBSTACLE;
+        }
+        return cells;
+    }
+
+    private static void explore(float[] cells, int ci, int cj, int radius) {
+        for (int i = Math.max(0, ci - radius); i < Math.min(WIDTH, ci + radius); i++) {
+            for (int j = Math.max(0, cj - radius); j < Math.min(HEIGHT, cj + radius); j++) {
+                if ((i - ci) * (i - ci) + (j - cj) * (j - cj) <= radius * radius && cells[i * HEIGHT + j] == UNKNOWN) {
+                    cells[i * HEIGHT + j] = CLEAR;
+                }
+            }
+        }
+    }
+
+    private static Options options(Options.Neighborhood neighborhood, boolean parallel) {
+        Options options = new Options();
+        options.minBinsDistanceToObstacle = 3;
+        options.minBinsDistanceToOtherFrontier = 4;
+        options.neighborhood = neighborhood;
+        options.parallelUpdate = parallel;
+        return options;
+    }
+
+    private static Set<List<Integer>> asSet(List<Pair<Integer>> frontiers) {
+        Set<List<Integer>> set = new HashSet<>();
+        for (Pair<Integer> f : frontiers) {
+            set.add(Arrays.asList(f.getFirst(), f.getSecond()));
+        }
+        assertEquals("duplicate frontiers", frontiers.size(), set.size());
+        return set;
+    }
+
+    @Test
+    public void sameAsScanTest() {
+        Random random = new Random(42);
+        for (Options.Neighborhood neighborhood : Options.Neighborhood.values()) {
+            for (int round = 0; round < 5; round++) {
+                DynamicGridMap map = map(explored(random, 4 + round), 20, -7);
+                Options options = options(neighborhood, round % 2 == 0);
+
+                List<Pair<Integer>> expected = new ScanDetector(options).scan(map, map);
+                List<Pair<Integer>> actual = new FrontierDetector(options).update(map, map);
+
+                assertFalse(expected.isEmpty());
+                assertEquals(asSet(expected), asSet(actual));
+            }
+        }
+    }
+
+    @Test
+    public void separateSlamMapTest() {
+        Random random = new Random(7);
+        float[] cells = explored(random, 6);
+        DynamicGridMap data = map(cells, 0, 0);
+        float[] slamCells = cells.clone();
+        for (int o = 0; o < 200; o++) {
+            slamCells[random.nextInt(WIDTH) * HEIGHT + random.nextInt(HEIGHT)] = OBSTACLE;
+        }
+        DynamicGridMap slam = map(slamCells, 0, 0);
+        Options options = options(Options.Neighborhood.EIGHT_CELL, true);
+
+        assertEquals(asSet(new ScanDetector(options).scan(slam, data)),
+                asSet(new FrontierDetector(options).update(slam, data)));
+    }
+
+    @Test
+    public void incrementalUpdateTest() {
+        Random random = new Random(3);
+        Options options = options(Options.Neighborhood.FOUR_CELL, true);
+        // the frontier distance reaches further than the obstacle window and a tile
+        options.minBinsDistanceToOtherFrontier = FrontierDetector.TILE_SIZE + 8;
+        FrontierDetector detector = new FrontierDetector(options);
+        float[] cells = explored(random, 3);
+        detector.update(map(cells, 0, 0), map(cells, 0, 0));
+
+        for (int step = 0; step < 10; step++) {
+            explore(cells, random.nextInt(WIDTH), random.nextInt(HEIGHT), 5 + random.nextInt(10));
+            DynamicGridMap map = map(cells, 0, 0);
+
+            List<Pair<Integer>> incremental = detector.update(map, map);
+            List<Pair<Integer>> full = new FrontierDetector(options).update(map, map);
+
+            assertEquals("step " + step, asSet(full), asSet(incremental));
+        }
+    }
+
+    /**
+     * The full scan of the map that FrontierBasedExploration used before the FrontierDetector.
+     */
+    private static class ScanDetector {
+
+        private final Options options;
+        private final List<Pair<Integer>> frontiers = new ArrayList<>();
+
+        ScanDetector(Options options) {
+            this.options = options;
+        }
+
+        List<Pair<Integer>> scan(GridMap slam, GridMap dataMap) {
+            for (int i = 0; i < dataMap.getWidth(); i++) {
+                for (int j = 0; j < dataMap.getHeight(); j++) {
+                    int i0 = i - dataMap.getOriginX();
+                    int j0 = j - dataMap.getOriginY();
+                    if (isNearExistingFrontier(dataMap, i, j)) {
+                        continue;
+                    }
+                    if (isFrontier(slam, dataMap, i, j)) {
+                        frontiers.add(new Pair<>(i0, j0));
+                    }
+                }
+            }
+            return frontiers;
+        }
+
+        private boolean isNearExistingFrontier(GridMap map, int i, int j) {
+            for (Pair<Integer> frontier : frontiers) {
+                int fi = frontier.getFirst();
+                int fj = frontier.getSecond();
+                int i0 = i - map.getOriginX();
+                int j0 = j - map.getOriginY();
+                boolean checkedArea = fi < i0 || (fi == i0 && fj < j0);
+                if (checkedArea) {
+                    int distance = (int) Math.sqrt(Math.pow(fi - i0, 2) + Math.pow(fj - j0, 2));
+                    if (distance <= options.minBinsDistanceToOtherFrontier) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean isFrontier(GridMap slamMap, GridMap dataMap, int i, int j) {
+            if (dataMap.getValue(i, j) == FrontierBasedExploration.SLAM_MIDDLE_VALUE
+                    || slamMap.getValue(i, j) <= FrontierBasedExploration.SLAM_MIDDLE_VALUE) {
+                return false;
+            }
+            boolean foundUnknown = false;
+            switch (options.neighborhood) {
+                case EIGHT_CELL:
+                    foundUnknown = isUnknown(dataMap, i - 1, j - 1) || isUnknown(dataMap, i + 1, j - 1)
+                            || isUnknown(dataMap, i - 1, j + 1) || isUnknown(dataMap, i + 1, j + 1);
+                    // fall through
+                case FOUR_CELL:
+                    foundUnknown |= isUnknown(dataMap, i, j - 1) || isUnknown(dataMap, i, j + 1)
+                            || isUnknown(dataMap, i - 1, j) || isUnknown(dataMap, i + 1, j);
+                    break;
+                default:
+                    break;
+            }
+            int bins = options.minBinsDistanceToObstacle;
+            for (int x = i - bins; x < i + bins; x++) {
+                for (int y = j - bins; y < j + bins; y++) {
+                    if (occupancy(slamMap, x, y) < 0) {
+                        return false;
+                    }
+                }
+            }
+            return foundUnknown;
+        }
+
+        private boolean isUnknown(GridMap map, int i, int j) {
+            return occupancy(map, i, j) == 0;
+        }
+
+        /**
+         * -1 for obstacles and cells outside of the map, 0 for unknown and 1 for clear cells.
+         */
+        private int occupancy(GridMap map, int i, int j) {
+            if (i < 0 || j < 0 || i >= map.getWidth() || j >= map.getHeight()) {
+                return -1;
+            }
+            float value = map.getValue(i, j);
+            double tolerance = options.toleranceForSlamMiddleValue;
+            if (value < FrontierBasedExploration.SLAM_MIDDLE_VALUE - tolerance) {
+                return -1;
+            } else if (value < FrontierBasedExploration.SLAM_MIDDLE_VALUE + tolerance) {
+                return 0;
+            }
+            return 1;
+        }
+    }
+
+}